@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import axios from 'axios';
 import PersonList from './components/PersonList';
 import ETLButton from './components/ETLButton';
@@ -9,12 +9,29 @@ import './App.css';
 const API_URL = process.env.REACT_APP_API_URL
   || (window.location.hostname === 'localhost' ? 'http://localhost:8080' : '/api');
 
+// Applies a change feed to the list, in version order
+function applyChanges(persons, changes) {
+  const byId = new Map(persons.map((person) => [person.id, person]));
+  changes.forEach((change) => {
+    if (change.operation === 'DELETE') {
+      byId.delete(change.id);
+    } else {
+      byId.set(change.id, { id: change.id, name: change.name });
+    }
+  });
+  return Array.from(byId.values());
+}
+
 function App() {
   const [persons, setPersons] = useState([]);
   const [loading, setLoading] = useState(false);
   const [message, setMessage] = useState({ text: '', type: '' });
   const [etlStats, setEtlStats] = useState(null);
 
+  // ETag of the last full list and change version it reflects; null until the first load
+  const etag = useRef(null);
+  const version = useRef(null);
+
   useEffect(() => {
     fetchPersons();
   }, []);
@@ -22,8 +39,15 @@ function App() {
   const fetchPersons = async () => {
     setLoading(true);
     try {
-      const response = await axios.get(`${API_URL}/person/all`);
-      setPersons(response.data);
+      const response = await axios.get(`${API_URL}/person/all`, {
+        headers: etag.current ? { 'If-None-Match': etag.current } : {},
+        validateStatus: (status) => status === 200 || status === 304
+      });
+      if (response.status === 200) {
+        setPersons(response.data);
+        etag.current = response.headers.etag || null;
+        version.current = etag.current ? Number(etag.current.replace(/"/g, '')) : null;
+      }
       setMessage({ text: '', type: '' });
     } catch (error) {
       console.error('Error fetching persons:', error);
@@ -33,11 +57,33 @@ function App() {
     }
   };
 
+  // Applies the changes since the last known version; reloads the list when the server asks for it
+  const syncPersons = async () => {
+    if (version.current === null) {
+      return fetchPersons();
+    }
+    try {
+      const response = await axios.get(`${API_URL}/person/changes?since=${version.current}`);
+      const feed = response.data;
+      if (feed.full) {
+        return fetchPersons();
+      }
+      if (feed.changes.length > 0) {
+        setPersons((current) => applyChanges(current, feed.changes));
+      }
+      version.current = feed.version;
+      etag.current = `"${feed.version}"`;
+    } catch (error) {
+      console.error('Error syncing persons:', error);
+      fetchPersons();
+    }
+  };
+
   const createPerson = async (name) => {
     try {
       await axios.post(`${API_URL}/person/create?name=${encodeURIComponent(name)}`);
       setMessage({ text: '✅ Person created successfully!', type: 'success' });
-      fetchPersons();
+      syncPersons();
     } catch (error) {
       console.error('Error creating person:', error);
       setMessage({ text: '❌ Error creating person', type: 'error' });
@@ -48,7 +94,7 @@ function App() {
     try {
       await axios.put(`${API_URL}/person/${id}?name=${encodeURIComponent(name)}`);
       setMessage({ text: '✅ Person updated successfully!', type: 'success' });
-      fetchPersons();
+      syncPersons();
     } catch (error) {
       console.error('Error updating person:', error);
       setMessage({ text: '❌ Error updating person', type: 'error' });
@@ -59,7 +105,7 @@ function App() {
     try {
       await axios.delete(`${API_URL}/person/${id}`);
       setMessage({ text: '✅ Person deleted successfully!', type: 'success' });
-      fetchPersons();
+      syncPersons();
     } catch (error) {
       console.error('Error deleting person:', error);
       setMessage({ text: '❌ Error deleting person', type: 'error' });
@@ -70,7 +116,7 @@ function App() {
     try {
       await axios.delete(`${API_URL}/person/all`);
       setMessage({ text: `✅ All persons deleted successfully!`, type: 'success' });
-      fetchPersons();
+      syncPersons();
     } catch (error) {
       console.error('Error deleting all persons:', error);
       setMessage({ text: '❌ Error deleting all persons', type: 'error' });
@@ -119,7 +165,7 @@ function App() {
       }
 
       setEtlStats(response.data);
-      fetchPersons();
+      syncPersons();
     } catch (error) {
       console.error('Error running ETL:', error);
       setMessage({
@@ -1,13 +1,31 @@
 package com.example.demo;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
 
 @SpringBootApplication
 public class DemoApplication {
 
 	public static void main(String[] args) {
+		if (isRunnerMode(args)) {
+			// Headless: no web server, lazy beans, run the job and exit with its status
+			ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoApplication.class)
+					.web(WebApplicationType.NONE)
+					.profiles("runner")
+					.lazyInitialization(true)
+					.run(args);
+			System.exit(SpringApplication.exit(context));
+		}
 		SpringApplication.run(DemoApplication.class, args);
 	}
 
+	private static boolean isRunnerMode(String[] args) {
+		return Arrays.stream(args).anyMatch(arg -> arg.startsWith("--etl.runner.job="));
+	}
+
 }
@@ -0,0 +1,214 @@
+package com.example.demo.batch.admission;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admission control for job launches
+ *
+ * HOW IT WORKS:
+ * - Every launch asks for a permit, stating how many pooled connections the job holds while it runs
+ * - A job is admitted when fewer than etl.admission.max-concurrent-jobs jobs run and its connections
+ *   fit in the budget (pool size minus etl.admission.reserved-connections kept for web requests)
+ * - Otherwise it waits in a priority queue (HIGH, NORMAL, LOW; FIFO within a priority). Only the
+ *   head of the queue can be admitted, so a large job is not starved by a stream of small ones
+ * - A launch is rejected when the queue is full or it waited longer than etl.admission.max-wait-ms
+ *
+ * Besides the Spring Batch jobs, /etl/bulk (one connection per worker) and the join phase of
+ * /etl/merge-load (two connections) take permits here.
+ * Work queue partitions run on the worker threads of WorkQueueWorker and are not counted here.
+ */
+@Component
+public class JobAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobAdmissionController.class);
+
+    public enum Priority {
+        HIGH, NORMAL, LOW;
+
+        /**
+         * @throws IllegalArgumentException for an unknown priority
+         */
+        public static Priority parse(String value) {
+            if (value == null || value.isBlank()) {
+                return NORMAL;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown priority: " + value + " (high, normal or low)");
+            }
+        }
+    }
+
+    private final int maxConcurrentJobs;
+    private final int connectionBudget;
+    private final int queueCapacity;
+    private final long maxWaitMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Ticket> queue = new PriorityQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private int runningJobs;
+    private int usedConnections;
+
+    public JobAdmissionController(DataSource dataSource,
+                                  @Value("${etl.admission.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                  @Value("${etl.admission.connection-budget:0}") int connectionBudget,
+                                  @Value("${etl.admission.reserved-connections:3}") int reservedConnections,
+                                  @Value("${etl.admission.queue-capacity:20}") int queueCapacity,
+                                  @Value("${etl.admission.max-wait-ms:300000}") long maxWaitMs) {
+        this.maxConcurrentJobs = Math.max(1, maxConcurrentJobs);
+        this.connectionBudget = connectionBudget > 0
+                ? connectionBudget
+                : Math.max(1, poolSize(dataSource) - reservedConnections);
+        this.queueCapacity = queueCapacity;
+        this.maxWaitMs = maxWaitMs;
+        logger.info("Job admission: at most {} concurrent jobs within {} connections", this.maxConcurrentJobs,
+                this.connectionBudget);
+    }
+
+    /**
+     * Waits until the job can run
+     * @param jobName For logging
+     * @param connections Pooled connections the job holds while it runs (capped at the budget)
+     * @param priority Order among waiting jobs
+     * @return a permit to close when the job has finished
+     * @throws JobRejectedException when the queue is full or the wait times out
+     */
+    public Permit admit(String jobName, int connections, Priority priority) throws InterruptedException {
+        Ticket ticket = new Ticket(jobName, Math.max(1, Math.min(connections, connectionBudget)), priority,
+                sequence.incrementAndGet());
+        lock.lock();
+        try {
+            if (queue.isEmpty() && fits(ticket)) {
+                return start(ticket, 0);
+            }
+            if (queue.size() >= queueCapacity) {
+                throw new JobRejectedException("Job queue is full (" + queueCapacity + " waiting), try again later");
+            }
+            queue.add(ticket);
+            logger.info("Job {} queued ({} priority, {} connections): {} running, {} waiting",
+                    jobName, priority, ticket.connections, runningJobs, queue.size());
+
+            long start = System.nanoTime();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+            try {
+                while (queue.peek() != ticket || !fits(ticket)) {
+                    if (remaining <= 0) {
+                        throw new JobRejectedException("Job " + jobName + " waited " + maxWaitMs
+                                + " ms without being admitted, try again later");
+                    }
+                    remaining = changed.awaitNanos(remaining);
+                }
+            } finally {
+                queue.remove(ticket);
+                changed.signalAll(); // The next ticket may now be at the head
+            }
+            return start(ticket, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Pooled connections shared by admitted jobs; callers size their parallelism to fit
+     */
+    public int connectionBudget() {
+        return connectionBudget;
+    }
+
+    public Snapshot snapshot() {
+        lock.lock();
+        try {
+            return new Snapshot(runningJobs, maxConcurrentJobs, usedConnections, connectionBudget, queue.size(),
+                    queueCapacity);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(Ticket ticket) {
+        return runningJobs < maxConcurrentJobs && usedConnections + ticket.connections <= connectionBudget;
+    }
+
+    private Permit start(Ticket ticket, long waitedMs) {
+        runningJobs++;
+        usedConnections += ticket.connections;
+        logger.info("Job {} admitted after {} ms: {} running, {}/{} connections", ticket.jobName, waitedMs,
+                runningJobs, usedConnections, connectionBudget);
+        return new Permit(ticket);
+    }
+
+    private void release(Ticket ticket) {
+        lock.lock();
+        try {
+            runningJobs--;
+            usedConnections -= ticket.connections;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int poolSize(DataSource dataSource) {
+        return dataSource instanceof HikariDataSource hikari ? hikari.getMaximumPoolSize() : 10;
+    }
+
+    private record Ticket(String jobName, int connections, Priority priority, long sequence)
+            implements Comparable<Ticket> {
+
+        @Override
+        public int compareTo(Ticket other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    /**
+     * A running job's share of the budget; close it exactly once when the job ends
+     */
+    public final class Permit implements AutoCloseable {
+        private final Ticket ticket;
+        private boolean closed;
+
+        private Permit(Ticket ticket) {
+            this.ticket = ticket;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                release(ticket);
+            }
+        }
+    }
+
+    /**
+     * Current admission state, for GET /etl/admission
+     */
+    public record Snapshot(int runningJobs, int maxConcurrentJobs, int usedConnections, int connectionBudget,
+                           int queuedJobs, int queueCapacity) {}
+
+    /**
+     * Thrown when a job cannot be admitted; the caller should retry later
+     */
+    public static class JobRejectedException extends RuntimeException {
+        public JobRejectedException(String message) {
+            super(message);
+        }
+    }
+}
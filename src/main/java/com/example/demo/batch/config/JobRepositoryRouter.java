@@ -0,0 +1,242 @@
+package com.example.demo.batch.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.launch.support.TaskExecutorJobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.repository.support.JobRepositoryFactoryBean;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chooses the JobRepository (and matching JobLauncher) each job runs against
+ *
+ * BACKENDS:
+ * - shared:    BATCH_ tables in the main DataSource (default, same pool as PERSON)
+ * - dedicated: BATCH_ tables behind a separate, small connection pool
+ *              (etl.batch.repository.dedicated.*), so metadata traffic never
+ *              competes with data loading for connections. Chunk data and step
+ *              metadata then commit in two transactions: a crash between them
+ *              leaves a chunk in PERSON that the restart position does not cover,
+ *              so these jobs are non-restartable unless
+ *              etl.batch.repository.dedicated.restartable=true accepts that a
+ *              restart may write that chunk again
+ * - embedded:  in-memory H2 database, for short, high-frequency jobs that do not
+ *              need to be restarted; jobs using it are marked non-restartable
+ * - spool:     H2 database file in etl.spool.directory, next to the spool segments.
+ *              Spool-mode jobs keep their step metadata and the spool's commit records
+ *              (PERSON_SPOOL_COMMIT) there and commit their chunks on its transaction
+ *              manager, so they run without the main database
+ *
+ * The backend is configured per job with etl.batch.repository.jobs.[jobName],
+ * falling back to etl.batch.repository.default; jobs that only work on one backend pin it
+ */
+@Component
+public class JobRepositoryRouter implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRepositoryRouter.class);
+    private static final String TABLE_PREFIX = "BATCH_";
+
+    public enum Backend { SHARED, DEDICATED, EMBEDDED, SPOOL }
+
+    private final Environment environment;
+    private final Map<String, Backend> pinnedBackends = new ConcurrentHashMap<>();
+    private final Map<Backend, JobRepository> repositories = new EnumMap<>(Backend.class);
+    private final Map<Backend, JobLauncher> launchers = new EnumMap<>(Backend.class);
+    private final Map<Backend, DataSource> dataSources = new EnumMap<>(Backend.class);
+    private final Map<Backend, PlatformTransactionManager> transactionManagers = new EnumMap<>(Backend.class);
+
+    public JobRepositoryRouter(JobRepository jobRepository, JobLauncher jobLauncher,
+                               PlatformTransactionManager transactionManager, Environment environment) {
+        this.environment = environment;
+        repositories.put(Backend.SHARED, jobRepository);
+        launchers.put(Backend.SHARED, jobLauncher);
+        transactionManagers.put(Backend.SHARED, transactionManager);
+    }
+
+    /**
+     * Runs the job on this backend whatever etl.batch.repository.* says
+     */
+    public void pin(String jobName, Backend backend) {
+        pinnedBackends.put(jobName, backend);
+    }
+
+    public Backend backendFor(String jobName) {
+        Backend pinned = pinnedBackends.get(jobName);
+        if (pinned != null) {
+            return pinned;
+        }
+        String defaultBackend = environment.getProperty("etl.batch.repository.default", "shared");
+        String backend = environment.getProperty("etl.batch.repository.jobs." + jobName, defaultBackend);
+        return Backend.valueOf(backend.trim().toUpperCase(Locale.ROOT));
+    }
+
+    public synchronized JobRepository repositoryFor(String jobName) {
+        Backend backend = backendFor(jobName);
+        if (!repositories.containsKey(backend)) {
+            initialize(backend);
+        }
+        return repositories.get(backend);
+    }
+
+    public synchronized JobLauncher launcherFor(String jobName) {
+        Backend backend = backendFor(jobName);
+        if (!launchers.containsKey(backend)) {
+            initialize(backend);
+        }
+        return launchers.get(backend);
+    }
+
+    /**
+     * Transaction manager of the backend's database, for steps whose chunks must commit with their metadata
+     */
+    public synchronized PlatformTransactionManager transactionManagerFor(String jobName) {
+        Backend backend = backendFor(jobName);
+        if (!transactionManagers.containsKey(backend)) {
+            initialize(backend);
+        }
+        return transactionManagers.get(backend);
+    }
+
+    /**
+     * The spool backend's database (BATCH_ tables and PERSON_SPOOL_COMMIT)
+     */
+    public synchronized DataSource spoolDataSource() {
+        if (!dataSources.containsKey(Backend.SPOOL)) {
+            initialize(Backend.SPOOL);
+        }
+        return dataSources.get(Backend.SPOOL);
+    }
+
+    /**
+     * Jobs kept only in memory cannot be restarted after the JVM goes away; dedicated-backend
+     * jobs only when restarts that may repeat the last chunk are accepted (jobs whose chunks are
+     * idempotent, like normalizePersonJob, do not ask)
+     */
+    public boolean isRestartable(String jobName) {
+        return switch (backendFor(jobName)) {
+            case SHARED -> true;
+            case DEDICATED -> environment.getProperty("etl.batch.repository.dedicated.restartable", Boolean.class, false);
+            case EMBEDDED -> false;
+            case SPOOL -> true; // Chunks and step metadata commit in the same local transaction
+        };
+    }
+
+    private void initialize(Backend backend) {
+        DataSource dataSource = switch (backend) {
+            case EMBEDDED -> createEmbeddedDataSource();
+            case SPOOL -> createSpoolDataSource();
+            default -> createDedicatedDataSource();
+        };
+        dataSources.put(backend, dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transactionManagers.put(backend, transactionManager);
+
+        try {
+            JobRepositoryFactoryBean factory = new JobRepositoryFactoryBean();
+            factory.setDataSource(dataSource);
+            factory.setTransactionManager(transactionManager);
+            factory.setTablePrefix(TABLE_PREFIX);
+            factory.setIsolationLevelForCreate("ISOLATION_READ_COMMITTED");
+            factory.afterPropertiesSet();
+            JobRepository repository = factory.getObject();
+
+            TaskExecutorJobLauncher launcher = new TaskExecutorJobLauncher();
+            launcher.setJobRepository(repository);
+            launcher.afterPropertiesSet();
+
+            repositories.put(backend, repository);
+            launchers.put(backend, launcher);
+            logger.info("Initialized {} job repository", backend.name().toLowerCase(Locale.ROOT));
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not create " + backend + " job repository", e);
+        }
+    }
+
+    private DataSource createEmbeddedDataSource() {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("org/springframework/batch/core/schema-h2.sql")
+                .build();
+    }
+
+    private DataSource createSpoolDataSource() {
+        Path directory = Path.of(environment.getProperty("etl.spool.directory", "spool")).toAbsolutePath();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create spool directory " + directory, e);
+        }
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("spool-metadata");
+        dataSource.setJdbcUrl("jdbc:h2:file:" + directory.resolve("spool-metadata"));
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(environment.getProperty("etl.spool.metadata-pool-size", Integer.class, 4));
+        dataSource.setMinimumIdle(1);
+
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("org/springframework/batch/core/schema-h2.sql"),
+                new ClassPathResource("db/spool-schema-h2.sql"));
+        populator.setContinueOnError(true); // The file keeps its tables across restarts
+        populator.execute(dataSource);
+        return dataSource;
+    }
+
+    private DataSource createDedicatedDataSource() {
+        String prefix = "etl.batch.repository.dedicated.";
+        String url = environment.getProperty(prefix + "url");
+        if (url == null || url.isBlank()) {
+            throw new IllegalStateException("Property " + prefix + "url is required for the dedicated job repository");
+        }
+
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("batch-metadata");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(environment.getProperty(prefix + "username"));
+        dataSource.setPassword(environment.getProperty(prefix + "password"));
+        dataSource.setMaximumPoolSize(environment.getProperty(prefix + "maximum-pool-size", Integer.class, 3));
+        dataSource.setMinimumIdle(1);
+
+        if (environment.getProperty(prefix + "initialize-schema", Boolean.class, false)) {
+            String platform = DatabaseDriver.fromJdbcUrl(url).getId();
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new ClassPathResource("org/springframework/batch/core/schema-" + platform + ".sql"));
+            populator.setContinueOnError(true); // Tables may already exist
+            populator.execute(dataSource);
+        }
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        dataSources.values().forEach(dataSource -> {
+            if (dataSource instanceof EmbeddedDatabase embedded) {
+                embedded.shutdown();
+            } else if (dataSource instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+}
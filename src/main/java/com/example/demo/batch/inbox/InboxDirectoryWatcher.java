@@ -0,0 +1,204 @@
+package com.example.demo.batch.inbox;
+
+import com.example.demo.batch.reader.FileSegmentResource;
+import com.example.demo.dto.ETLResponse;
+import com.example.demo.service.ETLJobService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches an inbox directory and launches importPersonJob for new or growing CSV files
+ *
+ * TAIL MODE:
+ * - Every file has a committed byte offset (see InboxOffsetStore)
+ * - When a file grows, only the bytes after that offset are loaded
+ * - Only complete lines are loaded; a trailing partial line waits for its line terminator,
+ *   even when the writer has gone quiet (a file idle for etl.inbox.partial-line-warn-ms
+ *   with an unterminated last line is logged once, but never loaded half-written)
+ * - The offset is committed only when the job completes, so failed runs are retried
+ * - A file smaller than its committed offset was truncated or rewritten in place: the
+ *   loaded rows no longer match its content, so it is halted with an error instead of
+ *   being reloaded from the start (drop new generations under a new file name)
+ */
+@Component
+@ConditionalOnProperty(name = "etl.inbox.enabled", havingValue = "true")
+public class InboxDirectoryWatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboxDirectoryWatcher.class);
+
+    private final ETLJobService etlJobService;
+    private final Path inboxDirectory;
+    private final long pollIntervalMs;
+    private final long partialLineWarnMs;
+    private final Set<String> pendingTails = new HashSet<>();
+    private final Set<String> reportedTails = new HashSet<>();
+    private final InboxOffsetStore offsetStore;
+
+
+    private WatchService watchService;
+    private Thread watchThread;
+    private volatile boolean running;
+
+    public InboxDirectoryWatcher(ETLJobService etlJobService,
+                                 @Value("${etl.inbox.directory:inbox}") String inboxDirectory,
+                                 @Value("${etl.inbox.poll-interval-ms:1000}") long pollIntervalMs,
+                                 @Value("${etl.inbox.partial-line-warn-ms:60000}") long partialLineWarnMs)
+            throws IOException {
+        this.etlJobService = etlJobService;
+        this.inboxDirectory = Path.of(inboxDirectory).toAbsolutePath();
+        this.pollIntervalMs = pollIntervalMs;
+        this.partialLineWarnMs = partialLineWarnMs;
+
+        Files.createDirectories(this.inboxDirectory);
+        this.offsetStore = new InboxOffsetStore(this.inboxDirectory);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        inboxDirectory.register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        running = true;
+        watchThread = new Thread(this::watchLoop, "inbox-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        logger.info("Watching inbox directory: {}", inboxDirectory);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        running = false;
+        watchService.close();
+        watchThread.interrupt();
+    }
+
+    private void watchLoop() {
+        scanDirectory();
+
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(pollIntervalMs, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            scanDirectory();
+                        } else {
+                            ingest(inboxDirectory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+                }
+                reportIdleTails();
+            } catch (ClosedWatchServiceException | InterruptedException e) {
+                break;
+            }
+        }
+
+        logger.info("Inbox watcher stopped");
+    }
+
+    private void scanDirectory() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(inboxDirectory, "*.csv")) {
+            for (Path file : files) {
+                ingest(file);
+            }
+        } catch (IOException e) {
+            logger.error("Could not scan inbox directory {}", inboxDirectory, e);
+        }
+    }
+
+    /**
+     * Warns once about files whose unterminated last line has not changed for a while
+     */
+    void reportIdleTails() {
+        for (String fileName : Set.copyOf(pendingTails)) {
+            if (reportedTails.contains(fileName)) {
+                continue;
+            }
+            try {
+                long idleMs = System.currentTimeMillis()
+                        - Files.getLastModifiedTime(inboxDirectory.resolve(fileName)).toMillis();
+                if (idleMs >= partialLineWarnMs) {
+                    logger.warn("Inbox file {} ends with an unterminated line idle for {} ms; "
+                            + "it is loaded once the line terminator is written", fileName, idleMs);
+                    reportedTails.add(fileName);
+                }
+            } catch (IOException e) {
+                pendingTails.remove(fileName);
+            }
+        }
+    }
+
+    /**
+     * Loads the complete lines appended to the file since its committed offset
+     */
+    void ingest(Path file) {
+        String fileName = file.getFileName().toString();
+        if (fileName.startsWith(".") || !fileName.endsWith(".csv") || !Files.isRegularFile(file)) {
+            return;
+        }
+
+        try {
+            if (offsetStore.isHalted(fileName)) {
+                return;
+            }
+
+            long size = Files.size(file);
+            long committed = offsetStore.getCommittedOffset(fileName);
+
+            if (size < committed) {
+                logger.error("Inbox file {} shrank from {} to {} bytes; it was truncated or rewritten, "
+                        + "so tailing stops. Drop the new content under a new file name", fileName, committed, size);
+                offsetStore.halt(fileName);
+                pendingTails.remove(fileName);
+                return;
+            }
+
+            long end = FileSegmentResource.lastLineBoundary(file, committed, size);
+
+            if (end < size) {
+                pendingTails.add(fileName);
+            } else {
+                pendingTails.remove(fileName);
+                reportedTails.remove(fileName);
+            }
+
+            if (end <= committed) {
+                return;
+            }
+
+            logger.info("Inbox: loading {} bytes [{}, {})", fileName, committed, end);
+            ETLResponse response = etlJobService.executeFileSegment(file, committed, end);
+
+            if ("COMPLETED".equals(response.getStatus())) {
+                offsetStore.commit(fileName, end);
+            } else {
+                logger.error("Inbox: job for {} finished with status {}, offset stays at {}",
+                        fileName, response.getStatus(), committed);
+            }
+        } catch (Exception e) {
+            logger.error("Inbox: failed to ingest {}", fileName, e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.batch.inbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Keeps the last committed byte offset of every file in the inbox
+ * Offsets are persisted in a properties file inside the inbox so tail mode survives restarts
+ * A file whose offset no longer matches its content is halted and stays halted until its
+ * entry is removed or the file is renamed
+ */
+public class InboxOffsetStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(InboxOffsetStore.class);
+    public static final String OFFSETS_FILE = ".inbox-offsets.properties";
+    private static final String HALTED = "halted";
+
+    private final Path offsetsFile;
+    private final Properties offsets = new Properties();
+
+    public InboxOffsetStore(Path inboxDirectory) {
+        this.offsetsFile = inboxDirectory.resolve(OFFSETS_FILE);
+        load();
+    }
+
+    public synchronized long getCommittedOffset(String fileName) {
+        String offset = offsets.getProperty(fileName, "0");
+        return HALTED.equals(offset) ? 0 : Long.parseLong(offset);
+    }
+
+    public synchronized boolean isHalted(String fileName) {
+        return HALTED.equals(offsets.getProperty(fileName));
+    }
+
+    /**
+     * Records a new committed offset and writes the offsets file atomically
+     */
+    public synchronized void commit(String fileName, long offset) throws IOException {
+        offsets.setProperty(fileName, Long.toString(offset));
+        store();
+    }
+
+    /**
+     * Stops tailing a file: its committed offset can no longer be trusted
+     */
+    public synchronized void halt(String fileName) throws IOException {
+        offsets.setProperty(fileName, HALTED);
+        store();
+    }
+
+    private void store() throws IOException {
+        Path tempFile = offsetsFile.resolveSibling(OFFSETS_FILE + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tempFile)) {
+            offsets.store(out, "Committed byte offsets per inbox file");
+        }
+        Files.move(tempFile, offsetsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void load() {
+        if (!Files.exists(offsetsFile)) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(offsetsFile)) {
+            offsets.load(in);
+            logger.info("Loaded {} inbox offsets from {}", offsets.size(), offsetsFile);
+        } catch (IOException e) {
+            logger.warn("Could not read inbox offsets from {}, starting from scratch", offsetsFile, e);
+        }
+    }
+}
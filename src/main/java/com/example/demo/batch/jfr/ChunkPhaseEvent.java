@@ -0,0 +1,48 @@
+package com.example.demo.batch.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR events for the phases of one chunk of a chunk-oriented step, see ChunkPhaseListener
+ *
+ * The events carry the job execution id, so the chunks of one job can be told apart from those
+ * of other jobs running in the same JVM while its recording is on.
+ */
+@Category({"ETL", "Chunk"})
+@StackTrace(false)
+public abstract class ChunkPhaseEvent extends Event {
+
+    @Label("Job Execution Id")
+    long jobExecutionId;
+
+    @Label("Step")
+    String stepName;
+
+    @Label("Items")
+    int itemCount;
+
+    @Name("com.example.demo.ChunkRead")
+    @Label("Chunk Read")
+    @Description("Reading the items of a chunk")
+    public static final class Read extends ChunkPhaseEvent {}
+
+    @Name("com.example.demo.ChunkProcess")
+    @Label("Chunk Process")
+    @Description("Processing the items of a chunk")
+    public static final class Process extends ChunkPhaseEvent {}
+
+    @Name("com.example.demo.ChunkWrite")
+    @Label("Chunk Write")
+    @Description("Writing the items of a chunk")
+    public static final class Write extends ChunkPhaseEvent {}
+
+    @Name("com.example.demo.ChunkCommit")
+    @Label("Chunk Commit")
+    @Description("Saving the step state and committing the chunk transaction")
+    public static final class Commit extends ChunkPhaseEvent {}
+}
@@ -0,0 +1,131 @@
+package com.example.demo.batch.jfr;
+
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.model.Person;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.ItemProcessListener;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.ItemWriteListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.item.Chunk;
+import org.springframework.stereotype.Component;
+
+/**
+ * Emits a JFR event per phase of every chunk: read, process, write and commit
+ *
+ * HOW IT WORKS:
+ * - read: from beforeChunk until the first item is processed (or written, without processing)
+ * - process: from the first beforeProcess until beforeWrite
+ * - write: from beforeWrite until afterWrite
+ * - commit: from afterWrite until afterChunk, i.e. saving the step state and the commit itself
+ * - A chunk that fails is dropped: only chunks that committed have events
+ *
+ * The events are only recorded while a recording is on (see JobRecordingListener); otherwise
+ * they are a few no-op calls per chunk. A chunk runs on one thread, partitions on several, so
+ * the open event is kept per thread.
+ */
+@Component
+public class ChunkPhaseListener implements ChunkListener, ItemReadListener<PersonCSVData>,
+        ItemProcessListener<PersonCSVData, Person>, ItemWriteListener<Person> {
+
+    private final ThreadLocal<ChunkState> state = new ThreadLocal<>();
+
+    @Override
+    public void beforeChunk(ChunkContext context) {
+        StepExecution stepExecution = context.getStepContext().getStepExecution();
+        ChunkState chunk = new ChunkState(stepExecution.getJobExecutionId(), stepExecution.getStepName());
+        chunk.begin(new ChunkPhaseEvent.Read());
+        state.set(chunk);
+    }
+
+    @Override
+    public void afterRead(PersonCSVData item) {
+        ChunkState chunk = state.get();
+        if (chunk != null) {
+            chunk.items++;
+        }
+    }
+
+    @Override
+    public void beforeProcess(PersonCSVData item) {
+        ChunkState chunk = state.get();
+        if (chunk == null) {
+            return;
+        }
+        if (chunk.open instanceof ChunkPhaseEvent.Read) {
+            chunk.finish();
+            chunk.begin(new ChunkPhaseEvent.Process());
+        }
+        chunk.items++;
+    }
+
+    @Override
+    public void beforeWrite(Chunk<? extends Person> items) {
+        ChunkState chunk = state.get();
+        if (chunk != null) {
+            chunk.finish();
+            chunk.begin(new ChunkPhaseEvent.Write());
+            chunk.items = items.size();
+        }
+    }
+
+    @Override
+    public void afterWrite(Chunk<? extends Person> items) {
+        ChunkState chunk = state.get();
+        if (chunk != null) {
+            chunk.finish();
+            chunk.begin(new ChunkPhaseEvent.Commit());
+            chunk.items = items.size();
+        }
+    }
+
+    @Override
+    public void afterChunk(ChunkContext context) {
+        ChunkState chunk = state.get();
+        if (chunk != null) {
+            chunk.finish();
+            state.remove();
+        }
+    }
+
+    @Override
+    public void afterChunkError(ChunkContext context) {
+        state.remove();
+    }
+
+    /**
+     * The open phase of the chunk running on this thread
+     */
+    private static final class ChunkState {
+        private final long jobExecutionId;
+        private final String stepName;
+        private ChunkPhaseEvent open;
+        private int items;
+
+        ChunkState(long jobExecutionId, String stepName) {
+            this.jobExecutionId = jobExecutionId;
+            this.stepName = stepName;
+        }
+
+        void begin(ChunkPhaseEvent event) {
+            event.begin();
+            open = event;
+            items = 0;
+        }
+
+        void finish() {
+            if (open == null) {
+                return;
+            }
+            open.end();
+            if (open.shouldCommit()) {
+                open.jobExecutionId = jobExecutionId;
+                open.stepName = stepName;
+                open.itemCount = items;
+                open.commit();
+            }
+            open = null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.batch.jfr;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Java Flight Recorder capture of single job executions, on demand
+ *
+ * HOW IT WORKS:
+ * - A job launched with the job parameter jfr=true starts a JFR recording in beforeJob, using the
+ *   etl.jfr.settings configuration (default, profile or a .jfc file) plus the chunk phase events
+ * - afterJob stops it, which writes etl.jfr.directory/job-<jobId>.jfr; GET /etl/jobs/{id}/recording
+ *   downloads it. A restarted job overwrites the file of its previous execution
+ * - Jobs without the parameter cost nothing: no recording runs, the chunk events are not recorded
+ *
+ * A recording sees the whole JVM, so concurrent jobs and web requests show up in it too; the chunk
+ * events carry the job execution id to tell the jobs apart.
+ */
+@Component
+public class JobRecordingListener implements JobExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRecordingListener.class);
+
+    public static final String PARAMETER = "jfr";
+
+    private final Configuration configuration;
+    private final Path directory;
+    private final long maxSizeBytes;
+    private final Map<Long, Recording> active = new ConcurrentHashMap<>();
+
+    public JobRecordingListener(@Value("${etl.jfr.settings:profile}") String settings,
+                                @Value("${etl.jfr.directory:recordings}") String directory,
+                                @Value("${etl.jfr.max-size-mb:256}") long maxSizeMb)
+            throws IOException, ParseException {
+        this.configuration = settings.endsWith(".jfc")
+                ? Configuration.create(Path.of(settings))
+                : Configuration.getConfiguration(settings);
+        this.directory = Path.of(directory);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    @Override
+    public void beforeJob(JobExecution jobExecution) {
+        if (!Boolean.parseBoolean(jobExecution.getJobParameters().getString(PARAMETER))) {
+            return;
+        }
+        Long jobId = jobExecution.getJobId();
+        Recording recording = new Recording(configuration);
+        try {
+            Files.createDirectories(directory);
+            recording.setName("job-" + jobId);
+            recording.enable(ChunkPhaseEvent.Read.class);
+            recording.enable(ChunkPhaseEvent.Process.class);
+            recording.enable(ChunkPhaseEvent.Write.class);
+            recording.enable(ChunkPhaseEvent.Commit.class);
+            recording.setToDisk(true);
+            recording.setMaxSize(maxSizeBytes);
+            recording.setDestination(file(jobId));
+            recording.start();
+            active.put(jobId, recording);
+            logger.info("JFR recording of job {} started ({} settings)", jobId, configuration.getName());
+        } catch (IOException | IllegalStateException | SecurityException e) {
+            recording.close();
+            logger.warn("JFR recording of job {} not started: {}", jobId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        Long jobId = jobExecution.getJobId();
+        Recording recording = active.get(jobId);
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            logger.info("JFR recording of job {} written to {}", jobId, file(jobId));
+        } catch (IllegalStateException e) {
+            logger.warn("JFR recording of job {} not written: {}", jobId, e.getMessage());
+        } finally {
+            recording.close();
+            active.remove(jobId);
+        }
+    }
+
+    /**
+     * Whether the job's recording is still running
+     */
+    public boolean isRecording(Long jobId) {
+        return active.containsKey(jobId);
+    }
+
+    /**
+     * The finished recording of a job
+     * @return the file, or empty when the job was not recorded or is still running
+     */
+    public Optional<Path> recordingFile(Long jobId) {
+        Path file = file(jobId);
+        return !isRecording(jobId) && Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    private Path file(Long jobId) {
+        return directory.resolve("job-" + jobId + ".jfr");
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo.batch.job;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.listener.ETLJobListener;
+import com.example.demo.batch.listener.ETLStepListener;
+import com.example.demo.batch.listener.PersonChangeJobListener;
+import com.example.demo.batch.partition.FileRangePartitioner;
+import com.example.demo.batch.queue.QueuePartitionHandler;
+import com.example.demo.batch.queue.WorkQueue;
+import com.example.demo.batch.sketch.NameSketchAggregator;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Distributed Import Job Configuration
+ *
+ * distributedImportPersonJob loads one CSV file with the regular etlStep, split into
+ * line-aligned byte ranges that any instance can pick up from the ETL_WORK_QUEUE table.
+ *
+ * HOW IT WORKS:
+ * - The manager step splits the file (FileRangePartitioner) and publishes the partitions
+ * - WorkQueueWorker on every instance claims partitions and runs etlStep over its range
+ * - The manager waits, reassigns partitions whose claimer stopped sending heartbeats,
+ *   and aggregates the partition counts and name sketches (see PartitionSketchListener)
+ *
+ * Instances must share the database, the job repository (shared backend) and the file path.
+ */
+@Configuration
+public class DistributedImportJobConfiguration {
+
+    private static final String JOB_NAME = "distributedImportPersonJob";
+    private static final String WORKER_STEP_NAME = "etlStep";
+
+    private final JobRepository jobRepository;
+
+    public DistributedImportJobConfiguration(JobRepositoryRouter jobRepositoryRouter) {
+        // Partitions are etlStep executions, so both jobs must use the same repository
+        this.jobRepository = jobRepositoryRouter.repositoryFor(ETLJobConfiguration.JOB_NAME);
+    }
+
+    @Bean
+    @StepScope
+    public FileRangePartitioner fileRangePartitioner(@Value("#{jobParameters['uploadedFile']}") String uploadedFile) {
+        return new FileRangePartitioner(Path.of(uploadedFile));
+    }
+
+    @Bean
+    public Step distributedImportStep(FileRangePartitioner fileRangePartitioner,
+                                      WorkQueue workQueue,
+                                      JobExplorer jobExplorer,
+                                      ETLStepListener stepListener,
+                                      @Value("${etl.queue.partitions:4}") int partitions,
+                                      @Value("${etl.queue.poll-interval-ms:1000}") long pollIntervalMs,
+                                      @Value("${etl.queue.heartbeat-timeout-ms:30000}") long heartbeatTimeoutMs,
+                                      @Value("${etl.queue.max-attempts:3}") int maxAttempts) {
+        QueuePartitionHandler partitionHandler = new QueuePartitionHandler(workQueue, jobExplorer, jobRepository,
+                WORKER_STEP_NAME, partitions, Duration.ofMillis(pollIntervalMs),
+                Duration.ofMillis(heartbeatTimeoutMs), maxAttempts);
+
+        return new StepBuilder("distributedImportStep", jobRepository)
+                .partitioner(WORKER_STEP_NAME, fileRangePartitioner)
+                .partitionHandler(partitionHandler)
+                .aggregator(new NameSketchAggregator())
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Job distributedImportPersonJob(Step distributedImportStep, ETLJobListener jobListener,
+                                          PersonChangeJobListener personChangeListener) {
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .listener(jobListener)
+                .listener(personChangeListener)
+                .start(distributedImportStep)
+                .build();
+    }
+}
@@ -1,30 +1,57 @@
 package com.example.demo.batch.job;
 
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.jfr.ChunkPhaseListener;
+import com.example.demo.batch.jfr.JobRecordingListener;
 import com.example.demo.batch.listener.ETLItemProcessListener;
 import com.example.demo.batch.listener.ETLJobListener;
 import com.example.demo.batch.listener.ETLStepListener;
+import com.example.demo.batch.listener.PersonChangeJobListener;
 import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.processor.ExistingNameFilter;
 import com.example.demo.batch.processor.PersonDataProcessor;
 import com.example.demo.batch.reader.PersonCSVReader;
+import com.example.demo.batch.sketch.PartitionSketchListener;
+import com.example.demo.batch.tasklet.CleanupTasklet;
+import com.example.demo.batch.tasklet.ImportReportTasklet;
+import com.example.demo.batch.tasklet.PersonStatisticsTasklet;
+import com.example.demo.batch.tasklet.ProfileTasklet;
+import com.example.demo.batch.writer.BisectingPersonWriter;
 import com.example.demo.batch.writer.PersonDatabaseWriter;
+import com.example.demo.batch.writer.ShardedPersonWriter;
+import com.example.demo.batch.writer.SpoolingPersonWriter;
 import com.example.demo.model.Person;
+import com.example.demo.repository.PersonShards;
+import com.example.demo.service.PersonService;
+import com.example.demo.service.RejectStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.batch.core.ChunkListener;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.batch.core.job.builder.FlowBuilder;
 import org.springframework.batch.core.job.builder.JobBuilder;
-import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.job.flow.Flow;
+import org.springframework.batch.core.job.flow.support.SimpleFlow;
 import org.springframework.batch.core.step.builder.StepBuilder;
 import org.springframework.batch.item.ItemProcessor;
 import org.springframework.batch.item.ItemReader;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.ItemWriter;
+import org.springframework.batch.item.support.CompositeItemProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.batch.core.configuration.annotation.StepScope;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.batch.core.configuration.annotation.StepScope;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.transaction.PlatformTransactionManager;
 
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
 /**
  * ETL Job Configuration using Spring Batch
  *
@@ -47,12 +74,26 @@ import org.springframework.transaction.PlatformTransactionManager;
  * 4. READER: Reads data from source (CSV, DB, API, etc)
  * 5. PROCESSOR: Transforms the data
  * 6. WRITER: Writes data to destination
+ *
+ * importPersonJob: profileStep -> etlStep -> split(statisticsStep | reportStep | cleanupStep)
  */
 @Configuration
 public class ETLJobConfiguration {
 
+    static final String JOB_NAME = "importPersonJob";
+
+    /**
+     * The step that loads PERSON; its counts are the job's counts
+     */
+    public static final String LOAD_STEP_NAME = "etlStep";
+
+    /**
+     * Steps running at the same time in the post-load split, each holding a connection
+     */
+    public static final int POST_LOAD_PARALLELISM = 3;
+
     @Autowired
-    private JobRepository jobRepository;
+    private JobRepositoryRouter jobRepositoryRouter;
 
     @Autowired
     private PlatformTransactionManager transactionManager;
@@ -63,27 +104,65 @@ public class ETLJobConfiguration {
     @Autowired
     private PersonDataProcessor dataProcessor;
 
+    @Autowired
+    private PersonService personService;
+
     @Autowired
     private PersonDatabaseWriter databaseWriter;
 
+    @Autowired
+    private BisectingPersonWriter bisectingWriter;
+
+    @Autowired
+    private SpoolingPersonWriter spoolingWriter;
+
+    @Autowired
+    private ShardedPersonWriter shardedWriter;
+
+    @Autowired
+    private PersonShards personShards;
+
     @Autowired
     private ETLJobListener jobListener;
 
+    @Autowired
+    private PersonChangeJobListener personChangeListener;
+
+    @Autowired
+    private JobRecordingListener recordingListener;
+
     @Autowired
     private ETLStepListener stepListener;
 
     @Autowired
     private ETLItemProcessListener itemProcessListener;
 
+    @Autowired
+    private ChunkPhaseListener chunkPhaseListener;
+
+    @Autowired
+    private PartitionSketchListener partitionSketchListener;
+
     /**
      * Defines the Reader to be used in the Step
      * Step-scoped to allow dynamic file selection (uploaded or default)
+     * When endOffset is given only that byte range of the uploaded file is read (inbox tail mode);
+     * partitions of distributedImportPersonJob carry their byte range in the step execution context
+     * Whole-file runs with a contentHash parameter read the columnar cache instead of parsing the CSV
      */
     @Bean
     @StepScope
-    public ItemReader<PersonCSVData> personReader(
+    public ItemStreamReader<PersonCSVData> personReader(
             @Value("#{jobParameters['uploadedFile']}") String uploadedFile,
-            @Value("#{jobParameters['csvFile']}") String csvFile) {
+            @Value("#{jobParameters['csvFile']}") String csvFile,
+            @Value("#{stepExecutionContext['startOffset'] ?: jobParameters['startOffset']}") Long startOffset,
+            @Value("#{stepExecutionContext['endOffset'] ?: jobParameters['endOffset']}") Long endOffset,
+            @Value("#{jobParameters['schema']}") String schema,
+            @Value("#{jobParameters['contentHash']}") String contentHash) {
+
+        if (uploadedFile != null && endOffset != null) {
+            return csvReader.createSegmentReader(uploadedFile, startOffset != null ? startOffset : 0L, endOffset, schema);
+        }
 
         // Priority: uploaded file > specified CSV file > default
         String filename;
@@ -95,23 +174,62 @@ public class ETLJobConfiguration {
             filename = "data.csv"; // Default
         }
 
-        return csvReader.createReader(filename);
+        return csvReader.createReader(filename, schema, contentHash);
     }
 
     /**
      * Defines the Processor to be used in the Step
+     * The rules job parameter (e.g. trim,collapse,fold,capitalize,length:2-100) replaces etl.rules.default
+     * skipExisting=true also filters out names already in PERSON (used by delta loads)
      */
     @Bean
-    public ItemProcessor<PersonCSVData, Person> personProcessor() {
-        return dataProcessor;
+    @StepScope
+    public ItemProcessor<PersonCSVData, Person> personProcessor(
+            @Value("#{jobParameters['rules']}") String rules,
+            @Value("#{jobParameters['skipExisting']}") String skipExisting) {
+        PersonDataProcessor processor = dataProcessor.withRules(rules);
+        if (!Boolean.parseBoolean(skipExisting)) {
+            return processor;
+        }
+        CompositeItemProcessor<PersonCSVData, Person> composite = new CompositeItemProcessor<>();
+        composite.setDelegates(List.of(processor, new ExistingNameFilter(personService)));
+        return composite;
     }
 
     /**
      * Defines the Writer to be used in the Step
+     * writeMode=bisect isolates bad rows into the reject file instead of failing the step
+     * writeMode=spool appends to the local spool, drained into PERSON in the background
+     * With etl.shards.enabled every chunk goes to the shards (ETLJobService rejects the other modes)
      */
     @Bean
-    public ItemWriter<Person> personWriter() {
-        return databaseWriter;
+    @StepScope
+    public ItemWriter<Person> personWriter(
+            @Value("#{jobParameters['writeMode'] ?: '${etl.writer.mode:standard}'}") String writeMode) {
+        if (personShards.isEnabled()) {
+            return shardedWriter;
+        }
+        if ("spool".equalsIgnoreCase(writeMode)) {
+            return spoolingWriter;
+        }
+        return "bisect".equalsIgnoreCase(writeMode) ? bisectingWriter : databaseWriter;
+    }
+
+    /**
+     * Reads the input once before loading, see ProfileTasklet
+     */
+    @Bean
+    @StepScope
+    public ProfileTasklet profileTasklet(ItemStreamReader<PersonCSVData> personReader) {
+        return new ProfileTasklet(personReader);
+    }
+
+    @Bean
+    public Step profileStep(ProfileTasklet profileTasklet) {
+        return new StepBuilder("profileStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .tasklet(profileTasklet, transactionManager)
+                .listener(stepListener)
+                .build();
     }
 
     /**
@@ -121,37 +239,98 @@ public class ETLJobConfiguration {
      * - Reads 5 records from CSV
      * - Processes the 5 records
      * - Writes the 5 records to database
-    /**
-     * Configures the ETL Step
+     *
+     * Every chunk phase is a JFR event, recorded when the job runs with jfr=true
+     * Run as a partition, the step sketches the names it reads (profileStep does it otherwise)
      */
     @Bean
-    public Step etlStep(ItemReader<PersonCSVData> personReader) {
-        return new StepBuilder("etlStep", jobRepository)
+    public Step etlStep(ItemReader<PersonCSVData> personReader,
+                        ItemProcessor<PersonCSVData, Person> personProcessor,
+                        ItemWriter<Person> personWriter) {
+        return new StepBuilder(LOAD_STEP_NAME, jobRepositoryRouter.repositoryFor(JOB_NAME))
                 .<PersonCSVData, Person>chunk(5, transactionManager)
                 .reader(personReader)
-                .processor(personProcessor())
-                .writer(personWriter())
+                .processor(personProcessor)
+                .writer(personWriter)
                 .listener(stepListener)
                 .listener(itemProcessListener)
+                .listener(bisectingWriter)
+                .listener((ChunkListener) chunkPhaseListener) // Also registers its item listener methods
+                .listener((StepExecutionListener) partitionSketchListener) // And its afterRead
+                .build();
+    }
+
+    @Bean
+    public Step statisticsStep(DataSource dataSource,
+                               @Value("${etl.statistics.min-rows:10000}") long minRows) {
+        return new StepBuilder("statisticsStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .tasklet(personShards.isEnabled()
+                        ? new PersonStatisticsTasklet(
+                                personShards.all().stream().map(PersonShards.Shard::dataSource).toList(), minRows)
+                        : new PersonStatisticsTasklet(dataSource, minRows), transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Step reportStep(ObjectMapper objectMapper,
+                           @Value("${etl.report.directory:reports}") String reportDirectory) {
+        return new StepBuilder("reportStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .tasklet(new ImportReportTasklet(Path.of(reportDirectory), objectMapper), transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Step cleanupStep(RejectStore rejectStore,
+                            @Value("${etl.report.directory:reports}") String reportDirectory,
+                            @Value("${etl.cleanup.retention-days:7}") int retentionDays) {
+        return new StepBuilder("cleanupStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .tasklet(new CleanupTasklet(rejectStore, Path.of(reportDirectory), Duration.ofDays(retentionDays)),
+                        transactionManager)
+                .listener(stepListener)
                 .build();
     }
 
     /**
      * Configures the complete ETL Job
      *
-     * This Job contains only 1 Step, but you can add more:
-     * - Step 1: Read and validate data
-     * - Step 2: Process data
-     * - Step 3: Generate report
-     * etc.
+     * - profileStep: reads the input once and fails the job on a bad line before anything is written
+     * - etlStep: loads PERSON
+     * - statisticsStep, reportStep, cleanupStep: independent post-load work, run in parallel as a split
+     *   so it takes as long as the slowest of them rather than their sum; the job holds its admission
+     *   permit until the split is done (see ETLJobService.launch)
      */
     @Bean
-    public Job importPersonJob(Step etlStep) {
-        return new JobBuilder("importPersonJob", jobRepository)
+    public Job importPersonJob(Step profileStep, Step etlStep, Step statisticsStep, Step reportStep,
+                               Step cleanupStep) {
+        JobBuilder jobBuilder = new JobBuilder(JOB_NAME, jobRepositoryRouter.repositoryFor(JOB_NAME));
+        if (!jobRepositoryRouter.isRestartable(JOB_NAME)) {
+            jobBuilder.preventRestart();
+        }
+
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("post-load-");
+        taskExecutor.setConcurrencyLimit(POST_LOAD_PARALLELISM);
+
+        return jobBuilder
                 .listener(jobListener)
-                .start(etlStep)
-                // .next(anotherStep()) // You can chain more steps
+                .listener(personChangeListener)
+                .listener(recordingListener)
+                .flow(profileStep)
+                .next(etlStep)
+                .next(postLoadSplit(taskExecutor, statisticsStep, reportStep, cleanupStep))
+                .end()
                 .build();
     }
-}
 
+    static Flow postLoadSplit(SimpleAsyncTaskExecutor taskExecutor, Step... steps) {
+        Flow[] flows = new Flow[steps.length];
+        for (int i = 0; i < steps.length; i++) {
+            flows[i] = new FlowBuilder<SimpleFlow>(steps[i].getName() + "Flow").start(steps[i]).build();
+        }
+        return new FlowBuilder<SimpleFlow>("postLoadFlow")
+                .split(taskExecutor)
+                .add(flows)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.batch.job;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.listener.ETLJobListener;
+import com.example.demo.batch.listener.ETLStepListener;
+import com.example.demo.service.PersonExportService;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+
+/**
+ * Export Job Configuration
+ *
+ * exportPersonJob has a single tasklet step that streams PERSON to a CSV file
+ * (optionally gzip) with a forward-only cursor, in constant memory.
+ *
+ * Job parameters:
+ * - outputFile: target file path
+ * - gzip: "true" to compress the output
+ */
+@Configuration
+public class ExportJobConfiguration {
+
+    private static final String JOB_NAME = "exportPersonJob";
+
+    private final JobRepositoryRouter jobRepositoryRouter;
+    private final PlatformTransactionManager transactionManager;
+
+    public ExportJobConfiguration(JobRepositoryRouter jobRepositoryRouter,
+                                  PlatformTransactionManager transactionManager) {
+        this.jobRepositoryRouter = jobRepositoryRouter;
+        this.transactionManager = transactionManager;
+    }
+
+    @Bean
+    @StepScope
+    public Tasklet exportTasklet(PersonExportService exportService,
+                                 @Value("#{jobParameters['outputFile']}") String outputFile,
+                                 @Value("#{jobParameters['gzip']}") String gzip) {
+        return (contribution, chunkContext) -> {
+            long rows = exportService.exportToFile(Path.of(outputFile), Boolean.parseBoolean(gzip));
+            contribution.incrementWriteCount(rows);
+            return RepeatStatus.FINISHED;
+        };
+    }
+
+    @Bean
+    public Step exportStep(Tasklet exportTasklet, ETLStepListener stepListener) {
+        return new StepBuilder("exportStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .tasklet(exportTasklet, transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Job exportPersonJob(Step exportStep, ETLJobListener jobListener) {
+        return new JobBuilder(JOB_NAME, jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .listener(jobListener)
+                .start(exportStep)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.batch.job;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.listener.ETLJobListener;
+import com.example.demo.batch.listener.ETLStepListener;
+import com.example.demo.batch.listener.PersonChangeJobListener;
+import com.example.demo.batch.partition.IdRangePartitioner;
+import com.example.demo.batch.processor.PersonRenormalizeProcessor;
+import com.example.demo.model.Person;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.configuration.annotation.StepScope;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.database.JdbcBatchItemWriter;
+import org.springframework.batch.item.database.JdbcPagingItemReader;
+import org.springframework.batch.item.database.Order;
+import org.springframework.batch.item.database.builder.JdbcBatchItemWriterBuilder;
+import org.springframework.batch.item.database.builder.JdbcPagingItemReaderBuilder;
+import org.springframework.batch.item.database.support.SqlPagingQueryProviderFactoryBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Normalize Job Configuration
+ *
+ * normalizePersonJob re-applies the current name normalization to rows already in PERSON.
+ *
+ * HOW IT WORKS:
+ * - The manager step splits PERSON into ID ranges (IdRangePartitioner)
+ * - Each range is processed by a worker step on its own thread
+ * - Workers read with keyset paging (WHERE ID > last id ORDER BY ID), so every page
+ *   is an index range scan no matter how deep into the range it is
+ * - Unchanged rows are filtered out; changed rows are written with batched UPDATEs
+ *
+ * The paging reader saves the last ID it read, so a restarted job resumes each
+ * failed partition from its last committed chunk.
+ */
+@Configuration
+public class NormalizeJobConfiguration {
+
+    private static final String JOB_NAME = "normalizePersonJob";
+
+    private final JobRepositoryRouter jobRepositoryRouter;
+    private final PlatformTransactionManager transactionManager;
+
+    public NormalizeJobConfiguration(JobRepositoryRouter jobRepositoryRouter,
+                                     PlatformTransactionManager transactionManager) {
+        this.jobRepositoryRouter = jobRepositoryRouter;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Keyset-paged reader over one partition's ID range
+     */
+    @Bean
+    @StepScope
+    public JdbcPagingItemReader<Person> normalizeReader(
+            DataSource dataSource,
+            @Value("#{stepExecutionContext['minId']}") Long minId,
+            @Value("#{stepExecutionContext['maxId']}") Long maxId,
+            @Value("${etl.normalize.page-size:1000}") int pageSize) throws Exception {
+
+        SqlPagingQueryProviderFactoryBean queryProvider = new SqlPagingQueryProviderFactoryBean();
+        queryProvider.setDataSource(dataSource);
+        queryProvider.setSelectClause("SELECT ID, NAME");
+        queryProvider.setFromClause("FROM PERSON");
+        queryProvider.setWhereClause("WHERE ID BETWEEN :minId AND :maxId");
+        queryProvider.setSortKeys(Map.of("ID", Order.ASCENDING));
+
+        return new JdbcPagingItemReaderBuilder<Person>()
+                .name("normalizeReader")
+                .dataSource(dataSource)
+                .queryProvider(queryProvider.getObject())
+                .parameterValues(Map.of("minId", minId, "maxId", maxId))
+                .pageSize(pageSize)
+                .fetchSize(pageSize)
+                .rowMapper((rs, rowNum) -> {
+                    Person person = new Person(rs.getString("NAME"));
+                    person.setId(rs.getLong("ID"));
+                    return person;
+                })
+                .saveState(true)
+                .build();
+    }
+
+    @Bean
+    public JdbcBatchItemWriter<Person> normalizeWriter(DataSource dataSource) {
+        return new JdbcBatchItemWriterBuilder<Person>()
+                .dataSource(dataSource)
+                .sql("UPDATE PERSON SET NAME = :name WHERE ID = :id")
+                .beanMapped()
+                .assertUpdates(false) // A row deleted meanwhile is not an error
+                .build();
+    }
+
+    @Bean
+    public Step normalizeWorkerStep(JdbcPagingItemReader<Person> normalizeReader,
+                                    PersonRenormalizeProcessor renormalizeProcessor,
+                                    JdbcBatchItemWriter<Person> normalizeWriter,
+                                    @Value("${etl.normalize.chunk-size:500}") int chunkSize) {
+        return new StepBuilder("normalizeWorkerStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .<Person, Person>chunk(chunkSize, transactionManager)
+                .reader(normalizeReader)
+                .processor(renormalizeProcessor)
+                .writer(normalizeWriter)
+                .build();
+    }
+
+    /**
+     * Manager step: one worker per ID range, at most etl.normalize.partitions at a time
+     * Keep the partition count below the connection pool size
+     */
+    @Bean
+    public Step normalizeStep(Step normalizeWorkerStep,
+                              JdbcTemplate jdbcTemplate,
+                              ETLStepListener stepListener,
+                              @Value("${etl.normalize.partitions:4}") int partitions) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("normalize-");
+        taskExecutor.setConcurrencyLimit(partitions);
+
+        return new StepBuilder("normalizeStep", jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .partitioner("normalizeWorkerStep", new IdRangePartitioner(jdbcTemplate))
+                .step(normalizeWorkerStep)
+                .gridSize(partitions)
+                .taskExecutor(taskExecutor)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Job normalizePersonJob(Step normalizeStep, ETLJobListener jobListener,
+                                  PersonChangeJobListener personChangeListener) {
+        return new JobBuilder(JOB_NAME, jobRepositoryRouter.repositoryFor(JOB_NAME))
+                .listener(jobListener)
+                .listener(personChangeListener)
+                .start(normalizeStep)
+                .build();
+    }
+}
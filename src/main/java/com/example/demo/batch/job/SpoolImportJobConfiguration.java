@@ -0,0 +1,127 @@
+package com.example.demo.batch.job;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.jfr.ChunkPhaseListener;
+import com.example.demo.batch.jfr.JobRecordingListener;
+import com.example.demo.batch.listener.ETLItemProcessListener;
+import com.example.demo.batch.listener.ETLJobListener;
+import com.example.demo.batch.listener.ETLStepListener;
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.tasklet.CleanupTasklet;
+import com.example.demo.batch.tasklet.ImportReportTasklet;
+import com.example.demo.batch.tasklet.ProfileTasklet;
+import com.example.demo.batch.writer.SpoolingPersonWriter;
+import com.example.demo.model.Person;
+import com.example.demo.service.RejectStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.batch.core.ChunkListener;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.job.builder.JobBuilder;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.batch.core.step.builder.StepBuilder;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.batch.item.ItemReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Spool Import Job Configuration
+ *
+ * spoolImportPersonJob is importPersonJob for writeMode=spool: the same reader and processor,
+ * with SpoolingPersonWriter appending each chunk to the local spool.
+ *
+ * The job is pinned to the spool backend of JobRepositoryRouter: its step metadata, its chunk
+ * transactions and the spool's PERSON_SPOOL_COMMIT rows are all in the local H2 file next to the
+ * spool, so it loads while the main database is unreachable. SpoolDrainer inserts the rows into
+ * PERSON once the database is back, and logs them in the change log batch by batch.
+ *
+ * spoolImportPersonJob: spoolProfileStep -> spoolEtlStep -> split(spoolReportStep | spoolCleanupStep)
+ * (no statistics step: the job does not write PERSON)
+ */
+@Configuration
+public class SpoolImportJobConfiguration {
+
+    public static final String JOB_NAME = "spoolImportPersonJob";
+
+    private final JobRepository jobRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    public SpoolImportJobConfiguration(JobRepositoryRouter jobRepositoryRouter) {
+        jobRepositoryRouter.pin(JOB_NAME, JobRepositoryRouter.Backend.SPOOL);
+        this.jobRepository = jobRepositoryRouter.repositoryFor(JOB_NAME);
+        this.transactionManager = jobRepositoryRouter.transactionManagerFor(JOB_NAME);
+    }
+
+    @Bean
+    public Step spoolProfileStep(ProfileTasklet profileTasklet, ETLStepListener stepListener) {
+        return new StepBuilder("profileStep", jobRepository)
+                .tasklet(profileTasklet, transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    /**
+     * Same chunk size and listeners as etlStep, committed on the spool database
+     */
+    @Bean
+    public Step spoolEtlStep(ItemReader<PersonCSVData> personReader,
+                             ItemProcessor<PersonCSVData, Person> personProcessor,
+                             SpoolingPersonWriter spoolingWriter,
+                             ETLStepListener stepListener,
+                             ETLItemProcessListener itemProcessListener,
+                             ChunkPhaseListener chunkPhaseListener) {
+        return new StepBuilder(ETLJobConfiguration.LOAD_STEP_NAME, jobRepository)
+                .<PersonCSVData, Person>chunk(5, transactionManager)
+                .reader(personReader)
+                .processor(personProcessor)
+                .writer(spoolingWriter)
+                .listener(stepListener)
+                .listener(itemProcessListener)
+                .listener((ChunkListener) chunkPhaseListener) // Also registers its item listener methods
+                .build();
+    }
+
+    @Bean
+    public Step spoolReportStep(ObjectMapper objectMapper, ETLStepListener stepListener,
+                                @Value("${etl.report.directory:reports}") String reportDirectory) {
+        return new StepBuilder("reportStep", jobRepository)
+                .tasklet(new ImportReportTasklet(Path.of(reportDirectory), objectMapper), transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Step spoolCleanupStep(RejectStore rejectStore, ETLStepListener stepListener,
+                                 @Value("${etl.report.directory:reports}") String reportDirectory,
+                                 @Value("${etl.cleanup.retention-days:7}") int retentionDays) {
+        return new StepBuilder("cleanupStep", jobRepository)
+                .tasklet(new CleanupTasklet(rejectStore, Path.of(reportDirectory), Duration.ofDays(retentionDays)),
+                        transactionManager)
+                .listener(stepListener)
+                .build();
+    }
+
+    @Bean
+    public Job spoolImportPersonJob(Step spoolProfileStep, Step spoolEtlStep, Step spoolReportStep,
+                                    Step spoolCleanupStep, ETLJobListener jobListener,
+                                    JobRecordingListener recordingListener) {
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("spool-post-load-");
+        taskExecutor.setConcurrencyLimit(ETLJobConfiguration.POST_LOAD_PARALLELISM);
+
+        return new JobBuilder(JOB_NAME, jobRepository)
+                .listener(jobListener)
+                .listener(recordingListener)
+                .flow(spoolProfileStep)
+                .next(spoolEtlStep)
+                .next(ETLJobConfiguration.postLoadSplit(taskExecutor, spoolReportStep, spoolCleanupStep))
+                .end()
+                .build();
+    }
+}
@@ -12,36 +12,39 @@ import java.time.LocalDateTime;
 /**
  * Listener to monitor Job execution
  * Logs information before and after execution
+ *
+ * One instance serves every job, including concurrent ones, so it keeps no state of its own:
+ * the start time comes from the JobExecution, which Spring Batch sets before beforeJob.
  */
 @Component
 public class ETLJobListener implements JobExecutionListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ETLJobListener.class);
-    private LocalDateTime startTime;
 
     @Override
     public void beforeJob(JobExecution jobExecution) {
-        startTime = LocalDateTime.now();
         logger.info("╔════════════════════════════════════════════════════════╗");
         logger.info("║         STARTING ETL JOB - SPRING BATCH                ║");
         logger.info("╚════════════════════════════════════════════════════════╝");
         logger.info("Job ID: {}", jobExecution.getJobId());
         logger.info("Job Name: {}", jobExecution.getJobInstance().getJobName());
-        logger.info("Start Time: {}", startTime);
+        logger.info("Start Time: {}", jobExecution.getStartTime());
         logger.info("Parameters: {}", jobExecution.getJobParameters());
     }
 
     @Override
     public void afterJob(JobExecution jobExecution) {
         LocalDateTime endTime = LocalDateTime.now();
+        LocalDateTime startTime = jobExecution.getStartTime() != null ? jobExecution.getStartTime() : endTime;
         Duration duration = Duration.between(startTime, endTime);
 
         logger.info("╔════════════════════════════════════════════════════════╗");
         logger.info("║         ETL JOB COMPLETED - SPRING BATCH               ║");
         logger.info("╚════════════════════════════════════════════════════════╝");
+        logger.info("Job ID: {}", jobExecution.getJobId());
         logger.info("Status: {}", jobExecution.getStatus());
         logger.info("End Time: {}", endTime);
-        logger.info("Duration: {} seconds", duration.getSeconds());
+        logger.info("Duration: {} ms", duration.toMillis());
         logger.info("Read Count: {}", jobExecution.getStepExecutions().stream()
                 .mapToLong(step -> step.getReadCount()).sum());
         logger.info("Write Count: {}", jobExecution.getStepExecutions().stream()
@@ -0,0 +1,32 @@
+package com.example.demo.batch.listener;
+
+import com.example.demo.service.PersonChangeLog;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobExecutionListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.stereotype.Component;
+
+/**
+ * Advances the PERSON change version after a job that wrote to PERSON
+ * Jobs do not log their rows one by one; a single RESET tells clients to read the table again.
+ * Failed jobs count too, since their committed chunks stay in the table.
+ */
+@Component
+public class PersonChangeJobListener implements JobExecutionListener {
+
+    private final PersonChangeLog changeLog;
+
+    public PersonChangeJobListener(PersonChangeLog changeLog) {
+        this.changeLog = changeLog;
+    }
+
+    @Override
+    public void afterJob(JobExecution jobExecution) {
+        long writeCount = jobExecution.getStepExecutions().stream()
+                .mapToLong(StepExecution::getWriteCount)
+                .sum();
+        if (writeCount > 0) {
+            changeLog.recordReset(jobExecution.getJobInstance().getJobName());
+        }
+    }
+}
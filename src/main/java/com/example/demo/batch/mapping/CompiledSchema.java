@@ -0,0 +1,134 @@
+package com.example.demo.batch.mapping;
+
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * A CsvSchema compiled against a target class
+ *
+ * Constructor and setters are resolved once into MethodHandles, so mapping a row is
+ * a straight loop of conversions and handle invocations: no reflection lookups,
+ * no BeanWrapper and no property-name matching per row.
+ * Instances are immutable and shared; header binding lives in SchemaLineMapper.
+ */
+public class CompiledSchema<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType LINE_SETTER_TYPE = MethodType.methodType(void.class, Object.class, int.class);
+
+    private final CsvSchema schema;
+    private final MethodHandle constructor;
+    private final MethodHandle[] setters;
+    private final FieldType[] types;
+    private final boolean[] primitive;
+    private final MethodHandle lineNumberSetter;
+
+    private CompiledSchema(CsvSchema schema, MethodHandle constructor, MethodHandle[] setters,
+                           FieldType[] types, MethodHandle lineNumberSetter) {
+        this.schema = schema;
+        this.constructor = constructor;
+        this.setters = setters;
+        this.types = types;
+        this.lineNumberSetter = lineNumberSetter;
+        this.primitive = new boolean[types.length];
+        for (int i = 0; i < types.length; i++) {
+            primitive[i] = types[i].getJavaType().isPrimitive();
+        }
+    }
+
+    public static <T> CompiledSchema<T> compile(CsvSchema schema, Class<T> targetType) {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        try {
+            MethodHandle constructor = lookup.findConstructor(targetType, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+
+            int count = schema.columns().size();
+            MethodHandle[] setters = new MethodHandle[count];
+            FieldType[] types = new FieldType[count];
+            for (int i = 0; i < count; i++) {
+                CsvSchema.Column column = schema.columns().get(i);
+                types[i] = column.type();
+                setters[i] = lookup.findVirtual(targetType, setterName(column.field()),
+                                MethodType.methodType(void.class, column.type().getJavaType()))
+                        .asType(SETTER_TYPE);
+            }
+
+            MethodHandle lineNumberSetter = null;
+            if (schema.lineNumberField() != null) {
+                lineNumberSetter = lookup.findVirtual(targetType, setterName(schema.lineNumberField()),
+                                MethodType.methodType(void.class, int.class))
+                        .asType(LINE_SETTER_TYPE);
+            }
+
+            return new CompiledSchema<>(schema, constructor, setters, types, lineNumberSetter);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException(
+                    "Schema " + schema.name() + " does not match " + targetType.getSimpleName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    public CsvSchema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Creates a line mapper for one file; column positions default to declaration order
+     * until a header line is bound
+     */
+    public SchemaLineMapper<T> newLineMapper() {
+        return new SchemaLineMapper<>(this);
+    }
+
+    /**
+     * Maps one tokenized row
+     * @param indexes Position of each schema column in the row, -1 when absent
+     */
+    @SuppressWarnings("unchecked")
+    T map(FieldSet fieldSet, int[] indexes, int lineNumber) {
+        Object target;
+        try {
+            target = constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not instantiate target for schema " + schema.name(), e);
+        }
+
+        int fieldCount = fieldSet.getFieldCount();
+        for (int i = 0; i < setters.length; i++) {
+            int index = indexes[i];
+            String raw = index >= 0 && index < fieldCount ? fieldSet.readRawString(index) : null;
+
+            Object value;
+            try {
+                value = types[i].convert(raw);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid " + types[i] + " value '" + raw
+                        + "' for column " + schema.columns().get(i).header(), e);
+            }
+
+            if (value == null && primitive[i]) {
+                continue; // Leave the primitive's default
+            }
+            try {
+                setters[i].invokeExact(target, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not set " + schema.columns().get(i).field(), e);
+            }
+        }
+
+        if (lineNumberSetter != null) {
+            try {
+                lineNumberSetter.invokeExact(target, lineNumber);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Could not set " + schema.lineNumberField(), e);
+            }
+        }
+        return (T) target;
+    }
+
+    private static String setterName(String field) {
+        return "set" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+    }
+}
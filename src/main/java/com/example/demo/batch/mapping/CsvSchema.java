@@ -0,0 +1,61 @@
+package com.example.demo.batch.mapping;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Describes one input format: delimiter and which CSV column feeds which target field
+ *
+ * Columns are matched by header name when the file has a header, otherwise by position.
+ * Columns of the file that are not listed are never converted.
+ *
+ * @param name Schema name (job parameter / upload parameter "schema")
+ * @param delimiter Column delimiter
+ * @param columns Column to field mappings
+ * @param lineNumberField Target field receiving the line number, or null
+ */
+public record CsvSchema(String name, String delimiter, List<Column> columns, String lineNumberField) {
+
+    /**
+     * @param header Column name in the CSV header
+     * @param field Target bean property (must have a public setter)
+     * @param type Conversion applied to the raw value
+     */
+    public record Column(String header, String field, FieldType type) {}
+
+    /**
+     * Parses a column spec such as "name:rawName, birth_date:birthDate:date"
+     * Each entry is header:field[:type]; the type defaults to string
+     */
+    public static CsvSchema parse(String name, String delimiter, String columnSpec, String lineNumberField) {
+        List<Column> columns = new ArrayList<>();
+        for (String entry : columnSpec.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.trim().split(":");
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid column mapping '" + entry + "' in schema " + name);
+            }
+            FieldType type = parts.length == 3 ? FieldType.of(parts[2]) : FieldType.STRING;
+            columns.add(new Column(parts[0].trim(), parts[1].trim(), type));
+        }
+        return new CsvSchema(name, delimiter, List.copyOf(columns), lineNumberField);
+    }
+
+    /**
+     * Short hash of the whole definition; changes whenever the delimiter or a mapping does
+     */
+    public String fingerprint() {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.batch.mapping;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Column types supported by CSV schemas, each with its Java type and String converter
+ */
+public enum FieldType {
+
+    STRING(String.class, raw -> raw),
+    INT(int.class, Integer::valueOf),
+    LONG(long.class, Long::valueOf),
+    DOUBLE(double.class, Double::valueOf),
+    BOOLEAN(boolean.class, raw -> Boolean.valueOf(raw.trim())),
+    DATE(LocalDate.class, LocalDate::parse);
+
+    private final Class<?> javaType;
+    private final Function<String, Object> converter;
+
+    FieldType(Class<?> javaType, Function<String, Object> converter) {
+        this.javaType = javaType;
+        this.converter = converter;
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    /**
+     * Converts a raw CSV value; blank values of non-String types become null
+     */
+    public Object convert(String raw) {
+        if (raw == null) {
+            return null;
+        }
+        if (this != STRING) {
+            raw = raw.trim();
+            if (raw.isEmpty()) {
+                return null;
+            }
+        }
+        return converter.apply(raw);
+    }
+
+    public static FieldType of(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.batch.mapping;
+
+import org.springframework.batch.item.file.LineMapper;
+import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
+import org.springframework.batch.item.file.transform.FieldSet;
+
+import java.util.List;
+
+/**
+ * LineMapper for one file, backed by a shared CompiledSchema
+ * Holds the per-file state: tokenizer and the column positions resolved from the header
+ */
+public class SchemaLineMapper<T> implements LineMapper<T> {
+
+    private final CompiledSchema<T> compiledSchema;
+    private final DelimitedLineTokenizer tokenizer;
+    private int[] indexes;
+
+    SchemaLineMapper(CompiledSchema<T> compiledSchema) {
+        this.compiledSchema = compiledSchema;
+        this.tokenizer = new DelimitedLineTokenizer(compiledSchema.getSchema().delimiter());
+        this.tokenizer.setStrict(false);
+
+        int count = compiledSchema.getSchema().columns().size();
+        this.indexes = new int[count];
+        for (int i = 0; i < count; i++) {
+            indexes[i] = i;
+        }
+    }
+
+    /**
+     * Resolves column positions from the header line (case-insensitive)
+     * Schema columns missing from the header are mapped as empty values; when the header
+     * matches no schema column at all, positions stay in declaration order
+     */
+    public void bindHeader(String headerLine) {
+        FieldSet header = tokenizer.tokenize(headerLine);
+        List<CsvSchema.Column> columns = compiledSchema.getSchema().columns();
+        int[] resolved = new int[columns.size()];
+        boolean matched = false;
+
+        for (int i = 0; i < columns.size(); i++) {
+            resolved[i] = -1;
+            for (int j = 0; j < header.getFieldCount(); j++) {
+                if (header.readString(j).equalsIgnoreCase(columns.get(i).header())) {
+                    resolved[i] = j;
+                    matched = true;
+                    break;
+                }
+            }
+        }
+        if (matched) {
+            this.indexes = resolved;
+        }
+    }
+
+    @Override
+    public T mapLine(String line, int lineNumber) {
+        return compiledSchema.map(tokenizer.tokenize(line), indexes, lineNumber);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.batch.mapping;
+
+import com.example.demo.batch.model.PersonCSVData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of the CSV input formats known to the application
+ *
+ * The built-in "person" schema maps the "name" column to PersonCSVData.rawName.
+ * More formats are declared in application.properties:
+ *   etl.schema.[name].columns=header:field[:type], ...
+ *   etl.schema.[name].delimiter=,
+ * A schema is not tied to one class: schema(name, type) compiles it against any bean with
+ * a public no-arg constructor and setters for its fields, so a wide extract can be mapped
+ * into a target with one typed property per column. The person loads use personSchema(),
+ * whose PersonCSVData only has rawName and lineNumber, so there only those fields can be mapped.
+ * Each schema is compiled once per target class, on first use, and shared by all readers.
+ */
+@Component
+public class SchemaRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaRegistry.class);
+    public static final String DEFAULT_SCHEMA = "person";
+
+    private final Map<String, CsvSchema> schemas = new ConcurrentHashMap<>();
+    private final Map<CompiledKey, CompiledSchema<?>> compiled = new ConcurrentHashMap<>();
+
+    public SchemaRegistry(Environment environment) {
+        schemas.put(DEFAULT_SCHEMA, CsvSchema.parse(DEFAULT_SCHEMA, ",", "name:rawName", "lineNumber"));
+
+        ResolvableType propertiesType = ResolvableType.forClassWithGenerics(Map.class,
+                ResolvableType.forClass(String.class),
+                ResolvableType.forClassWithGenerics(Map.class, String.class, String.class));
+        Map<String, Map<String, String>> configured = Binder.get(environment)
+                .<Map<String, Map<String, String>>>bind("etl.schema", Bindable.of(propertiesType))
+                .orElse(Map.of());
+
+        configured.forEach((name, properties) -> {
+            CsvSchema schema = CsvSchema.parse(name,
+                    properties.getOrDefault("delimiter", ","),
+                    properties.getOrDefault("columns", ""),
+                    properties.getOrDefault("line-number-field", "lineNumber"));
+            schemas.put(name, schema);
+            logger.info("Registered CSV schema '{}' with {} columns", name, schema.columns().size());
+        });
+    }
+
+    /**
+     * Returns the compiled schema for PersonCSVData targets
+     * @param name Schema name, null or blank for the default
+     */
+    public CompiledSchema<PersonCSVData> personSchema(String name) {
+        return schema(name, PersonCSVData.class);
+    }
+
+    /**
+     * Returns the schema compiled for the given target class
+     * @param name Schema name, null or blank for the default
+     * @param targetType Bean with a public no-arg constructor and a setter per mapped field
+     * @throws IllegalArgumentException for an unknown schema, or a field the target cannot receive
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompiledSchema<T> schema(String name, Class<T> targetType) {
+        String schemaName = name == null || name.isBlank() ? DEFAULT_SCHEMA : name;
+        CsvSchema schema = schemas.get(schemaName);
+        if (schema == null) {
+            throw new IllegalArgumentException("Unknown CSV schema: " + schemaName);
+        }
+        return (CompiledSchema<T>) compiled.computeIfAbsent(new CompiledKey(schemaName, targetType),
+                key -> CompiledSchema.compile(schema, targetType));
+    }
+
+    private record CompiledKey(String schemaName, Class<?> targetType) {}
+}
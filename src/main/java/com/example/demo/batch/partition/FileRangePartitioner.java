@@ -0,0 +1,77 @@
+package com.example.demo.batch.partition;
+
+import com.example.demo.batch.reader.FileSegmentResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits a CSV file into byte ranges that end on line boundaries, one per partition
+ *
+ * Each partition's ExecutionContext holds startOffset and endOffset, which personReader
+ * reads through FileSegmentResource. Only the first range starts at 0 and carries the
+ * header; the others bind the header read from the start of the file.
+ */
+public class FileRangePartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileRangePartitioner.class);
+
+    private final Path file;
+
+    public FileRangePartitioner(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+        try {
+            long size = Files.size(file);
+            long targetSize = Math.max(1, size / Math.max(1, gridSize));
+            long start = 0;
+
+            while (start < size) {
+                boolean last = partitions.size() == gridSize - 1;
+                long end = last || start + targetSize >= size
+                        ? size
+                        : FileSegmentResource.lastLineBoundary(file, start, start + targetSize);
+                if (end <= start) {
+                    // A single line longer than the target size: extend to the end of that line
+                    end = nextLineBoundary(start + targetSize, size);
+                }
+
+                ExecutionContext context = new ExecutionContext();
+                context.putLong("startOffset", start);
+                context.putLong("endOffset", end);
+                partitions.put("partition" + partitions.size(), context);
+                start = end;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not partition " + file, e);
+        }
+
+        logger.info("Split {} into {} line-aligned partitions", file, partitions.size());
+        return partitions;
+    }
+
+    private long nextLineBoundary(long from, long size) throws IOException {
+        long to = Math.min(size, from + 64 * 1024);
+        while (to < size) {
+            long boundary = FileSegmentResource.lastLineBoundary(file, from, to);
+            if (boundary > from) {
+                return boundary;
+            }
+            from = to;
+            to = Math.min(size, to + 64 * 1024);
+        }
+        return size;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.batch.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.partition.support.Partitioner;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Splits PERSON into contiguous ID ranges, one per partition
+ *
+ * Each partition's ExecutionContext holds minId and maxId (inclusive). The ranges
+ * are stored with the partition step executions, so a restart re-runs only the
+ * partitions that did not complete, over the same ranges.
+ */
+public class IdRangePartitioner implements Partitioner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdRangePartitioner.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdRangePartitioner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<String, ExecutionContext> partition(int gridSize) {
+        Map<String, Object> bounds = jdbcTemplate.queryForMap("SELECT MIN(ID) AS MIN_ID, MAX(ID) AS MAX_ID FROM PERSON");
+        Map<String, ExecutionContext> partitions = new HashMap<>();
+
+        if (bounds.get("MIN_ID") == null) {
+            logger.info("PERSON is empty, nothing to partition");
+            return partitions;
+        }
+
+        long minId = ((Number) bounds.get("MIN_ID")).longValue();
+        long maxId = ((Number) bounds.get("MAX_ID")).longValue();
+        long rangeSize = Math.max(1, (maxId - minId) / Math.max(1, gridSize) + 1);
+
+        int number = 0;
+        for (long start = minId; start <= maxId; start += rangeSize) {
+            ExecutionContext context = new ExecutionContext();
+            context.putLong("minId", start);
+            context.putLong("maxId", Math.min(start + rangeSize - 1, maxId));
+            partitions.put("partition" + number++, context);
+        }
+
+        logger.info("Split PERSON ids [{}, {}] into {} partitions", minId, maxId, partitions.size());
+        return partitions;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.batch.processor;
+
+import com.example.demo.model.Person;
+import com.example.demo.service.PersonService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ItemProcessor;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Filters out persons whose name already exists in PERSON (case-insensitive)
+ * Existing names are loaded once, on the first item, into a hash set; names passed on are
+ * added to it so repeats within the step are filtered too. One instance per step
+ * (skipExisting job parameter, set by delta loads where a changed chunk still holds rows
+ * loaded before)
+ */
+public class ExistingNameFilter implements ItemProcessor<Person, Person> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExistingNameFilter.class);
+
+    private final PersonService personService;
+    private Set<String> names;
+
+    public ExistingNameFilter(PersonService personService) {
+        this.personService = personService;
+    }
+
+    @Override
+    public Person process(Person person) {
+        if (names == null) {
+            names = personService.getAllNamesLowerCase();
+        }
+        if (!names.add(person.getName().toLowerCase(Locale.ROOT))) {
+            logger.debug("Name '{}' already exists, skipping...", person.getName());
+            return null;
+        }
+        return person;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demo.batch.processor;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Chain of name transformation and validation rules, fused into a single pass
+ *
+ * SPEC (comma separated, order does not matter):
+ * - trim:          drop leading and trailing whitespace
+ * - collapse:      turn every run of whitespace into one space (implies trim)
+ * - fold:          strip accents from Latin-1 / Latin Extended-A letters ("João" -> "Joao")
+ * - capitalize:    upper-case the first letter of each word, lower-case the rest
+ * - lower / upper: change the case of every letter
+ * - length:MIN-MAX reject names whose result is shorter or longer (e.g. length:2-100)
+ * - blacklist:     reject names containing a word of etl.rules.blacklist (case-insensitive)
+ *
+ * Every character is read once and written once into a per-thread char buffer; a name
+ * that grows past the maximum length is rejected without reading the rest of it. The only
+ * allocation per accepted name is the resulting String, and none when the result equals
+ * the input. apply returns null for a rejected name.
+ */
+public final class NameRuleChain {
+
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[256]);
+    private static final char[] FOLD_TABLE = buildFoldTable();
+
+    private enum Case { KEEP, CAPITALIZE, LOWER, UPPER }
+
+    private final String spec;
+    private final boolean trim;
+    private final boolean collapse;
+    private final boolean fold;
+    private final Case caseRule;
+    private final int minLength;
+    private final int maxLength;
+    private final char[][] blacklist;
+
+    private NameRuleChain(String spec, boolean trim, boolean collapse, boolean fold, Case caseRule,
+                          int minLength, int maxLength, char[][] blacklist) {
+        this.spec = spec;
+        this.trim = trim;
+        this.collapse = collapse;
+        this.fold = fold;
+        this.caseRule = caseRule;
+        this.minLength = minLength;
+        this.maxLength = maxLength;
+        this.blacklist = blacklist;
+    }
+
+    /**
+     * Builds a chain from its spec
+     * @param spec e.g. "trim,collapse,fold,capitalize,length:2-100,blacklist"
+     * @param blacklistWords words rejected by the blacklist rule
+     * @throws IllegalArgumentException for an unknown rule
+     */
+    public static NameRuleChain compile(String spec, List<String> blacklistWords) {
+        boolean trim = false;
+        boolean collapse = false;
+        boolean fold = false;
+        Case caseRule = Case.KEEP;
+        int minLength = 0;
+        int maxLength = Integer.MAX_VALUE;
+        char[][] blacklist = new char[0][];
+
+        for (String token : spec.split(",")) {
+            String rule = token.trim().toLowerCase(Locale.ROOT);
+            if (rule.isEmpty()) {
+                continue;
+            }
+            switch (rule) {
+                case "trim" -> trim = true;
+                case "collapse" -> collapse = true;
+                case "fold" -> fold = true;
+                case "capitalize" -> caseRule = Case.CAPITALIZE;
+                case "lower" -> caseRule = Case.LOWER;
+                case "upper" -> caseRule = Case.UPPER;
+                case "blacklist" -> blacklist = blacklistWords.stream()
+                        .map(String::trim)
+                        .filter(word -> !word.isEmpty())
+                        .map(word -> word.toLowerCase(Locale.ROOT).toCharArray())
+                        .toArray(char[][]::new);
+                default -> {
+                    if (!rule.startsWith("length:")) {
+                        throw new IllegalArgumentException("Unknown name rule: " + token.trim());
+                    }
+                    String[] bounds = rule.substring("length:".length()).split("-");
+                    try {
+                        minLength = Integer.parseInt(bounds[0]);
+                        maxLength = bounds.length > 1 ? Integer.parseInt(bounds[1]) : Integer.MAX_VALUE;
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Invalid length rule: " + token.trim());
+                    }
+                }
+            }
+        }
+        return new NameRuleChain(spec, trim || collapse, collapse, fold, caseRule, minLength, maxLength, blacklist);
+    }
+
+    public String getSpec() {
+        return spec;
+    }
+
+    /**
+     * Applies the chain to a name
+     * @return the transformed name, or null when a validation rule rejects it
+     */
+    public String apply(String input) {
+        if (input == null) {
+            return null;
+        }
+        int inputLength = input.length();
+        char[] out = buffer(inputLength);
+        int length = 0;
+        boolean pendingSpace = false;
+
+        for (int i = 0; i < inputLength; i++) {
+            char c = input.charAt(i);
+
+            if (Character.isWhitespace(c)) {
+                if (collapse) {
+                    pendingSpace = length > 0;
+                    continue;
+                }
+                if (trim && length == 0) {
+                    continue;
+                }
+                out[length++] = c;
+                continue;
+            }
+
+            if (pendingSpace) {
+                out[length++] = ' ';
+                pendingSpace = false;
+            }
+            if (fold && c < FOLD_TABLE.length) {
+                c = FOLD_TABLE[c];
+            }
+            switch (caseRule) {
+                case CAPITALIZE -> c = length == 0 || Character.isWhitespace(out[length - 1])
+                        ? Character.toUpperCase(c)
+                        : Character.toLowerCase(c);
+                case LOWER -> c = Character.toLowerCase(c);
+                case UPPER -> c = Character.toUpperCase(c);
+                default -> { }
+            }
+            out[length++] = c;
+
+            if (length > maxLength) {
+                return null; // Short-circuit: trimming cannot remove a non-whitespace character
+            }
+        }
+
+        if (trim) {
+            while (length > 0 && Character.isWhitespace(out[length - 1])) {
+                length--;
+            }
+        }
+        if (length < minLength || length > maxLength || isBlacklisted(out, length)) {
+            return null;
+        }
+        return sameAs(input, out, length) ? input : new String(out, 0, length);
+    }
+
+    /**
+     * True when any whitespace-separated word of out[0, length) is in the blacklist
+     */
+    private boolean isBlacklisted(char[] out, int length) {
+        if (blacklist.length == 0) {
+            return false;
+        }
+        int start = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || Character.isWhitespace(out[i])) {
+                for (char[] word : blacklist) {
+                    if (regionEqualsIgnoreCase(out, start, i - start, word)) {
+                        return true;
+                    }
+                }
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionEqualsIgnoreCase(char[] chars, int offset, int length, char[] lowerWord) {
+        if (length != lowerWord.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = chars[offset + i];
+            if (c != lowerWord[i] && Character.toLowerCase(c) != lowerWord[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameAs(String input, char[] out, int length) {
+        if (input.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (input.charAt(i) != out[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char[] buffer(int minCapacity) {
+        char[] buffer = BUFFER.get();
+        if (buffer.length < minCapacity) {
+            buffer = new char[Math.max(minCapacity, buffer.length * 2)];
+            BUFFER.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Maps accented Latin letters to their base letter; other characters map to themselves
+     */
+    private static char[] buildFoldTable() {
+        char[] table = new char[0x180];
+        for (char c = 0; c < table.length; c++) {
+            table[c] = c;
+        }
+        String from = "ÀÁÂÃÄÅàáâãäåÇçÈÉÊËèéêëÌÍÎÏìíîïÑñÒÓÔÕÖØòóôõöøÙÚÛÜùúûüÝýÿ"
+                + "ĀāĂăĄąĆćĈĉĊċČčĎďĒēĔĕĖėĘęĚěĜĝĞğĠġĢģĤĥĨĩĪīĬĭĮįİĴĵĶķĹĺĻļĽľŃńŅņŇňŌōŎŏŐőŔŕŖŗŘřŚśŜŝŞşŠšŢţŤťŨũŪūŬŭŮůŰűŲųŴŵŶŷŸŹźŻżŽž";
+        String to = "AAAAAAaaaaaaCcEEEEeeeeIIIIiiiiNnOOOOOOooooooUUUUuuuuYyy"
+                + "AaAaAaCcCcCcCcDdEeEeEeEeEeGgGgGgGgHhIiIiIiIiIJjKkLlLlLlNnNnNnOoOoOoRrRrRrSsSsSsSsTtTtUuUuUuUuUuUuWwYyYZzZzZz";
+        for (int i = 0; i < from.length(); i++) {
+            table[from.charAt(i)] = to.charAt(i);
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return "NameRuleChain[" + spec + "]";
+    }
+}
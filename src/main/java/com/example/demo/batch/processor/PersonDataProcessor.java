@@ -5,18 +5,52 @@ import com.example.demo.model.Person;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.batch.item.ItemProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Processor to transform raw CSV data into Person entities
  * Implements the Spring Batch ItemProcessor pattern
  * This is the TRANSFORM component of the ETL process
+ *
+ * Names go through a NameRuleChain (etl.rules.default, or the rules job parameter);
+ * a name rejected by a validation rule is filtered out.
  */
 @Component
 public class PersonDataProcessor implements ItemProcessor<PersonCSVData, Person> {
 
     private static final Logger logger = LoggerFactory.getLogger(PersonDataProcessor.class);
 
+    private final NameRuleChain ruleChain;
+    private final List<String> blacklist;
+
+    @Autowired
+    public PersonDataProcessor(@Value("${etl.rules.default:trim,collapse,capitalize}") String rules,
+                               @Value("${etl.rules.blacklist:}") String blacklist) {
+        this(NameRuleChain.compile(rules, parseList(blacklist)), parseList(blacklist));
+    }
+
+    private PersonDataProcessor(NameRuleChain ruleChain, List<String> blacklist) {
+        this.ruleChain = ruleChain;
+        this.blacklist = blacklist;
+    }
+
+    /**
+     * Returns a processor applying another rule chain, sharing this processor's blacklist
+     * Used for the rules job parameter; the chain is compiled once per step
+     * @throws IllegalArgumentException for an unknown rule
+     */
+    public PersonDataProcessor withRules(String rules) {
+        if (rules == null || rules.isBlank() || rules.equals(ruleChain.getSpec())) {
+            return this;
+        }
+        return new PersonDataProcessor(NameRuleChain.compile(rules, blacklist), blacklist);
+    }
+
     /**
      * Transforms PersonCSVData into Person
      * Applies business rules such as name capitalization
@@ -24,13 +58,16 @@ public class PersonDataProcessor implements ItemProcessor<PersonCSVData, Person>
     @Override
     public Person process(PersonCSVData csvData) throws Exception {
         if (csvData == null || csvData.getRawName() == null || csvData.getRawName().trim().isEmpty()) {
-            logger.warn("Invalid data found at line {}, skipping...", csvData.getLineNumber());
+            logger.warn("Invalid data found at line {}, skipping...", csvData != null ? csvData.getLineNumber() : null);
             return null; // Returning null skips this item
         }
 
-        String rawName = csvData.getRawName().trim();
-        String transformedName = capitalizeName(rawName);
-
+        String rawName = csvData.getRawName();
+        String transformedName = normalize(rawName);
+        if (transformedName == null || transformedName.isEmpty()) {
+            logger.warn("Name at line {} rejected by rules [{}], skipping...", csvData.getLineNumber(), ruleChain.getSpec());
+            return null;
+        }
 
         logger.info("TRANSFORM: '{}' -> '{}'", rawName, transformedName);
 
@@ -41,26 +78,15 @@ public class PersonDataProcessor implements ItemProcessor<PersonCSVData, Person>
     }
 
     /**
-     * Capitalizes each word in the name
-     * Example: "john doe" -> "John Doe"
+     * Applies the current normalization rules to a name
+     * Shared with normalizePersonJob so stored rows can be brought up to date
+     * @return the normalized name, or null when a validation rule rejects it
      */
-    private String capitalizeName(String name) {
-        if (name == null || name.isEmpty()) {
-            return name;
-        }
-
-        String[] words = name.split(" ");
-        StringBuilder result = new StringBuilder();
-
-        for (String word : words) {
-            if (!word.isEmpty()) {
-                result.append(Character.toUpperCase(word.charAt(0)))
-                      .append(word.substring(1).toLowerCase())
-                      .append(" ");
-            }
-        }
+    public String normalize(String name) {
+        return ruleChain.apply(name);
+    }
 
-        return result.toString().trim();
+    private static List<String> parseList(String value) {
+        return value == null || value.isBlank() ? List.of() : Arrays.asList(value.split(","));
     }
 }
-
@@ -0,0 +1,30 @@
+package com.example.demo.batch.processor;
+
+import com.example.demo.model.Person;
+import org.springframework.batch.item.ItemProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-applies the current normalization rules to a stored person
+ * Returns null (filters the row out) when the name is already normalized,
+ * so only changed rows reach the UPDATE writer
+ */
+@Component
+public class PersonRenormalizeProcessor implements ItemProcessor<Person, Person> {
+
+    private final PersonDataProcessor dataProcessor;
+
+    public PersonRenormalizeProcessor(PersonDataProcessor dataProcessor) {
+        this.dataProcessor = dataProcessor;
+    }
+
+    @Override
+    public Person process(Person person) {
+        String normalized = dataProcessor.normalize(person.getName());
+        if (normalized == null || normalized.isEmpty() || normalized.equals(person.getName())) {
+            return null;
+        }
+        person.setName(normalized);
+        return person;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.batch.queue;
+
+import com.example.demo.model.WorkQueueItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.batch.core.partition.PartitionHandler;
+import org.springframework.batch.core.partition.StepExecutionSplitter;
+import org.springframework.batch.core.repository.JobRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PartitionHandler that hands partitions to any instance through the work queue
+ *
+ * The coordinator splits the manager step, publishes the partitions, and then waits
+ * for them to finish while reassigning partitions whose claimer went silent. The
+ * partition step executions are then re-read from the job repository so the
+ * PartitionStep can aggregate their counts.
+ */
+public class QueuePartitionHandler implements PartitionHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueuePartitionHandler.class);
+
+    private final WorkQueue workQueue;
+    private final JobExplorer jobExplorer;
+    private final JobRepository jobRepository;
+    private final String workerStepName;
+    private final int defaultGridSize;
+    private final Duration pollInterval;
+    private final Duration heartbeatTimeout;
+    private final int maxAttempts;
+
+    public QueuePartitionHandler(WorkQueue workQueue, JobExplorer jobExplorer, JobRepository jobRepository,
+                                 String workerStepName, int defaultGridSize, Duration pollInterval,
+                                 Duration heartbeatTimeout, int maxAttempts) {
+        this.workQueue = workQueue;
+        this.jobExplorer = jobExplorer;
+        this.jobRepository = jobRepository;
+        this.workerStepName = workerStepName;
+        this.defaultGridSize = defaultGridSize;
+        this.pollInterval = pollInterval;
+        this.heartbeatTimeout = heartbeatTimeout;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public Collection<StepExecution> handle(StepExecutionSplitter stepSplitter, StepExecution managerStepExecution)
+            throws Exception {
+        Long partitions = managerStepExecution.getJobParameters().getLong("partitions");
+        int gridSize = partitions != null ? partitions.intValue() : defaultGridSize;
+
+        Set<StepExecution> stepExecutions = stepSplitter.split(managerStepExecution, gridSize);
+        Long jobExecutionId = managerStepExecution.getJobExecutionId();
+        workQueue.publish(jobExecutionId, stepExecutions, workerStepName);
+
+        while (!workQueue.isFinished(jobExecutionId)) {
+            Thread.sleep(pollInterval.toMillis());
+            workQueue.reassignStale(heartbeatTimeout, maxAttempts);
+        }
+
+        failAbandonedPartitions(jobExecutionId);
+
+        Set<StepExecution> results = new HashSet<>();
+        for (StepExecution stepExecution : stepExecutions) {
+            results.add(jobExplorer.getStepExecution(jobExecutionId, stepExecution.getId()));
+        }
+        return results;
+    }
+
+    /**
+     * A partition failed by the queue (no claimer finished it) is still STARTED in the
+     * job repository; mark it FAILED so the job fails and can be restarted
+     */
+    private void failAbandonedPartitions(Long jobExecutionId) {
+        for (WorkQueueItem item : workQueue.itemsOf(jobExecutionId)) {
+            if (item.getStatus() != WorkQueueItem.Status.FAILED) {
+                continue;
+            }
+            StepExecution stepExecution = jobExplorer.getStepExecution(jobExecutionId, item.getStepExecutionId());
+            if (stepExecution != null && stepExecution.getStatus().isRunning()) {
+                logger.warn("Partition {} abandoned after {} attempts", stepExecution.getStepName(), item.getAttempts());
+                stepExecution.setStatus(BatchStatus.FAILED);
+                stepExecution.setExitStatus(ExitStatus.FAILED.addExitDescription(item.getExitMessage()));
+                stepExecution.setEndTime(LocalDateTime.now());
+                jobRepository.update(stepExecution);
+            }
+        }
+    }
+}
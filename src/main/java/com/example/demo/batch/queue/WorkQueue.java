@@ -0,0 +1,145 @@
+package com.example.demo.batch.queue;
+
+import com.example.demo.model.WorkQueueItem;
+import com.example.demo.model.WorkQueueItem.Status;
+import com.example.demo.repository.WorkQueueRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Database-backed queue of job partitions (ETL_WORK_QUEUE)
+ *
+ * HOW IT WORKS:
+ * - The coordinator publishes one PENDING row per partition step execution
+ * - Workers on any instance claim rows with SELECT ... FOR UPDATE SKIP LOCKED,
+ *   so concurrent claimers never block on or receive the same row
+ * - The claimer refreshes HEARTBEAT_AT while the partition runs
+ * - Claims whose heartbeat is older than the timeout go back to PENDING
+ *   (or FAILED once the partition used up its attempts)
+ *
+ * State changes made by a worker are conditional on it still owning the row,
+ * so a worker that lost its claim cannot overwrite the new owner's result.
+ */
+@Component
+public class WorkQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueue.class);
+
+    private static final String CLAIM_SELECT_SQL =
+            "SELECT ID FROM ETL_WORK_QUEUE WHERE STATUS = 'PENDING' ORDER BY ID FOR UPDATE SKIP LOCKED";
+    private static final String CLAIM_UPDATE_SQL =
+            "UPDATE ETL_WORK_QUEUE SET STATUS = 'CLAIMED', OWNER = ?, HEARTBEAT_AT = ?, ATTEMPTS = ATTEMPTS + 1 WHERE ID = ?";
+    private static final String HEARTBEAT_SQL =
+            "UPDATE ETL_WORK_QUEUE SET HEARTBEAT_AT = ? WHERE ID = ? AND OWNER = ? AND STATUS = 'CLAIMED'";
+    private static final String FINISH_SQL =
+            "UPDATE ETL_WORK_QUEUE SET STATUS = ?, EXIT_MESSAGE = ? WHERE ID = ? AND OWNER = ? AND STATUS = 'CLAIMED'";
+    private static final String REQUEUE_STALE_SQL =
+            "UPDATE ETL_WORK_QUEUE SET STATUS = 'PENDING', OWNER = NULL "
+            + "WHERE STATUS = 'CLAIMED' AND HEARTBEAT_AT < ? AND ATTEMPTS < ?";
+    private static final String FAIL_STALE_SQL =
+            "UPDATE ETL_WORK_QUEUE SET STATUS = 'FAILED', EXIT_MESSAGE = 'Claimer stopped sending heartbeats' "
+            + "WHERE STATUS = 'CLAIMED' AND HEARTBEAT_AT < ? AND ATTEMPTS >= ?";
+    private static final String UNFINISHED_SQL =
+            "SELECT COUNT(*) FROM ETL_WORK_QUEUE WHERE JOB_EXECUTION_ID = ? AND STATUS IN ('PENDING', 'CLAIMED')";
+
+    private final WorkQueueRepository workQueueRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public WorkQueue(WorkQueueRepository workQueueRepository,
+                     JdbcTemplate jdbcTemplate,
+                     PlatformTransactionManager transactionManager) {
+        this.workQueueRepository = workQueueRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Publishes one PENDING row per partition
+     */
+    public void publish(Long jobExecutionId, Collection<StepExecution> partitions, String workerStepName) {
+        List<WorkQueueItem> items = partitions.stream()
+                .map(partition -> new WorkQueueItem(jobExecutionId, partition.getId(), workerStepName))
+                .toList();
+        workQueueRepository.saveAll(items);
+        logger.info("Published {} partitions of job execution {} to the work queue", items.size(), jobExecutionId);
+    }
+
+    /**
+     * Claims the oldest PENDING row not locked by another claimer
+     * Only one row is fetched, so only one row is locked
+     */
+    public Optional<WorkQueueItem> claim(String owner) {
+        Long id = transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.query(connection -> {
+                PreparedStatement ps = connection.prepareStatement(CLAIM_SELECT_SQL);
+                ps.setMaxRows(1);
+                return ps;
+            }, (rs, rowNum) -> rs.getLong(1));
+
+            if (ids.isEmpty()) {
+                return null;
+            }
+            jdbcTemplate.update(CLAIM_UPDATE_SQL, owner, now(), ids.get(0));
+            return ids.get(0);
+        });
+        return id == null ? Optional.empty() : workQueueRepository.findById(id);
+    }
+
+    /**
+     * Refreshes the heartbeat of a claimed row
+     * @return false when the claim was lost (the row was reassigned)
+     */
+    public boolean heartbeat(Long id, String owner) {
+        return jdbcTemplate.update(HEARTBEAT_SQL, now(), id, owner) == 1;
+    }
+
+    /**
+     * Records the outcome of a claimed partition
+     * @return false when the claim was lost and the result was discarded
+     */
+    public boolean finish(Long id, String owner, Status status, String exitMessage) {
+        String message = exitMessage != null && exitMessage.length() > 2000 ? exitMessage.substring(0, 2000) : exitMessage;
+        return jdbcTemplate.update(FINISH_SQL, status.name(), message, id, owner) == 1;
+    }
+
+    /**
+     * Puts claims without a recent heartbeat back in the queue, or fails them after maxAttempts
+     * @return number of rows reassigned or failed
+     */
+    public int reassignStale(Duration heartbeatTimeout, int maxAttempts) {
+        Timestamp staleBefore = Timestamp.valueOf(LocalDateTime.now().minus(heartbeatTimeout));
+        int requeued = jdbcTemplate.update(REQUEUE_STALE_SQL, staleBefore, maxAttempts);
+        int failed = jdbcTemplate.update(FAIL_STALE_SQL, staleBefore, maxAttempts);
+        if (requeued + failed > 0) {
+            logger.warn("Work queue: {} stale partitions re-queued, {} failed after {} attempts", requeued, failed, maxAttempts);
+        }
+        return requeued + failed;
+    }
+
+    public boolean isFinished(Long jobExecutionId) {
+        Long unfinished = jdbcTemplate.queryForObject(UNFINISHED_SQL, Long.class, jobExecutionId);
+        return unfinished == null || unfinished == 0;
+    }
+
+    public List<WorkQueueItem> itemsOf(Long jobExecutionId) {
+        return workQueueRepository.findByJobExecutionId(jobExecutionId);
+    }
+
+    private static Timestamp now() {
+        return Timestamp.valueOf(LocalDateTime.now());
+    }
+}
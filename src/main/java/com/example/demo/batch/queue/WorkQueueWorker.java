@@ -0,0 +1,183 @@
+package com.example.demo.batch.queue;
+
+import com.example.demo.model.WorkQueueItem;
+import com.example.demo.model.WorkQueueItem.Status;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Step;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.explore.JobExplorer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claims partitions from the work queue and runs them on this instance
+ *
+ * Every instance with etl.queue.worker.enabled=true (off by default, on in the cluster
+ * profile) runs one of these, so adding replicas adds capacity to distributed jobs.
+ * Partitions run on up to etl.queue.worker.threads threads; a heartbeat is sent for
+ * each running partition so the coordinator can tell a slow partition from a dead instance.
+ *
+ * Delivery is at-least-once. A claimer that was only slow, not dead, learns that its
+ * partition was re-queued at its next heartbeat and stops at its next chunk boundary,
+ * but until then it and the new claimer may both commit chunks of the same range.
+ * Committed chunks are not rolled back, so a re-queued range can be written twice.
+ */
+@Component
+@ConditionalOnProperty(name = "etl.queue.worker.enabled", havingValue = "true")
+public class WorkQueueWorker implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkQueueWorker.class);
+
+    private final WorkQueue workQueue;
+    private final JobExplorer jobExplorer;
+    private final ApplicationContext applicationContext;
+    private final String nodeId;
+    private final int threads;
+    private final long pollIntervalMs;
+    private final long heartbeatIntervalMs;
+
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+    private final Map<Long, StepExecution> executions = new ConcurrentHashMap<>();
+    private Semaphore slots;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService workers;
+    private volatile boolean started;
+
+    public WorkQueueWorker(WorkQueue workQueue,
+                           JobExplorer jobExplorer,
+                           ApplicationContext applicationContext,
+                           @Value("${etl.queue.node-id:}") String nodeId,
+                           @Value("${etl.queue.worker.threads:2}") int threads,
+                           @Value("${etl.queue.poll-interval-ms:1000}") long pollIntervalMs,
+                           @Value("${etl.queue.heartbeat-interval-ms:5000}") long heartbeatIntervalMs) {
+        this.workQueue = workQueue;
+        this.jobExplorer = jobExplorer;
+        this.applicationContext = applicationContext;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        this.threads = threads;
+        this.pollIntervalMs = pollIntervalMs;
+        this.heartbeatIntervalMs = heartbeatIntervalMs;
+    }
+
+    @Override
+    public void start() {
+        slots = new Semaphore(threads);
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "queue-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "queue-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::poll, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::sendHeartbeats, heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        started = true;
+        logger.info("Work queue worker {} started with {} threads", nodeId, threads);
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+        scheduler.shutdownNow();
+        workers.shutdown();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return started;
+    }
+
+    private void poll() {
+        try {
+            while (slots.tryAcquire()) {
+                Optional<WorkQueueItem> claimed = workQueue.claim(nodeId);
+                if (claimed.isEmpty()) {
+                    slots.release();
+                    return;
+                }
+                WorkQueueItem item = claimed.get();
+                running.add(item.getId());
+                workers.submit(() -> {
+                    try {
+                        runPartition(item);
+                    } finally {
+                        running.remove(item.getId());
+                        executions.remove(item.getId());
+                        slots.release();
+                    }
+                });
+            }
+        } catch (Exception e) {
+            logger.error("Work queue poll failed", e);
+        }
+    }
+
+    private void runPartition(WorkQueueItem item) {
+        try {
+            StepExecution stepExecution = jobExplorer.getStepExecution(item.getJobExecutionId(), item.getStepExecutionId());
+            if (stepExecution == null) {
+                workQueue.finish(item.getId(), nodeId, Status.FAILED, "Step execution not found");
+                return;
+            }
+
+            // A previous claimer may have finished just before its claim was reassigned
+            if (stepExecution.getStatus() != BatchStatus.COMPLETED) {
+                logger.info("Running partition {} (attempt {})", stepExecution.getStepName(), item.getAttempts());
+                executions.put(item.getId(), stepExecution);
+                applicationContext.getBean(item.getStepName(), Step.class).execute(stepExecution);
+            }
+
+            boolean completed = stepExecution.getStatus() == BatchStatus.COMPLETED;
+            workQueue.finish(item.getId(), nodeId, completed ? Status.COMPLETED : Status.FAILED,
+                    stepExecution.getExitStatus().getExitDescription());
+        } catch (Exception e) {
+            logger.error("Partition {} failed", item.getStepExecutionId(), e);
+            workQueue.finish(item.getId(), nodeId, Status.FAILED, e.getMessage());
+        }
+    }
+
+    private void sendHeartbeats() {
+        running.forEach(id -> {
+            try {
+                if (!workQueue.heartbeat(id, nodeId)) {
+                    StepExecution stepExecution = executions.get(id);
+                    if (stepExecution != null) {
+                        stepExecution.setTerminateOnly(); // Checked by the step between chunks
+                    }
+                    logger.warn("Lost claim on work queue item {}, stopping its partition at the next chunk", id);
+                }
+            } catch (Exception e) {
+                logger.error("Heartbeat failed for work queue item {}", id, e);
+            }
+        });
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
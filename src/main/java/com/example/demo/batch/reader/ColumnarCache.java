@@ -0,0 +1,222 @@
+package com.example.demo.batch.reader;
+
+import com.example.demo.batch.mapping.CsvSchema;
+import com.example.demo.batch.model.PersonCSVData;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemStreamReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Local disk cache of parsed CSV files in a binary columnar format
+ *
+ * HOW IT WORKS:
+ * - The first run of a file parses it with its schema and writes the raw names to
+ *   etl.cache.directory/<sha256>.<schema>-<schema hash>.pcol before its step reads a row, so that
+ *   run pays a whole extra pass over the file; later runs of the same content (force=true,
+ *   multi-step jobs) read that file with ColumnarPersonReader and skip text parsing
+ * - The key is the content hash from the ingestion fingerprint plus the schema name and a hash of
+ *   its definition, so a changed file or a reconfigured schema never hits a stale entry
+ * - Off by default (etl.cache.enabled): it only pays off when the same content is read again
+ * - Files are written to a temp file and moved into place, so a reader never sees a partial one
+ * - Beyond etl.cache.max-size-mb the least recently used files are deleted
+ *
+ * FILE FORMAT (big-endian):
+ * - header:    magic "PCOL", format version, row count, reserved (4 ints)
+ * - row index: per row its CSV line number and the offset of its name in the data section (2 ints)
+ * - data:      per row the name length in bytes (-1 for null) and its UTF-8 bytes
+ *
+ * A file whose mapping fails (bad line) or that would exceed 2 GB is not cached; the run
+ * reads the CSV file as before and reports the error the same way.
+ */
+@Component
+public class ColumnarCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ColumnarCache.class);
+
+    static final int MAGIC = 0x50434F4C; // "PCOL"
+    static final int FORMAT_VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    static final int INDEX_ENTRY_BYTES = 8;
+
+    private static final String EXTENSION = ".pcol";
+
+    private final boolean enabled;
+    private final Path directory;
+    private final long maxSizeBytes;
+
+    public ColumnarCache(@Value("${etl.cache.enabled:false}") boolean enabled,
+                         @Value("${etl.cache.directory:cache}") String directory,
+                         @Value("${etl.cache.max-size-mb:1024}") long maxSizeMb) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * The cache file of the content, converting it from the CSV reader when it is not cached yet
+     * @param contentHash SHA-256 of the CSV file
+     * @param schema CSV schema the file is read with
+     * @param csvReader Reader of the CSV file, only opened for the conversion
+     * @return the cache file, or empty when the content cannot be cached
+     */
+    public Optional<Path> getOrConvert(String contentHash, CsvSchema schema,
+                                       Supplier<ItemStreamReader<PersonCSVData>> csvReader) {
+        if (!enabled || contentHash == null || contentHash.isBlank()) {
+            return Optional.empty();
+        }
+        Path file = directory.resolve(contentHash + "." + schema.name() + "-" + schema.fingerprint() + EXTENSION);
+        try {
+            if (Files.isRegularFile(file)) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+                logger.info("Columnar cache hit: {}", file);
+                return Optional.of(file);
+            }
+            Files.createDirectories(directory);
+            long start = System.currentTimeMillis();
+            int rows = convert(csvReader.get(), file);
+            if (rows < 0) {
+                return Optional.empty();
+            }
+            logger.info("Converted {} rows into {} ({} bytes) in {} ms", rows, file, Files.size(file),
+                    System.currentTimeMillis() - start);
+            evict(file);
+            return Optional.of(file);
+        } catch (IOException e) {
+            logger.warn("Columnar cache unavailable for {}: {}", contentHash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads every item of the CSV reader into the cache file
+     * @return the row count, or -1 when the file cannot be cached
+     */
+    private int convert(ItemStreamReader<PersonCSVData> reader, Path file) throws IOException {
+        Path index = Files.createTempFile(directory, "index", ".tmp");
+        Path data = Files.createTempFile(directory, "data", ".tmp");
+        Path target = Files.createTempFile(directory, "pcol", ".tmp");
+        int rows = 0;
+        long dataBytes = 0;
+        try {
+            try (DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(index), 1 << 16));
+                 DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(data), 1 << 16))) {
+                reader.open(new ExecutionContext());
+                try {
+                    PersonCSVData item;
+                    while ((item = reader.read()) != null) {
+                        indexOut.writeInt(item.getLineNumber());
+                        indexOut.writeInt((int) dataBytes);
+                        if (item.getRawName() == null) {
+                            dataOut.writeInt(-1);
+                            dataBytes += 4;
+                        } else {
+                            byte[] name = item.getRawName().getBytes(StandardCharsets.UTF_8);
+                            dataOut.writeInt(name.length);
+                            dataOut.write(name);
+                            dataBytes += 4 + name.length;
+                        }
+                        rows++;
+                        if (HEADER_BYTES + (long) rows * INDEX_ENTRY_BYTES + dataBytes > Integer.MAX_VALUE) {
+                            logger.info("Not caching {}: larger than 2 GB in columnar form", file.getFileName());
+                            return -1;
+                        }
+                    }
+                } finally {
+                    reader.close();
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.info("Not caching {}: {}", file.getFileName(), e.getMessage());
+                return -1;
+            }
+
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION)
+                        .putInt(rows).putInt(0).flip();
+                while (header.hasRemaining()) {
+                    out.write(header);
+                }
+                append(index, out);
+                append(data, out);
+                out.force(false);
+            }
+            Files.move(target, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return rows;
+        } finally {
+            Files.deleteIfExists(index);
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static void append(Path source, FileChannel out) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            long position = 0;
+            long size = in.size();
+            while (position < size) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files until the cache fits, keeping the one just written
+     */
+    private void evict(Path keep) {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> cached = files.filter(path -> path.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(ColumnarCache::lastModified))
+                    .toList();
+            long total = 0;
+            for (Path path : cached) {
+                total += Files.size(path);
+            }
+            for (Path path : cached) {
+                if (total <= maxSizeBytes) {
+                    break;
+                }
+                if (!path.equals(keep)) {
+                    total -= Files.size(path);
+                    Files.deleteIfExists(path);
+                    logger.info("Evicted {} from the columnar cache", path.getFileName());
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Columnar cache eviction failed: {}", e.getMessage());
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
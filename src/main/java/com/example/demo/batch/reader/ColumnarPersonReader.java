@@ -0,0 +1,87 @@
+package com.example.demo.batch.reader;
+
+import com.example.demo.batch.model.PersonCSVData;
+import org.springframework.batch.item.ItemStreamException;
+import org.springframework.batch.item.support.AbstractItemCountingItemStreamItemReader;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads persons from a columnar cache file written by ColumnarCache
+ *
+ * The file is memory-mapped and read in place: no line splitting, no tokenizing, no schema
+ * mapping; each item costs one UTF-8 decode. The row index makes a restart jump straight to
+ * the first unread row.
+ *
+ * It saves its position under the same name as the CSV reader, since both return the same
+ * items in the same order, so a restart may switch between them.
+ */
+public class ColumnarPersonReader extends AbstractItemCountingItemStreamItemReader<PersonCSVData> {
+
+    private final Path path;
+    private MappedByteBuffer buffer;
+    private int rows;
+    private int dataStart;
+    private int cursor;
+    private byte[] scratch = new byte[256];
+
+    public ColumnarPersonReader(Path path) {
+        this.path = path;
+        setName("personCSVReader");
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    @Override
+    protected void doOpen() throws Exception {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < ColumnarCache.HEADER_BYTES
+                || buffer.getInt(0) != ColumnarCache.MAGIC
+                || buffer.getInt(4) != ColumnarCache.FORMAT_VERSION) {
+            throw new ItemStreamException("Not a columnar person cache file: " + path);
+        }
+        rows = buffer.getInt(8);
+        dataStart = ColumnarCache.HEADER_BYTES + rows * ColumnarCache.INDEX_ENTRY_BYTES;
+        cursor = 0;
+    }
+
+    @Override
+    protected PersonCSVData doRead() {
+        if (cursor >= rows) {
+            return null;
+        }
+        int entry = ColumnarCache.HEADER_BYTES + cursor * ColumnarCache.INDEX_ENTRY_BYTES;
+        int lineNumber = buffer.getInt(entry);
+        int position = dataStart + buffer.getInt(entry + 4);
+        cursor++;
+
+        int length = buffer.getInt(position);
+        if (length < 0) {
+            return new PersonCSVData(null, lineNumber);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(position + 4, scratch, 0, length);
+        return new PersonCSVData(new String(scratch, 0, length, StandardCharsets.UTF_8), lineNumber);
+    }
+
+    @Override
+    protected void jumpToItem(int itemIndex) {
+        cursor = Math.min(itemIndex, rows);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        buffer = null; // Unmapped by the garbage collector
+    }
+}
@@ -3,30 +3,67 @@ package com.example.demo.batch.reader;
 import com.example.demo.batch.model.PersonCSVData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.batch.item.ItemReader;
+import com.example.demo.batch.mapping.SchemaLineMapper;
+import com.example.demo.batch.mapping.SchemaRegistry;
+import org.springframework.batch.item.ItemStreamReader;
 import org.springframework.batch.item.file.FlatFileItemReader;
-import org.springframework.batch.item.file.mapping.DefaultLineMapper;
-import org.springframework.batch.item.file.transform.DelimitedLineTokenizer;
-import org.springframework.batch.item.file.transform.FieldSet;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
 /**
  * Custom reader to read data from CSV file
  * Implements the Spring Batch ItemReader pattern
+ * Columns are mapped through a CSV schema (see SchemaRegistry)
+ * Files with a known content hash are read from the columnar cache (see ColumnarCache) when possible
  */
 @Component
 public class PersonCSVReader {
 
     private static final Logger logger = LoggerFactory.getLogger(PersonCSVReader.class);
 
+    private final SchemaRegistry schemaRegistry;
+    private final ColumnarCache columnarCache;
+
+    public PersonCSVReader(SchemaRegistry schemaRegistry, ColumnarCache columnarCache) {
+        this.schemaRegistry = schemaRegistry;
+        this.columnarCache = columnarCache;
+    }
+
+    /**
+     * Creates an ItemReader for the whole file, reading its columnar cache file when there is one
+     * (converting the CSV file on first use)
+     *
+     * @param filename CSV file name or full path
+     * @param schemaName CSV schema of the file, null for the default
+     * @param contentHash SHA-256 of the file, null to always read the CSV file
+     */
+    public ItemStreamReader<PersonCSVData> createReader(String filename, String schemaName, String contentHash) {
+        Optional<Path> cached = columnarCache.getOrConvert(contentHash,
+                schemaRegistry.personSchema(schemaName).getSchema(), () -> createReader(filename, schemaName));
+        if (cached.isPresent()) {
+            logger.info("Reading {} from columnar cache {}", filename, cached.get());
+            return new ColumnarPersonReader(cached.get());
+        }
+        return createReader(filename, schemaName);
+    }
+
     /**
      * Creates an ItemReader configured to read the CSV file
      * This is the EXTRACT component of the ETL process
      *
      * @param filename CSV file name or full path
+     * @param schemaName CSV schema of the file, null for the default
      */
-    public ItemReader<PersonCSVData> createReader(String filename) {
+    public FlatFileItemReader<PersonCSVData> createReader(String filename, String schemaName) {
         logger.info("Configuring CSV Reader for {}", filename);
 
         org.springframework.core.io.Resource resource;
@@ -53,28 +90,62 @@ public class PersonCSVReader {
         logger.info("CSV file found: (exists: {}, isReadable: {})",
                     resource.exists(), resource.isReadable());
 
+        SchemaLineMapper<PersonCSVData> lineMapper = schemaRegistry.personSchema(schemaName).newLineMapper();
+        FlatFileItemReader<PersonCSVData> reader = buildReader(resource, 1, lineMapper, filename);
+        reader.setSkippedLinesCallback(lineMapper::bindHeader);
+        return reader;
+    }
+
+    /**
+     * Creates an ItemReader over the byte range [startOffset, endOffset) of a file
+     * Used by the inbox watcher to load only the lines appended since the last run
+     *
+     * @param path Full path to the file
+     * @param startOffset First byte to read (0 means the header is included)
+     * @param endOffset Byte right after the last complete line to read
+     * @param schemaName CSV schema of the file, null for the default
+     */
+    public FlatFileItemReader<PersonCSVData> createSegmentReader(String path, long startOffset, long endOffset,
+                                                                 String schemaName) {
+        logger.info("Configuring CSV Reader for {} bytes [{}, {})", path, startOffset, endOffset);
+
+        FileSegmentResource resource = new FileSegmentResource(Path.of(path), startOffset, endOffset);
+        if (!resource.exists()) {
+            logger.error("CSV file NOT FOUND: {}", path);
+            throw new RuntimeException("CSV file not found: " + path);
+        }
+
+        SchemaLineMapper<PersonCSVData> lineMapper = schemaRegistry.personSchema(schemaName).newLineMapper();
+
+        // Only the first segment of a file carries the header line
+        if (startOffset == 0) {
+            FlatFileItemReader<PersonCSVData> reader = buildReader(resource, 1, lineMapper, path);
+            reader.setSkippedLinesCallback(lineMapper::bindHeader);
+            return reader;
+        }
+        lineMapper.bindHeader(readHeader(resource.getPath()));
+        return buildReader(resource, 0, lineMapper, path);
+    }
+
+    private String readHeader(Path path) {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            return header != null ? header : "";
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read header of " + path, e);
+        }
+    }
+
+    private FlatFileItemReader<PersonCSVData> buildReader(Resource resource, int linesToSkip,
+                                                          SchemaLineMapper<PersonCSVData> lineMapper,
+                                                          String filename) {
         FlatFileItemReader<PersonCSVData> reader = new FlatFileItemReader<>();
         reader.setResource(resource);
         reader.setName("personCSVReader");
-        reader.setLinesToSkip(1); // Skip header
+        reader.setLinesToSkip(linesToSkip); // Skip header
         reader.setEncoding("UTF-8"); // Support Portuguese characters
 
-        // Configure how to map each CSV line
-        DefaultLineMapper<PersonCSVData> lineMapper = new DefaultLineMapper<>();
-
-        DelimitedLineTokenizer tokenizer = new DelimitedLineTokenizer();
-        tokenizer.setNames("name");
-        tokenizer.setDelimiter(",");
-
-        lineMapper.setLineTokenizer(tokenizer);
-        lineMapper.setFieldSetMapper((FieldSet fieldSet) -> {
-            PersonCSVData data = new PersonCSVData();
-            data.setRawName(fieldSet.readString("name"));
-            data.setLineNumber(fieldSet.getFieldCount());
-            logger.debug("Read from CSV: {}", data.getRawName());
-            return data;
-        });
-
+        // Map each CSV line through the compiled schema
         reader.setLineMapper(lineMapper);
 
         logger.info("CSV Reader configured successfully for: {}", filename);
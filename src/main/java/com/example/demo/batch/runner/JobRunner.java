@@ -0,0 +1,91 @@
+package com.example.demo.batch.runner;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
+import org.springframework.batch.core.Job;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.JobParameters;
+import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.converter.DefaultJobParametersConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Runs one job from the command line and turns its outcome into the process exit code
+ *
+ * Usage (see DemoApplication, which starts the runner profile without the web stack):
+ *   java -jar demo.jar --etl.runner.job=importPersonJob csvFile=data.csv writeMode=bisect
+ *
+ * Non-option arguments are job parameters in Spring Batch's name=value[,type[,identifying]]
+ * format, e.g. partitions=4,java.lang.Long. Does nothing when etl.runner.job is not set.
+ *
+ * Exit codes: 0 completed, 1 failed or stopped, 2 the job could not be launched.
+ */
+@Component
+public class JobRunner implements ApplicationRunner, ExitCodeGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobRunner.class);
+
+    private final ApplicationContext applicationContext;
+    private final JobRepositoryRouter jobRepositoryRouter;
+    private final String jobName;
+    private int exitCode;
+
+    public JobRunner(ApplicationContext applicationContext,
+                     JobRepositoryRouter jobRepositoryRouter,
+                     @Value("${etl.runner.job:}") String jobName) {
+        this.applicationContext = applicationContext;
+        this.jobRepositoryRouter = jobRepositoryRouter;
+        this.jobName = jobName;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (jobName.isBlank()) {
+            return;
+        }
+
+        try {
+            Job job = applicationContext.getBean(jobName, Job.class);
+            JobParameters jobParameters = buildJobParameters(args);
+            logger.info("Running {} with {}", jobName, jobParameters);
+
+            JobExecution execution = jobRepositoryRouter.launcherFor(jobName).run(job, jobParameters);
+            exitCode = execution.getStatus() == BatchStatus.COMPLETED ? 0 : 1;
+            logger.info("{} finished with status {} (exit code {})", jobName, execution.getStatus(), exitCode);
+        } catch (Exception e) {
+            logger.error("Could not run {}", jobName, e);
+            exitCode = 2;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private JobParameters buildJobParameters(ApplicationArguments args) {
+        Properties properties = new Properties();
+        for (String arg : args.getNonOptionArgs()) {
+            int separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Job parameter must be name=value: " + arg);
+            }
+            properties.setProperty(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        return new JobParametersBuilder(new DefaultJobParametersConverter().getJobParameters(properties))
+                .addLong("timestamp", System.currentTimeMillis())
+                .addString("runId", UUID.randomUUID().toString())
+                .toJobParameters();
+    }
+}
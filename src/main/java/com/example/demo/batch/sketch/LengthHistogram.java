@@ -0,0 +1,98 @@
+package com.example.demo.batch.sketch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact histogram of name lengths 0..MAX_LENGTH, longer ones in one overflow bucket
+ * (PERSON.NAME holds 255 characters, so the overflow bucket is what would not fit)
+ */
+public final class LengthHistogram {
+
+    static final int MAX_LENGTH = 255;
+
+    private final long[] counts;
+
+    public LengthHistogram() {
+        this(new long[MAX_LENGTH + 2]);
+    }
+
+    LengthHistogram(long[] counts) {
+        if (counts.length != MAX_LENGTH + 2) {
+            throw new IllegalArgumentException("Expected " + (MAX_LENGTH + 2) + " buckets, got " + counts.length);
+        }
+        this.counts = counts;
+    }
+
+    public void add(int length) {
+        counts[Math.min(length, MAX_LENGTH + 1)]++;
+    }
+
+    public void merge(LengthHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * min, max, mean, p50, p90, p99 and counts per range of 10 characters
+     * (lengths past MAX_LENGTH count as MAX_LENGTH + 1)
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        long total = 0;
+        long sum = 0;
+        int min = -1;
+        int max = -1;
+        for (int length = 0; length < counts.length; length++) {
+            if (counts[length] > 0) {
+                total += counts[length];
+                sum += counts[length] * length;
+                min = min < 0 ? length : min;
+                max = length;
+            }
+        }
+        if (total == 0) {
+            return summary;
+        }
+        summary.put("min", min);
+        summary.put("max", max);
+        summary.put("mean", Math.round(sum * 10.0 / total) / 10.0);
+        summary.put("p50", percentile(total, 0.50));
+        summary.put("p90", percentile(total, 0.90));
+        summary.put("p99", percentile(total, 0.99));
+
+        Map<String, Long> ranges = new LinkedHashMap<>();
+        for (int from = 0; from <= MAX_LENGTH; from += 10) {
+            long count = 0;
+            int to = Math.min(from + 9, MAX_LENGTH);
+            for (int length = from; length <= to; length++) {
+                count += counts[length];
+            }
+            if (count > 0) {
+                ranges.put(from + "-" + to, count);
+            }
+        }
+        if (counts[MAX_LENGTH + 1] > 0) {
+            ranges.put(">" + MAX_LENGTH, counts[MAX_LENGTH + 1]);
+        }
+        summary.put("histogram", ranges);
+        return summary;
+    }
+
+    private int percentile(long total, double fraction) {
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int length = 0; length < counts.length; length++) {
+            seen += counts[length];
+            if (seen >= rank) {
+                return length;
+            }
+        }
+        return counts.length - 1;
+    }
+
+    long[] counts() {
+        return counts;
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.demo.batch.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fixed-memory data-quality sketch of the names read from one input (a few KB, whatever its size)
+ *
+ * HOW IT WORKS:
+ * - Every non-blank name updates a HyperLogLog (distinct names), a Space-Saving summary
+ *   (most frequent names) and a LengthHistogram (name lengths)
+ * - Names are compared trimmed and lower-cased, like the duplicate checks; lengths are of the trimmed name
+ * - Sketches of parts of an input (partitions, delta ranges) merge into the sketch of the whole
+ * - toBytes()/fromBytes() keep it in a Spring Batch execution context under CONTEXT_KEY
+ */
+public final class NameSketch {
+
+    /**
+     * Execution context key of the serialized sketch
+     */
+    public static final String CONTEXT_KEY = "sketch.names";
+
+    static final int TOP_CAPACITY = 128;
+    static final int TOP_REPORTED = 10;
+    private static final byte FORMAT_VERSION = 1;
+
+    private final HyperLogLog distinct;
+    private final SpaceSaving top;
+    private final LengthHistogram lengths;
+    private long names;
+    private long blankNames;
+
+    public NameSketch() {
+        this(new HyperLogLog(), new SpaceSaving(TOP_CAPACITY), new LengthHistogram());
+    }
+
+    private NameSketch(HyperLogLog distinct, SpaceSaving top, LengthHistogram lengths) {
+        this.distinct = distinct;
+        this.top = top;
+        this.lengths = lengths;
+    }
+
+    public void add(String rawName) {
+        String name = rawName != null ? rawName.strip() : "";
+        if (name.isEmpty()) {
+            blankNames++;
+            return;
+        }
+        names++;
+        String key = name.toLowerCase(Locale.ROOT);
+        distinct.add(hash(key));
+        // Keys are capped like PERSON.NAME so one runaway line cannot grow the summary
+        top.add(key.length() > LengthHistogram.MAX_LENGTH ? key.substring(0, LengthHistogram.MAX_LENGTH) : key);
+        lengths.add(name.length());
+    }
+
+    public NameSketch merge(NameSketch other) {
+        distinct.merge(other.distinct);
+        top.merge(other.top);
+        lengths.merge(other.lengths);
+        names += other.names;
+        blankNames += other.blankNames;
+        return this;
+    }
+
+    /**
+     * Summary for ETLResponse.dataQuality
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("names", names);
+        summary.put("blankNames", blankNames);
+        summary.put("distinctNames", Math.min(distinct.estimate(), names));
+        summary.put("distinctNamesStandardError", Math.round(HyperLogLog.standardError() * 1000) / 1000.0);
+        // Only names certainly repeated: on flat data the counters hold noise (count ~ error)
+        List<Map<String, Object>> topNames = top.top(TOP_CAPACITY).stream()
+                .filter(entry -> entry.count() - entry.error() > 1)
+                .limit(TOP_REPORTED)
+                .map(entry -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("name", entry.key());
+                    item.put("count", entry.count());
+                    item.put("maxOvercount", entry.error());
+                    return item;
+                })
+                .toList();
+        summary.put("topNames", topNames);
+        summary.put("nameLength", lengths.summary());
+        return summary;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HyperLogLog.REGISTERS + 4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            out.writeLong(names);
+            out.writeLong(blankNames);
+            out.write(distinct.registers());
+
+            out.writeShort(top.capacity());
+            out.writeShort(top.counters().size());
+            for (Map.Entry<String, SpaceSaving.Counter> entry : top.counters().entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().count);
+                out.writeLong(entry.getValue().error);
+            }
+
+            long[] counts = lengths.counts();
+            int used = 0;
+            for (long count : counts) {
+                used += count > 0 ? 1 : 0;
+            }
+            out.writeShort(used);
+            for (int length = 0; length < counts.length; length++) {
+                if (counts[length] > 0) {
+                    out.writeShort(length);
+                    out.writeLong(counts[length]);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static NameSketch fromBytes(byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte version = in.readByte();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown name sketch format " + version);
+            }
+            long names = in.readLong();
+            long blankNames = in.readLong();
+            byte[] registers = new byte[HyperLogLog.REGISTERS];
+            in.readFully(registers);
+
+            SpaceSaving top = new SpaceSaving(in.readUnsignedShort());
+            int counters = in.readUnsignedShort();
+            for (int i = 0; i < counters; i++) {
+                top.put(in.readUTF(), in.readLong(), in.readLong());
+            }
+
+            long[] counts = new long[LengthHistogram.MAX_LENGTH + 2];
+            int used = in.readUnsignedShort();
+            for (int i = 0; i < used; i++) {
+                counts[in.readUnsignedShort()] = in.readLong();
+            }
+
+            NameSketch sketch = new NameSketch(new HyperLogLog(registers), top, new LengthHistogram(counts));
+            sketch.names = names;
+            sketch.blankNames = blankNames;
+            return sketch;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Damaged name sketch", e);
+        }
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-16 chars, then the MurmurHash3 finalizer to spread the bits
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
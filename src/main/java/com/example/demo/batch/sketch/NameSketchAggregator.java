@@ -0,0 +1,32 @@
+package com.example.demo.batch.sketch;
+
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.partition.support.DefaultStepExecutionAggregator;
+import org.springframework.batch.core.partition.support.StepExecutionAggregator;
+
+import java.util.Collection;
+
+/**
+ * Aggregates partition counts as usual and merges the partitions' name sketches into the
+ * job execution context, where the response reads it like a profile step's sketch
+ */
+public class NameSketchAggregator implements StepExecutionAggregator {
+
+    private final StepExecutionAggregator delegate = new DefaultStepExecutionAggregator();
+
+    @Override
+    public void aggregate(StepExecution result, Collection<StepExecution> executions) {
+        delegate.aggregate(result, executions);
+
+        NameSketch merged = null;
+        for (StepExecution execution : executions) {
+            if (execution != null && execution.getExecutionContext().get(NameSketch.CONTEXT_KEY) instanceof byte[] bytes) {
+                NameSketch partition = NameSketch.fromBytes(bytes);
+                merged = merged == null ? partition : merged.merge(partition);
+            }
+        }
+        if (merged != null) {
+            result.getJobExecution().getExecutionContext().put(NameSketch.CONTEXT_KEY, merged.toBytes());
+        }
+    }
+}
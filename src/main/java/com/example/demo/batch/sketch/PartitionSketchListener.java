@@ -0,0 +1,50 @@
+package com.example.demo.batch.sketch;
+
+import com.example.demo.batch.model.PersonCSVData;
+import org.springframework.batch.core.ExitStatus;
+import org.springframework.batch.core.ItemReadListener;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.StepExecutionListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sketches the names a load step reads when the job has no profile pass, i.e. the partitions
+ * of distributedImportPersonJob, each over its own byte range
+ *
+ * The sketch goes into the step execution context once, when the step ends (not on every chunk
+ * commit), and NameSketchAggregator merges the partitions' sketches into the job's. A restarted
+ * partition resumes from its saved sketch, so the rows of the chunk it failed in are counted
+ * twice in the top names and lengths; the distinct count is unaffected.
+ */
+@Component
+public class PartitionSketchListener implements StepExecutionListener, ItemReadListener<PersonCSVData> {
+
+    private final ThreadLocal<NameSketch> sketch = new ThreadLocal<>();
+
+    @Override
+    public void beforeStep(StepExecution stepExecution) {
+        if (stepExecution.getJobExecution().getExecutionContext().containsKey(NameSketch.CONTEXT_KEY)) {
+            return; // The profile step already sketched the whole input
+        }
+        Object saved = stepExecution.getExecutionContext().get(NameSketch.CONTEXT_KEY);
+        sketch.set(saved instanceof byte[] bytes ? NameSketch.fromBytes(bytes) : new NameSketch());
+    }
+
+    @Override
+    public void afterRead(PersonCSVData item) {
+        NameSketch current = sketch.get();
+        if (current != null) {
+            current.add(item.getRawName());
+        }
+    }
+
+    @Override
+    public ExitStatus afterStep(StepExecution stepExecution) {
+        NameSketch current = sketch.get();
+        if (current != null) {
+            stepExecution.getExecutionContext().put(NameSketch.CONTEXT_KEY, current.toBytes());
+            sketch.remove();
+        }
+        return null;
+    }
+}
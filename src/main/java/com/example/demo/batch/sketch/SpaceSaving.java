@@ -0,0 +1,221 @@
+package com.example.demo.batch.sketch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Most frequent keys of a stream in a fixed number of counters (Space-Saving)
+ *
+ * HOW IT WORKS:
+ * - A key with a counter is incremented; a new key takes a free counter, or replaces the
+ *   smallest one and inherits its count as its possible overestimate (error)
+ * - Any key seen more than rows / capacity times is guaranteed to hold a counter, and
+ *   count - error <= true count <= count
+ * - Counters are kept in a stream summary: buckets of equal count in a list ordered by count,
+ *   so an increment moves a counter to the next bucket and the smallest counter is the head of
+ *   the first bucket; both are O(1) whatever the capacity
+ * - Two summaries merge by adding the counts of every key, using the other side's smallest
+ *   count for a key it does not hold, then keeping the capacity largest
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<String, Counter> counters;
+    private Bucket smallest;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String key) {
+        Counter counter = counters.get(key);
+        if (counter != null) {
+            increment(counter);
+            return;
+        }
+        if (counters.size() < capacity) {
+            put(key, 1, 0);
+            return;
+        }
+        Counter evicted = smallest.head;
+        unlink(evicted);
+        counters.remove(evicted.key);
+        put(key, evicted.count + 1, evicted.count);
+    }
+
+    public void merge(SpaceSaving other) {
+        long missingHere = minCount();
+        long missingThere = other.minCount();
+        Set<String> keys = new HashSet<>(counters.keySet());
+        keys.addAll(other.counters.keySet());
+
+        List<Counter> merged = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            Counter here = counters.get(key);
+            Counter there = other.counters.get(key);
+            long count = (here != null ? here.count : missingHere) + (there != null ? there.count : missingThere);
+            long error = (here != null ? here.error : missingHere) + (there != null ? there.error : missingThere);
+            merged.add(new Counter(key, count, error));
+        }
+        merged.sort(Comparator.comparingLong((Counter counter) -> counter.count).reversed());
+
+        counters.clear();
+        smallest = null;
+        // Largest first, so each counter links in front of the first bucket
+        merged.stream().limit(capacity).forEach(counter -> put(counter.key, counter.count, counter.error));
+    }
+
+    /**
+     * The n keys with the largest counts, largest first
+     */
+    public List<Entry> top(int n) {
+        return counters.values().stream()
+                .map(counter -> new Entry(counter.key, counter.count, counter.error))
+                .sorted(Comparator.comparingLong(Entry::count).reversed().thenComparing(Entry::key))
+                .limit(n)
+                .toList();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Counters by key, read-only; use put to add one
+     */
+    Map<String, Counter> counters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    /**
+     * Adds a counter for a key without one (restoring a serialized summary)
+     */
+    void put(String key, long count, long error) {
+        Counter counter = new Counter(key, count, error);
+        counters.put(key, counter);
+        Bucket before = null;
+        Bucket bucket = smallest;
+        while (bucket != null && bucket.count < count) {
+            before = bucket;
+            bucket = bucket.next;
+        }
+        if (bucket == null || bucket.count != count) {
+            bucket = insertBucket(before, count);
+        }
+        bucket.push(counter);
+    }
+
+    /**
+     * Count a key without a counter may have: 0 while counters are free
+     */
+    private long minCount() {
+        return counters.size() < capacity || smallest == null ? 0 : smallest.count;
+    }
+
+    private void increment(Counter counter) {
+        Bucket from = counter.bucket;
+        counter.count++;
+        Bucket to = from.next != null && from.next.count == counter.count
+                ? from.next
+                : insertBucket(from, counter.count);
+        unlink(counter);
+        to.push(counter);
+    }
+
+    /**
+     * New empty bucket after before (first when before is null)
+     */
+    private Bucket insertBucket(Bucket before, long count) {
+        Bucket bucket = new Bucket(count);
+        bucket.prev = before;
+        bucket.next = before == null ? smallest : before.next;
+        if (bucket.next != null) {
+            bucket.next.prev = bucket;
+        }
+        if (before == null) {
+            smallest = bucket;
+        } else {
+            before.next = bucket;
+        }
+        return bucket;
+    }
+
+    /**
+     * Removes a counter from its bucket, and the bucket from the list once empty
+     */
+    private void unlink(Counter counter) {
+        Bucket bucket = counter.bucket;
+        if (counter.prev != null) {
+            counter.prev.next = counter.next;
+        } else {
+            bucket.head = counter.next;
+        }
+        if (counter.next != null) {
+            counter.next.prev = counter.prev;
+        }
+        counter.prev = null;
+        counter.next = null;
+        counter.bucket = null;
+
+        if (bucket.head == null) {
+            if (bucket.prev != null) {
+                bucket.prev.next = bucket.next;
+            } else {
+                smallest = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            }
+        }
+    }
+
+    static final class Counter {
+        final String key;
+        long count;
+        final long error;
+        private Bucket bucket;
+        private Counter prev;
+        private Counter next;
+
+        Counter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Counters sharing one count, linked between the buckets of the next smaller and larger counts
+     */
+    private static final class Bucket {
+        final long count;
+        Counter head;
+        Bucket prev;
+        Bucket next;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+
+        void push(Counter counter) {
+            counter.bucket = this;
+            counter.next = head;
+            if (head != null) {
+                head.prev = counter;
+            }
+            head = counter;
+        }
+    }
+
+    /**
+     * A key's count, which may exceed its true count by at most error
+     */
+    public record Entry(String key, long count, long error) {}
+}
@@ -0,0 +1,491 @@
+package com.example.demo.batch.spool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local write-ahead spool of processed names, drained into PERSON by SpoolDrainer
+ *
+ * HOW IT WORKS:
+ * - Each written chunk is appended as one frame to the current segment file and forced to disk;
+ *   past etl.spool.segment-size-mb a new segment is started
+ * - A frame starts PENDING. SpoolingPersonWriter marks it COMMITTED once the chunk transaction
+ *   has committed, or ABORTED when it rolled back, since Spring Batch writes a rolled back chunk
+ *   again. The drainer skips ABORTED frames and waits at PENDING ones whose chunk is still running
+ * - A PENDING frame no running chunk owns (the process died, or the outcome of the commit was
+ *   unknown) is in doubt: SpoolDrainer resolves it from PERSON_SPOOL_COMMIT, written in the chunk
+ *   transaction (see SpoolCommitRecords), so it is drained exactly when its chunk committed
+ * - On startup a torn frame at the end of the last segment, from a crash while appending, is cut off
+ *
+ * FILE FORMAT (big-endian):
+ * - segment header: magic "PSPL", format version (2 ints)
+ * - frame header:   state ('P', 'C' or 'A'), name count, payload length, CRC32 of the payload
+ * - payload:        per name its length in bytes and its UTF-8 bytes
+ *
+ * Segment keys start with an id stored in the directory, so the drain offsets of several
+ * instances sharing one database never collide.
+ */
+@Component
+public class PersonSpool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonSpool.class);
+
+    static final int MAGIC = 0x5053504C; // "PSPL"
+    static final int FORMAT_VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int FRAME_HEADER_BYTES = 13;
+
+    static final byte PENDING = 'P';
+    static final byte COMMITTED = 'C';
+    static final byte ABORTED = 'A';
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_EXTENSION = ".log";
+    private static final String ID_FILE = "spool.id";
+
+    private final Path directory;
+    private final long segmentSizeBytes;
+    private final long maxSizeBytes;
+    private final Set<Frame> inFlight = ConcurrentHashMap.newKeySet();
+    private String spoolId;
+    private long totalBytes;
+    private long nextSegment = 1;
+    private Path activeSegment;
+    private FileChannel activeChannel;
+    private boolean recovered;
+
+    public PersonSpool(@Value("${etl.spool.directory:spool}") String directory,
+                       @Value("${etl.spool.segment-size-mb:64}") long segmentSizeMb,
+                       @Value("${etl.spool.max-size-mb:4096}") long maxSizeMb) {
+        this.directory = Path.of(directory);
+        this.segmentSizeBytes = segmentSizeMb * 1024 * 1024;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+    }
+
+    /**
+     * Appends one chunk of names as a PENDING frame and forces it to disk
+     * The frame stays in flight until commit(), abort() or forget()
+     * @throws SpoolException when the spool is full or cannot be written
+     */
+    public synchronized Frame append(List<String> names) {
+        byte[][] encoded = new byte[names.size()][];
+        int payloadLength = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+            payloadLength += 4 + encoded[i].length;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        for (byte[] name : encoded) {
+            payload.putInt(name.length).put(name);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + payloadLength)
+                .put(PENDING).putInt(names.size()).putInt(payloadLength).putInt((int) crc.getValue())
+                .put(payload.array())
+                .flip();
+        try {
+            ensureRecovered();
+            if (totalBytes + frame.remaining() > maxSizeBytes) {
+                throw new SpoolException("Spool is full (" + totalBytes + " bytes in " + directory
+                        + "); the database has not kept up");
+            }
+            if (activeChannel == null || activeChannel.size() + frame.remaining() > segmentSizeBytes) {
+                roll();
+            }
+            long offset = activeChannel.size();
+            Frame appended = new Frame(activeSegment, offset);
+            inFlight.add(appended); // Before any byte is visible to the drainer
+            try {
+                while (frame.hasRemaining()) {
+                    activeChannel.write(frame, offset + frame.position());
+                }
+                activeChannel.force(false);
+            } catch (IOException e) {
+                inFlight.remove(appended);
+                throw e;
+            }
+            totalBytes += FRAME_HEADER_BYTES + payloadLength;
+            return appended;
+        } catch (IOException e) {
+            throw new SpoolException("Cannot append to spool " + activeSegment + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marks a frame COMMITTED (drainable): its chunk committed
+     * If marking fails the frame stays PENDING and is resolved as in doubt
+     */
+    public void commit(Frame frame) {
+        try {
+            setState(frame, COMMITTED);
+        } finally {
+            inFlight.remove(frame);
+        }
+    }
+
+    /**
+     * Marks a frame ABORTED (never drained): its chunk rolled back
+     */
+    public void abort(Frame frame) {
+        try {
+            setState(frame, ABORTED);
+        } finally {
+            inFlight.remove(frame);
+        }
+    }
+
+    /**
+     * Leaves a frame PENDING with no owner, when the outcome of its chunk's commit is unknown;
+     * the drainer then resolves it as in doubt
+     */
+    public void forget(Frame frame) {
+        inFlight.remove(frame);
+    }
+
+    /**
+     * Key of a frame in PERSON_SPOOL_COMMIT: its segment key and offset
+     */
+    public String frameKey(Frame frame) {
+        return frameKey(key(frame.segment()), frame.offset());
+    }
+
+    public static String frameKey(String segmentKey, long offset) {
+        return segmentKey + "@" + offset;
+    }
+
+    private synchronized void setState(Frame frame, byte state) {
+        try (FileChannel channel = FileChannel.open(frame.segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{state}), frame.offset());
+            channel.force(false);
+        } catch (IOException e) {
+            throw new SpoolException("Cannot mark spool frame " + frame + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Segment files, oldest first
+     */
+    public synchronized List<Path> segments() {
+        if (!recovered && !Files.isDirectory(directory)) {
+            return List.of(); // Never used here
+        }
+        ensureRecovered();
+        return listSegments();
+    }
+
+    private boolean isActive(Path segment) {
+        return segment.equals(activeSegment);
+    }
+
+    /**
+     * Key of the segment's drain offset: spool id and file name
+     */
+    public synchronized String key(Path segment) {
+        ensureRecovered();
+        return spoolId + "/" + segment.getFileName();
+    }
+
+    public synchronized String keyPrefix() {
+        ensureRecovered();
+        return spoolId + "/";
+    }
+
+    public synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Deletes a segment drained up to its end; the next append starts a new segment
+     * @param drainedOffset Offset the drain has reached
+     * @return false when frames were appended after that offset
+     */
+    public synchronized boolean deleteIfDrained(Path segment, long drainedOffset) throws IOException {
+        long size = Files.size(segment);
+        if (size > drainedOffset) {
+            return false;
+        }
+        if (isActive(segment)) {
+            closeActive();
+        }
+        Files.delete(segment);
+        totalBytes -= size;
+        return true;
+    }
+
+    /**
+     * Moves a segment with a damaged frame aside (.corrupt) so the others keep draining
+     */
+    public synchronized void quarantine(Path segment) throws IOException {
+        if (isActive(segment)) {
+            closeActive();
+        }
+        long size = Files.size(segment);
+        Files.move(segment, segment.resolveSibling(segment.getFileName() + ".corrupt"));
+        totalBytes -= size;
+    }
+
+    /**
+     * Reads the frames after an offset, up to about maxNames names
+     * Whole frames only; ABORTED frames are passed over
+     */
+    public Batch read(Path segment, long offset, int maxNames) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Long> frames = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            long position = Math.max(offset, SEGMENT_HEADER_BYTES);
+            if (offset == 0) {
+                checkSegmentHeader(channel, segment);
+            }
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+            while (names.size() < maxNames) {
+                FrameHeader frame = readHeader(channel, position, header);
+                if (frame == null) {
+                    return new Batch(names, frames, position, Stop.END);
+                }
+                if (frame.state() == PENDING && inFlight.contains(new Frame(segment, position))) {
+                    return new Batch(names, frames, position, Stop.PENDING);
+                }
+                if (!frame.isValid()) {
+                    return new Batch(names, frames, position, Stop.CORRUPT);
+                }
+                if (position + FRAME_HEADER_BYTES + frame.payloadLength() > channel.size()) {
+                    return new Batch(names, frames, position, Stop.END);
+                }
+                if (frame.state() == PENDING) {
+                    return new Batch(names, frames, position, Stop.IN_DOUBT);
+                }
+                if (frame.state() == COMMITTED) {
+                    ByteBuffer payload = readFully(channel, position + FRAME_HEADER_BYTES, frame.payloadLength());
+                    CRC32 crc = new CRC32();
+                    crc.update(payload.array());
+                    if ((int) crc.getValue() != frame.crc()) {
+                        return new Batch(names, frames, position, Stop.CORRUPT);
+                    }
+                    for (int i = 0; i < frame.count(); i++) {
+                        byte[] name = new byte[payload.getInt()];
+                        payload.get(name);
+                        names.add(new String(name, StandardCharsets.UTF_8));
+                    }
+                    frames.add(position);
+                }
+                position += FRAME_HEADER_BYTES + frame.payloadLength();
+            }
+            return new Batch(names, frames, position, Stop.LIMIT);
+        }
+    }
+
+    public synchronized void close() {
+        closeActive();
+    }
+
+    /**
+     * Loads the spool id and cuts off a torn tail; once, on first use
+     * Frames left PENDING stay so, in doubt until the drainer resolves them
+     */
+    private void ensureRecovered() {
+        if (recovered) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path idFile = directory.resolve(ID_FILE);
+            if (!Files.exists(idFile)) {
+                Files.writeString(idFile, UUID.randomUUID().toString());
+            }
+            spoolId = Files.readString(idFile).trim();
+
+            List<Path> segments = new ArrayList<>(listSegments());
+            if (!segments.isEmpty() && Files.size(segments.get(segments.size() - 1)) < SEGMENT_HEADER_BYTES) {
+                Files.delete(segments.remove(segments.size() - 1)); // Created just before a crash
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                recover(segments.get(i), i == segments.size() - 1);
+                totalBytes += Files.size(segments.get(i));
+            }
+            if (!segments.isEmpty()) {
+                nextSegment = sequence(segments.get(segments.size() - 1)) + 1;
+            }
+            recovered = true;
+            logger.info("Spool {} ready: {} segments, {} bytes", directory, segments.size(), totalBytes);
+        } catch (IOException e) {
+            throw new SpoolException("Cannot open spool " + directory + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void recover(Path segment, boolean last) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            checkSegmentHeader(channel, segment);
+            long position = SEGMENT_HEADER_BYTES;
+            int inDoubt = 0;
+            ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_BYTES);
+            while (true) {
+                FrameHeader frame = readHeader(channel, position, header);
+                long end = frame != null ? position + FRAME_HEADER_BYTES + frame.payloadLength() : -1;
+                if (frame == null || !frame.isValid() || end > channel.size()) {
+                    if (position < channel.size()) {
+                        if (last) {
+                            logger.warn("Spool segment {}: cutting off a torn frame at {} ({} bytes)", segment,
+                                    position, channel.size() - position);
+                            channel.truncate(position);
+                        } else {
+                            logger.error("Spool segment {}: damaged frame at {}, left for the drainer", segment, position);
+                        }
+                    }
+                    break;
+                }
+                if (frame.state() == PENDING) {
+                    inDoubt++;
+                }
+                position = end;
+            }
+            channel.force(false);
+            if (inDoubt > 0) {
+                logger.info("Spool segment {}: {} frames in doubt, resolved from PERSON_SPOOL_COMMIT when drained",
+                        segment, inDoubt);
+            }
+        }
+    }
+
+    private void roll() throws IOException {
+        closeActive();
+        Path segment = directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, nextSegment++, SEGMENT_EXTENSION));
+        FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_BYTES).putInt(MAGIC).putInt(FORMAT_VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        totalBytes += SEGMENT_HEADER_BYTES;
+        activeSegment = segment;
+        activeChannel = channel;
+        logger.info("Spool segment {} started", segment.getFileName());
+    }
+
+    private void closeActive() {
+        if (activeChannel != null) {
+            try {
+                activeChannel.close();
+            } catch (IOException e) {
+                logger.warn("Closing spool segment {} failed: {}", activeSegment, e.getMessage());
+            }
+        }
+        activeChannel = null;
+        activeSegment = null;
+    }
+
+    private List<Path> listSegments() {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_EXTENSION);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long sequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_EXTENSION.length()));
+    }
+
+    private static void checkSegmentHeader(FileChannel channel, Path segment) throws IOException {
+        ByteBuffer header = readFully(channel, 0, SEGMENT_HEADER_BYTES);
+        if (header.getInt() != MAGIC || header.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a spool segment: " + segment);
+        }
+    }
+
+    private static FrameHeader readHeader(FileChannel channel, long position, ByteBuffer header) throws IOException {
+        if (position + FRAME_HEADER_BYTES > channel.size()) {
+            return null;
+        }
+        header.clear();
+        while (header.hasRemaining()) {
+            if (channel.read(header, position + header.position()) < 0) {
+                return null;
+            }
+        }
+        header.flip();
+        return new FrameHeader(header.get(), header.getInt(), header.getInt(), header.getInt());
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of spool segment at " + (position + buffer.position()));
+            }
+        }
+        return buffer.flip();
+    }
+
+    private record FrameHeader(byte state, int count, int payloadLength, int crc) {
+        boolean isValid() {
+            return (state == PENDING || state == COMMITTED || state == ABORTED)
+                    && count > 0 && payloadLength >= 4 * count;
+        }
+    }
+
+    /**
+     * Position of an appended frame
+     */
+    public record Frame(Path segment, long offset) {}
+
+    /**
+     * Names read from a segment, the offsets of the frames they came from, the offset after
+     * them and why reading stopped
+     */
+    public record Batch(List<String> names, List<Long> frames, long nextOffset, Stop stop) {}
+
+    public enum Stop {
+        /** Enough names read */
+        LIMIT,
+        /** No further complete frame yet */
+        END,
+        /** A frame whose chunk has not committed yet */
+        PENDING,
+        /** A PENDING frame at nextOffset that no running chunk owns */
+        IN_DOUBT,
+        /** A damaged frame */
+        CORRUPT
+    }
+
+    /**
+     * Thrown when a chunk cannot be spooled; fails the chunk like a database error would
+     */
+    public static class SpoolException extends RuntimeException {
+        public SpoolException(String message) {
+            super(message);
+        }
+
+        public SpoolException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.batch.spool;
+
+import com.example.demo.batch.config.JobRepositoryRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * PERSON_SPOOL_COMMIT rows: which spool frames belong to a committed chunk
+ *
+ * The rows live in the spool backend's database (see JobRepositoryRouter), not the main one.
+ * SpoolingPersonWriter inserts a frame's row in the chunk transaction, which runs on that
+ * database together with the step metadata, so the row exists exactly when the chunk committed;
+ * the frame's state byte is only set after the commit. SpoolDrainer uses the rows to resolve
+ * frames whose state a crash left PENDING, and deletes them once the frames are drained.
+ */
+@Component
+public class SpoolCommitRecords {
+
+    private static final String INSERT_SQL = "INSERT INTO PERSON_SPOOL_COMMIT (FRAME, COMMITTED_AT) VALUES (?, ?)";
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM PERSON_SPOOL_COMMIT WHERE FRAME = ?";
+    private static final String DELETE_SQL = "DELETE FROM PERSON_SPOOL_COMMIT WHERE FRAME = ?";
+    private static final String DELETE_SEGMENT_SQL = "DELETE FROM PERSON_SPOOL_COMMIT WHERE FRAME LIKE ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public SpoolCommitRecords(JobRepositoryRouter jobRepositoryRouter) {
+        this(new JdbcTemplate(jobRepositoryRouter.spoolDataSource()));
+    }
+
+    public SpoolCommitRecords(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Whether a transaction on the commit records' database is active, so a row commits with it
+     */
+    public boolean inTransaction() {
+        DataSource dataSource = jdbcTemplate.getDataSource();
+        return dataSource != null && TransactionSynchronizationManager.hasResource(dataSource);
+    }
+
+    /**
+     * Records a frame in the current transaction
+     */
+    public void record(String frameKey) {
+        jdbcTemplate.update(INSERT_SQL, frameKey, Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    public boolean exists(String frameKey) {
+        Long count = jdbcTemplate.queryForObject(EXISTS_SQL, Long.class, frameKey);
+        return count != null && count > 0;
+    }
+
+    public void delete(List<String> frameKeys) {
+        if (!frameKeys.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, frameKeys, 1000, (ps, key) -> ps.setString(1, key));
+        }
+    }
+
+    /**
+     * Deletes the rows left for a segment that is gone (drained or quarantined)
+     */
+    public void deleteSegment(String segmentKey) {
+        jdbcTemplate.update(DELETE_SEGMENT_SQL, segmentKey + "@%"); // Spool ids and segment names hold no % or _
+    }
+}
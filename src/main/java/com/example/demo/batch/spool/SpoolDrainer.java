@@ -0,0 +1,254 @@
+package com.example.demo.batch.spool;
+
+import com.example.demo.batch.spool.PersonSpool.Batch;
+import com.example.demo.batch.spool.PersonSpool.Stop;
+import com.example.demo.model.Person;
+import com.example.demo.model.PersonChange.Operation;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.service.PersonChangeLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays the local spool into PERSON in large batches
+ *
+ * HOW IT WORKS:
+ * - One thread reads the committed frames of each segment, oldest first, from the offset stored
+ *   in PERSON_SPOOL_OFFSET, up to etl.spool.drain-batch-size names at a time (whole frames)
+ * - The names are inserted with one JDBC batch and the segment's new offset is written in the
+ *   same transaction: after a crash or a database error the drain resumes exactly after the last
+ *   committed batch, so every spooled row is inserted once
+ * - The drained frames' PERSON_SPOOL_COMMIT rows (in the spool's own database) are deleted after
+ *   that commit; rows a failure leaves behind are only read for frames before the offset, which are
+ *   never resolved again, and go with their segment
+ * - A frame in doubt (left PENDING by a crash) is marked COMMITTED when its PERSON_SPOOL_COMMIT
+ *   row exists and ABORTED otherwise, then draining goes on
+ * - A segment drained to its end is deleted, then its offset row
+ * - While the database fails, the drainer backs off (doubling up to etl.spool.max-backoff-ms)
+ *   and the spool keeps absorbing chunks up to etl.spool.max-size-mb
+ *
+ * A segment with a damaged frame is moved aside as .corrupt and the others keep draining.
+ */
+@Component
+public class SpoolDrainer implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolDrainer.class);
+    private static final String INSERT_SQL = "INSERT INTO PERSON (ID, NAME) VALUES (?, ?)";
+    private static final String OFFSET_SQL = "SELECT COMMITTED_OFFSET FROM PERSON_SPOOL_OFFSET WHERE SEGMENT = ?";
+    private static final String UPDATE_OFFSET_SQL =
+            "UPDATE PERSON_SPOOL_OFFSET SET COMMITTED_OFFSET = ?, UPDATED_AT = ? WHERE SEGMENT = ?";
+    private static final String INSERT_OFFSET_SQL =
+            "INSERT INTO PERSON_SPOOL_OFFSET (SEGMENT, COMMITTED_OFFSET, UPDATED_AT) VALUES (?, ?, ?)";
+    private static final String DELETE_OFFSET_SQL = "DELETE FROM PERSON_SPOOL_OFFSET WHERE SEGMENT = ?";
+
+    private final PersonSpool spool;
+    private final SpoolCommitRecords commitRecords;
+    private final PersonIdAllocator idAllocator;
+    private final PersonChangeLog changeLog;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long intervalNanos;
+    private final long maxBackoffNanos;
+
+    private final AtomicLong drainedRows = new AtomicLong();
+    private volatile String lastError;
+    private volatile Thread drainer;
+    private volatile boolean running;
+
+    public SpoolDrainer(PersonSpool spool,
+                        SpoolCommitRecords commitRecords,
+                        PersonIdAllocator idAllocator,
+                        PersonChangeLog changeLog,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${etl.spool.drain-batch-size:5000}") int batchSize,
+                        @Value("${etl.spool.drain-interval-ms:500}") long intervalMs,
+                        @Value("${etl.spool.max-backoff-ms:30000}") long maxBackoffMs) {
+        this.spool = spool;
+        this.commitRecords = commitRecords;
+        this.idAllocator = idAllocator;
+        this.changeLog = changeLog;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(intervalMs, maxBackoffMs));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "person-spool-drainer");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (drainer == null) {
+            return;
+        }
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        spool.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Spool size and drain progress, for GET /etl/spool
+     */
+    public Status status() {
+        List<Path> segments = spool.segments();
+        return new Status(segments.size(), spool.totalBytes(), drainedRows.get(), lastError == null, lastError);
+    }
+
+    private void drainLoop() {
+        long backoff = intervalNanos;
+        while (running) {
+            try {
+                boolean more = drainOnce();
+                if (lastError != null) {
+                    logger.info("Spool drain resumed");
+                    lastError = null;
+                }
+                backoff = intervalNanos;
+                if (!more) {
+                    LockSupport.parkNanos(intervalNanos);
+                }
+            } catch (Exception e) {
+                if (lastError == null) {
+                    logger.warn("Spool drain failed, backing off: {}", e.getMessage());
+                }
+                lastError = e.getMessage();
+                LockSupport.parkNanos(backoff);
+                backoff = Math.min(backoff * 2, maxBackoffNanos);
+            }
+        }
+    }
+
+    /**
+     * Drains one batch
+     * @return whether a full batch was drained, i.e. more may be waiting
+     */
+    boolean drainOnce() throws IOException {
+        for (Path segment : spool.segments()) {
+            String key = spool.key(segment);
+            long offset = committedOffset(key);
+            Batch batch = spool.read(segment, offset, batchSize);
+
+            if (batch.nextOffset() > offset) {
+                insert(key, offset, batch);
+            }
+            switch (batch.stop()) {
+                case LIMIT:
+                    return true;
+                case PENDING:
+                    return false; // Keep the order: later frames wait for this chunk's commit
+                case IN_DOUBT:
+                    resolve(new PersonSpool.Frame(segment, batch.nextOffset()));
+                    return true;
+                case CORRUPT:
+                    logger.error("Spool segment {} has a damaged frame at {}, moving it aside", segment,
+                            batch.nextOffset());
+                    spool.quarantine(segment);
+                    deleteOffset(key);
+                    break;
+                case END:
+                    if (spool.deleteIfDrained(segment, batch.nextOffset())) {
+                        deleteOffset(key);
+                        logger.info("Spool segment {} drained and deleted", segment.getFileName());
+                    }
+                    break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Decides a frame no running chunk owns: drained if its chunk committed, skipped otherwise
+     */
+    private void resolve(PersonSpool.Frame frame) {
+        String frameKey = spool.frameKey(frame);
+        if (commitRecords.exists(frameKey)) {
+            spool.commit(frame);
+            logger.info("Spool frame {} in doubt: its chunk committed, draining it", frameKey);
+        } else {
+            spool.abort(frame);
+            logger.info("Spool frame {} in doubt: its chunk never committed, skipping it", frameKey);
+        }
+    }
+
+    private void deleteOffset(String key) {
+        jdbcTemplate.update(DELETE_OFFSET_SQL, key);
+        commitRecords.deleteSegment(key);
+    }
+
+    private void insert(String key, long offset, Batch batch) {
+        int rows = batch.names().size();
+        long start = System.currentTimeMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Person> persons = new ArrayList<>(rows);
+            if (rows > 0) {
+                long[] ids = idAllocator.allocate(rows);
+                for (int i = 0; i < rows; i++) {
+                    Person person = new Person(batch.names().get(i));
+                    person.setId(ids[i]);
+                    persons.add(person);
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, persons, 1000, (ps, person) -> {
+                    ps.setLong(1, person.getId());
+                    ps.setString(2, person.getName());
+                });
+                changeLog.record(Operation.INSERT, persons);
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            if (offset == 0 || jdbcTemplate.update(UPDATE_OFFSET_SQL, batch.nextOffset(), now, key) == 0) {
+                jdbcTemplate.update(INSERT_OFFSET_SQL, key, batch.nextOffset(), now);
+            }
+        });
+        drainedRows.addAndGet(rows);
+        try {
+            commitRecords.delete(batch.frames().stream().map(frame -> PersonSpool.frameKey(key, frame)).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Could not delete the commit records of {} drained frames: {}", batch.frames().size(),
+                    e.getMessage());
+        }
+        logger.info("Spool drained {} rows from {} in {} ms", rows, key, System.currentTimeMillis() - start);
+    }
+
+    private long committedOffset(String key) {
+        List<Long> offsets = jdbcTemplate.queryForList(OFFSET_SQL, Long.class, key);
+        return offsets.isEmpty() ? 0 : offsets.get(0);
+    }
+
+    /**
+     * Segments and bytes waiting in the spool, rows drained since startup, and the last drain error
+     */
+    public record Status(int segments, long bytes, long drainedRows, boolean healthy, String lastError) {}
+}
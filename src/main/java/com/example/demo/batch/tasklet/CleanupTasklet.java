@@ -0,0 +1,60 @@
+package com.example.demo.batch.tasklet;
+
+import com.example.demo.service.RejectStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Post-load step of importPersonJob: deletes reject files and import reports older than
+ * etl.cleanup.retention-days, so repeated runs do not fill the disk
+ */
+public class CleanupTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(CleanupTasklet.class);
+
+    private final RejectStore rejectStore;
+    private final Path reportDirectory;
+    private final Duration retention;
+
+    public CleanupTasklet(RejectStore rejectStore, Path reportDirectory, Duration retention) {
+        this.rejectStore = rejectStore;
+        this.reportDirectory = reportDirectory;
+        this.retention = retention;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        Instant cutoff = Instant.now().minus(retention);
+        int rejects = rejectStore.purgeOlderThan(cutoff);
+        int reports = purgeReports(cutoff);
+        logger.info("Cleanup: {} reject files and {} reports older than {} days deleted", rejects, reports,
+                retention.toDays());
+        return RepeatStatus.FINISHED;
+    }
+
+    private int purgeReports(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(reportDirectory)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(reportDirectory)) {
+            for (Path path : files.filter(path -> path.getFileName().toString().endsWith(".json")).toList()) {
+                if (Files.getLastModifiedTime(path).toInstant().isBefore(cutoff) && Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.batch.tasklet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.JobExecution;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.repeat.RepeatStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Post-load step of importPersonJob: writes a JSON report of the run to
+ * etl.report.directory/import-<jobExecutionId>.json
+ * The report holds the input file, the profile from the first step and the counts and
+ * duration of every step finished so far
+ */
+public class ImportReportTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportReportTasklet.class);
+
+    private final Path reportDirectory;
+    private final ObjectMapper objectMapper;
+
+    public ImportReportTasklet(Path reportDirectory, ObjectMapper objectMapper) {
+        this.reportDirectory = reportDirectory;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        StepExecution current = chunkContext.getStepContext().getStepExecution();
+        JobExecution jobExecution = current.getJobExecution();
+        ExecutionContext jobContext = jobExecution.getExecutionContext();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("jobExecutionId", jobExecution.getId());
+        report.put("jobName", jobExecution.getJobInstance().getJobName());
+        report.put("file", jobExecution.getJobParameters().getString("uploadedFile",
+                jobExecution.getJobParameters().getString("csvFile")));
+        report.put("startTime", String.valueOf(jobExecution.getStartTime()));
+
+        Map<String, Object> profile = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : jobContext.entrySet()) {
+            if (entry.getKey().startsWith("profile.")) {
+                profile.put(entry.getKey().substring("profile.".length()), entry.getValue());
+            }
+        }
+        report.put("profile", profile);
+
+        List<Map<String, Object>> steps = new ArrayList<>();
+        for (StepExecution step : jobExecution.getStepExecutions()) {
+            if (step.getEndTime() == null) {
+                continue; // This step and the other post-load steps still running
+            }
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("name", step.getStepName());
+            summary.put("status", step.getStatus().toString());
+            summary.put("readCount", step.getReadCount());
+            summary.put("writeCount", step.getWriteCount());
+            summary.put("filterCount", step.getFilterCount());
+            summary.put("skipCount", step.getSkipCount());
+            summary.put("durationMs", Duration.between(step.getStartTime(), step.getEndTime()).toMillis());
+            steps.add(summary);
+        }
+        report.put("steps", steps);
+        report.put("reportedAt", LocalDateTime.now().toString());
+
+        Files.createDirectories(reportDirectory);
+        Path file = reportDirectory.resolve("import-" + jobExecution.getId() + ".json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), report);
+        jobContext.putString("report.file", file.toString());
+        logger.info("Import report written to {}", file);
+        return RepeatStatus.FINISHED;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.batch.tasklet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.example.demo.batch.job.ETLJobConfiguration;
+import org.springframework.batch.core.StepContribution;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.ChunkContext;
+import org.springframework.batch.core.step.tasklet.Tasklet;
+import org.springframework.batch.repeat.RepeatStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Post-load step of importPersonJob: refreshes PERSON optimizer statistics
+ * - Only when etlStep wrote at least etl.statistics.min-rows rows; a small upload does not
+ *   change the plans enough to pay for a full gather
+ * - Oracle: gathers table and index statistics, so plans reflect the rows just loaded
+ * - H2: ANALYZE TABLE PERSON
+ * - Other databases: nothing to do
+ * When PERSON is sharded, the refresh runs on every shard's DataSource in turn.
+ *
+ * Indexes are not rebuilt here: a bulk load may be running alongside and keeps its indexes
+ * UNUSABLE on purpose until it rebuilds them itself (see ETLService).
+ */
+public class PersonStatisticsTasklet implements Tasklet {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonStatisticsTasklet.class);
+
+    private final List<DataSource> dataSources;
+    private final long minRows;
+
+    public PersonStatisticsTasklet(DataSource dataSource, long minRows) {
+        this(List.of(dataSource), minRows);
+    }
+
+    /**
+     * @param dataSources The DataSources holding PERSON (one per shard when sharded)
+     * @param minRows Rows etlStep must have written for the statistics to be gathered
+     */
+    public PersonStatisticsTasklet(List<DataSource> dataSources, long minRows) {
+        this.dataSources = dataSources;
+        this.minRows = minRows;
+    }
+
+    @Override
+    public RepeatStatus execute(StepContribution contribution, ChunkContext chunkContext) throws Exception {
+        long written = chunkContext.getStepContext().getStepExecution().getJobExecution().getStepExecutions().stream()
+                .filter(step -> step.getStepName().equals(ETLJobConfiguration.LOAD_STEP_NAME))
+                .mapToLong(StepExecution::getWriteCount)
+                .sum();
+        if (written < minRows) {
+            logger.info("Statistics refresh skipped: {} rows written, below {}", written, minRows);
+            return RepeatStatus.FINISHED;
+        }
+        for (DataSource dataSource : dataSources) {
+            refresh(dataSource);
+        }
+        return RepeatStatus.FINISHED;
+    }
+
+    private void refresh(DataSource dataSource) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+        String database = product != null ? product.toLowerCase(Locale.ROOT) : "";
+        long start = System.currentTimeMillis();
+
+        if (database.contains("oracle")) {
+            jdbcTemplate.execute("BEGIN DBMS_STATS.GATHER_TABLE_STATS(USER, 'PERSON', cascade => TRUE); END;");
+        } else if (database.contains("h2")) {
+            jdbcTemplate.execute("ANALYZE TABLE PERSON");
+        } else {
+            logger.info("No statistics refresh for {}", product);
+            return;
+        }
+        logger.info("PERSON statistics refreshed in {} ms", System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.batch.writer;
+
+import com.example.demo.model.Person;
+import com.example.demo.repository.ShardedPersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.StepExecution;
+import org.springframework.batch.core.scope.context.StepContext;
+import org.springframework.batch.core.scope.context.StepSynchronizationManager;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Writer used when PERSON is sharded (etl.shards.enabled=true)
+ *
+ * Each chunk is split by shard and every shard's part is batch-inserted in parallel on that
+ * shard's connection; the shards commit just before the chunk transaction, so a chunk that fails
+ * before its commit rolls them back.
+ *
+ * The shards cannot roll back once committed, so a chunk whose own commit then fails would be
+ * inserted again on retry or restart. Each chunk is therefore written with a key (job instance,
+ * step, chunk number, hash of the names) that the shards record with the rows: the chunk number
+ * is kept in the step ExecutionContext, which only advances when the chunk commits, so the repeated
+ * chunk gets the same key and the shards that already hold it are skipped.
+ */
+@Component
+public class ShardedPersonWriter implements ItemWriter<Person> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedPersonWriter.class);
+    private static final String CHUNK_NUMBER_KEY = "sharded.chunk";
+
+    private final ShardedPersonRepository shardedPersonRepository;
+
+    public ShardedPersonWriter(ShardedPersonRepository shardedPersonRepository) {
+        this.shardedPersonRepository = shardedPersonRepository;
+    }
+
+    @Override
+    public void write(Chunk<? extends Person> chunk) {
+        shardedPersonRepository.insert(chunk.getItems(), chunkKey(chunk));
+        logger.debug("SHARDED: {} persons written", chunk.size());
+    }
+
+    /**
+     * Key of this chunk, or null outside a step transaction
+     */
+    private static String chunkKey(Chunk<? extends Person> chunk) {
+        StepContext context = StepSynchronizationManager.getContext();
+        if (context == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        StepExecution stepExecution = context.getStepExecution();
+        ExecutionContext executionContext = stepExecution.getExecutionContext();
+        long chunkNumber = executionContext.getLong(CHUNK_NUMBER_KEY, 0) + 1;
+        executionContext.putLong(CHUNK_NUMBER_KEY, chunkNumber); // Saved with the chunk's commit
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    executionContext.putLong(CHUNK_NUMBER_KEY, chunkNumber - 1); // The retry reuses the number
+                }
+            }
+        });
+        return stepExecution.getJobExecution().getJobId() + ":" + stepExecution.getStepName() + ":"
+                + chunkNumber + ":" + namesHash(chunk);
+    }
+
+    private static String namesHash(Chunk<? extends Person> chunk) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Person person : chunk) {
+                digest.update(person.getName().getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
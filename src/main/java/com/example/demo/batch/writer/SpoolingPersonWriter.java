@@ -0,0 +1,84 @@
+package com.example.demo.batch.writer;
+
+import com.example.demo.batch.spool.PersonSpool;
+import com.example.demo.batch.spool.PersonSpool.Frame;
+import com.example.demo.batch.spool.SpoolCommitRecords;
+import com.example.demo.model.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.Chunk;
+import org.springframework.batch.item.ItemWriter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer for writeMode=spool: appends each chunk to the local spool instead of PERSON
+ *
+ * The chunk inserts nothing into PERSON, so slow inserts, index maintenance and lock waits do not
+ * hold up reading and processing; SpoolDrainer inserts the rows once the database keeps up.
+ * It only runs in spoolImportPersonJob, whose chunk transaction, step metadata and the frame's
+ * PERSON_SPOOL_COMMIT row are all in the spool's local database, so the job keeps loading while
+ * the main database is unreachable.
+ *
+ * The frame follows the chunk transaction: its PERSON_SPOOL_COMMIT row commits with the chunk, and
+ * the frame is marked COMMITTED after the commit or ABORTED after a rollback. A crash in between
+ * leaves it PENDING, and the drainer decides from the row, so a chunk that a restart rewrites is
+ * never drained twice.
+ */
+@Component
+public class SpoolingPersonWriter implements ItemWriter<Person> {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpoolingPersonWriter.class);
+
+    private final PersonSpool spool;
+    private final SpoolCommitRecords commitRecords;
+
+    public SpoolingPersonWriter(PersonSpool spool, SpoolCommitRecords commitRecords) {
+        this.spool = spool;
+        this.commitRecords = commitRecords;
+    }
+
+    @Override
+    public void write(Chunk<? extends Person> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive() && !commitRecords.inTransaction()) {
+            throw new IllegalStateException("The spool writer needs a transaction on the spool database "
+                    + "(spoolImportPersonJob), not the main one");
+        }
+        List<String> names = new ArrayList<>(chunk.size());
+        for (Person person : chunk) {
+            names.add(person.getName());
+        }
+        Frame frame = spool.append(names);
+        logger.debug("SPOOL: {} persons appended to {} at {}", names.size(), frame.segment().getFileName(),
+                frame.offset());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            spool.commit(frame);
+            return;
+        }
+        try {
+            commitRecords.record(spool.frameKey(frame));
+        } catch (RuntimeException e) {
+            spool.abort(frame);
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                switch (status) {
+                    case STATUS_COMMITTED -> spool.commit(frame);
+                    case STATUS_ROLLED_BACK -> spool.abort(frame);
+                    // The commit may or may not have happened: left to the drainer and PERSON_SPOOL_COMMIT
+                    default -> spool.forget(frame);
+                }
+            }
+        });
+    }
+}
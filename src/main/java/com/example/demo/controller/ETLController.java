@@ -1,16 +1,33 @@
 package com.example.demo.controller;
 
+import com.example.demo.batch.admission.JobAdmissionController;
+import com.example.demo.batch.jfr.JobRecordingListener;
+import com.example.demo.batch.spool.SpoolDrainer;
 import com.example.demo.dto.ETLResponse;
 import com.example.demo.service.CSVProcessingService;
 import com.example.demo.service.CSVProcessingService.CSVProcessingResult;
+import com.example.demo.service.ETLDryRunService;
 import com.example.demo.service.ETLJobService;
+import com.example.demo.service.ETLService;
+import com.example.demo.service.MergeLoadService;
+import com.example.demo.service.RejectStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * REST Controller for ETL operations
@@ -22,25 +39,57 @@ public class ETLController {
 
     private static final Logger logger = LoggerFactory.getLogger(ETLController.class);
 
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final CSVProcessingService csvProcessingService;
     private final ETLJobService etlJobService;
+    private final ETLDryRunService etlDryRunService;
+    private final RejectStore rejectStore;
+    private final ETLService etlService;
+    private final MergeLoadService mergeLoadService;
+    private final JobRecordingListener recordingListener;
+    private final SpoolDrainer spoolDrainer;
+    private final int maxBulkWorkers;
 
     public ETLController(CSVProcessingService csvProcessingService,
-                        ETLJobService etlJobService) {
+                        ETLJobService etlJobService,
+                        ETLDryRunService etlDryRunService,
+                        RejectStore rejectStore,
+                        ETLService etlService,
+                        MergeLoadService mergeLoadService,
+                        JobRecordingListener recordingListener,
+                        SpoolDrainer spoolDrainer,
+                        @Value("${etl.bulk.max-workers:8}") int maxBulkWorkers) {
         this.csvProcessingService = csvProcessingService;
         this.etlJobService = etlJobService;
+        this.etlDryRunService = etlDryRunService;
+        this.rejectStore = rejectStore;
+        this.etlService = etlService;
+        this.mergeLoadService = mergeLoadService;
+        this.recordingListener = recordingListener;
+        this.spoolDrainer = spoolDrainer;
+        this.maxBulkWorkers = maxBulkWorkers;
     }
 
     /**
      * Upload and process a CSV file
      * POST /etl/upload
+     * POST /etl/upload?force=true (process again even if identical content was already uploaded)
+     * POST /etl/upload?fuzzy=true (also skip names within a few edits of an existing one, accents ignored)
+     * POST /etl/upload?dryRun=true (counts, samples and throughput only: nothing saved or recorded)
      */
     @PostMapping("/upload")
-    public ResponseEntity<Map<String, Object>> uploadFile(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<Map<String, Object>> uploadFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String schema,
+            @RequestParam(required = false, defaultValue = "false") boolean force,
+            @RequestParam(required = false, defaultValue = "false") boolean fuzzy,
+            @RequestParam(required = false, defaultValue = "false") boolean dryRun) {
         logger.info("CSV upload request: {}", file.getOriginalFilename());
 
         try {
-            CSVProcessingResult result = csvProcessingService.processFile(file);
+            CSVProcessingResult result = csvProcessingService.processFile(file,
+                    new CSVProcessingService.UploadOptions(schema, force, fuzzy, dryRun));
             ETLResponse response = buildUploadResponse(file.getOriginalFilename(), result);
             return ResponseEntity.ok(response.toMap());
 
@@ -59,17 +108,57 @@ public class ETLController {
     /**
      * Run ETL job using Spring Batch
      * POST /etl/run?file=data
+     * POST /etl/run?file=data&writeMode=bisect (bad rows go to the reject file)
+     * POST /etl/run?file=data&writeMode=spool (rows go to the local spool, drained into PERSON in the background)
+     * POST /etl/run?file=data&schema=person (CSV schema of the file)
+     * POST /etl/run?file=data&rules=trim,collapse,fold,capitalize,length:2-100 (name rules)
+     * POST /etl/run?file=/shared/big.csv&partitions=8 (partitions run on any instance via the work queue)
+     * POST /etl/run?file=data&force=true (load again even if identical content was already loaded)
+     * POST /etl/run?file=/data/persons.csv&delta=true (load only the chunks changed since the last run)
+     * POST /etl/run?file=data&priority=high (order among jobs waiting for admission: high, normal, low)
+     * POST /etl/run?file=data&jfr=true (JFR recording of the job, see GET /etl/jobs/{id}/recording)
+     * POST /etl/run?file=data&dryRun=true (reads and transforms only: projected counts, samples and throughput,
+     *      no job launched and nothing written)
+     * Answers 429 when the job queue is full or the job waited too long for admission
      */
     @PostMapping("/run")
     public ResponseEntity<Map<String, Object>> runBatchJob(
-            @RequestParam(required = false, defaultValue = "data") String file) {
+            @RequestParam(required = false, defaultValue = "data") String file,
+            @RequestParam(required = false) String writeMode,
+            @RequestParam(required = false) String schema,
+            @RequestParam(required = false) String rules,
+            @RequestParam(required = false) Integer partitions,
+            @RequestParam(required = false, defaultValue = "false") boolean force,
+            @RequestParam(required = false, defaultValue = "false") boolean delta,
+            @RequestParam(required = false) String priority,
+            @RequestParam(required = false, defaultValue = "false") boolean jfr,
+            @RequestParam(required = false, defaultValue = "false") boolean dryRun) {
 
         logger.info("ETL Batch job request for file: {}", file);
 
         try {
-            ETLResponse response = etlJobService.executeJob(file);
+            if (dryRun) {
+                return ResponseEntity.ok(etlDryRunService.dryRun(file, schema, rules).toMap());
+            }
+            Map<String, String> jobOptions = new HashMap<>();
+            jobOptions.put("writeMode", writeMode);
+            jobOptions.put("schema", schema);
+            jobOptions.put("rules", rules);
+            jobOptions.put(JobRecordingListener.PARAMETER, jfr ? "true" : null);
+
+            ETLResponse response = partitions != null && partitions > 1
+                    ? etlJobService.executeDistributedJob(file, partitions, jobOptions)
+                    : etlJobService.executeJob(file, jobOptions, new ETLJobService.RunOptions(force, delta,
+                            JobAdmissionController.Priority.parse(priority)));
             return ResponseEntity.ok(response.toMap());
 
+        } catch (JobAdmissionController.JobRejectedException e) {
+            return tooManyJobs(e);
+
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "FAILED", "message", e.getMessage()));
+
         } catch (Exception e) {
             logger.error("ETL Job failed", e);
             return ResponseEntity.internalServerError()
@@ -81,6 +170,220 @@ public class ETLController {
         }
     }
 
+    /**
+     * Bulk load a large CSV file on disk into an empty PERSON table (no job repository, no dedupe)
+     * POST /etl/bulk?file=/data/persons.csv&workers=4
+     * POST /etl/bulk?file=/data/persons.csv&rebuildIndexes=true (Oracle)
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> runBulkLoad(
+            @RequestParam String file,
+            @RequestParam(required = false, defaultValue = "4") int workers,
+            @RequestParam(required = false, defaultValue = "false") boolean rebuildIndexes,
+            @RequestParam(required = false) String schema) {
+
+        logger.info("Bulk load request for file: {}", file);
+
+        try {
+            int workerCount = Math.max(1, Math.min(workers, maxBulkWorkers));
+            ETLService.BulkLoadResult result = etlService.bulkLoad(Path.of(file), workerCount, rebuildIndexes, schema);
+
+            ETLResponse response = ETLResponse.builder()
+                    .status("COMPLETED")
+                    .exitStatus("COMPLETED")
+                    .message(String.format("Bulk loaded %d rows with %d workers (%d rows/s)%s",
+                            result.writeCount(), result.workers(), result.rowsPerSecond(),
+                            result.indexesRebuilt() ? ", indexes rebuilt" : ""))
+                    .filename(file)
+                    .readCount((int) result.readCount())
+                    .writeCount((int) result.writeCount())
+                    .skipCount((int) result.skipCount())
+                    .build();
+            return ResponseEntity.ok(response.toMap());
+
+        } catch (JobAdmissionController.JobRejectedException e) {
+            return tooManyJobs(e);
+
+        } catch (ETLService.BulkLoadException | IllegalArgumentException e) {
+            logger.error("Bulk load failed: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "FAILED", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Load only the names of a large CSV file on disk that are not in PERSON yet (no job repository)
+     * External sort of the file, then one merge-join pass against PERSON ordered by name
+     * POST /etl/merge-load?file=/data/persons.csv
+     * POST /etl/merge-load?file=/data/persons.csv&schema=person&rules=trim,collapse,capitalize
+     */
+    @PostMapping("/merge-load")
+    public ResponseEntity<Map<String, Object>> runMergeLoad(
+            @RequestParam String file,
+            @RequestParam(required = false) String schema,
+            @RequestParam(required = false) String rules) {
+
+        logger.info("Merge load request for file: {}", file);
+
+        try {
+            MergeLoadService.MergeLoadResult result = mergeLoadService.mergeLoad(Path.of(file), schema, rules);
+
+            ETLResponse response = ETLResponse.builder()
+                    .status("COMPLETED")
+                    .exitStatus("COMPLETED")
+                    .message(String.format("Merge loaded %d new rows in %d ms: %d already in PERSON, %d repeated in the file (%d sorted runs)",
+                            result.writeCount(), result.elapsedMs(), result.alreadyInPerson(),
+                            result.repeatedInFile(), result.runs()))
+                    .filename(file)
+                    .readCount((int) result.readCount())
+                    .writeCount((int) result.writeCount())
+                    .skipCount((int) result.skipCount())
+                    .duplicateCount((int) result.duplicateCount())
+                    .build();
+            return ResponseEntity.ok(response.toMap());
+
+        } catch (JobAdmissionController.JobRejectedException e) {
+            return tooManyJobs(e);
+
+        } catch (MergeLoadService.MergeLoadException | IllegalArgumentException e) {
+            logger.error("Merge load failed: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "FAILED", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Export all persons to a CSV file on the server using Spring Batch
+     * POST /etl/export
+     * POST /etl/export?gzip=true
+     */
+    @PostMapping("/export")
+    public ResponseEntity<Map<String, Object>> runExportJob(
+            @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+
+        logger.info("Export job request (gzip={})", gzip);
+
+        try {
+            ETLResponse response = etlJobService.executeExportJob(gzip);
+            return ResponseEntity.ok(response.toMap());
+
+        } catch (JobAdmissionController.JobRejectedException e) {
+            return tooManyJobs(e);
+
+        } catch (Exception e) {
+            logger.error("Export Job failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(
+                        "status", "FAILED",
+                        "message", "Job failed: " + e.getMessage(),
+                        "error", e.getClass().getSimpleName()
+                    ));
+        }
+    }
+
+    /**
+     * Re-apply the current name normalization to all stored persons (partitioned job)
+     * POST /etl/normalize
+     * POST /etl/normalize?restart=true (resume the last failed run)
+     */
+    @PostMapping("/normalize")
+    public ResponseEntity<Map<String, Object>> runNormalizeJob(
+            @RequestParam(required = false, defaultValue = "false") boolean restart) {
+
+        logger.info("Normalize job request (restart={})", restart);
+
+        try {
+            ETLResponse response = etlJobService.executeNormalizeJob(restart);
+            return ResponseEntity.ok(response.toMap());
+
+        } catch (JobAdmissionController.JobRejectedException e) {
+            return tooManyJobs(e);
+
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "FAILED", "message", e.getMessage()));
+
+        } catch (Exception e) {
+            logger.error("Normalize Job failed", e);
+            return ResponseEntity.internalServerError()
+                    .body(Map.of(
+                        "status", "FAILED",
+                        "message", "Job failed: " + e.getMessage(),
+                        "error", e.getClass().getSimpleName()
+                    ));
+        }
+    }
+
+    /**
+     * Page through the full duplicate/error list of an upload
+     * GET /etl/uploads/{id}/rejects?cursor=0&limit=100
+     * Pass the returned nextCursor to get the following page
+     */
+    @GetMapping("/uploads/{id}/rejects")
+    public ResponseEntity<Map<String, Object>> getUploadRejects(
+            @PathVariable String id,
+            @RequestParam(required = false, defaultValue = "0") long cursor,
+            @RequestParam(required = false, defaultValue = "100") int limit) {
+
+        try {
+            if (!rejectStore.exists(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            RejectStore.RejectPage page = rejectStore.readPage(id, cursor, Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+            return ResponseEntity.ok(Map.of(
+                    "uploadId", id,
+                    "rejects", page.records(),
+                    "nextCursor", page.nextCursor(),
+                    "hasMore", page.hasMore()
+            ));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(Map.of("status", "FAILED", "message", e.getMessage()));
+        }
+    }
+
+    /**
+     * Download the JFR recording of a job run with jfr=true
+     * GET /etl/jobs/{id}/recording
+     * Open it with JDK Mission Control or: jfr print --events com.example.demo.ChunkWrite job-1.jfr
+     * Answers 409 while the job is still running
+     */
+    @GetMapping("/jobs/{id}/recording")
+    public ResponseEntity<?> getJobRecording(@PathVariable Long id) {
+        if (recordingListener.isRecording(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("status", "FAILED", "message", "Job " + id + " is still running"));
+        }
+        Optional<Path> file = recordingListener.recordingFile(id);
+        if (file.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource resource = new FileSystemResource(file.get());
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.get().getFileName().toString()).build().toString())
+                .body(resource);
+    }
+
+    /**
+     * Running and queued jobs and the connection budget they share
+     * GET /etl/admission
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<JobAdmissionController.Snapshot> getAdmissionState() {
+        return ResponseEntity.ok(etlJobService.getAdmissionState());
+    }
+
+    /**
+     * Size of the local spool and progress of its drain into PERSON
+     * GET /etl/spool
+     */
+    @GetMapping("/spool")
+    public ResponseEntity<SpoolDrainer.Status> getSpoolState() {
+        return ResponseEntity.ok(spoolDrainer.status());
+    }
+
     /**
      * Get ETL job configuration info
      * GET /etl/info
@@ -90,24 +393,66 @@ public class ETLController {
         return ResponseEntity.ok(etlJobService.getJobInformation());
     }
 
+    private ResponseEntity<Map<String, Object>> tooManyJobs(JobAdmissionController.JobRejectedException e) {
+        logger.warn("Job not admitted: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(Map.of("status", "REJECTED", "message", e.getMessage()));
+    }
+
     // Helper method for upload response building
     private ETLResponse buildUploadResponse(String filename, CSVProcessingResult result) {
-        String message = result.getDuplicateCount() > 0
-                ? String.format("Processed: %d saved, %d duplicates skipped",
-                        result.getWriteCount(), result.getDuplicateCount())
-                : "File processed successfully";
+        if (result.isAlreadyIngested()) {
+            return ETLResponse.builder()
+                    .status(result.getPrevious().getStatus())
+                    .exitStatus("NOOP")
+                    .message(String.format("Identical content already processed on %s; pass force=true to process it again",
+                            result.getPrevious().getIngestedAt()))
+                    .filename(filename)
+                    .readCount(result.getReadCount())
+                    .writeCount(result.getWriteCount())
+                    .skipCount(result.getSkipCount())
+                    .duplicateCount(result.getDuplicateCount())
+                    .errorCount(result.getErrorCount())
+                    .uploadId(result.hasRejects() ? result.getUploadId() : null)
+                    .contentHash(result.getContentHash())
+                    .alreadyIngested(true)
+                    .build();
+        }
+
+        String message;
+        if (result.isDryRun()) {
+            message = String.format("Dry run, nothing saved: %d would be saved, %d duplicates and %d near-duplicates skipped",
+                    result.getWriteCount(), result.getDuplicateCount(), result.getNearDuplicateCount());
+        } else if (result.getNearDuplicateCount() > 0) {
+            message = String.format("Processed: %d saved, %d duplicates and %d near-duplicates skipped",
+                    result.getWriteCount(), result.getDuplicateCount(), result.getNearDuplicateCount());
+        } else if (result.getDuplicateCount() > 0) {
+            message = String.format("Processed: %d saved, %d duplicates skipped",
+                    result.getWriteCount(), result.getDuplicateCount());
+        } else {
+            message = "File processed successfully";
+        }
 
         return ETLResponse.builder()
                 .status(result.hasErrors() ? "COMPLETED_WITH_ERRORS" : "COMPLETED")
-                .exitStatus("COMPLETED")
+                .exitStatus(result.isDryRun() ? "DRY_RUN" : "COMPLETED")
                 .message(message)
                 .filename(filename)
                 .readCount(result.getReadCount())
                 .writeCount(result.getWriteCount())
                 .skipCount(result.getSkipCount())
                 .duplicateCount(result.getDuplicateCount())
+                .errorCount(result.getErrorCount())
+                .uploadId(result.hasRejects() ? result.getUploadId() : null)
                 .duplicates(result.hasDuplicates() ? result.getDuplicates() : null)
+                .nearDuplicateCount(result.getNearDuplicateCount() > 0 ? result.getNearDuplicateCount() : null)
+                .nearDuplicates(result.getNearDuplicates())
                 .errors(result.hasErrors() ? result.getErrors() : null)
+                .contentHash(result.getContentHash())
+                .alreadyIngested(result.isDryRun() ? null : false)
+                .dataQuality(result.getSketch().summary())
+                .dryRun(result.isDryRun() ? true : null)
+                .throughput(result.isDryRun() ? result.getThroughput() : null)
                 .build();
     }
 }
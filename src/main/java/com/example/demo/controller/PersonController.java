@@ -1,18 +1,29 @@
 package com.example.demo.controller;
 
 import com.example.demo.model.Person;
+import com.example.demo.service.PersonChangeLog;
+import com.example.demo.service.PersonExportService;
 import com.example.demo.service.PersonService;
+import com.example.demo.service.PersonWriteBehindService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/person")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = HttpHeaders.ETAG)
 public class PersonController {
 
     private static final Logger logger = LoggerFactory.getLogger(PersonController.class);
@@ -20,18 +31,101 @@ public class PersonController {
     @Autowired
     private PersonService personService;
 
+    @Autowired
+    private PersonExportService personExportService;
+
+    @Autowired
+    private PersonWriteBehindService personWriteBehindService;
+
+    @Autowired
+    private PersonChangeLog personChangeLog;
+
+    /**
+     * POST /person/create?name=...&ack=durable|fast
+     * With write-behind enabled the insert is batched with concurrent requests:
+     * - durable (default): responds once the batch is committed, with the generated ID
+     * - fast: responds 202 Accepted as soon as the request is queued (no ID yet)
+     * Falls back to a direct insert when write-behind is off or its queue is full
+     */
     @PostMapping("/create")
-    public ResponseEntity<Person> create(@RequestParam String name) {
+    public CompletableFuture<ResponseEntity<Person>> create(
+            @RequestParam String name,
+            @RequestParam(required = false, defaultValue = "durable") String ack) {
         logger.info("POST /person/create - name: {}", name);
-        Person person = personService.createPerson(name);
-        return ResponseEntity.ok(person);
+
+        boolean fastAck = "fast".equalsIgnoreCase(ack);
+        Optional<CompletableFuture<Person>> queued = personWriteBehindService.enqueue(name, fastAck);
+        if (queued.isEmpty()) {
+            Person person = personService.createPerson(name);
+            return CompletableFuture.completedFuture(ResponseEntity.ok(person));
+        }
+        if (fastAck) {
+            return CompletableFuture.completedFuture(ResponseEntity.accepted().body(new Person(name)));
+        }
+        return queued.get().thenApply(ResponseEntity::ok);
     }
 
+    /**
+     * GET /person/write-behind
+     * Queue depth and the number of fast-acked creates that failed to save
+     */
+    @GetMapping("/write-behind")
+    public ResponseEntity<PersonWriteBehindService.Status> writeBehindStatus() {
+        return ResponseEntity.ok(personWriteBehindService.status());
+    }
+
+    /**
+     * GET /person/all
+     * The ETag is the change version; a request with a matching If-None-Match gets 304 Not Modified
+     * without reading the table
+     */
     @GetMapping("/all")
-    public ResponseEntity<List<Person>> getAll() {
+    public ResponseEntity<List<Person>> getAll(WebRequest request) {
         logger.info("GET /person/all");
+        // Read before the list: a change committed in between makes the next request fetch again
+        String etag = "\"" + personChangeLog.currentVersion() + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
         List<Person> persons = personService.getAllPersons();
-        return ResponseEntity.ok(persons);
+        return ResponseEntity.ok().eTag(etag).body(persons);
+    }
+
+    /**
+     * Changes since a version, for clients that keep a copy of the list
+     * GET /person/changes?since=42
+     * When full=true the client must reload GET /person/all instead of applying changes
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<PersonChangeLog.ChangeFeed> changes(@RequestParam(required = false) Long since) {
+        logger.info("GET /person/changes - since: {}", since);
+        return ResponseEntity.ok(personChangeLog.changesSince(since));
+    }
+
+    /**
+     * Streams all persons as CSV without loading them into memory
+     * GET /person/export?gzip=true
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false, defaultValue = "false") boolean gzip) {
+        logger.info("GET /person/export - gzip: {}", gzip);
+        StreamingResponseBody body = out -> personExportService.export(out, gzip);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"persons.csv" + (gzip ? ".gz" : "") + "\"")
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv"))
+                .body(body);
+    }
+
+    /**
+     * GET /person/shards
+     * Rows per shard index when PERSON is sharded (etl.shards.enabled), 404 otherwise
+     */
+    @GetMapping("/shards")
+    public ResponseEntity<Map<Integer, Long>> shards() {
+        Map<Integer, Long> counts = personService.countByShard();
+        return counts.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(counts);
     }
 
     @GetMapping("/id/{id}")
@@ -21,9 +21,19 @@ public class ETLResponse {
     private Integer writeCount;
     private Integer skipCount;
     private Integer duplicateCount;
+    private Integer nearDuplicateCount;
+    private Integer errorCount;
     private String filename;
+    private String uploadId;
     private List<String> errors;
     private List<String> duplicates;
+    private List<String> nearDuplicates;
+    private String contentHash;
+    private Boolean alreadyIngested;
+    private List<StepSummary> steps;
+    private Map<String, Object> dataQuality;
+    private Boolean dryRun;
+    private Map<String, Object> throughput;
 
     private ETLResponse() {
         // Private constructor - use builder
@@ -42,9 +52,19 @@ public class ETLResponse {
         if (writeCount != null) map.put("writeCount", writeCount);
         if (skipCount != null) map.put("skipCount", skipCount);
         if (duplicateCount != null) map.put("duplicateCount", duplicateCount);
+        if (nearDuplicateCount != null) map.put("nearDuplicateCount", nearDuplicateCount);
+        if (errorCount != null) map.put("errorCount", errorCount);
         if (filename != null) map.put("filename", filename);
+        if (uploadId != null) map.put("uploadId", uploadId);
         if (errors != null && !errors.isEmpty()) map.put("errors", errors);
         if (duplicates != null && !duplicates.isEmpty()) map.put("duplicates", duplicates);
+        if (nearDuplicates != null && !nearDuplicates.isEmpty()) map.put("nearDuplicates", nearDuplicates);
+        if (contentHash != null) map.put("contentHash", contentHash);
+        if (alreadyIngested != null) map.put("alreadyIngested", alreadyIngested);
+        if (steps != null && !steps.isEmpty()) map.put("steps", steps);
+        if (dataQuality != null) map.put("dataQuality", dataQuality);
+        if (dryRun != null) map.put("dryRun", dryRun);
+        if (throughput != null) map.put("throughput", throughput);
 
         return map;
     }
@@ -106,11 +126,26 @@ public class ETLResponse {
             return this;
         }
 
+        public Builder nearDuplicateCount(Integer nearDuplicateCount) {
+            response.nearDuplicateCount = nearDuplicateCount;
+            return this;
+        }
+
+        public Builder errorCount(Integer errorCount) {
+            response.errorCount = errorCount;
+            return this;
+        }
+
         public Builder filename(String filename) {
             response.filename = filename;
             return this;
         }
 
+        public Builder uploadId(String uploadId) {
+            response.uploadId = uploadId;
+            return this;
+        }
+
         public Builder errors(List<String> errors) {
             response.errors = errors;
             return this;
@@ -121,6 +156,47 @@ public class ETLResponse {
             return this;
         }
 
+        public Builder nearDuplicates(List<String> nearDuplicates) {
+            response.nearDuplicates = nearDuplicates;
+            return this;
+        }
+
+        public Builder contentHash(String contentHash) {
+            response.contentHash = contentHash;
+            return this;
+        }
+
+        public Builder alreadyIngested(Boolean alreadyIngested) {
+            response.alreadyIngested = alreadyIngested;
+            return this;
+        }
+
+        public Builder steps(List<StepSummary> steps) {
+            response.steps = steps;
+            return this;
+        }
+
+        /**
+         * Sketch summary of the names read: distinct count, most frequent names, lengths (see NameSketch)
+         */
+        public Builder dataQuality(Map<String, Object> dataQuality) {
+            response.dataQuality = dataQuality;
+            return this;
+        }
+
+        public Builder dryRun(Boolean dryRun) {
+            response.dryRun = dryRun;
+            return this;
+        }
+
+        /**
+         * Measured parse and transform rates of a dry run
+         */
+        public Builder throughput(Map<String, Object> throughput) {
+            response.throughput = throughput;
+            return this;
+        }
+
         public ETLResponse build() {
             return response;
         }
@@ -137,8 +213,24 @@ public class ETLResponse {
     public Integer getWriteCount() { return writeCount; }
     public Integer getSkipCount() { return skipCount; }
     public Integer getDuplicateCount() { return duplicateCount; }
+    public Integer getNearDuplicateCount() { return nearDuplicateCount; }
+    public Integer getErrorCount() { return errorCount; }
     public String getFilename() { return filename; }
+    public String getUploadId() { return uploadId; }
     public List<String> getErrors() { return errors; }
     public List<String> getDuplicates() { return duplicates; }
+    public List<String> getNearDuplicates() { return nearDuplicates; }
+    public String getContentHash() { return contentHash; }
+    public Boolean getAlreadyIngested() { return alreadyIngested; }
+    public List<StepSummary> getSteps() { return steps; }
+    public Map<String, Object> getDataQuality() { return dataQuality; }
+    public Boolean getDryRun() { return dryRun; }
+    public Map<String, Object> getThroughput() { return throughput; }
+
+    /**
+     * Counts and duration of one step, in execution order
+     */
+    public record StepSummary(String name, String status, long readCount, long writeCount, long skipCount,
+                              long durationMs) {}
 }
 
@@ -0,0 +1,198 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fingerprint of an ingested CSV file, stored in ETL_INGESTED_FILE with the outcome of its load
+ * A later submission with the same CONTENT_HASH, SCHEMA_FINGERPRINT and RULES returns this outcome
+ * instead of loading again;
+ * CHUNK_MANIFEST (one "offset:length:sha256" line per chunk) lets a modified file reload only
+ * the chunks that changed
+ */
+@Entity
+@Table(name = "ETL_INGESTED_FILE", indexes = {
+        @Index(name = "ETL_INGESTED_FILE_HASH_IDX", columnList = "CONTENT_HASH"),
+        @Index(name = "ETL_INGESTED_FILE_NAME_IDX", columnList = "FILENAME")
+})
+public class IngestedFile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etl_ingested_file_seq")
+    @SequenceGenerator(name = "etl_ingested_file_seq", sequenceName = "ETL_INGESTED_FILE_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "CONTENT_HASH", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "FILENAME", nullable = false, length = 1000)
+    private String filename;
+
+    @Column(name = "SOURCE", nullable = false, length = 16)
+    private String source;
+
+    @Column(name = "SIZE_BYTES", nullable = false)
+    private long sizeBytes;
+
+    @Column(name = "SCHEMA_FINGERPRINT", length = 32)
+    private String schemaFingerprint;
+
+    @Column(name = "RULES", length = 1000)
+    private String rules;
+
+    @Column(name = "STATUS", nullable = false, length = 32)
+    private String status;
+
+    @Column(name = "JOB_ID")
+    private Long jobId;
+
+    @Column(name = "UPLOAD_ID")
+    private String uploadId;
+
+    @Column(name = "READ_COUNT", nullable = false)
+    private int readCount;
+
+    @Column(name = "WRITE_COUNT", nullable = false)
+    private int writeCount;
+
+    @Column(name = "SKIP_COUNT", nullable = false)
+    private int skipCount;
+
+    @Column(name = "DUPLICATE_COUNT", nullable = false)
+    private int duplicateCount;
+
+    @Column(name = "ERROR_COUNT", nullable = false)
+    private int errorCount;
+
+    @Lob
+    @Column(name = "CHUNK_MANIFEST")
+    private String chunkManifest;
+
+    @Column(name = "INGESTED_AT", nullable = false)
+    private LocalDateTime ingestedAt;
+
+    public IngestedFile() {
+    }
+
+    public IngestedFile(String contentHash, String filename, String source, long sizeBytes) {
+        this.contentHash = contentHash;
+        this.filename = filename;
+        this.source = source;
+        this.sizeBytes = sizeBytes;
+        this.ingestedAt = LocalDateTime.now();
+    }
+
+    /**
+     * True when the load finished, with or without row-level errors
+     */
+    public boolean isCompleted() {
+        return status != null && status.startsWith("COMPLETED");
+    }
+
+    /**
+     * True when the load parsed with the same schema definition and applied the same name rules
+     * (rows recorded before both were stored never match)
+     */
+    public boolean loadedWith(String schemaFingerprint, String rules) {
+        return this.schemaFingerprint != null && this.schemaFingerprint.equals(schemaFingerprint)
+                && this.rules != null && this.rules.equals(rules);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public String getFilename() {
+        return filename;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public String getSchemaFingerprint() {
+        return schemaFingerprint;
+    }
+
+    public String getRules() {
+        return rules;
+    }
+
+    public void setLoadSpec(String schemaFingerprint, String rules) {
+        this.schemaFingerprint = schemaFingerprint;
+        this.rules = rules;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Long getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(Long jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    public void setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+    }
+
+    public int getReadCount() {
+        return readCount;
+    }
+
+    public int getWriteCount() {
+        return writeCount;
+    }
+
+    public int getSkipCount() {
+        return skipCount;
+    }
+
+    public int getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public int getErrorCount() {
+        return errorCount;
+    }
+
+    public void setCounts(int readCount, int writeCount, int skipCount, int duplicateCount, int errorCount) {
+        this.readCount = readCount;
+        this.writeCount = writeCount;
+        this.skipCount = skipCount;
+        this.duplicateCount = duplicateCount;
+        this.errorCount = errorCount;
+    }
+
+    public String getChunkManifest() {
+        return chunkManifest;
+    }
+
+    public void setChunkManifest(String chunkManifest) {
+        this.chunkManifest = chunkManifest;
+    }
+
+    public LocalDateTime getIngestedAt() {
+        return ingestedAt;
+    }
+}
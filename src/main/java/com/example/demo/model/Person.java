@@ -6,12 +6,14 @@ import jakarta.persistence.*;
 @Table(name = "PERSON")
 public class Person {
 
+    public static final int MAX_NAME_LENGTH = 255;
+
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
     @SequenceGenerator(name = "person_seq", sequenceName = "PERSON_SEQ", allocationSize = 1)
     private Long id;
 
-    @Column(name = "NAME", nullable = false)
+    @Column(name = "NAME", nullable = false, length = MAX_NAME_LENGTH)
     private String name;
 
     public Person() {
@@ -0,0 +1,67 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row change of PERSON, stored in PERSON_CHANGE for GET /person/changes
+ * Rows written in one transaction share a VERSION; a RESET row marks a bulk change
+ * (ETL job, bulk load, delete all) after which clients must read the whole table again
+ */
+@Entity
+@Table(name = "PERSON_CHANGE", indexes = {
+        @Index(name = "PERSON_CHANGE_VERSION_IDX", columnList = "VERSION")
+})
+public class PersonChange {
+
+    public enum Operation { INSERT, UPDATE, DELETE, RESET }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_change_seq")
+    @SequenceGenerator(name = "person_change_seq", sequenceName = "PERSON_CHANGE_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "VERSION", nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "OPERATION", nullable = false, length = 8)
+    private Operation operation;
+
+    @Column(name = "PERSON_ID")
+    private Long personId;
+
+    @Column(name = "NAME")
+    private String name;
+
+    @Column(name = "CHANGED_AT", nullable = false)
+    private LocalDateTime changedAt;
+
+    public PersonChange() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public Long getPersonId() {
+        return personId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
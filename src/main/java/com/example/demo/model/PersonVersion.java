@@ -0,0 +1,30 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Single-row counter behind the PERSON change version (ETag of GET /person/all)
+ * Writers increment it in their own transaction; the row lock orders versions by commit
+ */
+@Entity
+@Table(name = "PERSON_VERSION")
+public class PersonVersion {
+
+    @Id
+    @Column(name = "ID")
+    private Long id;
+
+    @Column(name = "VERSION", nullable = false)
+    private long version;
+
+    public PersonVersion() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Drain position of one local spool segment: the byte offset of its first frame not yet in PERSON
+ * Updated in the same transaction as the rows it covers, so a segment is never replayed twice
+ */
+@Entity
+@Table(name = "PERSON_SPOOL_OFFSET")
+public class SpoolOffset {
+
+    @Id
+    @Column(name = "SEGMENT", length = 200)
+    private String segment;
+
+    @Column(name = "COMMITTED_OFFSET", nullable = false)
+    private long committedOffset;
+
+    @Column(name = "UPDATED_AT", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public SpoolOffset() {
+    }
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public long getCommittedOffset() {
+        return committedOffset;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
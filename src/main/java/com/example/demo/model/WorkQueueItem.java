@@ -0,0 +1,94 @@
+package com.example.demo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One partition of a distributed job, published to ETL_WORK_QUEUE
+ * Any instance can claim a PENDING row, run the partition's step execution and report back
+ */
+@Entity
+@Table(name = "ETL_WORK_QUEUE", indexes = {
+        @Index(name = "ETL_WORK_QUEUE_STATUS_IDX", columnList = "STATUS"),
+        @Index(name = "ETL_WORK_QUEUE_JOB_IDX", columnList = "JOB_EXECUTION_ID")
+})
+public class WorkQueueItem {
+
+    public enum Status { PENDING, CLAIMED, COMPLETED, FAILED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etl_work_queue_seq")
+    @SequenceGenerator(name = "etl_work_queue_seq", sequenceName = "ETL_WORK_QUEUE_SEQ", allocationSize = 1)
+    private Long id;
+
+    @Column(name = "JOB_EXECUTION_ID", nullable = false)
+    private Long jobExecutionId;
+
+    @Column(name = "STEP_EXECUTION_ID", nullable = false)
+    private Long stepExecutionId;
+
+    @Column(name = "STEP_NAME", nullable = false)
+    private String stepName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "STATUS", nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    @Column(name = "OWNER")
+    private String owner;
+
+    @Column(name = "HEARTBEAT_AT")
+    private LocalDateTime heartbeatAt;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    @Column(name = "EXIT_MESSAGE", length = 2000)
+    private String exitMessage;
+
+    public WorkQueueItem() {
+    }
+
+    public WorkQueueItem(Long jobExecutionId, Long stepExecutionId, String stepName) {
+        this.jobExecutionId = jobExecutionId;
+        this.stepExecutionId = stepExecutionId;
+        this.stepName = stepName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getJobExecutionId() {
+        return jobExecutionId;
+    }
+
+    public Long getStepExecutionId() {
+        return stepExecutionId;
+    }
+
+    public String getStepName() {
+        return stepName;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public String getExitMessage() {
+        return exitMessage;
+    }
+}
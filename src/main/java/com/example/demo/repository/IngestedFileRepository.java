@@ -0,0 +1,13 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.IngestedFile;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface IngestedFileRepository extends JpaRepository<IngestedFile, Long> {
+
+    List<IngestedFile> findByContentHashOrderByIdDesc(String contentHash);
+
+    List<IngestedFile> findByFilenameAndChunkManifestIsNotNullOrderByIdDesc(String filename);
+}
@@ -0,0 +1,69 @@
+package com.example.demo.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Fetches blocks of PERSON_SEQ values in a single round trip
+ * Used by batched writers that insert with explicit IDs instead of one NEXTVAL per row
+ */
+@Component
+public class PersonIdAllocator {
+
+    private static final String ORACLE_BLOCK_SQL = "SELECT PERSON_SEQ.NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?";
+    private static final String H2_BLOCK_SQL = "SELECT NEXT VALUE FOR PERSON_SEQ FROM SYSTEM_RANGE(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String blockSql;
+
+    public PersonIdAllocator(JdbcTemplate jdbcTemplate) throws MetaDataAccessException {
+        this.jdbcTemplate = jdbcTemplate;
+        String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                DatabaseMetaData::getDatabaseProductName);
+        this.blockSql = "H2".equalsIgnoreCase(product) ? H2_BLOCK_SQL : ORACLE_BLOCK_SQL;
+    }
+
+    /**
+     * @return count new PERSON IDs (not necessarily contiguous)
+     */
+    public long[] allocate(int count) {
+        if (count <= 0) {
+            return new long[0];
+        }
+        return jdbcTemplate.queryForList(blockSql, Long.class, count).stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+    /**
+     * Same as allocate(count), on a connection the caller already holds
+     */
+    public long[] allocate(Connection connection, int count) throws SQLException {
+        long[] ids = new long[Math.max(count, 0)];
+        if (count <= 0) {
+            return ids;
+        }
+        try (PreparedStatement ps = connection.prepareStatement(blockSql)) {
+            ps.setInt(1, count);
+            ps.setFetchSize(count);
+            try (ResultSet rs = ps.executeQuery()) {
+                int i = 0;
+                while (rs.next() && i < count) {
+                    ids[i++] = rs.getLong(1);
+                }
+                if (i < count) {
+                    throw new SQLException("PERSON_SEQ returned " + i + " of " + count + " IDs");
+                }
+            }
+        }
+        return ids;
+    }
+}
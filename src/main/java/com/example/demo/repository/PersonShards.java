@@ -0,0 +1,170 @@
+package com.example.demo.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The DataSources PERSON is sharded across, and which shard a person belongs to
+ *
+ * BACKENDS (etl.shards.enabled=true):
+ * - etl.shards.urls lists one JDBC URL per shard (credentials from etl.shards.username/password,
+ *   or etl.shards.[index].username/password), each behind its own pool
+ * - without urls, etl.shards.count in-memory H2 databases are created, for running locally
+ *
+ * ROUTING:
+ * - A new person goes to the shard of the hash of its lower-cased name, so equal names meet
+ * - Its ID is the shard's PERSON_SEQ value * MAX_SHARDS + the shard index, so a person is found
+ *   by ID without asking every shard, and IDs never collide across shards
+ *
+ * When sharding is off, PERSON stays in the main DataSource and none of this is created.
+ */
+@Component
+public class PersonShards implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonShards.class);
+
+    /**
+     * Most shards; also the ID multiplier, so it must never change once data is written
+     */
+    public static final int MAX_SHARDS = 64;
+
+    private final boolean enabled;
+    private final List<Shard> shards = new ArrayList<>();
+
+    public PersonShards(Environment environment) throws MetaDataAccessException {
+        this.enabled = environment.getProperty("etl.shards.enabled", Boolean.class, false);
+        if (!enabled) {
+            return;
+        }
+        List<String> urls = Arrays.stream(environment.getProperty("etl.shards.urls", "").split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .toList();
+        int count = urls.isEmpty() ? environment.getProperty("etl.shards.count", Integer.class, 4) : urls.size();
+        if (count < 1 || count > MAX_SHARDS) {
+            throw new IllegalStateException("etl.shards: between 1 and " + MAX_SHARDS + " shards, not " + count);
+        }
+        for (int index = 0; index < count; index++) {
+            DataSource dataSource = urls.isEmpty()
+                    ? createEmbeddedDataSource(index)
+                    : createDataSource(environment, index, urls.get(index));
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            shards.add(new Shard(index, dataSource, jdbcTemplate, new PersonIdAllocator(jdbcTemplate)));
+        }
+        logger.info("PERSON sharded across {} {} databases", count, urls.isEmpty() ? "embedded" : "configured");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rejects an operation that only reads or writes PERSON in the main DataSource
+     * @param operation What the caller asked for, for the message
+     * @throws IllegalArgumentException while sharding is on
+     */
+    public void requireUnsharded(String operation) {
+        if (enabled) {
+            throw new IllegalArgumentException(operation
+                    + " works on PERSON in the main DataSource and is not available while PERSON is sharded");
+        }
+    }
+
+    public List<Shard> all() {
+        return shards;
+    }
+
+    public int count() {
+        return shards.size();
+    }
+
+    /**
+     * Shard a new person with this name is written to
+     */
+    public Shard forName(String name) {
+        int hash = name.toLowerCase(Locale.ROOT).hashCode();
+        hash ^= hash >>> 16; // Spread the high bits into the low ones before the modulo
+        hash *= 0x45d9f3b;
+        hash ^= hash >>> 16;
+        return shards.get(Math.floorMod(hash, shards.size()));
+    }
+
+    /**
+     * Shard holding the person with this ID, or null when the ID belongs to no shard
+     */
+    public Shard forId(long id) {
+        int index = (int) Math.floorMod(id, (long) MAX_SHARDS);
+        return index < shards.size() ? shards.get(index) : null;
+    }
+
+    /**
+     * ID of a person from its shard's sequence value
+     */
+    public static long id(long sequenceValue, int shardIndex) {
+        return sequenceValue * MAX_SHARDS + shardIndex;
+    }
+
+    private DataSource createEmbeddedDataSource(int index) {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("person_shard_" + index)
+                .addScript("db/shard-schema-h2.sql")
+                .build();
+    }
+
+    private DataSource createDataSource(Environment environment, int index, String url) {
+        String prefix = "etl.shards.";
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("person-shard-" + index);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(environment.getProperty(prefix + index + ".username",
+                environment.getProperty(prefix + "username", "")));
+        dataSource.setPassword(environment.getProperty(prefix + index + ".password",
+                environment.getProperty(prefix + "password", "")));
+        dataSource.setMaximumPoolSize(environment.getProperty(prefix + "maximum-pool-size", Integer.class, 5));
+        dataSource.setMinimumIdle(1);
+
+        if (environment.getProperty(prefix + "initialize-schema", Boolean.class, false)) {
+            String platform = DatabaseDriver.fromJdbcUrl(url).getId();
+            ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                    new ClassPathResource("db/shard-schema-" + platform + ".sql"));
+            populator.setContinueOnError(true); // Objects may already exist
+            populator.execute(dataSource);
+        }
+        return dataSource;
+    }
+
+    @Override
+    public void destroy() {
+        shards.forEach(shard -> {
+            if (shard.dataSource() instanceof EmbeddedDatabase embedded) {
+                embedded.shutdown();
+            } else if (shard.dataSource() instanceof HikariDataSource hikari) {
+                hikari.close();
+            }
+        });
+    }
+
+    /**
+     * One shard: its index (the remainder of its IDs), DataSource and sequence allocator
+     */
+    public record Shard(int index, DataSource dataSource, JdbcTemplate jdbcTemplate, PersonIdAllocator idAllocator) {}
+}
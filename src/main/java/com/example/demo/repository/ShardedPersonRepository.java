@@ -0,0 +1,464 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Person;
+import com.example.demo.repository.PersonShards.Shard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PERSON access across the shards of PersonShards
+ *
+ * HOW IT WORKS:
+ * - Writes are grouped by shard and every shard's group is inserted in parallel, one JDBC batch
+ *   per shard on its own connection; the connections are committed together afterwards, with the
+ *   surrounding transaction when there is one (see PendingWrite)
+ * - A keyed write also inserts a PERSON_SHARD_WRITE row with its key in each shard's transaction,
+ *   and skips the shards that already hold the key: a write repeated because the surrounding
+ *   transaction failed after the shards committed is not inserted twice
+ * - Updates and deletes go to the one shard the ID names and commit with the surrounding
+ *   transaction the same way
+ * - Reads by ID go to the one shard the ID names
+ * - Other reads scatter one query to every shard in parallel and gather the results; any shard
+ *   failing or exceeding etl.shards.query-timeout-ms fails the whole read rather than returning part of PERSON
+ */
+@Component
+public class ShardedPersonRepository implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedPersonRepository.class);
+    private static final String INSERT_SQL = "INSERT INTO PERSON (ID, NAME) VALUES (?, ?)";
+    private static final String MARKER_EXISTS_SQL = "SELECT COUNT(*) FROM PERSON_SHARD_WRITE WHERE WRITE_KEY = ?";
+    private static final String MARKER_INSERT_SQL = "INSERT INTO PERSON_SHARD_WRITE (WRITE_KEY, WRITTEN_AT) VALUES (?, ?)";
+    private static final String MARKER_PRUNE_SQL = "DELETE FROM PERSON_SHARD_WRITE WHERE WRITTEN_AT < ?";
+
+    private final PersonShards shards;
+    private final long queryTimeoutMs;
+    private final long markerRetentionHours;
+    private final int markerPruneEvery;
+    private final AtomicLong keyedWrites = new AtomicLong();
+    private final ExecutorService executor;
+
+    public ShardedPersonRepository(PersonShards shards,
+                                   @Value("${etl.shards.query-timeout-ms:30000}") long queryTimeoutMs,
+                                   @Value("${etl.shards.write-marker-retention-hours:168}") long markerRetentionHours,
+                                   @Value("${etl.shards.write-marker-prune-every:1000}") int markerPruneEvery) {
+        this.shards = shards;
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.markerRetentionHours = markerRetentionHours;
+        this.markerPruneEvery = Math.max(1, markerPruneEvery);
+        if (!shards.isEnabled()) {
+            this.executor = null;
+            return;
+        }
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.count(), runnable -> {
+            Thread thread = new Thread(runnable, "person-shard-" + threads.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Inserts the persons into their shards, setting their IDs
+     * Inside a transaction the shards commit just before it (a failing shard rolls it back) and
+     * roll back with it if it fails before that; outside one they commit right away.
+     * If the transaction fails after the shards committed, their rows stay: use
+     * insert(persons, writeKey) for writes that are repeated after a failure.
+     */
+    public void insert(List<? extends Person> persons) {
+        insert(persons, null);
+    }
+
+    /**
+     * Like insert(persons), skipping the shards that already committed a write with this key
+     * Persons of a skipped shard keep the ID they got in the earlier attempt, if any
+     * @param writeKey At most 200 characters, the same for every attempt of the same write
+     */
+    public void insert(List<? extends Person> persons, String writeKey) {
+        if (persons.isEmpty()) {
+            return;
+        }
+        if (writeKey != null && keyedWrites.incrementAndGet() % markerPruneEvery == 0) {
+            pruneWriteMarkers();
+        }
+        commitWithTransaction(prepareInsert(persons, writeKey));
+    }
+
+    /**
+     * Indexes of the shards that committed a write with this key
+     */
+    public Set<Integer> writtenShards(String writeKey) {
+        List<Boolean> written = scatter(shard -> {
+            Long count = shard.jdbcTemplate().queryForObject(MARKER_EXISTS_SQL, Long.class, writeKey);
+            return count != null && count > 0;
+        });
+        Set<Integer> indexes = new HashSet<>();
+        for (int i = 0; i < written.size(); i++) {
+            if (written.get(i)) {
+                indexes.add(shards.all().get(i).index());
+            }
+        }
+        return indexes;
+    }
+
+    private void commitWithTransaction(PendingWrite write) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write.commit();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write.commit();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                write.rollback(); // No-op once committed
+            }
+        });
+    }
+
+    /**
+     * Inserts the persons into their shards without committing, setting their IDs
+     * The caller must commit or roll back the returned write
+     * @param writeKey Key recorded with each shard's rows, null for none
+     */
+    public PendingWrite prepareInsert(List<? extends Person> persons, String writeKey) {
+        Map<Shard, List<Person>> byShard = new LinkedHashMap<>();
+        for (Person person : persons) {
+            byShard.computeIfAbsent(shards.forName(person.getName()), shard -> new ArrayList<>()).add(person);
+        }
+        PendingWrite write = new PendingWrite();
+        List<Future<Connection>> futures = new ArrayList<>();
+        byShard.forEach((shard, group) -> futures.add(executor.submit(() -> insertGroup(shard, group, writeKey))));
+        int awaited = 0;
+        try {
+            for (Future<Connection> future : futures) {
+                write.add(await(future));
+                awaited++;
+            }
+        } catch (RuntimeException e) {
+            // Every other shard's insert is waited for, so its connection is rolled back and not leaked
+            for (Future<Connection> future : futures.subList(awaited, futures.size())) {
+                try {
+                    write.add(future.get());
+                } catch (ExecutionException ignored) {
+                    // That shard already rolled back and closed its connection
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            write.rollback();
+            throw e;
+        }
+        return write;
+    }
+
+    /**
+     * @return the connection holding the uncommitted insert, or null when the key shows the
+     *         group was already committed
+     */
+    private Connection insertGroup(Shard shard, List<Person> group, String writeKey) throws SQLException {
+        Connection connection = shard.dataSource().getConnection();
+        try {
+            connection.setAutoCommit(false);
+            if (writeKey != null && !markWrite(connection, writeKey)) {
+                logger.info("Shard {} already holds write {}, skipping its {} persons", shard.index(), writeKey,
+                        group.size());
+                rollbackQuietly(connection);
+                return null;
+            }
+            long[] sequenceValues = shard.idAllocator().allocate(connection, group.size());
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                for (int i = 0; i < group.size(); i++) {
+                    Person person = group.get(i);
+                    person.setId(PersonShards.id(sequenceValues[i], shard.index()));
+                    ps.setLong(1, person.getId());
+                    ps.setString(2, person.getName());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            rollbackQuietly(connection);
+            throw new ShardAccessException("Insert into shard " + shard.index() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean markWrite(Connection connection, String writeKey) throws SQLException {
+        try (PreparedStatement exists = connection.prepareStatement(MARKER_EXISTS_SQL)) {
+            exists.setString(1, writeKey);
+            try (ResultSet rs = exists.executeQuery()) {
+                if (rs.next() && rs.getLong(1) > 0) {
+                    return false;
+                }
+            }
+        }
+        try (PreparedStatement insert = connection.prepareStatement(MARKER_INSERT_SQL)) {
+            insert.setString(1, writeKey);
+            insert.setTimestamp(2, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+        return true;
+    }
+
+    private void pruneWriteMarkers() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(markerRetentionHours));
+        try {
+            int pruned = scatter(shard -> shard.jdbcTemplate().update(MARKER_PRUNE_SQL, cutoff)).stream()
+                    .mapToInt(Integer::intValue)
+                    .sum();
+            logger.debug("Pruned {} shard write markers", pruned);
+        } catch (ShardAccessException e) {
+            logger.warn("Pruning shard write markers failed: {}", e.getMessage()); // Retried on the next tick
+        }
+    }
+
+    public List<Person> findAll() {
+        List<Person> persons = new ArrayList<>();
+        scatter(shard -> shard.jdbcTemplate().query("SELECT ID, NAME FROM PERSON",
+                (rs, rowNum) -> {
+                    Person person = new Person(rs.getString(2));
+                    person.setId(rs.getLong(1));
+                    return person;
+                })).forEach(persons::addAll);
+        persons.sort(Comparator.comparing(Person::getId));
+        return persons;
+    }
+
+    public List<String> findAllNames() {
+        List<String> names = new ArrayList<>();
+        scatter(shard -> shard.jdbcTemplate().queryForList("SELECT NAME FROM PERSON", String.class))
+                .forEach(names::addAll);
+        return names;
+    }
+
+    public Optional<Person> findById(long id) {
+        Shard shard = shards.forId(id);
+        if (shard == null) {
+            return Optional.empty();
+        }
+        return shard.jdbcTemplate().query("SELECT ID, NAME FROM PERSON WHERE ID = ?",
+                (rs, rowNum) -> {
+                    Person person = new Person(rs.getString(2));
+                    person.setId(rs.getLong(1));
+                    return person;
+                }, id).stream().findFirst();
+    }
+
+    /**
+     * Renames a person in place: the ID keeps naming its shard even when the new name hashes elsewhere
+     */
+    public boolean update(long id, String name) {
+        return executeOnShard(shards.forId(id), "UPDATE PERSON SET NAME = ? WHERE ID = ?", name, id) > 0;
+    }
+
+    public boolean deleteById(long id) {
+        return executeOnShard(shards.forId(id), "DELETE FROM PERSON WHERE ID = ?", id) > 0;
+    }
+
+    /**
+     * Runs one statement on the shard, committed with the surrounding transaction like an insert
+     */
+    private int executeOnShard(Shard shard, String sql, Object... args) {
+        if (shard == null) {
+            return 0;
+        }
+        Connection connection = null;
+        try {
+            connection = shard.dataSource().getConnection();
+            connection.setAutoCommit(false);
+            int rows;
+            try (PreparedStatement ps = connection.prepareStatement(sql)) {
+                for (int i = 0; i < args.length; i++) {
+                    ps.setObject(i + 1, args[i]);
+                }
+                rows = ps.executeUpdate();
+            }
+            PendingWrite write = new PendingWrite();
+            write.add(connection);
+            commitWithTransaction(write);
+            return rows;
+        } catch (SQLException e) {
+            if (connection != null) {
+                rollbackQuietly(connection);
+            }
+            throw new ShardAccessException("Shard " + shard.index() + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    public long deleteAll() {
+        return scatter(shard -> shard.jdbcTemplate().update("DELETE FROM PERSON")).stream()
+                .mapToLong(Integer::longValue)
+                .sum();
+    }
+
+    /**
+     * Rows per shard index, for GET /person/shards
+     */
+    public Map<Integer, Long> countByShard() {
+        List<Long> counts = scatter(shard ->
+                shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM PERSON", Long.class));
+        Map<Integer, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < counts.size(); i++) {
+            result.put(shards.all().get(i).index(), counts.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Runs the query on every shard in parallel, results in shard order
+     */
+    private <T> List<T> scatter(ShardQuery<T> query) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (Shard shard : shards.all()) {
+            futures.add(executor.submit((Callable<T>) () -> {
+                try {
+                    return query.run(shard);
+                } catch (RuntimeException e) {
+                    throw new ShardAccessException("Shard " + shard.index() + " failed: " + e.getMessage(), e);
+                }
+            }));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(await(future));
+            }
+        } catch (RuntimeException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw e;
+        }
+        return results;
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get(queryTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ShardAccessException("Interrupted waiting for a shard", e);
+        } catch (TimeoutException e) {
+            throw new ShardAccessException("A shard did not answer within " + queryTimeoutMs + " ms", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ShardAccessException shardException) {
+                throw shardException;
+            }
+            throw new ShardAccessException("Shard access failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static void rollbackQuietly(Connection connection) {
+        try (connection) {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.warn("Shard rollback failed: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ShardQuery<T> {
+        T run(Shard shard);
+    }
+
+    /**
+     * Uncommitted inserts holding one connection per shard written
+     *
+     * Shards are separate databases, so committing is not atomic across them: the shards are
+     * committed one after the other, and only a failure between two of those commits leaves the
+     * earlier shards committed. Any failure before the first commit rolls every shard back.
+     */
+    public static class PendingWrite {
+
+        private final List<Connection> connections = new ArrayList<>();
+        private boolean completed;
+
+        private synchronized void add(Connection connection) {
+            if (connection != null) {
+                connections.add(connection);
+            }
+        }
+
+        public synchronized void commit() {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            int committed = 0;
+            try {
+                for (Connection connection : connections) {
+                    connection.commit();
+                    committed++;
+                }
+            } catch (SQLException e) {
+                if (committed > 0) {
+                    logger.error("Shard commit failed after {} of {} shards committed", committed, connections.size());
+                }
+                connections.subList(committed, connections.size()).forEach(ShardedPersonRepository::rollbackQuietly);
+                connections.subList(0, committed).forEach(PendingWrite::closeQuietly);
+                throw new ShardAccessException("Shard commit failed: " + e.getMessage(), e);
+            }
+            connections.forEach(PendingWrite::closeQuietly);
+        }
+
+        public synchronized void rollback() {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            connections.forEach(ShardedPersonRepository::rollbackQuietly);
+        }
+
+        private static void closeQuietly(Connection connection) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.warn("Closing shard connection failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    public static class ShardAccessException extends RuntimeException {
+        public ShardAccessException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.WorkQueueItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface WorkQueueRepository extends JpaRepository<WorkQueueItem, Long> {
+
+    List<WorkQueueItem> findByJobExecutionId(Long jobExecutionId);
+}
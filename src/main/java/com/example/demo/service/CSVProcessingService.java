@@ -1,50 +1,148 @@
 package com.example.demo.service;
 
+import com.example.demo.batch.mapping.SchemaLineMapper;
+import com.example.demo.batch.mapping.SchemaRegistry;
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.sketch.NameSketch;
+import com.example.demo.model.IngestedFile;
 import com.example.demo.model.Person;
+import com.example.demo.service.FileFingerprinter.Fingerprint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
 /**
  * Service responsible for processing CSV files
  * Handles reading, transforming and validating CSV data
+ *
+ * Each upload is fingerprinted (SHA-256) before processing; identical content that was already
+ * processed returns the stored outcome unless force is set. Duplicates are checked against a
+ * hash set of the existing names, loaded once per upload.
+ *
+ * In fuzzy mode names that are not exact duplicates are also looked up in a FuzzyNameIndex of the
+ * existing names; a name within a few edits of one ("Joao Silva" / "João  Silva") is skipped as a
+ * near-duplicate and reported with the name it resembles.
  */
 @Service
 public class CSVProcessingService {
 
     private static final Logger logger = LoggerFactory.getLogger(CSVProcessingService.class);
+    // Uploads capitalize each word themselves instead of running a NameRuleChain
+    private static final String UPLOAD_RULES = "upload:capitalize";
     private final PersonService personService;
-
-    public CSVProcessingService(PersonService personService) {
+    private final RejectStore rejectStore;
+    private final SchemaRegistry schemaRegistry;
+    private final FileFingerprinter fingerprinter;
+    private final IngestionRegistry ingestionRegistry;
+    private final int fuzzyMaxEdits;
+    private final int fuzzyMaxCandidates;
+
+    public CSVProcessingService(PersonService personService, RejectStore rejectStore,
+                                SchemaRegistry schemaRegistry, FileFingerprinter fingerprinter,
+                                IngestionRegistry ingestionRegistry,
+                                @Value("${etl.fuzzy.max-edits:2}") int fuzzyMaxEdits,
+                                @Value("${etl.fuzzy.max-candidates:200}") int fuzzyMaxCandidates) {
         this.personService = personService;
+        this.rejectStore = rejectStore;
+        this.schemaRegistry = schemaRegistry;
+        this.fingerprinter = fingerprinter;
+        this.ingestionRegistry = ingestionRegistry;
+        this.fuzzyMaxEdits = fuzzyMaxEdits;
+        this.fuzzyMaxCandidates = fuzzyMaxCandidates;
     }
 
     /**
-     * Process an uploaded CSV file
+     * Process an uploaded CSV file with the default schema
      * @param file The CSV file to process
-     * @return Processing result with statistics
+     * @return Processing result with statistics, or the previous result for identical content
      */
     public CSVProcessingResult processFile(MultipartFile file) {
+        return processFile(file, UploadOptions.DEFAULTS);
+    }
+
+    /**
+     * Process an uploaded CSV file
+     * @param file The CSV file to process
+     * @param options schema, force, fuzzy and dryRun of the upload, see UploadOptions
+     * @return Processing result with statistics, or the previous result for identical content
+     */
+    public CSVProcessingResult processFile(MultipartFile file, UploadOptions options) {
+        boolean dryRun = options.dryRun();
         validateFile(file);
 
-        CSVProcessingResult result = new CSVProcessingResult();
+        SchemaLineMapper<PersonCSVData> lineMapper;
+        try {
+            lineMapper = schemaRegistry.personSchema(options.schemaName()).newLineMapper();
+        } catch (IllegalArgumentException e) {
+            throw new CSVProcessingException(e.getMessage());
+        }
 
+        // A dry run neither looks up nor records the content, so it skips the extra SHA-256 pass
+        Fingerprint fingerprint = null;
+        if (!dryRun) {
+            try (InputStream in = file.getInputStream()) {
+                fingerprint = fingerprinter.fingerprint(in);
+            } catch (Exception e) {
+                throw new CSVProcessingException("Failed to read CSV file", e);
+            }
+            if (!options.force()) {
+                Optional<IngestedFile> previous = ingestionRegistry.findCompleted(fingerprint.sha256(),
+                        options.schemaName(), uploadRules(options));
+                if (previous.isPresent()) {
+                    logger.info("Content of {} already processed on {}, skipping",
+                            file.getOriginalFilename(), previous.get().getIngestedAt());
+                    return CSVProcessingResult.alreadyIngested(previous.get());
+                }
+            }
+        }
+
+        CSVProcessingResult result = new CSVProcessingResult(dryRun ? null : UUID.randomUUID().toString());
+        result.contentHash = fingerprint != null ? fingerprint.sha256() : null;
+        result.dryRun = dryRun;
+
+        long start = System.nanoTime();
         try (BufferedReader reader = new BufferedReader(
                 new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
 
-            processCSVLines(reader, result);
+            Set<String> existingNames = personService.getAllNamesLowerCase();
+            FuzzyNameIndex index = options.fuzzy() ? fuzzyIndex() : null;
+            result.existingNamesNanos = System.nanoTime() - start;
+            processCSVLines(reader, lineMapper, existingNames, index, result);
 
         } catch (Exception e) {
             logger.error("Error processing CSV file: {}", file.getOriginalFilename(), e);
             throw new CSVProcessingException("Failed to process CSV file", e);
+        } finally {
+            if (!dryRun) {
+                rejectStore.close(result.getUploadId());
+            }
         }
+        result.elapsedNanos = System.nanoTime() - start;
+
+        if (dryRun) {
+            logProcessingResult(result);
+            return result;
+        }
+        ingestionRegistry.record("upload", file.getOriginalFilename(), fingerprint,
+                options.schemaName(), uploadRules(options),
+                result.hasErrors() ? "COMPLETED_WITH_ERRORS" : "COMPLETED", null,
+                result.hasRejects() ? result.getUploadId() : null,
+                result.getReadCount(), result.getWriteCount(), result.getSkipCount(),
+                result.getDuplicateCount(), result.getErrorCount());
 
         logProcessingResult(result);
         return result;
@@ -60,22 +158,54 @@ public class CSVProcessingService {
         }
     }
 
-    private void processCSVLines(BufferedReader reader, CSVProcessingResult result) throws Exception {
+    /**
+     * Rules recorded for an upload: its fixed capitalization, plus the fuzzy check when enabled
+     */
+    private static String uploadRules(UploadOptions options) {
+        return options.fuzzy() ? UPLOAD_RULES + ",fuzzy" : UPLOAD_RULES;
+    }
+
+    private FuzzyNameIndex fuzzyIndex() {
+        long start = System.currentTimeMillis();
+        FuzzyNameIndex index = new FuzzyNameIndex(fuzzyMaxEdits, fuzzyMaxCandidates);
+        index.addAll(personService.getAllNames());
+        logger.info("Fuzzy index of {} names built in {} ms", index.size(), System.currentTimeMillis() - start);
+        return index;
+    }
+
+    private void processCSVLines(BufferedReader reader, SchemaLineMapper<PersonCSVData> lineMapper,
+                                 Set<String> existingNames, FuzzyNameIndex fuzzyIndex,
+                                 CSVProcessingResult result) throws Exception {
         String line;
-        boolean isHeader = true;
+        int lineNumber = 0;
 
         while ((line = reader.readLine()) != null) {
-            if (isHeader) {
-                isHeader = false;
+            lineNumber++;
+            if (lineNumber == 1) {
+                lineMapper.bindHeader(line);
                 continue;
             }
 
             result.incrementReadCount();
-            processLine(line.trim(), result);
+            processLine(line, lineNumber, lineMapper, existingNames, fuzzyIndex, result);
         }
     }
 
-    private void processLine(String name, CSVProcessingResult result) {
+    private void processLine(String line, int lineNumber, SchemaLineMapper<PersonCSVData> lineMapper,
+                             Set<String> existingNames, FuzzyNameIndex fuzzyIndex,
+                             CSVProcessingResult result) {
+        String name;
+        try {
+            long parseStart = System.nanoTime();
+            String rawName = lineMapper.mapLine(line, lineNumber).getRawName();
+            result.parseNanos += System.nanoTime() - parseStart;
+            result.sketch.add(rawName);
+            name = rawName != null ? rawName.trim() : "";
+        } catch (Exception e) {
+            handleError(line, e, result);
+            return;
+        }
+
         if (name.isEmpty()) {
             return;
         }
@@ -83,10 +213,20 @@ public class CSVProcessingService {
         try {
             String transformedName = capitalizeName(name);
 
-            if (isDuplicate(transformedName)) {
+            String key = transformedName.toLowerCase(Locale.ROOT);
+            if (existingNames.contains(key)) {
                 handleDuplicate(transformedName, result);
+                return;
+            }
+            FuzzyNameIndex.Match match = fuzzyIndex != null ? fuzzyIndex.findSimilar(transformedName) : null;
+            if (match != null) {
+                handleNearDuplicate(transformedName, match, result);
             } else {
                 savePerson(transformedName, result);
+                existingNames.add(key);
+                if (fuzzyIndex != null) {
+                    fuzzyIndex.add(transformedName);
+                }
             }
         } catch (Exception e) {
             handleError(name, e, result);
@@ -108,33 +248,70 @@ public class CSVProcessingService {
         return capitalizedName.toString().trim();
     }
 
-    private boolean isDuplicate(String name) {
-        List<Person> existingPersons = personService.getAllPersons();
-        return existingPersons.stream()
-                .anyMatch(p -> p.getName().equalsIgnoreCase(name));
-    }
-
     private void handleDuplicate(String name, CSVProcessingResult result) {
-        result.incrementDuplicateCount();
         result.addDuplicate(name);
-        logger.warn("⊗ DUPLICATE SKIPPED: '{}' already exists in database", name);
+        appendReject(result, "DUPLICATE", name, "already exists in database");
+        if (!result.dryRun) {
+            logger.warn("⊗ DUPLICATE SKIPPED: '{}' already exists in database", name);
+        }
+    }
+
+    private void handleNearDuplicate(String name, FuzzyNameIndex.Match match, CSVProcessingResult result) {
+        String reason = "similar to '" + match.name() + "' (edit distance " + match.distance() + ")";
+        result.addNearDuplicate(name + " ~ " + match.name());
+        appendReject(result, "NEAR_DUPLICATE", name, reason);
+        if (!result.dryRun) {
+            logger.warn("≈ NEAR-DUPLICATE SKIPPED: '{}' {}", name, reason);
+        }
     }
 
     private void savePerson(String name, CSVProcessingResult result) {
+        if (result.dryRun) {
+            // The insert would fail on a name PERSON.NAME cannot hold
+            if (name.length() > Person.MAX_NAME_LENGTH) {
+                throw new IllegalArgumentException("name longer than " + Person.MAX_NAME_LENGTH
+                        + " characters");
+            }
+            result.incrementWriteCount();
+            return;
+        }
         personService.createPerson(name);
         result.incrementWriteCount();
         logger.info("✓ Processed and saved: '{}'", name);
     }
 
+    private void appendReject(CSVProcessingResult result, String kind, String name, String reason) {
+        if (!result.dryRun) {
+            rejectStore.append(result.getUploadId(), kind, name, reason);
+        }
+    }
+
     private void handleError(String name, Exception e, CSVProcessingResult result) {
         String errorMessage = "Error processing '" + name + "': " + e.getMessage();
         result.addError(errorMessage);
-        logger.error("✗ Error processing: {}", name, e);
+        appendReject(result, "ERROR", name, e.getMessage());
+        if (!result.dryRun) {
+            // A dry run only counts and samples its errors; a stack trace per bad row would flood the log
+            logger.error("✗ Error processing: {}", name, e);
+        }
     }
 
     private void logProcessingResult(CSVProcessingResult result) {
-        logger.info("CSV processing complete: {} read, {} written, {} duplicates skipped",
-                result.getReadCount(), result.getWriteCount(), result.getDuplicateCount());
+        logger.info("CSV {} complete: {} read, {} written, {} duplicates and {} near-duplicates skipped",
+                result.dryRun ? "dry run" : "processing", result.getReadCount(), result.getWriteCount(), result.getDuplicateCount(),
+                result.getNearDuplicateCount());
+    }
+
+    /**
+     * How processFile treats an upload
+     * @param schemaName CSV schema of the file, null for the default
+     * @param force Process even if identical content was already processed
+     * @param fuzzy Also skip names nearly equal to an existing one
+     * @param dryRun Only count what would be saved and skipped: nothing is inserted, no reject file
+     *               is written, the content is not fingerprinted and the upload is not recorded
+     */
+    public record UploadOptions(String schemaName, boolean force, boolean fuzzy, boolean dryRun) {
+        public static final UploadOptions DEFAULTS = new UploadOptions(null, false, false, false);
     }
 
     /**
@@ -152,13 +329,46 @@ public class CSVProcessingService {
 
     /**
      * Result object containing CSV processing statistics
+     * Keeps fixed-size counters, a NameSketch and a capped sample of errors and duplicates;
+     * the full lists are streamed to the reject file identified by uploadId
      */
     public static class CSVProcessingResult {
+        public static final int SAMPLE_SIZE = 20;
+
+        private final String uploadId;
+        private String contentHash;
+        private IngestedFile previous;
         private int readCount = 0;
         private int writeCount = 0;
         private int duplicateCount = 0;
+        private int nearDuplicateCount = 0;
+        private int errorCount = 0;
         private final List<String> errors = new ArrayList<>();
         private final List<String> duplicates = new ArrayList<>();
+        private final List<String> nearDuplicates = new ArrayList<>();
+        private final NameSketch sketch = new NameSketch();
+        private boolean dryRun;
+        private long parseNanos;
+        private long existingNamesNanos;
+        private long elapsedNanos;
+
+        public CSVProcessingResult(String uploadId) {
+            this.uploadId = uploadId;
+        }
+
+        /**
+         * Result of an earlier upload of identical content, counts only (no samples)
+         */
+        static CSVProcessingResult alreadyIngested(IngestedFile previous) {
+            CSVProcessingResult result = new CSVProcessingResult(previous.getUploadId());
+            result.contentHash = previous.getContentHash();
+            result.previous = previous;
+            result.readCount = previous.getReadCount();
+            result.writeCount = previous.getWriteCount();
+            result.duplicateCount = previous.getDuplicateCount();
+            result.errorCount = previous.getErrorCount();
+            return result;
+        }
 
         public void incrementReadCount() {
             readCount++;
@@ -168,16 +378,44 @@ public class CSVProcessingService {
             writeCount++;
         }
 
-        public void incrementDuplicateCount() {
+        public void addError(String error) {
+            errorCount++;
+            if (errors.size() < SAMPLE_SIZE) {
+                errors.add(error);
+            }
+        }
+
+        public void addDuplicate(String duplicate) {
             duplicateCount++;
+            if (duplicates.size() < SAMPLE_SIZE) {
+                duplicates.add(duplicate);
+            }
         }
 
-        public void addError(String error) {
-            errors.add(error);
+        public void addNearDuplicate(String nearDuplicate) {
+            nearDuplicateCount++;
+            if (nearDuplicates.size() < SAMPLE_SIZE) {
+                nearDuplicates.add(nearDuplicate);
+            }
         }
 
-        public void addDuplicate(String duplicate) {
-            duplicates.add(duplicate);
+        public String getUploadId() {
+            return uploadId;
+        }
+
+        public String getContentHash() {
+            return contentHash;
+        }
+
+        /**
+         * The earlier upload this result was taken from, or null when the file was processed now
+         */
+        public IngestedFile getPrevious() {
+            return previous;
+        }
+
+        public boolean isAlreadyIngested() {
+            return previous != null;
         }
 
         public int getReadCount() {
@@ -192,25 +430,68 @@ public class CSVProcessingService {
             return duplicateCount;
         }
 
+        public int getNearDuplicateCount() {
+            return nearDuplicateCount;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
         public int getSkipCount() {
             return readCount - writeCount;
         }
 
+        /**
+         * First errors only, see the reject file for the full list
+         */
         public List<String> getErrors() {
             return errors;
         }
 
+        /**
+         * First duplicates only, see the reject file for the full list
+         */
         public List<String> getDuplicates() {
             return duplicates;
         }
 
+        /**
+         * First near-duplicates only ("name ~ existing name"), see the reject file for the full list
+         */
+        public List<String> getNearDuplicates() {
+            return nearDuplicates;
+        }
+
+        /**
+         * Sketch of the names read (not kept for an earlier upload of identical content)
+         */
+        public NameSketch getSketch() {
+            return previous == null ? sketch : null;
+        }
+
+        public boolean isDryRun() {
+            return dryRun;
+        }
+
+        /**
+         * Measured parse and transform rates (transform includes the duplicate checks), for dry runs
+         */
+        public Map<String, Object> getThroughput() {
+            return new DryRunThroughput(readCount, parseNanos, elapsedNanos - existingNamesNanos - parseNanos,
+                    existingNamesNanos, elapsedNanos).toMap();
+        }
+
         public boolean hasErrors() {
-            return !errors.isEmpty();
+            return errorCount > 0;
         }
 
         public boolean hasDuplicates() {
-            return !duplicates.isEmpty();
+            return duplicateCount > 0;
+        }
+
+        public boolean hasRejects() {
+            return uploadId != null && (errorCount > 0 || duplicateCount > 0 || nearDuplicateCount > 0);
         }
     }
 }
-
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measured phases of a dry run, shared by the file preflight (ETLDryRunService) and the upload dry run
+ * @param transformNanos rule time, including the duplicate checks
+ */
+public record DryRunThroughput(long rows, long parseNanos, long transformNanos, long existingNamesNanos,
+                               long elapsedNanos) {
+
+    /**
+     * Rows and rows per second of each phase, as returned in the throughput field of the response
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> throughput = new LinkedHashMap<>();
+        throughput.put("rows", rows);
+        throughput.put("elapsedMs", TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        throughput.put("existingNamesMs", TimeUnit.NANOSECONDS.toMillis(existingNamesNanos));
+        throughput.put("parseMs", TimeUnit.NANOSECONDS.toMillis(parseNanos));
+        throughput.put("transformMs", TimeUnit.NANOSECONDS.toMillis(transformNanos));
+        throughput.put("parseRowsPerSecond", perSecond(parseNanos));
+        throughput.put("transformRowsPerSecond", perSecond(transformNanos));
+        throughput.put("rowsPerSecond", perSecond(elapsedNanos));
+        return throughput;
+    }
+
+    private long perSecond(long nanos) {
+        return nanos > 0 ? Math.round(rows * 1e9 / nanos) : 0;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.demo.service;
+
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.processor.PersonDataProcessor;
+import com.example.demo.batch.reader.PersonCSVReader;
+import com.example.demo.batch.sketch.NameSketch;
+import com.example.demo.dto.ETLResponse;
+import com.example.demo.model.Person;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.batch.item.file.FlatFileItemReader;
+import org.springframework.batch.item.file.FlatFileParseException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preflight of POST /etl/run?dryRun=true: what the load would do, without loading
+ *
+ * HOW IT WORKS:
+ * - The file is read with the job's CSV reader and schema, and every name goes through the same
+ *   rule chain (rules parameter or etl.rules.default); no job is launched, so nothing is written
+ *   to PERSON or to the job repository, and no columnar cache file is created
+ * - A line the schema cannot map is counted and sampled instead of failing at the first one,
+ *   and so is a name longer than PERSON.NAME
+ * - Names already in PERSON (read once, like the duplicate checks) or repeated earlier in the
+ *   file are counted as duplicates; a plain run still writes them, skipExisting runs would not
+ * - Reading (parse) and rule time (transform) are measured separately and returned as rows per second
+ */
+@Service
+public class ETLDryRunService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ETLDryRunService.class);
+    private static final int SAMPLE_SIZE = CSVProcessingService.CSVProcessingResult.SAMPLE_SIZE;
+
+    private final PersonCSVReader csvReader;
+    private final PersonDataProcessor dataProcessor;
+    private final PersonService personService;
+
+    public ETLDryRunService(PersonCSVReader csvReader, PersonDataProcessor dataProcessor,
+                            PersonService personService) {
+        this.csvReader = csvReader;
+        this.dataProcessor = dataProcessor;
+        this.personService = personService;
+    }
+
+    /**
+     * @param fileName CSV file name (classpath data/) or full path, as for /etl/run
+     * @param schema CSV schema of the file, null for the default
+     * @param rules Name rules, null for etl.rules.default
+     * @throws IllegalArgumentException for a missing file, unknown schema or unknown rule
+     */
+    public ETLResponse dryRun(String fileName, String schema, String rules) throws Exception {
+        String csvFile = fileName.endsWith(".csv") ? fileName : fileName + ".csv";
+        PersonDataProcessor processor = dataProcessor.withRules(rules);
+        FlatFileItemReader<PersonCSVData> reader;
+        try {
+            reader = csvReader.createReader(csvFile, schema);
+        } catch (RuntimeException e) {
+            // A missing file is the caller's mistake here, not a failed job
+            throw e instanceof IllegalArgumentException ? e : new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        long start = System.nanoTime();
+        Set<String> names = personService.getAllNamesLowerCase(); // Grows with the file's new names
+        long existingNamesNanos = System.nanoTime() - start;
+
+        int readCount = 0;
+        int writeCount = 0;
+        int filterCount = 0;
+        int duplicateCount = 0;
+        int errorCount = 0;
+        List<String> errors = new ArrayList<>();
+        List<String> duplicates = new ArrayList<>();
+        NameSketch sketch = new NameSketch();
+        long parseNanos = 0;
+        long transformNanos = 0;
+
+        reader.open(new ExecutionContext());
+        try {
+            while (true) {
+                long readStart = System.nanoTime();
+                PersonCSVData item;
+                try {
+                    item = reader.read();
+                } catch (FlatFileParseException e) {
+                    parseNanos += System.nanoTime() - readStart;
+                    readCount++;
+                    errorCount++;
+                    sample(errors, "Line " + e.getLineNumber() + ": " + rootMessage(e));
+                    continue;
+                }
+                long transformStart = System.nanoTime();
+                parseNanos += transformStart - readStart;
+                if (item == null) {
+                    break;
+                }
+                readCount++;
+                sketch.add(item.getRawName());
+
+                String rawName = item.getRawName();
+                String name = rawName == null || rawName.isBlank() ? null : processor.normalize(rawName);
+                if (name == null || name.isEmpty()) {
+                    filterCount++;
+                } else if (name.length() > Person.MAX_NAME_LENGTH) {
+                    errorCount++;
+                    sample(errors, "Line " + item.getLineNumber() + ": name longer than " + Person.MAX_NAME_LENGTH
+                            + " characters");
+                } else {
+                    writeCount++;
+                    if (!names.add(name.toLowerCase(Locale.ROOT))) {
+                        duplicateCount++;
+                        sample(duplicates, name);
+                    }
+                }
+                transformNanos += System.nanoTime() - transformStart;
+            }
+        } finally {
+            reader.close();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        logger.info("Dry run of {}: {} read, {} would be written ({} duplicates), {} filtered, {} errors in {} ms",
+                csvFile, readCount, writeCount, duplicateCount, filterCount, errorCount,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+
+        return ETLResponse.builder()
+                .status(errorCount > 0 ? "COMPLETED_WITH_ERRORS" : "COMPLETED")
+                .exitStatus("DRY_RUN")
+                .message(String.format("Dry run, nothing written: %d rows would be written (%d of them duplicate "
+                                + "names), %d filtered by the rules, %d rejected",
+                        writeCount, duplicateCount, filterCount, errorCount))
+                .filename(csvFile)
+                .readCount(readCount)
+                .writeCount(writeCount)
+                .skipCount(filterCount)
+                .duplicateCount(duplicateCount)
+                .errorCount(errorCount)
+                .duplicates(duplicates.isEmpty() ? null : duplicates)
+                .errors(errors.isEmpty() ? null : errors)
+                .dryRun(true)
+                .throughput(new DryRunThroughput(readCount, parseNanos, transformNanos, existingNamesNanos,
+                        elapsedNanos).toMap())
+                .dataQuality(sketch.summary())
+                .build();
+    }
+
+    private static void sample(List<String> samples, String entry) {
+        if (samples.size() < SAMPLE_SIZE) {
+            samples.add(entry);
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage();
+    }
+}
@@ -1,15 +1,40 @@
 package com.example.demo.service;
 
+import com.example.demo.batch.admission.JobAdmissionController;
+import com.example.demo.batch.admission.JobAdmissionController.Priority;
+import com.example.demo.batch.config.JobRepositoryRouter;
+import com.example.demo.batch.job.ETLJobConfiguration;
+import com.example.demo.batch.processor.NameRuleChain;
+import com.example.demo.batch.sketch.NameSketch;
 import com.example.demo.dto.ETLResponse;
+import com.example.demo.model.IngestedFile;
+import com.example.demo.repository.PersonShards;
+import com.example.demo.service.FileFingerprinter.Chunk;
+import com.example.demo.service.FileFingerprinter.Fingerprint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.batch.core.BatchStatus;
 import org.springframework.batch.core.Job;
 import org.springframework.batch.core.JobExecution;
 import org.springframework.batch.core.JobParameters;
 import org.springframework.batch.core.JobParametersBuilder;
+import org.springframework.batch.core.StepExecution;
 import org.springframework.batch.core.launch.JobLauncher;
+import org.springframework.batch.core.repository.JobRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -23,10 +48,63 @@ public class ETLJobService {
 
     private final JobLauncher jobLauncher;
     private final Job importPersonJob;
+    private final JobLauncher spoolJobLauncher;
+    private final Job spoolImportPersonJob;
+    private final String defaultWriteMode;
+    private final JobLauncher exportJobLauncher;
+    private final Job exportPersonJob;
+    private final Path exportDirectory;
+    private final JobRepository normalizeJobRepository;
+    private final JobLauncher normalizeJobLauncher;
+    private final Job normalizePersonJob;
+    private final JobLauncher distributedJobLauncher;
+    private final Job distributedImportPersonJob;
+    private final boolean sharedImportRepository;
+    private final boolean queueWorkerEnabled;
+    private final FileFingerprinter fingerprinter;
+    private final IngestionRegistry ingestionRegistry;
+    private final boolean chunkManifest;
+    private final JobAdmissionController admissionController;
+    private final int normalizePartitions;
+    private final PersonShards personShards;
 
-    public ETLJobService(JobLauncher jobLauncher, Job importPersonJob) {
-        this.jobLauncher = jobLauncher;
+    public ETLJobService(JobRepositoryRouter jobRepositoryRouter,
+                         Job importPersonJob,
+                         Job spoolImportPersonJob,
+                         Job exportPersonJob,
+                         Job normalizePersonJob,
+                         Job distributedImportPersonJob,
+                         FileFingerprinter fingerprinter,
+                         IngestionRegistry ingestionRegistry,
+                         JobAdmissionController admissionController,
+                         PersonShards personShards,
+                         @Value("${etl.export.directory:exports}") String exportDirectory,
+                         @Value("${etl.ingest.chunk-manifest:true}") boolean chunkManifest,
+                         @Value("${etl.normalize.partitions:4}") int normalizePartitions,
+                         @Value("${etl.queue.worker.enabled:false}") boolean queueWorkerEnabled,
+                         @Value("${etl.writer.mode:standard}") String defaultWriteMode) {
+        this.jobLauncher = jobRepositoryRouter.launcherFor(importPersonJob.getName());
         this.importPersonJob = importPersonJob;
+        this.spoolJobLauncher = jobRepositoryRouter.launcherFor(spoolImportPersonJob.getName());
+        this.spoolImportPersonJob = spoolImportPersonJob;
+        this.defaultWriteMode = defaultWriteMode;
+        this.exportJobLauncher = jobRepositoryRouter.launcherFor(exportPersonJob.getName());
+        this.exportPersonJob = exportPersonJob;
+        this.exportDirectory = Path.of(exportDirectory).toAbsolutePath();
+        this.normalizeJobRepository = jobRepositoryRouter.repositoryFor(normalizePersonJob.getName());
+        this.normalizeJobLauncher = jobRepositoryRouter.launcherFor(normalizePersonJob.getName());
+        this.normalizePersonJob = normalizePersonJob;
+        this.distributedJobLauncher = jobRepositoryRouter.launcherFor(importPersonJob.getName());
+        this.distributedImportPersonJob = distributedImportPersonJob;
+        this.sharedImportRepository =
+                jobRepositoryRouter.backendFor(importPersonJob.getName()) == JobRepositoryRouter.Backend.SHARED;
+        this.queueWorkerEnabled = queueWorkerEnabled;
+        this.fingerprinter = fingerprinter;
+        this.ingestionRegistry = ingestionRegistry;
+        this.chunkManifest = chunkManifest;
+        this.admissionController = admissionController;
+        this.normalizePartitions = normalizePartitions;
+        this.personShards = personShards;
     }
 
     /**
@@ -36,16 +114,463 @@ public class ETLJobService {
      * @throws Exception if job execution fails
      */
     public ETLResponse executeJob(String fileName) throws Exception {
+        return executeJob(fileName, Map.of());
+    }
+
+    /**
+     * Execute ETL job for a given CSV file with extra job options
+     * Content already loaded by a completed run is not loaded again (see executeJob with force)
+     * @param fileName Name of the CSV file to process
+     * @param jobOptions Optional string job parameters, e.g. writeMode=bisect, schema=person
+     * @return ETL execution response with statistics
+     * @throws Exception if job execution fails
+     */
+    public ETLResponse executeJob(String fileName, Map<String, String> jobOptions) throws Exception {
+        return executeJob(fileName, jobOptions, RunOptions.DEFAULTS);
+    }
+
+    /**
+     * Execute ETL job for a given CSV file, fingerprinting its content first
+     * @param fileName Name of the CSV file to process
+     * @param jobOptions Optional string job parameters, e.g. writeMode=bisect, schema=person
+     * @param runOptions force, delta and priority of the run, see RunOptions
+     * @return ETL execution response with statistics, or the previous outcome for identical content
+     * @throws Exception if job execution fails
+     * @throws JobAdmissionController.JobRejectedException if the job could not be admitted in time
+     */
+    public ETLResponse executeJob(String fileName, Map<String, String> jobOptions, RunOptions runOptions)
+            throws Exception {
+        String csvFile = fileName.endsWith(".csv") ? fileName : fileName + ".csv";
+        JobParameters jobParameters = buildJobParameters(fileName, jobOptions);
+
+        Path path = findFileOnDisk(csvFile);
+        Fingerprint fingerprint = fingerprint(csvFile, path, runOptions.delta());
+        String ingestKey = path != null ? path.toString() : "classpath:data/" + csvFile;
+        boolean spool = isSpoolMode(jobOptions);
+
+        if (fingerprint != null && !runOptions.force()) {
+            Optional<IngestedFile> previous = spool
+                    ? findCompletedIfReachable(fingerprint.sha256(), jobOptions)
+                    : ingestionRegistry.findCompleted(fingerprint.sha256(), jobOptions.get("schema"),
+                            jobOptions.get("rules"));
+            if (previous.isPresent()) {
+                logger.info("Content of {} already ingested by job {}, skipping", csvFile, previous.get().getJobId());
+                return alreadyIngestedResponse(previous.get());
+            }
+        }
+        if (runOptions.delta()) {
+            if (path == null) {
+                throw new IllegalArgumentException("Delta loads need a file on disk, not found: " + csvFile);
+            }
+            Optional<IngestedFile> baseline = ingestionRegistry.findBaseline(ingestKey,
+                    jobOptions.get("schema"), jobOptions.get("rules"));
+            List<Chunk> ranges = baseline.map(previous -> ingestionRegistry.changedRanges(fingerprint, previous))
+                    .orElse(null);
+            if (ranges != null) {
+                return executeDelta(path, ranges, fingerprint, jobOptions, runOptions.priority());
+            }
+            logger.info("No usable chunk manifest for {}, loading the whole file", csvFile);
+        }
+
         logger.info("Starting ETL job for file: {}", fileName);
 
-        JobParameters jobParameters = buildJobParameters(fileName);
-        JobExecution jobExecution = jobLauncher.run(importPersonJob, jobParameters);
+        if (fingerprint != null) {
+            // Lets the reader use the columnar cache of this content
+            jobParameters = new JobParametersBuilder(jobParameters)
+                    .addString("contentHash", fingerprint.sha256(), false)
+                    .toJobParameters();
+        }
+        JobExecution jobExecution = spool
+                ? launch(spoolJobLauncher, spoolImportPersonJob, jobParameters,
+                        ETLJobConfiguration.POST_LOAD_PARALLELISM, runOptions.priority())
+                : launch(jobLauncher, importPersonJob, jobParameters,
+                        ETLJobConfiguration.POST_LOAD_PARALLELISM, runOptions.priority());
 
         logger.info("ETL Job completed with status: {}", jobExecution.getStatus());
 
+        try {
+            recordIngestion(ingestKey, fingerprint, jobOptions, jobExecution.getStatus().toString(),
+                    jobExecution.getJobId(), loadStep(jobExecution));
+        } catch (DataAccessException e) {
+            if (!spool) {
+                throw e;
+            }
+            logger.warn("Spooled run of {} not recorded in the ingestion registry: {}", csvFile, e.getMessage());
+        }
+
+        ETLResponse.Builder response = responseBuilder(jobExecution)
+                .contentHash(fingerprint != null ? fingerprint.sha256() : null)
+                .alreadyIngested(fingerprint != null ? false : null);
+        if (spool) {
+            response.message("ETL Job executed via Spring Batch; rows are spooled and drained into PERSON in the background (GET /etl/spool)");
+        }
+        return response.build();
+    }
+
+    /**
+     * Runs one segment job per changed byte range, skipping names already in PERSON
+     * (a changed chunk also holds the unchanged lines around the edit)
+     */
+    private ETLResponse executeDelta(Path path, List<Chunk> ranges, Fingerprint fingerprint,
+                                     Map<String, String> jobOptions, Priority priority) throws Exception {
+        long changedBytes = ranges.stream().mapToLong(Chunk::length).sum();
+        logger.info("Delta load of {}: {} changed ranges, {} of {} bytes", path, ranges.size(),
+                changedBytes, fingerprint.size());
+
+        Map<String, String> segmentOptions = new HashMap<>(jobOptions);
+        segmentOptions.put("skipExisting", "true");
+
+        String status = BatchStatus.COMPLETED.toString();
+        Long lastJobId = null;
+        int readCount = 0;
+        int writeCount = 0;
+        int skipCount = 0;
+        NameSketch sketch = new NameSketch();
+        for (Chunk range : ranges) {
+            JobExecution jobExecution = runSegment(path, range.offset(), range.end(), segmentOptions, priority);
+            lastJobId = jobExecution.getJobId();
+            nameSketch(jobExecution).ifPresent(sketch::merge);
+            Optional<StepExecution> step = loadStep(jobExecution);
+            readCount += step.map(s -> (int) s.getReadCount()).orElse(0);
+            writeCount += step.map(s -> (int) s.getWriteCount()).orElse(0);
+            skipCount += step.map(s -> (int) s.getFilterCount() + (int) s.getSkipCount()).orElse(0);
+            if (jobExecution.getStatus() != BatchStatus.COMPLETED) {
+                status = jobExecution.getStatus().toString();
+                break;
+            }
+        }
+
+        ingestionRegistry.record("run", path.toString(), fingerprint, jobOptions.get("schema"),
+                jobOptions.get("rules"), status, lastJobId, null,
+                readCount, writeCount, skipCount, 0, 0);
+
+        return ETLResponse.builder()
+                .status(status)
+                .exitStatus(status)
+                .message(String.format("Delta load: %d changed ranges, %d of %d bytes re-read",
+                        ranges.size(), changedBytes, fingerprint.size()))
+                .filename(path.toString())
+                .jobId(lastJobId)
+                .readCount(readCount)
+                .writeCount(writeCount)
+                .skipCount(skipCount)
+                .contentHash(fingerprint.sha256())
+                .alreadyIngested(false)
+                .dataQuality(sketch.summary())
+                .build();
+    }
+
+    /**
+     * Execute ETL job for the byte range [startOffset, endOffset) of a file on disk
+     * Used by the inbox watcher to load only the lines appended since the last run
+     * @param file Full path to the CSV file
+     * @param startOffset First byte to read (0 includes the header line)
+     * @param endOffset Byte right after the last complete line to read
+     * @return ETL execution response with statistics
+     * @throws Exception if job execution fails
+     */
+    public ETLResponse executeFileSegment(Path file, long startOffset, long endOffset) throws Exception {
+        JobExecution jobExecution = runSegment(file, startOffset, endOffset, Map.of(), Priority.NORMAL);
         return buildResponse(jobExecution);
     }
 
+    private JobExecution runSegment(Path file, long startOffset, long endOffset, Map<String, String> jobOptions,
+                                    Priority priority) throws Exception {
+        logger.info("Starting ETL job for {} bytes [{}, {})", file, startOffset, endOffset);
+
+        JobParametersBuilder builder = new JobParametersBuilder()
+                .addLong("timestamp", System.currentTimeMillis())
+                .addString("runId", UUID.randomUUID().toString())
+                .addString("uploadedFile", file.toAbsolutePath().toString())
+                .addLong("startOffset", startOffset)
+                .addLong("endOffset", endOffset);
+        jobOptions.forEach((name, value) -> {
+            if (value != null && !value.isBlank()) {
+                builder.addString(name, value);
+            }
+        });
+        JobExecution jobExecution = isSpoolMode(jobOptions)
+                ? launch(spoolJobLauncher, spoolImportPersonJob, builder.toJobParameters(),
+                        ETLJobConfiguration.POST_LOAD_PARALLELISM, priority)
+                : launch(jobLauncher, importPersonJob, builder.toJobParameters(),
+                        ETLJobConfiguration.POST_LOAD_PARALLELISM, priority);
+
+        logger.info("ETL Job completed with status: {}", jobExecution.getStatus());
+        return jobExecution;
+    }
+
+    /**
+     * Execute ETL job split into partitions that any instance can claim from the work queue
+     * @param fileName CSV file on a path every instance can read (classpath files must be unpacked)
+     * @param partitions Number of line-aligned byte ranges to split the file into
+     * @param jobOptions Optional string job parameters, e.g. writeMode=bisect, schema=person
+     * @return ETL execution response with statistics aggregated over all partitions
+     * @throws Exception if job execution fails
+     */
+    public ETLResponse executeDistributedJob(String fileName, int partitions, Map<String, String> jobOptions)
+            throws Exception {
+        if (!sharedImportRepository) {
+            throw new IllegalStateException("Distributed runs need the shared job repository for " + importPersonJob.getName());
+        }
+        if (!queueWorkerEnabled) {
+            // Otherwise nothing may ever claim the partitions and the request waits forever
+            throw new IllegalStateException("Distributed runs need etl.queue.worker.enabled=true (see the cluster profile)");
+        }
+        if (isSpoolMode(jobOptions)) {
+            throw new IllegalArgumentException("writeMode=spool runs on one instance's local spool, not as a distributed run");
+        }
+        Path file = resolveFile(fileName);
+        Fingerprint fingerprint = fingerprinter.fingerprint(file, false);
+        Optional<IngestedFile> previous = ingestionRegistry.findCompleted(fingerprint.sha256(),
+                jobOptions.get("schema"), jobOptions.get("rules"));
+        if (previous.isPresent()) {
+            logger.info("Content of {} already ingested by job {}, skipping", file, previous.get().getJobId());
+            return alreadyIngestedResponse(previous.get());
+        }
+        logger.info("Starting distributed ETL job for {} in {} partitions", file, partitions);
+
+        JobParametersBuilder builder = new JobParametersBuilder()
+                .addLong("timestamp", System.currentTimeMillis())
+                .addString("runId", UUID.randomUUID().toString())
+                .addString("uploadedFile", file.toString())
+                .addLong("partitions", (long) partitions);
+        jobOptions.forEach((name, value) -> {
+            if (value != null && !value.isBlank()) {
+                builder.addString(name, value);
+            }
+        });
+        // Partitions run on the work queue workers; this instance only coordinates
+        JobExecution jobExecution = launch(distributedJobLauncher, distributedImportPersonJob,
+                builder.toJobParameters(), 1, Priority.NORMAL);
+
+        logger.info("Distributed ETL Job completed with status: {}", jobExecution.getStatus());
+
+        ETLResponse.Builder response = ETLResponse.builder()
+                .status(jobExecution.getStatus().toString())
+                .exitStatus(jobExecution.getExitStatus().getExitCode())
+                .message("Distributed ETL Job executed via Spring Batch")
+                .filename(file.toString())
+                .jobId(jobExecution.getJobId())
+                .startTime(jobExecution.getStartTime())
+                .endTime(jobExecution.getEndTime());
+
+        addStepStatistics(response, jobExecution, "distributedImportStep");
+        response.steps(stepSummaries(jobExecution));
+        nameSketch(jobExecution).ifPresent(sketch -> response.dataQuality(sketch.summary()));
+        jobExecution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().equals("distributedImportStep"))
+                .findFirst()
+                .ifPresent(step -> recordIngestion(file.toString(), fingerprint, jobOptions,
+                        jobExecution.getStatus().toString(), jobExecution.getJobId(), Optional.of(step)));
+
+        return response.contentHash(fingerprint.sha256()).alreadyIngested(false).build();
+    }
+
+    /**
+     * The CSV file as a path on disk, or null for a classpath resource packed in the jar or a missing file
+     */
+    private Path findFileOnDisk(String csvFile) throws IOException {
+        if (csvFile.startsWith("/") || csvFile.contains(":")) {
+            Path path = Path.of(csvFile);
+            return path.toFile().isFile() ? path.toAbsolutePath() : null;
+        }
+        ClassPathResource resource = new ClassPathResource("data/" + csvFile);
+        return resource.exists() && resource.isFile() ? resource.getFile().toPath() : null;
+    }
+
+    /**
+     * SHA-256 of the file: memory-mapped (with the chunk manifest) when on disk, streamed when packed
+     * in the jar; null when the file does not exist (the job reports it)
+     */
+    private Fingerprint fingerprint(String csvFile, Path path, boolean withChunks) throws IOException {
+        if (path != null) {
+            return fingerprinter.fingerprint(path, chunkManifest || withChunks);
+        }
+        ClassPathResource resource = new ClassPathResource("data/" + csvFile);
+        if (csvFile.startsWith("/") || csvFile.contains(":") || !resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return fingerprinter.fingerprint(in);
+        }
+    }
+
+    private void recordIngestion(String ingestKey, Fingerprint fingerprint, Map<String, String> jobOptions,
+                                 String status, Long jobId, Optional<StepExecution> step) {
+        if (fingerprint == null) {
+            return;
+        }
+        ingestionRegistry.record("run", ingestKey, fingerprint, jobOptions.get("schema"), jobOptions.get("rules"),
+                status, jobId, null,
+                step.map(s -> (int) s.getReadCount()).orElse(0),
+                step.map(s -> (int) s.getWriteCount()).orElse(0),
+                step.map(s -> (int) s.getSkipCount()).orElse(0),
+                0, 0);
+    }
+
+    /**
+     * Whether the run spools its rows (writeMode, or etl.writer.mode when not given)
+     */
+    private boolean isSpoolMode(Map<String, String> jobOptions) {
+        String writeMode = jobOptions.get("writeMode");
+        return "spool".equalsIgnoreCase(writeMode == null || writeMode.isBlank() ? defaultWriteMode : writeMode);
+    }
+
+    /**
+     * Ingestion registry lookup for spooled runs, which must not depend on the main database
+     * While it is unreachable the content is treated as new: spooled again rather than refused
+     */
+    private Optional<IngestedFile> findCompletedIfReachable(String sha256, Map<String, String> jobOptions) {
+        try {
+            return ingestionRegistry.findCompleted(sha256, jobOptions.get("schema"), jobOptions.get("rules"));
+        } catch (DataAccessException e) {
+            logger.warn("Ingestion registry unreachable, spooling without the already-ingested check: {}",
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<StepExecution> loadStep(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().equals(ETLJobConfiguration.LOAD_STEP_NAME))
+                .findFirst();
+    }
+
+    /**
+     * The stored outcome of an earlier load of identical content
+     */
+    private ETLResponse alreadyIngestedResponse(IngestedFile previous) {
+        return ETLResponse.builder()
+                .status(previous.getStatus())
+                .exitStatus("NOOP")
+                .message(String.format("Identical content already ingested on %s; pass force=true to load it again",
+                        previous.getIngestedAt()))
+                .filename(previous.getFilename())
+                .jobId(previous.getJobId())
+                .uploadId(previous.getUploadId())
+                .readCount(previous.getReadCount())
+                .writeCount(previous.getWriteCount())
+                .skipCount(previous.getSkipCount())
+                .duplicateCount(previous.getSource().equals("upload") ? previous.getDuplicateCount() : null)
+                .errorCount(previous.getSource().equals("upload") ? previous.getErrorCount() : null)
+                .contentHash(previous.getContentHash())
+                .alreadyIngested(true)
+                .build();
+    }
+
+    private Path resolveFile(String fileName) throws IOException {
+        String name = fileName.endsWith(".csv") ? fileName : fileName + ".csv";
+        if (name.startsWith("/") || name.contains(":")) {
+            return Path.of(name);
+        }
+        ClassPathResource resource = new ClassPathResource("data/" + name);
+        if (!resource.exists() || !resource.isFile()) {
+            throw new IllegalArgumentException("Distributed runs need a file on disk, not found: data/" + name);
+        }
+        return resource.getFile().toPath();
+    }
+
+    /**
+     * Execute the export job, writing all persons to a new CSV file in etl.export.directory
+     * @param gzip Compress the file with gzip
+     * @return ETL execution response with the exported row count and file name
+     * @throws Exception if job execution fails
+     */
+    public ETLResponse executeExportJob(boolean gzip) throws Exception {
+        Path outputFile = exportDirectory.resolve("persons-" + System.currentTimeMillis() + (gzip ? ".csv.gz" : ".csv"));
+        logger.info("Starting export job to {}", outputFile);
+
+        JobParameters jobParameters = new JobParametersBuilder()
+                .addLong("timestamp", System.currentTimeMillis())
+                .addString("runId", UUID.randomUUID().toString())
+                .addString("outputFile", outputFile.toString())
+                .addString("gzip", Boolean.toString(gzip))
+                .toJobParameters();
+        JobExecution jobExecution = launch(exportJobLauncher, exportPersonJob, jobParameters, 1, Priority.LOW);
+
+        logger.info("Export Job completed with status: {}", jobExecution.getStatus());
+
+        ETLResponse.Builder builder = ETLResponse.builder()
+                .status(jobExecution.getStatus().toString())
+                .exitStatus(jobExecution.getExitStatus().getExitCode())
+                .message("Export Job executed via Spring Batch")
+                .filename(outputFile.toString())
+                .jobId(jobExecution.getJobId())
+                .startTime(jobExecution.getStartTime())
+                .endTime(jobExecution.getEndTime())
+                .steps(stepSummaries(jobExecution));
+
+        addStepStatistics(builder, jobExecution);
+
+        return builder.build();
+    }
+
+    /**
+     * Execute the partitioned re-normalization job over all PERSON rows
+     * @param restart Resume the last failed or stopped run (only its unfinished partitions)
+     *                instead of starting a new one
+     * @return ETL execution response with the number of rows read and updated
+     * @throws Exception if job execution fails, or restart is requested with nothing to resume
+     * @throws IllegalArgumentException while PERSON is sharded (the job reads the main DataSource)
+     */
+    public ETLResponse executeNormalizeJob(boolean restart) throws Exception {
+        personShards.requireUnsharded("normalizePersonJob");
+        JobParameters jobParameters = restart
+                ? lastUnfinishedNormalizeParameters()
+                : new JobParametersBuilder()
+                        .addLong("timestamp", System.currentTimeMillis())
+                        .addString("runId", UUID.randomUUID().toString())
+                        .toJobParameters();
+
+        logger.info("Starting normalize job (restart={})", restart);
+        // One connection per concurrently running partition, plus the manager step
+        JobExecution jobExecution = launch(normalizeJobLauncher, normalizePersonJob, jobParameters,
+                normalizePartitions + 1, Priority.LOW);
+        logger.info("Normalize Job completed with status: {}", jobExecution.getStatus());
+
+        ETLResponse.Builder builder = ETLResponse.builder()
+                .status(jobExecution.getStatus().toString())
+                .exitStatus(jobExecution.getExitStatus().getExitCode())
+                .message("Normalize Job executed via Spring Batch")
+                .jobId(jobExecution.getJobId())
+                .startTime(jobExecution.getStartTime())
+                .endTime(jobExecution.getEndTime())
+                .steps(stepSummaries(jobExecution));
+
+        addStepStatistics(builder, jobExecution, "normalizeStep");
+
+        return builder.build();
+    }
+
+    private JobParameters lastUnfinishedNormalizeParameters() {
+        String jobName = normalizePersonJob.getName();
+        return normalizeJobRepository.findJobInstancesByName(jobName, 0, 1).stream()
+                .flatMap(instance -> normalizeJobRepository.findJobExecutions(instance).stream())
+                .max(Comparator.comparing(JobExecution::getId))
+                .filter(execution -> execution.getStatus() == BatchStatus.FAILED
+                        || execution.getStatus() == BatchStatus.STOPPED)
+                .map(JobExecution::getJobParameters)
+                .orElseThrow(() -> new IllegalStateException("No failed or stopped " + jobName + " run to restart"));
+    }
+
+    /**
+     * Launches a job once the admission controller lets it run
+     * @param connections Pooled connections the job holds while it runs
+     */
+    private JobExecution launch(JobLauncher launcher, Job job, JobParameters jobParameters, int connections,
+                                Priority priority) throws Exception {
+        try (JobAdmissionController.Permit permit = admissionController.admit(job.getName(), connections, priority)) {
+            return launcher.run(job, jobParameters);
+        }
+    }
+
+    /**
+     * Current admission state (running and queued jobs, connection budget)
+     */
+    public JobAdmissionController.Snapshot getAdmissionState() {
+        return admissionController.snapshot();
+    }
+
     /**
      * Get job configuration information
      */
@@ -54,31 +579,77 @@ public class ETLJobService {
             importPersonJob.getName(),
             "ETL Job using Spring Batch to import persons from CSV",
             importPersonJob.isRestartable(),
-            "Reader -> Processor -> Writer with Chunk Processing",
+            "Profile -> Reader -> Processor -> Writer with Chunk Processing -> parallel statistics, report and cleanup",
             5
         );
     }
 
-    private JobParameters buildJobParameters(String fileName) {
-        return new JobParametersBuilder()
+    private JobParameters buildJobParameters(String fileName, Map<String, String> jobOptions) {
+        String rules = jobOptions.get("rules");
+        if (rules != null && !rules.isBlank()) {
+            NameRuleChain.compile(rules, List.of()); // Reject unknown rules before launching
+        }
+        String writeMode = jobOptions.get("writeMode");
+        if (writeMode != null && !writeMode.isBlank() && !"standard".equalsIgnoreCase(writeMode)) {
+            personShards.requireUnsharded("writeMode=" + writeMode);
+        }
+
+        JobParametersBuilder builder = new JobParametersBuilder()
                 .addLong("timestamp", System.currentTimeMillis())
                 .addString("runId", UUID.randomUUID().toString())
-                .addString("csvFile", fileName.endsWith(".csv") ? fileName : fileName + ".csv")
-                .toJobParameters();
+                .addString("csvFile", fileName.endsWith(".csv") ? fileName : fileName + ".csv");
+
+        jobOptions.forEach((name, value) -> {
+            if (value != null && !value.isBlank()) {
+                builder.addString(name, value);
+            }
+        });
+        return builder.toJobParameters();
     }
 
     private ETLResponse buildResponse(JobExecution jobExecution) {
+        return responseBuilder(jobExecution).build();
+    }
+
+    private ETLResponse.Builder responseBuilder(JobExecution jobExecution) {
         ETLResponse.Builder builder = ETLResponse.builder()
                 .status(jobExecution.getStatus().toString())
                 .exitStatus(jobExecution.getExitStatus().getExitCode())
                 .message("ETL Job executed via Spring Batch")
                 .jobId(jobExecution.getJobId())
                 .startTime(jobExecution.getStartTime())
-                .endTime(jobExecution.getEndTime());
+                .endTime(jobExecution.getEndTime())
+                .steps(stepSummaries(jobExecution));
 
-        addStepStatistics(builder, jobExecution);
+        addStepStatistics(builder, jobExecution, ETLJobConfiguration.LOAD_STEP_NAME);
+        nameSketch(jobExecution).ifPresent(sketch -> builder.dataQuality(sketch.summary()));
 
-        return builder.build();
+        return builder;
+    }
+
+    /**
+     * Sketch of the names read, left in the job context by the profile step or the partition aggregator
+     */
+    private static Optional<NameSketch> nameSketch(JobExecution jobExecution) {
+        return jobExecution.getExecutionContext().get(NameSketch.CONTEXT_KEY) instanceof byte[] bytes
+                ? Optional.of(NameSketch.fromBytes(bytes))
+                : Optional.empty();
+    }
+
+    /**
+     * Counts and duration of every step, ordered by start time (parallel steps by name)
+     */
+    private List<ETLResponse.StepSummary> stepSummaries(JobExecution jobExecution) {
+        return jobExecution.getStepExecutions().stream()
+                .sorted(Comparator.comparing(StepExecution::getStartTime,
+                                Comparator.nullsLast(Comparator.naturalOrder()))
+                        .thenComparing(StepExecution::getStepName))
+                .map(step -> new ETLResponse.StepSummary(step.getStepName(), step.getStatus().toString(),
+                        step.getReadCount(), step.getWriteCount(), step.getSkipCount(),
+                        step.getStartTime() != null && step.getEndTime() != null
+                                ? Duration.between(step.getStartTime(), step.getEndTime()).toMillis()
+                                : 0))
+                .toList();
     }
 
     private void addStepStatistics(ETLResponse.Builder builder, JobExecution jobExecution) {
@@ -91,6 +662,31 @@ public class ETLJobService {
                 );
     }
 
+    /**
+     * Statistics of one named step; for partitioned jobs the manager step holds the totals
+     */
+    private void addStepStatistics(ETLResponse.Builder builder, JobExecution jobExecution, String stepName) {
+        jobExecution.getStepExecutions().stream()
+                .filter(step -> step.getStepName().equals(stepName))
+                .findFirst()
+                .ifPresent(step ->
+                    builder.readCount((int) step.getReadCount())
+                           .writeCount((int) step.getWriteCount())
+                           .skipCount((int) step.getSkipCount())
+                );
+    }
+
+    /**
+     * How executeJob treats a file
+     * @param force Load even if identical content was already loaded by a completed run
+     * @param delta Load only the chunks that changed since the last completed run of the same
+     *              file (file on disk only); names already in PERSON are skipped
+     * @param priority Order among jobs waiting for admission
+     */
+    public record RunOptions(boolean force, boolean delta, Priority priority) {
+        public static final RunOptions DEFAULTS = new RunOptions(false, false, Priority.NORMAL);
+    }
+
     /**
      * Simple DTO for job information
      */
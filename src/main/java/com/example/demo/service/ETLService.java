@@ -1,98 +1,402 @@
 package com.example.demo.service;
 
+import com.example.demo.batch.admission.JobAdmissionController;
+import com.example.demo.batch.admission.JobAdmissionController.Priority;
+import com.example.demo.batch.mapping.SchemaLineMapper;
+import com.example.demo.batch.mapping.SchemaRegistry;
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.partition.FileRangePartitioner;
+import com.example.demo.batch.processor.PersonDataProcessor;
+import com.example.demo.batch.reader.FileSegmentResource;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.repository.PersonShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.batch.item.ExecutionContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Direct-path bulk loader for initial population of PERSON
+ *
+ * HOW IT WORKS:
+ * - The file is split into line-aligned byte ranges, one per worker thread
+ * - Each worker holds its own connection for the whole load (no Spring Batch job repository,
+ *   no JPA) and maps its range through the CSV schema and the current normalization
+ * - IDs are fetched from PERSON_SEQ a whole batch at a time, on the worker's connection
+ * - Rows are bound into large JDBC array batches and committed every commit-interval rows
+ * - Optionally (Oracle), non-unique PERSON indexes are marked unusable before the load and
+ *   rebuilt once at the end instead of being maintained row by row
+ *
+ * There is no duplicate detection: this is meant for loading an empty or freshly truncated table.
+ * If a worker fails, the others stop; rows committed before the failure stay in PERSON.
+ */
 @Service
 public class ETLService {
 
     private static final Logger logger = LoggerFactory.getLogger(ETLService.class);
+    private static final String INSERT_SQL = "INSERT INTO PERSON (ID, NAME) VALUES (?, ?)";
+    private static final String NON_UNIQUE_INDEXES_SQL =
+            "SELECT INDEX_NAME FROM USER_INDEXES WHERE TABLE_NAME = 'PERSON' AND UNIQUENESS = 'NONUNIQUE'";
 
-    private PersonService personService;
+    private final DataSource dataSource;
+    private final PersonIdAllocator idAllocator;
+    private final PersonDataProcessor dataProcessor;
+    private final SchemaRegistry schemaRegistry;
+    private final PersonChangeLog changeLog;
+    private final PersonShards personShards;
+    private final JobAdmissionController admissionController;
+    private final int batchSize;
+    private final int commitInterval;
 
-    public ETLService(PersonService personService) {
-        this.personService = personService;
+    public ETLService(DataSource dataSource,
+                      PersonIdAllocator idAllocator,
+                      PersonDataProcessor dataProcessor,
+                      SchemaRegistry schemaRegistry,
+                      PersonChangeLog changeLog,
+                      PersonShards personShards,
+                      JobAdmissionController admissionController,
+                      @Value("${etl.bulk.batch-size:5000}") int batchSize,
+                      @Value("${etl.bulk.commit-interval:50000}") int commitInterval) {
+        this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
+        this.dataProcessor = dataProcessor;
+        this.schemaRegistry = schemaRegistry;
+        this.changeLog = changeLog;
+        this.personShards = personShards;
+        this.admissionController = admissionController;
+        this.batchSize = batchSize;
+        this.commitInterval = Math.max(commitInterval, batchSize);
     }
 
-    public void runETL() {
+    /**
+     * Loads a CSV file into PERSON with parallel workers, once the admission controller lets it run
+     * @param file CSV file on disk
+     * @param workers Number of worker threads (each holds one pooled connection), at most the
+     *                admission connection budget
+     * @param rebuildIndexes Mark non-unique indexes unusable during the load and rebuild them after (Oracle only)
+     * @param schemaName CSV schema of the file, null for the default
+     * @return counts and timing of the load
+     * @throws IllegalArgumentException while PERSON is sharded
+     * @throws JobAdmissionController.JobRejectedException when the load is not admitted in time
+     */
+    public BulkLoadResult bulkLoad(Path file, int workers, boolean rebuildIndexes, String schemaName) {
+        personShards.requireUnsharded("Bulk load");
+        if (!Files.isRegularFile(file)) {
+            throw new BulkLoadException("CSV file not found: " + file);
+        }
+        // Fails fast on an unknown schema, before any thread or connection is taken
+        schemaRegistry.personSchema(schemaName);
+
+        int workerCount = Math.max(1, Math.min(workers, admissionController.connectionBudget()));
+        try (JobAdmissionController.Permit permit =
+                     admissionController.admit("bulkLoad", workerCount, Priority.NORMAL)) {
+            return load(file, workerCount, rebuildIndexes, schemaName);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkLoadException("Bulk load interrupted while waiting for admission", e);
+        }
+    }
+
+    private BulkLoadResult load(Path file, int workers, boolean rebuildIndexes, String schemaName) {
         logger.info("========================================");
-        logger.info("Starting ETL Process");
+        logger.info("Starting bulk load of {} with {} workers", file, workers);
         logger.info("========================================");
 
+        long startTime = System.currentTimeMillis();
+        List<ExecutionContext> ranges = new ArrayList<>(new FileRangePartitioner(file).partition(workers).values());
+        if (ranges.isEmpty()) {
+            return new BulkLoadResult(0, 0, 0, 0, System.currentTimeMillis() - startTime, false);
+        }
+        String header = readHeader(file);
+
+        boolean oracle = isOracle();
+        if (rebuildIndexes && !oracle) {
+            logger.info("Index rebuild is only supported on Oracle, skipping");
+        }
+        AtomicLong readCount = new AtomicLong();
+        AtomicLong writeCount = new AtomicLong();
+        AtomicLong skipCount = new AtomicLong();
+        AtomicBoolean aborted = new AtomicBoolean();
+
+        // From the first ALTER INDEX on, every exit goes through rebuildIndexes below
+        List<String> disabledIndexes = new ArrayList<>();
+        ExecutorService executor = null;
+        RuntimeException failure = null;
         try {
-            ClassPathResource resource = new ClassPathResource("data/data.csv");
+            if (rebuildIndexes && oracle) {
+                disableIndexes(disabledIndexes);
+            }
+            executor = Executors.newFixedThreadPool(ranges.size(), runnable -> new Thread(runnable, "bulk-load"));
+            List<Future<?>> futures = new ArrayList<>();
+            for (ExecutionContext range : ranges) {
+                futures.add(executor.submit(() -> {
+                    loadRange(file, range.getLong("startOffset"), range.getLong("endOffset"), header, schemaName,
+                            readCount, writeCount, skipCount, aborted);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            failure = new BulkLoadException("Bulk load failed after " + writeCount.get() + " committed rows: "
+                    + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new BulkLoadException("Bulk load interrupted", e);
+        } catch (RuntimeException e) {
+            failure = e;
+        }
 
-            if (!resource.exists()) {
-                logger.error("CSV file not found: data.csv");
-                throw new RuntimeException("CSV file not found");
+        // The other workers stop at their next batch; indexes are only rebuilt once none is inserting
+        aborted.set(true);
+        if (executor != null) {
+            awaitWorkers(executor);
+        }
+        try {
+            rebuildIndexes(disabledIndexes);
+        } catch (BulkLoadException e) {
+            if (failure == null) {
+                failure = e;
+            } else {
+                failure.addSuppressed(e); // The load's own failure is the one to report
             }
+        }
+        if (writeCount.get() > 0) {
+            changeLog.recordReset("bulkLoad");
+        }
+        if (failure != null) {
+            throw failure;
+        }
 
-            BufferedReader reader = new BufferedReader(
-                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)
-            );
+        long elapsed = System.currentTimeMillis() - startTime;
+        logger.info("========================================");
+        logger.info("Bulk load completed: {} rows in {} ms", writeCount.get(), elapsed);
+        logger.info("========================================");
 
-            String line;
-            int count = 0;
+        return new BulkLoadResult(readCount.get(), writeCount.get(), skipCount.get(), ranges.size(),
+                elapsed, !disabledIndexes.isEmpty());
+    }
 
-            // Skip header
-            reader.readLine();
+    /**
+     * Loads one byte range on a dedicated connection
+     */
+    private void loadRange(Path file, long startOffset, long endOffset, String header, String schemaName,
+                           AtomicLong readCount, AtomicLong writeCount, AtomicLong skipCount,
+                           AtomicBoolean aborted) throws IOException, SQLException {
+        SchemaLineMapper<PersonCSVData> lineMapper = schemaRegistry.personSchema(schemaName).newLineMapper();
+        lineMapper.bindHeader(header);
 
-            logger.info("Reading and transforming data from CSV...");
+        FileSegmentResource segment = new FileSegmentResource(file, startOffset, endOffset);
+        try (BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(segment.getInputStream(), StandardCharsets.UTF_8), 64 * 1024);
+             Connection connection = dataSource.getConnection()) {
 
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    // Extract - Read CSV
-                    String name = line.trim();
-                    logger.debug("Extract: Read name '{}'", name);
+            connection.setAutoCommit(false);
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_SQL)) {
+                List<String> names = new ArrayList<>(batchSize);
+                int uncommitted = 0;
+                int lineNumber = 0;
+                String line;
 
-                    // Transform - Capitalize name
-                    String transformedName = capitalizeName(name);
-                    logger.debug("Transform: '{}' -> '{}'", name, transformedName);
+                if (startOffset == 0) {
+                    reader.readLine(); // Header
+                    lineNumber++;
+                }
 
-                    // Load - Save to database
-                    personService.createPerson(transformedName);
-                    logger.info("Load: Saved person '{}'", transformedName);
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    readCount.incrementAndGet();
+                    String name;
+                    try {
+                        name = dataProcessor.normalize(lineMapper.mapLine(line, lineNumber).getRawName());
+                    } catch (RuntimeException e) {
+                        name = null; // Unparseable line
+                    }
+                    if (name == null || name.isEmpty()) {
+                        skipCount.incrementAndGet();
+                        continue;
+                    }
+                    names.add(name);
 
-                    count++;
+                    if (names.size() == batchSize) {
+                        if (aborted.get()) {
+                            connection.rollback();
+                            return;
+                        }
+                        uncommitted += insertBatch(connection, ps, names);
+                        if (uncommitted >= commitInterval) {
+                            connection.commit();
+                            writeCount.addAndGet(uncommitted);
+                            uncommitted = 0;
+                        }
+                    }
                 }
+
+                uncommitted += insertBatch(connection, ps, names);
+                connection.commit();
+                writeCount.addAndGet(uncommitted);
+            } catch (SQLException | RuntimeException e) {
+                aborted.set(true);
+                connection.rollback();
+                throw e;
             }
+        }
+    }
 
-            reader.close();
+    private int insertBatch(Connection connection, PreparedStatement ps, List<String> names) throws SQLException {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        long[] ids = idAllocator.allocate(connection, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            ps.setLong(1, ids[i]);
+            ps.setString(2, names.get(i));
+            ps.addBatch();
+        }
+        ps.executeBatch();
+        int inserted = names.size();
+        names.clear();
+        return inserted;
+    }
 
-            logger.info("========================================");
-            logger.info("ETL Process completed successfully");
-            logger.info("Total records processed: {}", count);
-            logger.info("========================================");
+    private String readHeader(Path file) {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            return header != null ? header : "";
+        } catch (IOException e) {
+            throw new BulkLoadException("Could not read header of " + file, e);
+        }
+    }
 
+    private boolean isOracle() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase().contains("oracle");
         } catch (Exception e) {
-            logger.error("ETL Process failed", e);
-            throw new RuntimeException("ETL failed: " + e.getMessage(), e);
+            return false;
         }
     }
 
-    private String capitalizeName(String name) {
-        if (name == null || name.isEmpty()) {
-            return name;
+    /**
+     * Marks the non-unique PERSON indexes unusable; inserts skip them until they are rebuilt
+     * Each index is added to disabled once it is unusable, so a failure halfway still rebuilds those
+     */
+    private void disableIndexes(List<String> disabled) {
+        List<String> indexes = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(NON_UNIQUE_INDEXES_SQL)) {
+                while (rs.next()) {
+                    indexes.add(rs.getString(1));
+                }
+            }
+            for (String index : indexes) {
+                statement.execute("ALTER INDEX " + index + " UNUSABLE");
+                disabled.add(index); // Recorded one by one so a failure halfway still rebuilds these
+                logger.info("Index {} marked unusable for the load", index);
+            }
+        } catch (SQLException e) {
+            throw new BulkLoadException("Could not disable PERSON indexes: " + e.getMessage(), e);
         }
+    }
 
-        String[] words = name.split(" ");
-        StringBuilder result = new StringBuilder();
+    /**
+     * Waits until every worker has returned, even if this thread is interrupted meanwhile
+     */
+    private static void awaitWorkers(ExecutorService executor) {
+        executor.shutdown();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    break;
+                }
+                logger.info("Waiting for bulk load workers to finish their current batch");
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-        for (String word : words) {
-            if (!word.isEmpty()) {
-                result.append(Character.toUpperCase(word.charAt(0)))
-                      .append(word.substring(1).toLowerCase())
-                      .append(" ");
+    /**
+     * Rebuilds the indexes without redo, then switches them back to LOGGING so later changes
+     * are logged again (the rebuilt index itself is only recoverable from a backup taken after it)
+     */
+    private void rebuildIndexes(List<String> indexes) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String index : indexes) {
+                long start = System.currentTimeMillis();
+                statement.execute("ALTER INDEX " + index + " REBUILD NOLOGGING");
+                statement.execute("ALTER INDEX " + index + " LOGGING");
+                logger.info("Index {} rebuilt in {} ms", index, System.currentTimeMillis() - start);
             }
+        } catch (SQLException e) {
+            throw new BulkLoadException("Could not rebuild PERSON indexes " + indexes + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Result of a bulk load
+     */
+    public record BulkLoadResult(
+        long readCount,
+        long writeCount,
+        long skipCount,
+        int workers,
+        long elapsedMs,
+        boolean indexesRebuilt
+    ) {
+        public long rowsPerSecond() {
+            return elapsedMs > 0 ? writeCount * 1000 / elapsedMs : writeCount;
+        }
+    }
+
+    /**
+     * Custom exception for bulk load errors
+     */
+    public static class BulkLoadException extends RuntimeException {
+        public BulkLoadException(String message) {
+            super(message);
         }
 
-        return result.toString().trim();
+        public BulkLoadException(String message, Throwable cause) {
+            super(message, cause);
+        }
     }
 }
-
@@ -0,0 +1,203 @@
+package com.example.demo.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Computes SHA-256 content fingerprints of CSV files
+ *
+ * HOW IT WORKS:
+ * - Files on disk are memory-mapped window by window and fed straight to the digest,
+ *   without copying through heap buffers; streams are hashed as they are read
+ * - Optionally the file is also cut into content-defined chunks: a gear rolling hash over
+ *   the last 64 bytes marks a cut point, and the chunk ends at the next line break
+ * - Because cut points depend only on nearby content, an edit moves the boundaries of the
+ *   chunks around it and no others, so an unchanged chunk keeps its hash wherever it moves
+ */
+@Component
+public class FileFingerprinter {
+
+    private static final long MAP_WINDOW = 64L * 1024 * 1024;
+    private static final long[] GEAR = buildGearTable();
+
+    private final int averageChunkBits;
+    private final long minChunkSize;
+    private final long maxChunkSize;
+
+    public FileFingerprinter(@Value("${etl.ingest.chunk-size:262144}") int averageChunkSize) {
+        this.averageChunkBits = 63 - Long.numberOfLeadingZeros(Math.max(averageChunkSize, 1024));
+        this.minChunkSize = (1L << averageChunkBits) / 4;
+        this.maxChunkSize = (1L << averageChunkBits) * 4;
+    }
+
+    /**
+     * Fingerprints a file on disk through a memory mapping
+     * @param withChunks Also build the chunk manifest
+     */
+    public Fingerprint fingerprint(Path file, boolean withChunks) throws IOException {
+        MessageDigest fileDigest = sha256();
+        ChunkCutter cutter = withChunks ? new ChunkCutter() : null;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(MAP_WINDOW, size - position));
+                if (cutter != null) {
+                    cutter.scan(window.duplicate(), position);
+                }
+                fileDigest.update(window);
+            }
+            if (cutter != null) {
+                cutter.finish(size);
+            }
+            return new Fingerprint(hex(fileDigest), size, cutter != null ? cutter.chunks : List.of());
+        }
+    }
+
+    /**
+     * Fingerprints a stream by reading it to the end (no chunk manifest)
+     * The stream is not closed
+     */
+    public Fingerprint fingerprint(InputStream in) throws IOException {
+        DigestInputStream digestStream = new DigestInputStream(in, sha256());
+        byte[] buffer = new byte[64 * 1024];
+        long size = 0;
+        int read;
+        while ((read = digestStream.read(buffer)) != -1) {
+            size += read;
+        }
+        return new Fingerprint(hex(digestStream.getMessageDigest()), size, List.of());
+    }
+
+    /**
+     * Finds content-defined chunk boundaries; chunks span mapping windows
+     */
+    private class ChunkCutter {
+        private final List<Chunk> chunks = new ArrayList<>();
+        private final MessageDigest chunkDigest = sha256();
+        private final long threshold = -1L >>> averageChunkBits;
+        private long hash;
+        private long chunkStart;
+        private boolean cutPending;
+
+        void scan(ByteBuffer window, long windowStart) {
+            int windowLength = window.remaining();
+            int segmentStart = 0;
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                hash = (hash << 1) + GEAR[b & 0xFF];
+                long chunkLength = windowStart + i + 1 - chunkStart;
+                if (chunkLength >= minChunkSize && (Long.compareUnsigned(hash, threshold) < 0 || chunkLength >= maxChunkSize)) {
+                    cutPending = true;
+                }
+                if (cutPending && b == '\n') {
+                    chunkDigest.update(window.slice(segmentStart, i + 1 - segmentStart));
+                    cut(windowStart + i + 1);
+                    segmentStart = i + 1;
+                }
+            }
+            chunkDigest.update(window.slice(segmentStart, windowLength - segmentStart));
+        }
+
+        void finish(long size) {
+            if (size > chunkStart) {
+                cut(size);
+            }
+        }
+
+        private void cut(long end) {
+            chunks.add(new Chunk(chunkStart, end - chunkStart, hex(chunkDigest)));
+            chunkStart = end;
+            cutPending = false;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Hex of the digest; also resets it for the next chunk
+     */
+    private static String hex(MessageDigest digest) {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static long[] buildGearTable() {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DEL); // Fixed seed: boundaries must be stable across runs
+        long[] table = new long[256];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = random.nextLong();
+        }
+        return table;
+    }
+
+    /**
+     * SHA-256 of a whole file, its size and, when requested, its chunk manifest
+     */
+    public record Fingerprint(String sha256, long size, List<Chunk> chunks) {
+
+        public boolean hasChunks() {
+            return !chunks.isEmpty();
+        }
+
+        /**
+         * One "offset:length:sha256" line per chunk, as stored in ETL_INGESTED_FILE.CHUNK_MANIFEST
+         */
+        public String manifest() {
+            if (chunks.isEmpty()) {
+                return null;
+            }
+            StringBuilder manifest = new StringBuilder(chunks.size() * 90);
+            for (Chunk chunk : chunks) {
+                manifest.append(chunk.offset()).append(':').append(chunk.length()).append(':')
+                        .append(chunk.sha256()).append('\n');
+            }
+            return manifest.toString();
+        }
+
+        public static List<Chunk> parseManifest(String manifest) {
+            List<Chunk> chunks = new ArrayList<>();
+            if (manifest == null) {
+                return chunks;
+            }
+            for (String line : manifest.split("\n")) {
+                String[] parts = line.split(":");
+                if (parts.length == 3) {
+                    chunks.add(new Chunk(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                }
+            }
+            return chunks;
+        }
+    }
+
+    /**
+     * Byte range [offset, offset + length) of a file, always ending on a line break or at EOF
+     */
+    public record Chunk(long offset, long length, String sha256) {
+
+        public long end() {
+            return offset + length;
+        }
+    }
+}
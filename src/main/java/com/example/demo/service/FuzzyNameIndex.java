@@ -0,0 +1,206 @@
+package com.example.demo.service;
+
+import com.example.demo.batch.processor.NameRuleChain;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory index for finding names that are nearly equal to a given one
+ *
+ * HOW IT WORKS:
+ * - Names are compared by key: whitespace collapsed, accents folded, lower-cased
+ *   ("João  Silva" and "joao silva" have the same key)
+ * - Every key is split into padded 3-grams; each 3-gram block lists the names containing it
+ * - A lookup allows max(0, min(maxEdits, key length / 6)) edits. One edit changes at most 3
+ *   of a key's 3-grams, so a name within d edits shares at least one of any 3d+1 distinct
+ *   3-grams of the key. Only the blocks of the 3d+1 rarest ones are read (prefix filtering)
+ * - Candidates that pass the length filter are verified with a Levenshtein distance that gives
+ *   up as soon as it exceeds d
+ *
+ * The cost of a lookup depends on the size of the rarest blocks, not on the number of names,
+ * and is capped at maxCandidates verified names. Not thread-safe: one index per upload.
+ */
+public final class FuzzyNameIndex {
+
+    private static final int GRAM = 3;
+    private static final char PAD = '\u0001';
+    private static final int CHARS_PER_EDIT = 6;
+    private static final NameRuleChain KEY_RULES = NameRuleChain.compile("collapse,fold,lower", List.of());
+
+    private final int maxEdits;
+    private final int maxCandidates;
+    private final List<String> names = new ArrayList<>();
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> byKey = new HashMap<>();
+    private final Map<Long, Block> blocks = new HashMap<>();
+
+    /**
+     * @param maxEdits Most edits between two near-duplicates (long names)
+     * @param maxCandidates Most names verified per lookup
+     */
+    public FuzzyNameIndex(int maxEdits, int maxCandidates) {
+        this.maxEdits = Math.max(0, maxEdits);
+        this.maxCandidates = Math.max(1, maxCandidates);
+    }
+
+    public void add(String name) {
+        String key = key(name);
+        if (key.isEmpty() || byKey.containsKey(key)) {
+            return;
+        }
+        int id = names.size();
+        names.add(name);
+        keys.add(key);
+        byKey.put(key, id);
+        for (long gram : distinctGrams(key)) {
+            blocks.computeIfAbsent(gram, g -> new Block()).add(id);
+        }
+    }
+
+    public void addAll(Iterable<String> names) {
+        for (String name : names) {
+            if (name != null) {
+                add(name);
+            }
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Closest indexed name within the allowed edits
+     * @return the match, or null when there is none
+     */
+    public Match findSimilar(String name) {
+        String key = key(name);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Integer exact = byKey.get(key);
+        if (exact != null) {
+            return new Match(names.get(exact), 0);
+        }
+        int allowed = Math.min(maxEdits, key.length() / CHARS_PER_EDIT);
+        if (allowed == 0) {
+            return null;
+        }
+
+        long[] grams = distinctGrams(key);
+        Long[] byRarity = Arrays.stream(grams).boxed().toArray(Long[]::new);
+        Arrays.sort(byRarity, Comparator.comparingInt(this::blockSize));
+        int probes = Math.min(byRarity.length, GRAM * allowed + 1);
+
+        Set<Integer> seen = new HashSet<>();
+        int bestId = -1;
+        int bestDistance = allowed + 1;
+        for (int p = 0; p < probes && seen.size() < maxCandidates; p++) {
+            Block block = blocks.get(byRarity[p]);
+            if (block == null) {
+                continue;
+            }
+            for (int i = 0; i < block.size && seen.size() < maxCandidates; i++) {
+                int id = block.ids[i];
+                if (!seen.add(id)) {
+                    continue;
+                }
+                String candidate = keys.get(id);
+                if (Math.abs(candidate.length() - key.length()) >= bestDistance) {
+                    continue;
+                }
+                int distance = boundedDistance(key, candidate, bestDistance - 1);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestId = id;
+                }
+            }
+        }
+        return bestId >= 0 ? new Match(names.get(bestId), bestDistance) : null;
+    }
+
+    /**
+     * Comparison key: whitespace collapsed, accents folded, lower case
+     */
+    public static String key(String name) {
+        String key = KEY_RULES.apply(name);
+        return key != null ? key : "";
+    }
+
+    private int blockSize(long gram) {
+        Block block = blocks.get(gram);
+        return block != null ? block.size : 0;
+    }
+
+    private static long[] distinctGrams(String key) {
+        int length = key.length() + GRAM - 1;
+        long[] grams = new long[length];
+        for (int start = -(GRAM - 1), i = 0; i < length; start++, i++) {
+            long gram = 0;
+            for (int k = start; k < start + GRAM; k++) {
+                char c = k < 0 || k >= key.length() ? PAD : key.charAt(k);
+                gram = (gram << 16) | c;
+            }
+            grams[i] = gram;
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    /**
+     * Levenshtein distance, or limit + 1 as soon as it is known to exceed limit
+     */
+    static int boundedDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    /**
+     * Indexed name and its edit distance from the looked-up name (0: same key)
+     */
+    public record Match(String name, int distance) {}
+
+    /**
+     * Growable list of name ids
+     */
+    private static final class Block {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
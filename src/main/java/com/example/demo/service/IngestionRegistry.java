@@ -0,0 +1,150 @@
+package com.example.demo.service;
+
+import com.example.demo.batch.mapping.SchemaRegistry;
+import com.example.demo.model.IngestedFile;
+import com.example.demo.repository.IngestedFileRepository;
+import com.example.demo.service.FileFingerprinter.Chunk;
+import com.example.demo.service.FileFingerprinter.Fingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Service responsible for remembering which file contents were already ingested
+ *
+ * HOW IT WORKS:
+ * - Every finished load stores the file's SHA-256, size, counts and outcome in ETL_INGESTED_FILE,
+ *   with the fingerprint of its CSV schema (CsvSchema.fingerprint()) and its name rules
+ *   (etl.rules.default when the run gave none)
+ * - A new submission whose hash, schema fingerprint and rules match a completed load can return
+ *   that outcome directly (disabled with etl.ingest.skip-identical=false, or per request with
+ *   force=true); the same content under another schema or other rules is loaded again
+ * - For files loaded with a chunk manifest, changedRanges compares a new manifest with the
+ *   last one stored under the same file name, schema and rules and returns only the byte ranges
+ *   whose chunks are not in it
+ */
+@Service
+public class IngestionRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionRegistry.class);
+
+    private final IngestedFileRepository repository;
+    private final SchemaRegistry schemaRegistry;
+    private final boolean skipIdentical;
+    private final String defaultRules;
+
+    public IngestionRegistry(IngestedFileRepository repository,
+                             SchemaRegistry schemaRegistry,
+                             @Value("${etl.ingest.skip-identical:true}") boolean skipIdentical,
+                             @Value("${etl.rules.default:trim,collapse,capitalize}") String defaultRules) {
+        this.repository = repository;
+        this.schemaRegistry = schemaRegistry;
+        this.skipIdentical = skipIdentical;
+        this.defaultRules = defaultRules;
+    }
+
+    /**
+     * Last completed load of the same content with the same schema and rules,
+     * unless skipping identical files is disabled
+     * @param schemaName CSV schema, null or blank for the default
+     * @param rules Name rules, null or blank for etl.rules.default
+     */
+    public Optional<IngestedFile> findCompleted(String contentHash, String schemaName, String rules) {
+        if (!skipIdentical) {
+            return Optional.empty();
+        }
+        String schemaFingerprint = schemaFingerprint(schemaName);
+        String ruleSpec = ruleSpec(rules);
+        return repository.findByContentHashOrderByIdDesc(contentHash).stream()
+                .filter(IngestedFile::isCompleted)
+                .filter(file -> file.loadedWith(schemaFingerprint, ruleSpec))
+                .findFirst();
+    }
+
+    /**
+     * Last completed load of a file with the same name, schema and rules that has a chunk manifest
+     */
+    public Optional<IngestedFile> findBaseline(String filename, String schemaName, String rules) {
+        String schemaFingerprint = schemaFingerprint(schemaName);
+        String ruleSpec = ruleSpec(rules);
+        return repository.findByFilenameAndChunkManifestIsNotNullOrderByIdDesc(filename).stream()
+                .filter(IngestedFile::isCompleted)
+                .filter(file -> file.loadedWith(schemaFingerprint, ruleSpec))
+                .findFirst();
+    }
+
+    /**
+     * Stores the fingerprint and outcome of a load with the schema and rules it ran with
+     */
+    public IngestedFile record(String source, String filename, Fingerprint fingerprint,
+                               String schemaName, String rules, String status,
+                               Long jobId, String uploadId,
+                               int readCount, int writeCount, int skipCount, int duplicateCount, int errorCount) {
+        IngestedFile ingestedFile = new IngestedFile(fingerprint.sha256(), filename, source, fingerprint.size());
+        ingestedFile.setLoadSpec(schemaFingerprint(schemaName), ruleSpec(rules));
+        ingestedFile.setStatus(status);
+        ingestedFile.setJobId(jobId);
+        ingestedFile.setUploadId(uploadId);
+        ingestedFile.setCounts(readCount, writeCount, skipCount, duplicateCount, errorCount);
+        ingestedFile.setChunkManifest(fingerprint.manifest());
+        IngestedFile saved = repository.save(ingestedFile);
+        logger.info("Recorded {} of {} ({} bytes, sha256 {}): {}", source, filename, fingerprint.size(),
+                fingerprint.sha256(), status);
+        return saved;
+    }
+
+    private String schemaFingerprint(String schemaName) {
+        return schemaRegistry.personSchema(schemaName).getSchema().fingerprint();
+    }
+
+    /**
+     * Rules as stored: the default when none were given, without blanks around the commas
+     */
+    private String ruleSpec(String rules) {
+        String spec = rules == null || rules.isBlank() ? defaultRules : rules;
+        return spec.trim().replaceAll("\\s*,\\s*", ",");
+    }
+
+    /**
+     * Byte ranges of the new file whose chunks are not in the baseline manifest,
+     * adjacent changed chunks merged into one range
+     * @return empty list when every chunk was already loaded; null when the first chunk
+     *         (which holds the header line) changed and the whole file must be loaded again
+     */
+    public List<Chunk> changedRanges(Fingerprint current, IngestedFile baseline) {
+        List<Chunk> previous = Fingerprint.parseManifest(baseline.getChunkManifest());
+        if (previous.isEmpty() || current.chunks().isEmpty()
+                || !previous.get(0).sha256().equals(current.chunks().get(0).sha256())) {
+            return null;
+        }
+
+        Set<String> loaded = new HashSet<>();
+        previous.forEach(chunk -> loaded.add(chunk.sha256()));
+
+        List<Chunk> ranges = new ArrayList<>();
+        Chunk open = null;
+        for (Chunk chunk : current.chunks()) {
+            if (loaded.contains(chunk.sha256())) {
+                if (open != null) {
+                    ranges.add(open);
+                    open = null;
+                }
+            } else if (open == null) {
+                open = chunk;
+            } else {
+                open = new Chunk(open.offset(), chunk.end() - open.offset(), null);
+            }
+        }
+        if (open != null) {
+            ranges.add(open);
+        }
+        return ranges;
+    }
+}
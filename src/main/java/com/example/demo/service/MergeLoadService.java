@@ -0,0 +1,629 @@
+package com.example.demo.service;
+
+import com.example.demo.batch.admission.JobAdmissionController;
+import com.example.demo.batch.admission.JobAdmissionController.Priority;
+import com.example.demo.batch.mapping.SchemaLineMapper;
+import com.example.demo.batch.mapping.SchemaRegistry;
+import com.example.demo.batch.model.PersonCSVData;
+import com.example.demo.batch.processor.PersonDataProcessor;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.repository.PersonShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Deduplicating loader for CSV files far larger than memory
+ *
+ * HOW IT WORKS:
+ * - Sort: the file is read once; normalized names are buffered up to etl.merge.run-size, sorted by
+ *   key (lower case) and written as sorted runs to etl.merge.temp-directory
+ * - Merge: the runs are merged with a k-way heap (at most etl.merge.max-fan-in at a time, with
+ *   extra passes for more). Equal keys come out together, so repeats within the file are dropped
+ *   as they pass; the first occurrence in the file wins
+ * - Join: the merged stream is merge-joined against PERSON read in the same order
+ *   (ORDER BY LOWER(NAME), from the PERSON_NAME_LOWER_IDX function index on Oracle, shipped as
+ *   db/person-name-lower-index-oracle.sql and only created ONLINE here as a fallback): both sides
+ *   are read once, sequentially, and a name is new when the cursor passes its key without a match
+ * - Load: new names come out sorted and are inserted in JDBC batches of etl.merge.batch-size,
+ *   committed every etl.merge.commit-interval rows, so index blocks are filled in order
+ *
+ * Memory holds one run while sorting and one record per run while merging, whatever the sizes of
+ * the file and of PERSON. Both sides must sort alike: the Oracle key cursor's session is set to BINARY
+ * order (and restored before the connection returns to the pool) and keys are compared by code point;
+ * on H2 by UTF-16 unit. A cursor out of that order stops the load.
+ * Rows committed before a failure stay in PERSON, and a second run skips them as existing.
+ */
+@Service
+public class MergeLoadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MergeLoadService.class);
+    private static final String INSERT_SQL = "INSERT INTO PERSON (ID, NAME) VALUES (?, ?)";
+    private static final String KEYS_SQL = "SELECT LOWER(NAME) FROM PERSON WHERE LOWER(NAME) IS NOT NULL ORDER BY LOWER(NAME)";
+    private static final String INDEX_NAME = "PERSON_NAME_LOWER_IDX";
+    private static final String INDEX_SCRIPT = "db/person-name-lower-index-oracle.sql";
+    private static final String NLS_SQL =
+            "SELECT PARAMETER, VALUE FROM NLS_SESSION_PARAMETERS WHERE PARAMETER IN ('NLS_SORT', 'NLS_COMP')";
+    private static final int JOIN_CONNECTIONS = 2;
+
+    private static final Comparator<String> CODE_POINT_ORDER = MergeLoadService::compareCodePoints;
+
+    private final DataSource dataSource;
+    private final PersonIdAllocator idAllocator;
+    private final PersonDataProcessor dataProcessor;
+    private final SchemaRegistry schemaRegistry;
+    private final PersonChangeLog changeLog;
+    private final PersonShards personShards;
+    private final JobAdmissionController admissionController;
+    private final Path tempDirectory;
+    private final int runSize;
+    private final int maxFanIn;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int commitInterval;
+
+    public MergeLoadService(DataSource dataSource,
+                            PersonIdAllocator idAllocator,
+                            PersonDataProcessor dataProcessor,
+                            SchemaRegistry schemaRegistry,
+                            PersonChangeLog changeLog,
+                            PersonShards personShards,
+                            JobAdmissionController admissionController,
+                            @Value("${etl.merge.temp-directory:${java.io.tmpdir}}") String tempDirectory,
+                            @Value("${etl.merge.run-size:500000}") int runSize,
+                            @Value("${etl.merge.max-fan-in:64}") int maxFanIn,
+                            @Value("${etl.merge.fetch-size:10000}") int fetchSize,
+                            @Value("${etl.merge.batch-size:5000}") int batchSize,
+                            @Value("${etl.merge.commit-interval:50000}") int commitInterval) {
+        this.dataSource = dataSource;
+        this.idAllocator = idAllocator;
+        this.dataProcessor = dataProcessor;
+        this.schemaRegistry = schemaRegistry;
+        this.changeLog = changeLog;
+        this.personShards = personShards;
+        this.admissionController = admissionController;
+        this.tempDirectory = Path.of(tempDirectory);
+        this.runSize = Math.max(1000, runSize);
+        this.maxFanIn = Math.max(2, maxFanIn);
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
+        this.commitInterval = Math.max(commitInterval, batchSize);
+    }
+
+    /**
+     * Loads the names of a CSV file that are not in PERSON yet
+     * @param file CSV file on disk
+     * @param schemaName CSV schema of the file, null for the default
+     * @param rules Name rules replacing etl.rules.default, null for the default
+     * @return counts and timing of the load
+     * @throws IllegalArgumentException while PERSON is sharded
+     * @throws JobAdmissionController.JobRejectedException when the join phase is not admitted in time
+     */
+    public MergeLoadResult mergeLoad(Path file, String schemaName, String rules) {
+        personShards.requireUnsharded("Merge load");
+        if (!Files.isRegularFile(file)) {
+            throw new MergeLoadException("CSV file not found: " + file);
+        }
+        SchemaLineMapper<PersonCSVData> lineMapper = schemaRegistry.personSchema(schemaName).newLineMapper();
+        PersonDataProcessor processor = dataProcessor.withRules(rules);
+
+        logger.info("========================================");
+        logger.info("Starting merge load of {}", file);
+        logger.info("========================================");
+
+        long startTime = System.currentTimeMillis();
+        boolean oracle = isOracle();
+        Comparator<String> order = oracle ? CODE_POINT_ORDER : Comparator.naturalOrder();
+        Path workDirectory = null;
+        try {
+            workDirectory = Files.createTempDirectory(Files.createDirectories(tempDirectory), "merge-load-");
+            Counts counts = new Counts();
+
+            List<Path> runs = writeRuns(file, lineMapper, processor, order, workDirectory, counts);
+            int runCount = runs.size();
+            while (runs.size() > maxFanIn) {
+                runs = mergePass(runs, order, workDirectory, counts);
+            }
+            long sortMs = System.currentTimeMillis() - startTime;
+            logger.info("Sorted {} names into {} runs in {} ms", counts.sorted, runCount, sortMs);
+
+            // The sort only uses local disk; the join holds two connections (key cursor and inserts)
+            try (JobAdmissionController.Permit permit =
+                         admissionController.admit("mergeLoad", JOIN_CONNECTIONS, Priority.NORMAL)) {
+                if (oracle) {
+                    ensureKeyIndex();
+                }
+                joinAndLoad(runs, order, oracle, counts);
+            }
+            long elapsed = System.currentTimeMillis() - startTime;
+
+            logger.info("========================================");
+            logger.info("Merge load completed: {} new, {} already in PERSON, {} repeated in the file, in {} ms",
+                    counts.written, counts.existing, counts.repeated, elapsed);
+            logger.info("========================================");
+            return new MergeLoadResult(counts.read, counts.written, counts.skipped, counts.repeated, counts.existing,
+                    runCount, sortMs, elapsed);
+        } catch (IOException | UncheckedIOException e) {
+            throw new MergeLoadException("Merge load of " + file + " failed: " + e.getMessage(), e);
+        } catch (SQLException e) {
+            throw new MergeLoadException("Merge load of " + file + " failed in the database: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MergeLoadException("Merge load of " + file + " interrupted while waiting for admission", e);
+        } finally {
+            deleteRecursively(workDirectory);
+        }
+    }
+
+    /**
+     * Reads the file once into sorted runs of at most runSize names; repeats within a run are dropped
+     */
+    private List<Path> writeRuns(Path file, SchemaLineMapper<PersonCSVData> lineMapper, PersonDataProcessor processor,
+                                 Comparator<String> order, Path workDirectory, Counts counts) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<Entry> buffer = new ArrayList<>(Math.min(runSize, 1 << 16));
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            lineMapper.bindHeader(header != null ? header : "");
+            int lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                counts.read++;
+                String name;
+                try {
+                    name = processor.normalize(lineMapper.mapLine(line, lineNumber).getRawName());
+                } catch (RuntimeException e) {
+                    name = null; // Unparseable line
+                }
+                if (name == null || name.isEmpty()) {
+                    counts.skipped++;
+                    continue;
+                }
+                buffer.add(new Entry(key(name), name));
+                if (buffer.size() == runSize) {
+                    runs.add(writeRun(buffer, order, workDirectory, counts));
+                }
+            }
+        }
+        if (!buffer.isEmpty() || runs.isEmpty()) {
+            runs.add(writeRun(buffer, order, workDirectory, counts));
+        }
+        return runs;
+    }
+
+    private Path writeRun(List<Entry> buffer, Comparator<String> order, Path workDirectory, Counts counts)
+            throws IOException {
+        // Stable sort: of equal keys the earliest line stays first
+        buffer.sort((a, b) -> order.compare(a.key(), b.key()));
+        Path run = Files.createTempFile(workDirectory, "run", ".bin");
+        try (RunWriter writer = new RunWriter(run)) {
+            String previous = null;
+            for (Entry entry : buffer) {
+                if (entry.key().equals(previous)) {
+                    counts.repeated++;
+                    continue;
+                }
+                writer.write(entry.name());
+                counts.sorted++;
+                previous = entry.key();
+            }
+        }
+        buffer.clear();
+        return run;
+    }
+
+    /**
+     * Merges consecutive groups of maxFanIn runs, keeping file order among equal keys
+     */
+    private List<Path> mergePass(List<Path> runs, Comparator<String> order, Path workDirectory, Counts counts)
+            throws IOException {
+        List<Path> merged = new ArrayList<>();
+        for (int from = 0; from < runs.size(); from += maxFanIn) {
+            List<Path> group = runs.subList(from, Math.min(from + maxFanIn, runs.size()));
+            Path run = Files.createTempFile(workDirectory, "merged", ".bin");
+            try (MergedRuns input = new MergedRuns(group, order);
+                 RunWriter writer = new RunWriter(run)) {
+                Entry entry;
+                while ((entry = input.next()) != null) {
+                    if (entry.repeated()) {
+                        counts.repeated++;
+                    } else {
+                        writer.write(entry.name());
+                    }
+                }
+            }
+            for (Path path : group) {
+                Files.delete(path);
+            }
+            merged.add(run);
+        }
+        logger.info("Merge pass: {} runs into {}", runs.size(), merged.size());
+        return merged;
+    }
+
+    /**
+     * Merge-joins the sorted names against the sorted PERSON keys and inserts the ones not found
+     */
+    private void joinAndLoad(List<Path> runs, Comparator<String> order, boolean oracle, Counts counts)
+            throws IOException, SQLException {
+        try (MergedRuns names = new MergedRuns(runs, order);
+             Connection readConnection = dataSource.getConnection();
+             Connection writeConnection = dataSource.getConnection()) {
+
+            readConnection.setReadOnly(true);
+            Map<String, String> session = oracle ? binarySession(readConnection) : Map.of();
+            try {
+                writeConnection.setAutoCommit(false);
+                join(names, readConnection, writeConnection, order, counts);
+            } finally {
+                restoreSession(readConnection, session);
+            }
+        }
+    }
+
+    /**
+     * Reads the key cursor and inserts the missing names, committing every commitInterval rows
+     */
+    private void join(MergedRuns names, Connection readConnection, Connection writeConnection,
+                      Comparator<String> order, Counts counts) throws IOException, SQLException {
+        try (PreparedStatement keys = readConnection.prepareStatement(KEYS_SQL);
+             PreparedStatement insert = writeConnection.prepareStatement(INSERT_SQL)) {
+            keys.setFetchSize(fetchSize);
+            try (ResultSet existing = keys.executeQuery()) {
+                String existingKey = nextKey(existing, null, order);
+                List<String> batch = new ArrayList<>(batchSize);
+                int uncommitted = 0;
+                Entry entry;
+                while ((entry = names.next()) != null) {
+                    if (entry.repeated()) {
+                        counts.repeated++;
+                        continue;
+                    }
+                    while (existingKey != null && order.compare(existingKey, entry.key()) < 0) {
+                        existingKey = nextKey(existing, existingKey, order);
+                    }
+                    if (existingKey != null && existingKey.equals(entry.key())) {
+                        counts.existing++;
+                        continue;
+                    }
+                    batch.add(entry.name());
+                    if (batch.size() == batchSize) {
+                        uncommitted += insertBatch(writeConnection, insert, batch);
+                        if (uncommitted >= commitInterval) {
+                            writeConnection.commit();
+                            counts.written += uncommitted;
+                            uncommitted = 0;
+                        }
+                    }
+                }
+                uncommitted += insertBatch(writeConnection, insert, batch);
+                writeConnection.commit();
+                counts.written += uncommitted;
+            }
+        } catch (SQLException | RuntimeException e) {
+            writeConnection.rollback();
+            throw e;
+        } finally {
+            if (counts.written > 0) {
+                changeLog.recordReset("mergeLoad");
+            }
+        }
+    }
+
+    /**
+     * Switches an Oracle session to BINARY sort and comparison
+     * @return the previous NLS_SORT and NLS_COMP, to restore before the pooled connection is reused
+     */
+    private static Map<String, String> binarySession(Connection connection) throws SQLException {
+        Map<String, String> previous = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery(NLS_SQL)) {
+                while (rs.next()) {
+                    previous.put(rs.getString(1), rs.getString(2));
+                }
+            }
+            statement.execute("ALTER SESSION SET NLS_SORT = BINARY");
+            statement.execute("ALTER SESSION SET NLS_COMP = BINARY");
+        }
+        return previous;
+    }
+
+    private static void restoreSession(Connection connection, Map<String, String> previous) throws SQLException {
+        if (previous.isEmpty()) {
+            return;
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (Map.Entry<String, String> parameter : previous.entrySet()) {
+                // Values come from NLS_SESSION_PARAMETERS (e.g. BINARY, GERMAN_CI, LINGUISTIC)
+                statement.execute("ALTER SESSION SET " + parameter.getKey() + " = " + parameter.getValue());
+            }
+        }
+    }
+
+    /**
+     * The cursor's next key, checking it does not go back in the merge order
+     */
+    private static String nextKey(ResultSet existing, String previous, Comparator<String> order) throws SQLException {
+        if (!existing.next()) {
+            return null;
+        }
+        String key = existing.getString(1);
+        if (previous != null && order.compare(key, previous) < 0) {
+            throw new MergeLoadException("PERSON keys are not in binary order ('" + previous + "' before '" + key
+                    + "'); check the database collation");
+        }
+        return key;
+    }
+
+    private int insertBatch(Connection connection, PreparedStatement ps, List<String> names) throws SQLException {
+        if (names.isEmpty()) {
+            return 0;
+        }
+        long[] ids = idAllocator.allocate(connection, names.size());
+        for (int i = 0; i < names.size(); i++) {
+            ps.setLong(1, ids[i]);
+            ps.setString(2, names.get(i));
+            ps.addBatch();
+        }
+        ps.executeBatch();
+        int inserted = names.size();
+        names.clear();
+        return inserted;
+    }
+
+    /**
+     * Checks the LOWER(NAME) function index the key cursor is read from (Oracle). It belongs in the
+     * schema; if missing it is created ONLINE so concurrent writes to PERSON are not blocked while it builds
+     */
+    private void ensureKeyIndex() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement query = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM USER_INDEXES WHERE INDEX_NAME = ?")) {
+            query.setString(1, INDEX_NAME);
+            try (ResultSet rs = query.executeQuery()) {
+                if (rs.next() && rs.getInt(1) > 0) {
+                    return;
+                }
+            }
+            logger.warn("Index {} is missing, creating it online; add {} to the schema", INDEX_NAME, INDEX_SCRIPT);
+            long start = System.currentTimeMillis();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX " + INDEX_NAME + " ON PERSON (LOWER(NAME)) ONLINE");
+            } catch (SQLException e) {
+                throw new MergeLoadException("Index " + INDEX_NAME + " is missing and could not be created online ("
+                        + e.getMessage().trim() + "); create it with " + INDEX_SCRIPT, e);
+            }
+            logger.info("Index {} created in {} ms", INDEX_NAME, System.currentTimeMillis() - start);
+        }
+    }
+
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Unicode code point order, the order of UTF-8 bytes (Oracle BINARY sort on AL32UTF8)
+     */
+    static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    private boolean isOracle() {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName);
+            return product != null && product.toLowerCase(Locale.ROOT).contains("oracle");
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.warn("Could not delete {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Name and its key; repeated is set by the merge for a key equal to the one before it
+     */
+    private record Entry(String key, String name, boolean repeated) {
+        Entry(String key, String name) {
+            this(key, name, false);
+        }
+    }
+
+    private static final class Counts {
+        long read;
+        long skipped;
+        long sorted;
+        long repeated;
+        long existing;
+        long written;
+    }
+
+    /**
+     * Writes length-prefixed UTF-8 names
+     */
+    private static final class RunWriter implements AutoCloseable {
+        private final DataOutputStream out;
+
+        RunWriter(Path path) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        }
+
+        void write(String name) throws IOException {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads one sorted run
+     */
+    private static final class RunReader implements AutoCloseable {
+        private final DataInputStream in;
+        private final int index;
+        private Entry current;
+
+        RunReader(Path path, int index) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16));
+            this.index = index;
+            advance();
+        }
+
+        void advance() throws IOException {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                current = null;
+                return;
+            }
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            current = new Entry(key(name), name);
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    /**
+     * K-way merge of sorted runs; equal keys come out in run order, all but the first marked repeated
+     */
+    private static final class MergedRuns implements AutoCloseable {
+        private final List<RunReader> readers = new ArrayList<>();
+        private final PriorityQueue<RunReader> heap;
+        private String lastKey;
+
+        MergedRuns(List<Path> runs, Comparator<String> order) throws IOException {
+            this.heap = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                int byKey = order.compare(a.current.key(), b.current.key());
+                return byKey != 0 ? byKey : Integer.compare(a.index, b.index);
+            });
+            try {
+                for (int i = 0; i < runs.size(); i++) {
+                    RunReader reader = new RunReader(runs.get(i), i);
+                    readers.add(reader);
+                    if (reader.current != null) {
+                        heap.add(reader);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        Entry next() throws IOException {
+            RunReader reader = heap.poll();
+            if (reader == null) {
+                return null;
+            }
+            Entry entry = reader.current;
+            reader.advance();
+            if (reader.current != null) {
+                heap.add(reader);
+            }
+            boolean repeated = entry.key().equals(lastKey);
+            lastKey = entry.key();
+            return repeated ? new Entry(entry.key(), entry.name(), true) : entry;
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (RunReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    /**
+     * Result of a merge load
+     */
+    public record MergeLoadResult(
+        long readCount,
+        long writeCount,
+        long skipCount,
+        long repeatedInFile,
+        long alreadyInPerson,
+        int runs,
+        long sortMs,
+        long elapsedMs
+    ) {
+        public long duplicateCount() {
+            return repeatedInFile + alreadyInPerson;
+        }
+    }
+
+    /**
+     * Custom exception for merge load errors
+     */
+    public static class MergeLoadException extends RuntimeException {
+        public MergeLoadException(String message) {
+            super(message);
+        }
+
+        public MergeLoadException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
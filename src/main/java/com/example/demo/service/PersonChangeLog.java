@@ -0,0 +1,211 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Person;
+import com.example.demo.model.PersonChange.Operation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service responsible for the PERSON change version and change log
+ *
+ * HOW IT WORKS:
+ * - PERSON_VERSION holds one counter; every writing transaction increments it and logs its row
+ *   changes in PERSON_CHANGE under the new version. The row lock on the counter is held until
+ *   commit, so versions are committed in order and a reader never skips a late commit
+ * - That lock serializes every writing transaction on PERSON from its record() call to its commit.
+ *   Callers record last, after their writes, so the lock is held for roughly one commit round trip;
+ *   this caps row-level write throughput at about one transaction per commit latency. Throughput
+ *   writers avoid it: write-behind and the spool drainer record one version per batch, and bulk
+ *   writers record a single RESET
+ * - Bulk writers (ETL jobs, bulk load, delete all) log a single RESET change when they finish
+ *   instead of one row per person; it tells clients to read the whole table again, and the
+ *   changes before it are pruned
+ * - Between resets, every etl.changes.prune-every versions the writer that bumps the counter also
+ *   prunes changes older than etl.changes.retention-hours and whole versions beyond the newest
+ *   etl.changes.max-rows rows. A client whose version was pruned gets full=true
+ * - The current version is the ETag of GET /person/all; GET /person/changes?since= returns
+ *   the changes after a version
+ *
+ * Rows written by a running ETL job become visible in the version when the job finishes.
+ */
+@Service
+public class PersonChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonChangeLog.class);
+    private static final String BUMP_SQL = "UPDATE PERSON_VERSION SET VERSION = VERSION + 1 WHERE ID = 1";
+    private static final String VERSION_SQL = "SELECT VERSION FROM PERSON_VERSION WHERE ID = 1";
+    private static final String INSERT_SQL = "INSERT INTO PERSON_CHANGE (ID, VERSION, OPERATION, PERSON_ID, NAME, CHANGED_AT) "
+            + "VALUES (PERSON_CHANGE_SEQ.NEXTVAL, ?, ?, ?, ?, ?)";
+    private static final String CHANGES_SQL = "SELECT VERSION, OPERATION, PERSON_ID, NAME FROM PERSON_CHANGE "
+            + "WHERE VERSION > ? AND VERSION <= ? ORDER BY VERSION, ID";
+    private static final String SIZE_CUTOFF_SQL = "SELECT VERSION FROM PERSON_CHANGE ORDER BY VERSION DESC, ID DESC "
+            + "OFFSET ? ROWS FETCH NEXT 1 ROWS ONLY";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final int maxChanges;
+    private final long pruneEvery;
+    private final Duration retention;
+    private final long maxRows;
+
+    public PersonChangeLog(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${etl.changes.max-feed-size:1000}") int maxChanges,
+                           @Value("${etl.changes.prune-every:1000}") long pruneEvery,
+                           @Value("${etl.changes.retention-hours:24}") long retentionHours,
+                           @Value("${etl.changes.max-rows:100000}") long maxRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxChanges = maxChanges;
+        this.pruneEvery = Math.max(1, pruneEvery);
+        this.retention = Duration.ofHours(retentionHours);
+        this.maxRows = Math.max(maxChanges, maxRows);
+    }
+
+    /**
+     * Current version; 0 before the first change
+     */
+    public long currentVersion() {
+        List<Long> versions = jdbcTemplate.queryForList(VERSION_SQL, Long.class);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * Logs row changes under a new version; must run inside the caller's writing transaction
+     * @return the new version
+     */
+    public long record(Operation operation, List<Person> persons) {
+        if (persons.isEmpty()) {
+            return currentVersion();
+        }
+        long version = bump();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, persons, persons.size(), (ps, person) -> {
+            ps.setLong(1, version);
+            ps.setString(2, operation.name());
+            ps.setLong(3, person.getId());
+            ps.setString(4, operation == Operation.DELETE ? null : person.getName());
+            ps.setTimestamp(5, now);
+        });
+        if (version % pruneEvery == 0) {
+            prune(version);
+        }
+        return version;
+    }
+
+    public long record(Operation operation, Person person) {
+        return record(operation, List.of(person));
+    }
+
+    /**
+     * Logs a bulk change and prunes the changes it supersedes, in the caller's transaction or a new one
+     * @param reason e.g. the job name, stored in NAME
+     * @return the new version
+     */
+    public long recordReset(String reason) {
+        Long version = transaction.execute(status -> {
+            long next = bump();
+            jdbcTemplate.update(INSERT_SQL, next, Operation.RESET.name(), null, reason,
+                    Timestamp.valueOf(LocalDateTime.now()));
+            int pruned = jdbcTemplate.update("DELETE FROM PERSON_CHANGE WHERE VERSION < ?", next);
+            logger.info("PERSON bulk change by {}: version {}, {} older changes pruned", reason, next, pruned);
+            return next;
+        });
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Changes after a version
+     * full=true means the client must read the whole table: a bulk change happened, the version
+     * is unknown, or there are more than etl.changes.max-feed-size changes
+     */
+    public ChangeFeed changesSince(Long since) {
+        long current = currentVersion();
+        if (since == null || since > current) {
+            return new ChangeFeed(current, true, List.of());
+        }
+        if (since == current) {
+            return new ChangeFeed(current, false, List.of());
+        }
+
+        List<Change> changes = new ArrayList<>();
+        boolean[] full = {false};
+        long[] expected = {since + 1};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(CHANGES_SQL);
+            ps.setLong(1, since);
+            ps.setLong(2, current);
+            ps.setMaxRows(maxChanges + 1);
+            return ps;
+        }, (RowCallbackHandler) resultSet -> {
+            long version = resultSet.getLong(1);
+            Operation operation = Operation.valueOf(resultSet.getString(2));
+            // Versions are contiguous and each has at least one row, so a gap means pruned changes
+            if (version > expected[0] || operation == Operation.RESET || changes.size() == maxChanges) {
+                full[0] = true;
+            } else {
+                changes.add(new Change(version, operation, resultSet.getLong(3), resultSet.getString(4)));
+                expected[0] = version + 1;
+            }
+        });
+        if (full[0] || changes.isEmpty()) {
+            return new ChangeFeed(current, true, List.of());
+        }
+        return new ChangeFeed(current, false, changes);
+    }
+
+    /**
+     * Deletes changes past the retention or the row cap; runs under the counter lock, so one pruner at a time
+     */
+    private void prune(long version) {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int pruned = jdbcTemplate.update("DELETE FROM PERSON_CHANGE WHERE CHANGED_AT < ?", cutoff);
+        List<Long> sizeCutoff = jdbcTemplate.queryForList(SIZE_CUTOFF_SQL, Long.class, maxRows);
+        if (!sizeCutoff.isEmpty()) {
+            // Whole versions only, so a feed never returns half of one
+            pruned += jdbcTemplate.update("DELETE FROM PERSON_CHANGE WHERE VERSION <= ?", sizeCutoff.get(0));
+        }
+        if (pruned > 0) {
+            logger.info("PERSON change log pruned at version {}: {} changes", version, pruned);
+        }
+    }
+
+    /**
+     * Increments the counter, creating its row on first use; locks it until commit
+     */
+    private long bump() {
+        if (jdbcTemplate.update(BUMP_SQL) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO PERSON_VERSION (ID, VERSION) VALUES (1, 1)");
+                return 1;
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(BUMP_SQL); // Created concurrently
+            }
+        }
+        return currentVersion();
+    }
+
+    /**
+     * One row change; name is null for deletes
+     */
+    public record Change(long version, Operation operation, long id, String name) {}
+
+    /**
+     * Response of GET /person/changes
+     */
+    public record ChangeFeed(long version, boolean full, List<Change> changes) {}
+}
@@ -0,0 +1,118 @@
+package com.example.demo.service;
+
+import com.example.demo.repository.PersonShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Service responsible for exporting PERSON as CSV
+ *
+ * Rows are read with a forward-only cursor and a large fetch size and written
+ * straight to the output, so memory use is constant whatever the table size.
+ * Used by GET /person/export (streamed to the response) and exportPersonJob (to a file).
+ * When PERSON is sharded the shards are read one after the other, each in ID order.
+ */
+@Service
+public class PersonExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonExportService.class);
+    private static final String EXPORT_SQL = "SELECT ID, NAME FROM PERSON ORDER BY ID";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final List<JdbcTemplate> exportJdbcTemplates;
+
+    public PersonExportService(DataSource dataSource,
+                               PersonShards personShards,
+                               @Value("${etl.export.fetch-size:5000}") int fetchSize) {
+        List<DataSource> dataSources = personShards.isEnabled()
+                ? personShards.all().stream().map(PersonShards.Shard::dataSource).toList()
+                : List.of(dataSource);
+        this.exportJdbcTemplates = dataSources.stream().map(source -> {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(source);
+            jdbcTemplate.setFetchSize(fetchSize);
+            return jdbcTemplate;
+        }).toList();
+    }
+
+    /**
+     * Writes all persons as CSV (id,name) to the given stream
+     * The stream is finished but not closed
+     * @return number of rows written
+     */
+    public long export(OutputStream out, boolean gzip) throws IOException {
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+
+        long[] rows = {0};
+        writer.write("id,name\n");
+        try {
+            for (JdbcTemplate exportJdbcTemplate : exportJdbcTemplates) {
+                exportJdbcTemplate.query(EXPORT_SQL, (RowCallbackHandler) resultSet -> {
+                    try {
+                        writer.write(Long.toString(resultSet.getLong(1)));
+                        writer.write(',');
+                        writer.write(csv(resultSet.getString(2)));
+                        writer.write('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        logger.info("Exported {} persons", rows[0]);
+        return rows[0];
+    }
+
+    /**
+     * Writes all persons as CSV to a file through a buffered FileChannel
+     * @return number of rows written
+     */
+    public long exportToFile(Path file, boolean gzip) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE)) {
+            return export(out, gzip);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -1,16 +1,28 @@
 package com.example.demo.service;
 
 import com.example.demo.model.Person;
+import com.example.demo.model.PersonChange.Operation;
 import com.example.demo.repository.PersonRepository;
+import com.example.demo.repository.PersonShards;
+import com.example.demo.repository.ShardedPersonRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+/**
+ * Person CRUD; with etl.shards.enabled PERSON lives in the shards (see ShardedPersonRepository):
+ * lookups by ID go to one shard, listings are gathered from all of them, and writes commit on the
+ * shard just before the method's transaction (a failure of that last commit leaves the shard write)
+ */
 @Service
 public class PersonService {
 
@@ -19,26 +31,71 @@ public class PersonService {
     @Autowired
     private PersonRepository personRepository;
 
+    @Autowired
+    private PersonChangeLog changeLog;
+
+    @Autowired
+    private PersonShards personShards;
+
+    @Autowired
+    private ShardedPersonRepository shardedPersonRepository;
+
     @Transactional
     public Person createPerson(String name) {
         logger.info("Creating person with name: {}", name);
         Person person = new Person();
         person.setName(name);
-        Person saved = personRepository.save(person);
+        Person saved;
+        if (personShards.isEnabled()) {
+            shardedPersonRepository.insert(List.of(person)); // Commits with this transaction
+            saved = person;
+        } else {
+            saved = personRepository.save(person);
+        }
+        changeLog.record(Operation.INSERT, saved);
         logger.info("Person created with ID: {}", saved.getId());
         return saved;
     }
 
     public List<Person> getAllPersons() {
         logger.info("Fetching all persons");
-        List<Person> persons = personRepository.findAll();
+        List<Person> persons = personShards.isEnabled()
+                ? shardedPersonRepository.findAll()
+                : personRepository.findAll();
         logger.info("Found {} persons", persons.size());
         return persons;
     }
 
+    /**
+     * Names of all persons as stored; only the NAME column is read
+     */
+    public List<String> getAllNames() {
+        List<String> names = findAllNames();
+        logger.info("Loaded {} names", names.size());
+        return names;
+    }
+
+    /**
+     * Lower-cased names of all persons, for case-insensitive duplicate checks in O(1) per name
+     * Only the NAME column is read, not whole entities
+     */
+    public Set<String> getAllNamesLowerCase() {
+        List<String> names = findAllNames();
+        Set<String> lowerCaseNames = new HashSet<>(Math.max(16, names.size() * 4 / 3 + 1));
+        for (String name : names) {
+            if (name != null) {
+                lowerCaseNames.add(name.toLowerCase(Locale.ROOT));
+            }
+        }
+        logger.info("Loaded {} existing names", lowerCaseNames.size());
+        return lowerCaseNames;
+    }
+
     public Optional<Person> getPersonById(Long id) {
         logger.info("Fetching person with ID: {}", id);
-        Optional<Person> person = personRepository.findById(id);
+        Optional<Person> person = personShards.isEnabled()
+                ? shardedPersonRepository.findById(id)
+                : personRepository.findById(id);
         if (person.isPresent()) {
             logger.info("Person found: {}", person.get().getName());
         } else {
@@ -50,11 +107,22 @@ public class PersonService {
     @Transactional
     public Optional<Person> updatePerson(Long id, String name) {
         logger.info("Updating person with ID: {} to name: {}", id, name);
+        if (personShards.isEnabled()) {
+            if (!shardedPersonRepository.update(id, name)) {
+                logger.warn("Person with ID {} not found for update", id);
+                return Optional.empty();
+            }
+            Person updated = new Person(name);
+            updated.setId(id);
+            changeLog.record(Operation.UPDATE, updated);
+            return Optional.of(updated);
+        }
         Optional<Person> personOptional = personRepository.findById(id);
         if (personOptional.isPresent()) {
             Person person = personOptional.get();
             person.setName(name);
             Person updated = personRepository.save(person);
+            changeLog.record(Operation.UPDATE, updated);
             logger.info("Person updated: ID={}, Name='{}'", updated.getId(), updated.getName());
             return Optional.of(updated);
         }
@@ -65,8 +133,19 @@ public class PersonService {
     @Transactional
     public boolean deletePerson(Long id) {
         logger.info("Deleting person with ID: {}", id);
-        if (personRepository.existsById(id)) {
-            personRepository.deleteById(id);
+        boolean found;
+        if (personShards.isEnabled()) {
+            found = shardedPersonRepository.deleteById(id);
+        } else {
+            found = personRepository.existsById(id);
+            if (found) {
+                personRepository.deleteById(id);
+            }
+        }
+        if (found) {
+            Person deleted = new Person();
+            deleted.setId(id);
+            changeLog.record(Operation.DELETE, deleted);
             logger.info("Person with ID {} deleted successfully", id);
             return true;
         }
@@ -77,12 +156,25 @@ public class PersonService {
     @Transactional
     public void deleteAllPersons() {
         logger.info("Deleting all persons");
-        long count = personRepository.count();
-        personRepository.deleteAll();
+        long count;
+        if (personShards.isEnabled()) {
+            count = shardedPersonRepository.deleteAll();
+        } else {
+            count = personRepository.count();
+            personRepository.deleteAll();
+        }
+        changeLog.recordReset("deleteAll");
         logger.info("Deleted {} persons", count);
     }
-}
-
-
 
+    /**
+     * Rows per shard, empty when PERSON is not sharded
+     */
+    public Map<Integer, Long> countByShard() {
+        return personShards.isEnabled() ? shardedPersonRepository.countByShard() : Map.of();
+    }
 
+    private List<String> findAllNames() {
+        return personShards.isEnabled() ? shardedPersonRepository.findAllNames() : personRepository.findAllNames();
+    }
+}
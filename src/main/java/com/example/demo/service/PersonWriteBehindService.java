@@ -0,0 +1,286 @@
+package com.example.demo.service;
+
+import com.example.demo.model.Person;
+import com.example.demo.model.PersonChange.Operation;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.repository.PersonShards;
+import com.example.demo.repository.ShardedPersonRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind path for POST /person/create
+ *
+ * HOW IT WORKS:
+ * - Requests are added to a bounded lock-free queue (ConcurrentLinkedQueue + CAS size counter)
+ * - One flusher thread drains up to max-batch requests every flush-interval-ms, or as soon
+ *   as max-batch requests are waiting
+ * - Each drained batch gets its IDs in one sequence round trip and is inserted as one
+ *   JDBC batch in one transaction, so N requests use one connection once (with etl.shards.enabled
+ *   the batch is split across the shards instead)
+ * - Each request's future is completed with the saved person (including its ID)
+ * - If the batch and the one-by-one retry both fail, the future fails; for fast-acked
+ *   requests nobody waits on it, so the loss is logged at error level and counted
+ *   (GET /person/write-behind)
+ *
+ * When the queue is full, enqueue returns empty and the caller falls back to the
+ * synchronous PersonService.createPerson path.
+ */
+@Service
+public class PersonWriteBehindService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersonWriteBehindService.class);
+    private static final String INSERT_SQL = "INSERT INTO PERSON (ID, NAME) VALUES (?, ?)";
+
+    private final PersonService personService;
+    private final PersonIdAllocator idAllocator;
+    private final PersonChangeLog changeLog;
+    private final PersonShards personShards;
+    private final ShardedPersonRepository shardedPersonRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int capacity;
+    private final int maxBatch;
+    private final long flushIntervalNanos;
+
+    private final ConcurrentLinkedQueue<PendingCreate> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong lostCreates = new AtomicLong();
+    private volatile Thread flusher;
+    private volatile boolean running;
+
+    public PersonWriteBehindService(PersonService personService,
+                                    PersonIdAllocator idAllocator,
+                                    PersonChangeLog changeLog,
+                                    PersonShards personShards,
+                                    ShardedPersonRepository shardedPersonRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${etl.write-behind.enabled:false}") boolean enabled,
+                                    @Value("${etl.write-behind.capacity:10000}") int capacity,
+                                    @Value("${etl.write-behind.max-batch:500}") int maxBatch,
+                                    @Value("${etl.write-behind.flush-interval-ms:5}") long flushIntervalMs) {
+        this.personService = personService;
+        this.idAllocator = idAllocator;
+        this.changeLog = changeLog;
+        this.personShards = personShards;
+        this.shardedPersonRepository = shardedPersonRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.maxBatch = maxBatch;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a create request
+     * @param fastAck true when the caller has already been answered and will not observe the future
+     * @return the future of the saved person, or empty when the queue is full or write-behind is off
+     */
+    public Optional<CompletableFuture<Person>> enqueue(String name, boolean fastAck) {
+        if (!running || !reserveSlot()) {
+            return Optional.empty();
+        }
+        PendingCreate pending = new PendingCreate(name, fastAck, new CompletableFuture<>());
+        queue.offer(pending);
+        if (size.get() >= maxBatch) {
+            LockSupport.unpark(flusher);
+        }
+        return Optional.of(pending.future());
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = size.get();
+            if (current >= capacity) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Queue depth and fast-acked creates that were never written, for GET /person/write-behind
+     */
+    public Status status() {
+        return new Status(enabled, size.get(), lostCreates.get());
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "person-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+        logger.info("Write-behind enabled (capacity={}, maxBatch={})", capacity, maxBatch);
+    }
+
+    @Override
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void flushLoop() {
+        // Keeps flushing after stop() until the queue is empty, so accepted requests are not lost
+        while (running || size.get() > 0) {
+            if (running && size.get() < maxBatch) {
+                LockSupport.parkNanos(flushIntervalNanos);
+            }
+            try {
+                flush();
+            } catch (Exception e) {
+                logger.error("Write-behind flush failed", e);
+            }
+        }
+    }
+
+    private void flush() {
+        List<PendingCreate> batch = new ArrayList<>(Math.min(size.get(), maxBatch));
+        PendingCreate pending;
+        while (batch.size() < maxBatch && (pending = queue.poll()) != null) {
+            size.decrementAndGet();
+            batch.add(pending);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Person> persons = new ArrayList<>(batch.size());
+        for (PendingCreate create : batch) {
+            persons.add(new Person(create.name()));
+        }
+        String writeKey = personShards.isEnabled() ? "write-behind:" + UUID.randomUUID() : null;
+        try {
+            insertBatch(persons, writeKey);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(persons.get(i));
+            }
+            logger.debug("Write-behind flushed {} persons", batch.size());
+        } catch (Exception e) {
+            logger.warn("Write-behind batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            retryIndividually(batch, persons, writeKey);
+        }
+    }
+
+    private void insertBatch(List<Person> persons, String writeKey) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (personShards.isEnabled()) {
+                shardedPersonRepository.insert(persons, writeKey); // Shards commit with this transaction
+            } else {
+                long[] ids = idAllocator.allocate(persons.size());
+                for (int i = 0; i < persons.size(); i++) {
+                    persons.get(i).setId(ids[i]);
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, persons, persons.size(), (ps, person) -> {
+                    ps.setLong(1, person.getId());
+                    ps.setString(2, person.getName());
+                });
+            }
+            changeLog.record(Operation.INSERT, persons);
+        });
+    }
+
+    /**
+     * Creates the batch's persons one by one, except those whose shard already committed them:
+     * the batch transaction can fail after its shards committed, and inserting those again would
+     * duplicate them. Their change-log entry rolled back with the batch, so it is recorded again.
+     */
+    private void retryIndividually(List<PendingCreate> batch, List<Person> persons, String writeKey) {
+        Set<Integer> writtenShards = Set.of();
+        if (writeKey != null) {
+            try {
+                writtenShards = shardedPersonRepository.writtenShards(writeKey);
+            } catch (RuntimeException e) {
+                // Retrying blind could duplicate the shards that did commit
+                logger.error("Write-behind could not check which shards committed batch {}: {}", writeKey, e.getMessage());
+                for (int i = 0; i < batch.size(); i++) {
+                    fail(batch.get(i), e);
+                }
+                return;
+            }
+        }
+        List<Person> recovered = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Person person = persons.get(i);
+            if (writtenShards.contains(personShards.forName(person.getName()).index())) {
+                recovered.add(person);
+                batch.get(i).future().complete(person);
+            } else {
+                createIndividually(batch.get(i));
+            }
+        }
+        if (!recovered.isEmpty()) {
+            logger.warn("Write-behind batch {}: {} persons were already committed by their shards", writeKey,
+                    recovered.size());
+            try {
+                transactionTemplate.executeWithoutResult(status -> changeLog.record(Operation.INSERT, recovered));
+            } catch (RuntimeException e) {
+                logger.error("Write-behind could not log {} recovered inserts: {}", recovered.size(), e.getMessage());
+            }
+        }
+    }
+
+    private void createIndividually(PendingCreate pending) {
+        try {
+            pending.future().complete(personService.createPerson(pending.name()));
+        } catch (Exception e) {
+            fail(pending, e);
+        }
+    }
+
+    private void fail(PendingCreate pending, Exception e) {
+        if (pending.fastAck()) {
+            lostCreates.incrementAndGet();
+            logger.error("Write-behind create of '{}' failed after a fast ack, the person was not saved",
+                    pending.name(), e);
+        }
+        pending.future().completeExceptionally(e);
+    }
+
+    private record PendingCreate(String name, boolean fastAck, CompletableFuture<Person> future) {}
+
+    public record Status(boolean enabled, int queued, long lostCreates) {}
+}
@@ -0,0 +1,241 @@
+package com.example.demo.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Service responsible for reject files
+ * Rejected rows are appended as CSV lines (type,value,reason) to one file per
+ * job execution or upload, through a buffered FileChannel
+ */
+@Service
+public class RejectStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RejectStore.class);
+
+    private final Path rejectDirectory;
+    private final Map<String, RejectFileWriter> openWriters = new ConcurrentHashMap<>();
+
+    public RejectStore(@Value("${etl.reject.directory:rejects}") String rejectDirectory) {
+        this.rejectDirectory = Path.of(rejectDirectory).toAbsolutePath();
+    }
+
+    /**
+     * Appends one rejected row to the reject file of the given id
+     */
+    public void append(String id, String type, String value, String reason) {
+        RejectFileWriter writer = openWriters.computeIfAbsent(id, this::openWriter);
+        writer.write(csv(type) + "," + csv(value) + "," + csv(reason) + "\n");
+    }
+
+    /**
+     * Flushes and closes the reject file of the given id, if it was opened
+     */
+    public void close(String id) {
+        RejectFileWriter writer = openWriters.remove(id);
+        if (writer != null) {
+            writer.close();
+            logger.info("Reject file closed: {}", pathFor(id));
+        }
+    }
+
+    public Path pathFor(String id) {
+        if (!id.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalArgumentException("Invalid reject file id: " + id);
+        }
+        return rejectDirectory.resolve(id + ".rejects.csv");
+    }
+
+    public boolean exists(String id) {
+        return Files.isRegularFile(pathFor(id));
+    }
+
+    /**
+     * Deletes the reject files last written before the cutoff, except the ones still open
+     * @return the number of files deleted
+     */
+    public int purgeOlderThan(Instant cutoff) {
+        if (!Files.isDirectory(rejectDirectory)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (Stream<Path> files = Files.list(rejectDirectory)) {
+            for (Path path : files.filter(path -> path.getFileName().toString().endsWith(".rejects.csv")).toList()) {
+                String id = path.getFileName().toString().replace(".rejects.csv", "");
+                if (!openWriters.containsKey(id) && Files.getLastModifiedTime(path).toInstant().isBefore(cutoff)
+                        && Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not purge reject files in " + rejectDirectory, e);
+        }
+        return deleted;
+    }
+
+    /**
+     * Reads up to limit reject records starting at a byte cursor
+     * The returned nextCursor is the byte offset of the following record, so each page
+     * costs O(page size) no matter how deep into the file it is
+     */
+    public RejectPage readPage(String id, long cursor, int limit) {
+        Path path = pathFor(id);
+        List<RejectRecord> records = new ArrayList<>(Math.min(limit, 1000));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = Math.min(Math.max(cursor, 0), size);
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+            long lineStart = position;
+
+            while (records.size() < limit && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining() && records.size() < limit) {
+                    byte b = buffer.get();
+                    position++;
+                    if (b == '\n') {
+                        records.add(RejectRecord.parse(line.toString(StandardCharsets.UTF_8)));
+                        line.reset();
+                        lineStart = position;
+                    } else {
+                        line.write(b);
+                    }
+                }
+            }
+            return new RejectPage(records, lineStart, lineStart < size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read reject file for " + id, e);
+        }
+    }
+
+    private RejectFileWriter openWriter(String id) {
+        try {
+            Files.createDirectories(rejectDirectory);
+            return new RejectFileWriter(pathFor(id));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open reject file for " + id, e);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        String flat = value.replace('\n', ' ').replace('\r', ' ');
+        return "\"" + flat.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * One page of reject records
+     */
+    public record RejectPage(List<RejectRecord> records, long nextCursor, boolean hasMore) {}
+
+    /**
+     * One rejected row: DUPLICATE, ERROR or REJECTED, the offending value and the reason
+     */
+    public record RejectRecord(String type, String value, String reason) {
+
+        static RejectRecord parse(String line) {
+            List<String> fields = new ArrayList<>(3);
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+
+            while (fields.size() < 3) {
+                fields.add("");
+            }
+            return new RejectRecord(fields.get(0), fields.get(1), fields.get(2));
+        }
+    }
+
+    /**
+     * Append-only writer that batches lines in a direct buffer before hitting the channel
+     */
+    private static class RejectFileWriter {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+
+        RejectFileWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        synchronized void write(String line) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            try {
+                if (bytes.length > buffer.remaining()) {
+                    flush();
+                }
+                if (bytes.length > buffer.capacity()) {
+                    channel.write(ByteBuffer.wrap(bytes));
+                } else {
+                    buffer.put(bytes);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        synchronized void close() {
+            try {
+                flush();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,2 @@
+-- Key index read in order by POST /etl/merge-load; create it with the schema, before the first merge load
+CREATE INDEX PERSON_NAME_LOWER_IDX ON PERSON (LOWER(NAME)) ONLINE;
@@ -0,0 +1,4 @@
+CREATE SEQUENCE IF NOT EXISTS PERSON_SEQ START WITH 1 INCREMENT BY 1;
+CREATE TABLE IF NOT EXISTS PERSON (ID BIGINT NOT NULL PRIMARY KEY, NAME VARCHAR(255) NOT NULL);
+CREATE INDEX IF NOT EXISTS PERSON_NAME_IDX ON PERSON (NAME);
+CREATE TABLE IF NOT EXISTS PERSON_SHARD_WRITE (WRITE_KEY VARCHAR(200) NOT NULL PRIMARY KEY, WRITTEN_AT TIMESTAMP NOT NULL);
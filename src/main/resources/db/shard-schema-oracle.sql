@@ -0,0 +1,4 @@
+CREATE SEQUENCE PERSON_SEQ START WITH 1 INCREMENT BY 1 CACHE 1000;
+CREATE TABLE PERSON (ID NUMBER(19) NOT NULL PRIMARY KEY, NAME VARCHAR2(255 CHAR) NOT NULL);
+CREATE INDEX PERSON_NAME_IDX ON PERSON (NAME);
+CREATE TABLE PERSON_SHARD_WRITE (WRITE_KEY VARCHAR2(200 CHAR) NOT NULL PRIMARY KEY, WRITTEN_AT TIMESTAMP NOT NULL);
@@ -0,0 +1 @@
+CREATE TABLE IF NOT EXISTS PERSON_SPOOL_COMMIT (FRAME VARCHAR(240) NOT NULL PRIMARY KEY, COMMITTED_AT TIMESTAMP NOT NULL);
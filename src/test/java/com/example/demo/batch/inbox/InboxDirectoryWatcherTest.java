@@ -0,0 +1,118 @@
+package com.example.demo.batch.inbox;
+
+import com.example.demo.dto.ETLResponse;
+import com.example.demo.service.ETLJobService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tail mode of the inbox watcher, driven directly through ingest() without the watch thread
+ */
+class InboxDirectoryWatcherTest {
+
+    @TempDir
+    Path inbox;
+
+    private ETLJobService etlJobService;
+    private InboxDirectoryWatcher watcher;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        etlJobService = mock(ETLJobService.class);
+        when(etlJobService.executeFileSegment(any(), anyLong(), anyLong())).thenReturn(status("COMPLETED"));
+        watcher = new InboxDirectoryWatcher(etlJobService, inbox.toString(), 1000, 0);
+        file = inbox.resolve("people.csv");
+    }
+
+    @Test
+    void loadsAppendedCompleteLinesOnly() throws Exception {
+        Files.writeString(file, "name\nAna\nBo");
+        watcher.ingest(file);
+        verify(etlJobService).executeFileSegment(file, 0, 9);
+
+        Files.writeString(file, "b\nCarl\n", StandardOpenOption.APPEND);
+        watcher.ingest(file);
+        verify(etlJobService).executeFileSegment(file, 9, 18);
+        assertEquals(18, offsets().getCommittedOffset("people.csv"));
+    }
+
+    @Test
+    void idleUnterminatedLineIsNeverLoaded() throws Exception {
+        Files.writeString(file, "name\nAna\nBo");
+        watcher.ingest(file);
+        watcher.reportIdleTails();
+        watcher.ingest(file);
+
+        verify(etlJobService, times(1)).executeFileSegment(any(), anyLong(), anyLong());
+        assertEquals(9, offsets().getCommittedOffset("people.csv"));
+    }
+
+    @Test
+    void failedJobKeepsTheOffsetForARetry() throws Exception {
+        when(etlJobService.executeFileSegment(any(), anyLong(), anyLong()))
+                .thenReturn(status("FAILED"), status("COMPLETED"));
+        Files.writeString(file, "name\nAna\n");
+
+        watcher.ingest(file);
+        assertEquals(0, offsets().getCommittedOffset("people.csv"));
+
+        watcher.ingest(file);
+        verify(etlJobService, times(2)).executeFileSegment(file, 0, 9);
+        assertEquals(9, offsets().getCommittedOffset("people.csv"));
+    }
+
+    @Test
+    void shrunkFileIsHaltedInsteadOfReloaded() throws Exception {
+        Files.writeString(file, "name\nAna\nBo\n");
+        watcher.ingest(file);
+
+        Files.writeString(file, "name\nX\n");
+        watcher.ingest(file);
+        Files.writeString(file, "name\nX\nYolanda\nZed\n");
+        watcher.ingest(file);
+
+        verify(etlJobService, times(1)).executeFileSegment(any(), anyLong(), anyLong());
+        assertTrue(offsets().isHalted("people.csv"));
+
+        Path renamed = inbox.resolve("people-2.csv");
+        Files.move(file, renamed);
+        watcher.ingest(renamed);
+        verify(etlJobService, never()).executeFileSegment(file, 0, 19);
+        verify(etlJobService).executeFileSegment(renamed, 0, 19);
+    }
+
+    @Test
+    void ignoresHiddenAndNonCsvFiles() throws Exception {
+        Files.writeString(inbox.resolve(".hidden.csv"), "name\nAna\n");
+        Files.writeString(inbox.resolve("notes.txt"), "name\nAna\n");
+
+        watcher.ingest(inbox.resolve(".hidden.csv"));
+        watcher.ingest(inbox.resolve("notes.txt"));
+
+        verify(etlJobService, never()).executeFileSegment(any(), anyLong(), anyLong());
+    }
+
+    private InboxOffsetStore offsets() {
+        return new InboxOffsetStore(inbox);
+    }
+
+    private static ETLResponse status(String status) {
+        return ETLResponse.builder().status(status).build();
+    }
+}
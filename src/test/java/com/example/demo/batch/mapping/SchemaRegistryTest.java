@@ -0,0 +1,132 @@
+package com.example.demo.batch.mapping;
+
+import com.example.demo.batch.model.PersonCSVData;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Configured schemas compiled against PersonCSVData and against a typed multi-column target
+ */
+class SchemaRegistryTest {
+
+    private final SchemaRegistry registry = new SchemaRegistry(new MockEnvironment()
+            .withProperty("etl.schema.crm.delimiter", ";")
+            .withProperty("etl.schema.crm.columns",
+                    "full_name:rawName, customer_id:customerId:long, age:age:int, since:since:date, active:active:boolean"));
+
+    @Test
+    void mapsEveryTypedColumnByHeader() {
+        SchemaLineMapper<CrmRow> mapper = registry.schema("crm", CrmRow.class).newLineMapper();
+        mapper.bindHeader("active;region;since;age;customer_id;full_name");
+
+        CrmRow row = mapper.mapLine("true;south;2019-03-01;41;9000000001;Ana Lima", 2);
+
+        assertEquals("Ana Lima", row.getRawName());
+        assertEquals(9_000_000_001L, row.getCustomerId());
+        assertEquals(41, row.getAge());
+        assertEquals(LocalDate.of(2019, 3, 1), row.getSince());
+        assertEquals(true, row.isActive());
+        assertEquals(2, row.getLineNumber());
+    }
+
+    @Test
+    void blankTypedValuesStayUnset() {
+        SchemaLineMapper<CrmRow> mapper = registry.schema("crm", CrmRow.class).newLineMapper();
+        mapper.bindHeader("full_name;customer_id;age;since;active");
+
+        CrmRow row = mapper.mapLine("Ana Lima;;;;", 3);
+
+        assertEquals(0L, row.getCustomerId());
+        assertNull(row.getSince());
+    }
+
+    @Test
+    void personTargetOnlyReceivesTheNameColumn() {
+        SchemaLineMapper<PersonCSVData> mapper = registry.personSchema(null).newLineMapper();
+        mapper.bindHeader("id,name");
+        assertEquals("Ana Lima", mapper.mapLine("7,Ana Lima", 2).getRawName());
+
+        // The crm schema has typed columns PersonCSVData has no setter for
+        assertThrows(IllegalArgumentException.class, () -> registry.personSchema("crm"));
+    }
+
+    @Test
+    void compilesOncePerTargetClass() {
+        assertSame(registry.schema("crm", CrmRow.class), registry.schema("crm", CrmRow.class));
+        assertThrows(IllegalArgumentException.class, () -> registry.schema("unknown", CrmRow.class));
+    }
+
+    @Test
+    void fingerprintChangesWithTheDefinition() {
+        CsvSchema comma = CsvSchema.parse("crm", ",", "full_name:rawName", null);
+
+        assertEquals(comma.fingerprint(), CsvSchema.parse("crm", ",", " full_name : rawName ", null).fingerprint());
+        assertNotEquals(comma.fingerprint(), CsvSchema.parse("crm", ";", "full_name:rawName", null).fingerprint());
+        assertNotEquals(comma.fingerprint(), CsvSchema.parse("crm", ",", "name:rawName", null).fingerprint());
+    }
+
+    public static class CrmRow {
+        private String rawName;
+        private long customerId;
+        private int age;
+        private LocalDate since;
+        private boolean active;
+        private int lineNumber;
+
+        public String getRawName() {
+            return rawName;
+        }
+
+        public void setRawName(String rawName) {
+            this.rawName = rawName;
+        }
+
+        public long getCustomerId() {
+            return customerId;
+        }
+
+        public void setCustomerId(long customerId) {
+            this.customerId = customerId;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public LocalDate getSince() {
+            return since;
+        }
+
+        public void setSince(LocalDate since) {
+            this.since = since;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        public void setLineNumber(int lineNumber) {
+            this.lineNumber = lineNumber;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.batch.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Rule semantics of the fused NameRuleChain (allocation is measured by NameRuleChainAllocationIT)
+ */
+class NameRuleChainTest {
+
+    @Test
+    void appliesRulesInOnePass() {
+        NameRuleChain chain = NameRuleChain.compile("trim,collapse,fold,capitalize,length:2-20,blacklist",
+                List.of("test"));
+
+        assertEquals("Joao Da Silva", chain.apply("  joÃO \t da   SILVA "));
+        assertNull(chain.apply("x"), "shorter than min length");
+        assertNull(chain.apply("a very long name that goes past twenty"), "longer than max length");
+        assertNull(chain.apply("Maria TEST"), "blacklisted word");
+        assertEquals("Testa", chain.apply("testa"), "blacklist matches whole words only");
+    }
+
+    @Test
+    void defaultChainMatchesLegacyCapitalization() {
+        NameRuleChain chain = NameRuleChain.compile("trim,collapse,capitalize", List.of());
+
+        assertEquals("João Silva", chain.apply(" joão  SILVA"));
+        assertEquals("Maria Santos", chain.apply("mARIA santos"));
+    }
+
+    @Test
+    void rejectsUnknownRules() {
+        assertThrows(IllegalArgumentException.class, () -> NameRuleChain.compile("trim,soundex", List.of()));
+    }
+
+    @Test
+    void returnsInputWhenUnchanged() {
+        NameRuleChain chain = NameRuleChain.compile("trim,collapse,capitalize", List.of());
+        String name = "Maria Santos";
+
+        assertSame(name, chain.apply(name));
+    }
+}
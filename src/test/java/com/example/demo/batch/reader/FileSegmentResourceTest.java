@@ -0,0 +1,77 @@
+package com.example.demo.batch.reader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Byte-range reads and line boundary search used by the inbox tail mode
+ */
+class FileSegmentResourceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsOnlyTheSegment() throws IOException {
+        Path file = write("name\nAna\nBo\n");
+        FileSegmentResource segment = new FileSegmentResource(file, 5, 9);
+
+        assertEquals(4, segment.contentLength());
+        assertEquals("Ana\n", read(segment));
+        assertEquals("", read(new FileSegmentResource(file, 9, 9)));
+    }
+
+    @Test
+    void skipStopsAtTheEndOfTheSegment() throws IOException {
+        Path file = write("name\nAna\nBo\n");
+        try (InputStream in = new FileSegmentResource(file, 5, 9).getInputStream()) {
+            assertEquals(4, in.skip(100));
+            assertEquals(-1, in.read());
+        }
+    }
+
+    @Test
+    void rejectsInvalidRanges() throws IOException {
+        Path file = write("name\n");
+        assertThrows(IllegalArgumentException.class, () -> new FileSegmentResource(file, -1, 3));
+        assertThrows(IllegalArgumentException.class, () -> new FileSegmentResource(file, 4, 3));
+    }
+
+    @Test
+    void lastLineBoundaryStopsBeforeAPartialLine() throws IOException {
+        Path file = write("name\nAna\nBo");
+
+        assertEquals(9, FileSegmentResource.lastLineBoundary(file, 0, 11));
+        assertEquals(9, FileSegmentResource.lastLineBoundary(file, 5, 11));
+        assertEquals(9, FileSegmentResource.lastLineBoundary(file, 9, 11));
+        assertEquals(5, FileSegmentResource.lastLineBoundary(file, 0, 8));
+    }
+
+    @Test
+    void lastLineBoundarySearchesAcrossBlocks() throws IOException {
+        String line = "x".repeat(20_000);
+        Path file = write("name\n" + line);
+
+        assertEquals(5, FileSegmentResource.lastLineBoundary(file, 0, 5 + line.length()));
+        assertEquals(10, FileSegmentResource.lastLineBoundary(file, 10, 5 + line.length()));
+    }
+
+    private Path write(String content) throws IOException {
+        return Files.writeString(directory.resolve("people.csv"), content);
+    }
+
+    private static String read(FileSegmentResource segment) throws IOException {
+        try (InputStream in = segment.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
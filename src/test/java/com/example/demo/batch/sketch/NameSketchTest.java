@@ -0,0 +1,94 @@
+package com.example.demo.batch.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy, merging and serialization of NameSketch
+ */
+class NameSketchTest {
+
+    private static final int DISTINCT = 100_000;
+
+    @Test
+    void estimatesDistinctNamesCaseInsensitively() {
+        NameSketch sketch = new NameSketch();
+        for (int i = 0; i < DISTINCT; i++) {
+            sketch.add("Person " + i);
+            sketch.add(" PERSON " + i + " "); // Same name: trimmed and lower-cased
+        }
+
+        long estimate = (Long) sketch.summary().get("distinctNames");
+        assertTrue(Math.abs(estimate - DISTINCT) < DISTINCT * 0.05, "estimate " + estimate);
+    }
+
+    @Test
+    void findsTheMostFrequentNames() {
+        NameSketch sketch = new NameSketch();
+        for (int i = 0; i < 50_000; i++) {
+            sketch.add("Unique " + i);
+            if (i % 10 == 0) {
+                sketch.add("Maria Silva");
+            }
+            if (i % 25 == 0) {
+                sketch.add("João Souza");
+            }
+        }
+
+        List<Map<String, Object>> top = topNames(sketch);
+        assertEquals("maria silva", top.get(0).get("name"));
+        assertEquals("joão souza", top.get(1).get("name"));
+        long count = (Long) top.get(0).get("count");
+        long overcount = (Long) top.get(0).get("maxOvercount");
+        assertTrue(count - overcount <= 5_000 && 5_000 <= count, "count " + count + " - " + overcount);
+    }
+
+    @Test
+    void mergedPartitionsMatchOneSketchOfTheWhole() {
+        NameSketch whole = new NameSketch();
+        NameSketch first = new NameSketch();
+        NameSketch second = new NameSketch();
+        for (int i = 0; i < DISTINCT; i++) {
+            String name = i % 7 == 0 ? "Ana Lima" : "Name " + (i % 40_000);
+            whole.add(name);
+            (i < DISTINCT / 2 ? first : second).add(name);
+        }
+
+        NameSketch merged = NameSketch.fromBytes(first.toBytes()).merge(NameSketch.fromBytes(second.toBytes()));
+
+        Map<String, Object> expected = whole.summary();
+        Map<String, Object> actual = merged.summary();
+        assertEquals(expected.get("names"), actual.get("names"));
+        assertEquals(expected.get("distinctNames"), actual.get("distinctNames"), "same registers after merging");
+        assertEquals(expected.get("nameLength"), actual.get("nameLength"));
+        assertEquals("ana lima", topNames(merged).get(0).get("name"));
+    }
+
+    @Test
+    void summarizesLengthsAndBlankNames() {
+        NameSketch sketch = new NameSketch();
+        sketch.add("Ana");
+        sketch.add("Bruno Costa");
+        sketch.add("   ");
+        sketch.add(null);
+
+        Map<String, Object> summary = sketch.summary();
+        assertEquals(2L, summary.get("names"));
+        assertEquals(2L, summary.get("blankNames"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> lengths = (Map<String, Object>) summary.get("nameLength");
+        assertEquals(3, lengths.get("min"));
+        assertEquals(11, lengths.get("max"));
+        assertEquals(Map.of("0-9", 1L, "10-19", 1L), lengths.get("histogram"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> topNames(NameSketch sketch) {
+        return (List<Map<String, Object>>) sketch.summary().get("topNames");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.batch.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Space-Saving guarantees on a skewed stream, checked against exact counts
+ */
+class SpaceSavingTest {
+
+    private static final int CAPACITY = 16;
+    private static final int ROWS = 200_000;
+
+    @Test
+    void boundsEveryCountAndKeepsTheHeavyHitters() {
+        SpaceSaving summary = new SpaceSaving(CAPACITY);
+        Map<String, Long> exact = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < ROWS; i++) {
+            // Skewed: key k is drawn about twice as often as key 2k
+            String key = "k" + (int) Math.floor(Math.pow(2, random.nextDouble() * 12));
+            summary.add(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Entry> top = summary.top(CAPACITY);
+        assertEquals(ROWS, top.stream().mapToLong(SpaceSaving.Entry::count).sum(), "counts add up to the stream");
+        for (SpaceSaving.Entry entry : top) {
+            long actual = exact.get(entry.key());
+            assertTrue(entry.count() - entry.error() <= actual && actual <= entry.count(), entry + " vs " + actual);
+        }
+        exact.forEach((key, count) -> {
+            if (count > ROWS / CAPACITY) {
+                assertTrue(top.stream().anyMatch(entry -> entry.key().equals(key)), key + " seen " + count + " times");
+            }
+        });
+    }
+
+    @Test
+    void evictsTheSmallestCounter() {
+        SpaceSaving summary = new SpaceSaving(2);
+        summary.add("a");
+        summary.add("a");
+        summary.add("b");
+        summary.add("c"); // Replaces b, inheriting its count as error
+
+        assertEquals(List.of(new SpaceSaving.Entry("a", 2, 0), new SpaceSaving.Entry("c", 2, 1)), summary.top(2));
+    }
+
+    @Test
+    void restoredCountersKeepTheirOrder() {
+        SpaceSaving restored = new SpaceSaving(3);
+        restored.put("b", 5, 0);
+        restored.put("a", 9, 2);
+        restored.put("c", 1, 0);
+
+        restored.add("d"); // Replaces c, the smallest
+        restored.add("b");
+
+        assertEquals(List.of(new SpaceSaving.Entry("a", 9, 2), new SpaceSaving.Entry("b", 6, 0),
+                new SpaceSaving.Entry("d", 2, 1)), restored.top(3));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.demo.batch.spool;
+
+import com.example.demo.batch.spool.PersonSpool.Batch;
+import com.example.demo.batch.spool.PersonSpool.Frame;
+import com.example.demo.batch.spool.PersonSpool.Stop;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Segment format, frame states and recovery of PersonSpool
+ */
+class PersonSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsCommittedFramesInOrder() throws IOException {
+        PersonSpool spool = newSpool();
+        Frame first = spool.append(List.of("Ana Lima", "João Souza"));
+        Frame second = spool.append(List.of("Maria Silva"));
+        spool.commit(first);
+        spool.commit(second);
+
+        Batch batch = spool.read(first.segment(), 0, 100);
+
+        assertEquals(List.of("Ana Lima", "João Souza", "Maria Silva"), batch.names());
+        assertEquals(List.of(first.offset(), second.offset()), batch.frames());
+        assertEquals(Stop.END, batch.stop());
+        assertEquals(Files.size(first.segment()), batch.nextOffset());
+        spool.close();
+    }
+
+    @Test
+    void waitsAtRunningChunkAndSkipsAbortedOnes() throws IOException {
+        PersonSpool spool = newSpool();
+        Frame rolledBack = spool.append(List.of("Ana Lima"));
+        Frame committed = spool.append(List.of("Maria Silva"));
+        spool.commit(committed);
+
+        Batch waiting = spool.read(rolledBack.segment(), 0, 100);
+        assertEquals(Stop.PENDING, waiting.stop());
+        assertEquals(rolledBack.offset(), waiting.nextOffset());
+
+        spool.abort(rolledBack);
+        Batch batch = spool.read(rolledBack.segment(), 0, 100);
+        assertEquals(List.of("Maria Silva"), batch.names());
+        assertEquals(Stop.END, batch.stop());
+        spool.close();
+    }
+
+    @Test
+    void pendingFrameWithoutOwnerIsInDoubt() throws IOException {
+        PersonSpool crashed = newSpool();
+        Frame frame = crashed.append(List.of("Ana Lima"));
+        crashed.close(); // Neither committed nor aborted: the process died
+
+        PersonSpool restarted = newSpool();
+        Batch batch = restarted.read(frame.segment(), 0, 100);
+        assertEquals(Stop.IN_DOUBT, batch.stop());
+        assertEquals(frame.offset(), batch.nextOffset());
+
+        restarted.commit(frame);
+        assertEquals(List.of("Ana Lima"), restarted.read(frame.segment(), 0, 100).names());
+        restarted.close();
+    }
+
+    @Test
+    void cutsOffTornTailOnRecovery() throws IOException {
+        PersonSpool crashed = newSpool();
+        Frame frame = crashed.append(List.of("Ana Lima"));
+        crashed.commit(frame);
+        crashed.close();
+        long intact = Files.size(frame.segment());
+        try (FileChannel channel = FileChannel.open(frame.segment(), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{PersonSpool.PENDING, 0, 0, 0, 1, 0})); // Half a header
+        }
+
+        PersonSpool restarted = newSpool();
+        assertEquals(List.of(frame.segment()), restarted.segments()); // Recovers on first use, like the drainer
+        Batch batch = restarted.read(frame.segment(), 0, 100);
+
+        assertEquals(intact, Files.size(frame.segment()));
+        assertEquals(List.of("Ana Lima"), batch.names());
+        assertEquals(Stop.END, batch.stop());
+        restarted.close();
+    }
+
+    @Test
+    void detectsDamagedPayload() throws IOException {
+        PersonSpool spool = newSpool();
+        Frame frame = spool.append(List.of("Ana Lima"));
+        spool.commit(frame);
+        try (FileChannel channel = FileChannel.open(frame.segment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}), frame.offset() + PersonSpool.FRAME_HEADER_BYTES + 4);
+        }
+
+        Batch batch = spool.read(frame.segment(), 0, 100);
+
+        assertEquals(Stop.CORRUPT, batch.stop());
+        assertEquals(frame.offset(), batch.nextOffset());
+        spool.close();
+    }
+
+    private PersonSpool newSpool() {
+        return new PersonSpool(directory.toString(), 64, 1024);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.demo.batch.spool;
+
+import com.example.demo.batch.spool.PersonSpool.Frame;
+import com.example.demo.batch.writer.SpoolingPersonWriter;
+import com.example.demo.model.Person;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.service.PersonChangeLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.batch.item.Chunk;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Spool writer and drainer against an embedded database, including frames left in doubt by a crash
+ */
+class SpoolDrainerTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private SpoolCommitRecords commitRecords;
+
+    @BeforeEach
+    void createDatabase() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/shard-schema-h2.sql") // PERSON and PERSON_SEQ
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("CREATE TABLE PERSON_SPOOL_OFFSET (SEGMENT VARCHAR(200) PRIMARY KEY, "
+                + "COMMITTED_OFFSET BIGINT NOT NULL, UPDATED_AT TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE PERSON_SPOOL_COMMIT (FRAME VARCHAR(240) PRIMARY KEY, "
+                + "COMMITTED_AT TIMESTAMP NOT NULL)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(database));
+        commitRecords = new SpoolCommitRecords(jdbcTemplate);
+    }
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void writerFollowsTheChunkTransaction() throws Exception {
+        PersonSpool spool = newSpool();
+        SpoolingPersonWriter writer = new SpoolingPersonWriter(spool, commitRecords);
+
+        transactionTemplate.executeWithoutResult(status -> write(writer, "Ana Lima"));
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            write(writer, "Rolled Back");
+            throw new IllegalStateException("chunk failed");
+        }));
+
+        drainAll(newDrainer(spool));
+        assertEquals(List.of("Ana Lima"), names());
+        assertEquals(0, count("PERSON_SPOOL_COMMIT"));
+    }
+
+    @Test
+    void framesInDoubtAfterACrashAreDrainedOnlyIfTheirChunkCommitted() throws Exception {
+        PersonSpool crashed = newSpool();
+        Frame committedChunk = crashed.append(List.of("Ana Lima", "João Souza"));
+        commitRecords.record(crashed.frameKey(committedChunk)); // Chunk committed, crash before marking
+        crashed.append(List.of("Never Committed")); // Crash before the chunk committed
+        Frame marked = crashed.append(List.of("Maria Silva"));
+        commitRecords.record(crashed.frameKey(marked));
+        crashed.commit(marked);
+        crashed.close();
+
+        PersonSpool restarted = newSpool();
+        drainAll(newDrainer(restarted));
+
+        assertEquals(List.of("Ana Lima", "João Souza", "Maria Silva"), names());
+        assertEquals(0, count("PERSON_SPOOL_COMMIT"));
+        assertEquals(0, count("PERSON_SPOOL_OFFSET"));
+        assertFalse(Files.exists(committedChunk.segment()), "drained segment deleted");
+    }
+
+    private void write(SpoolingPersonWriter writer, String name) {
+        writer.write(new Chunk<>(List.of(new Person(name))));
+    }
+
+    private PersonSpool newSpool() {
+        return new PersonSpool(directory.toString(), 64, 1024);
+    }
+
+    private SpoolDrainer newDrainer(PersonSpool spool) throws Exception {
+        return new SpoolDrainer(spool, commitRecords, new PersonIdAllocator(jdbcTemplate), mock(PersonChangeLog.class),
+                jdbcTemplate, new DataSourceTransactionManager(database), 100, 10, 10);
+    }
+
+    private static void drainAll(SpoolDrainer drainer) throws Exception {
+        for (int i = 0; i < 20 && drainer.drainOnce(); i++) {
+            // Until nothing more is waiting
+        }
+        drainer.drainOnce(); // Deletes the segment drained to its end
+    }
+
+    private List<String> names() {
+        return jdbcTemplate.queryForList("SELECT NAME FROM PERSON ORDER BY ID", String.class);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
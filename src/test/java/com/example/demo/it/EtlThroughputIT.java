@@ -0,0 +1,210 @@
+package com.example.demo.it;
+
+import com.example.demo.model.Person;
+import com.example.demo.support.HeapWatcher;
+import com.example.demo.support.PersonCsvGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end throughput regression suite (mvn -Pperf verify)
+ *
+ * Runs importPersonJob, /etl/upload and the person CRUD endpoints against an embedded H2
+ * database with generated files, appends throughput and peak heap of each run to
+ * target/perf/results.csv and fails when one falls past its threshold.
+ *
+ * Sizes and thresholds are system properties (defaults in the perf profile of the pom):
+ * perf.import.rows, perf.import.min-rows-per-second, perf.upload.rows,
+ * perf.upload.min-rows-per-second, perf.crud.requests, perf.crud.min-requests-per-second,
+ * perf.max-live-heap-mb
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("it")
+class EtlThroughputIT {
+
+    private static final Path RESULTS = Path.of("target", "perf", "results.csv");
+
+    private static final long MB = 1024 * 1024;
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_MAP = new ParameterizedTypeReference<>() {};
+
+    @TempDir
+    static Path dataDirectory;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final long maxLiveHeapMb = Long.getLong("perf.max-live-heap-mb", 384);
+
+    @BeforeEach
+    void emptyTables() {
+        jdbcTemplate.update("DELETE FROM PERSON");
+        jdbcTemplate.update("DELETE FROM ETL_INGESTED_FILE");
+    }
+
+    @Test
+    void importJobThroughput() throws IOException {
+        long rows = Long.getLong("perf.import.rows", 20_000);
+        long minRowsPerSecond = Long.getLong("perf.import.min-rows-per-second", 200);
+        Path file = dataDirectory.resolve("import.csv");
+        PersonCsvGenerator.Stats stats = new PersonCsvGenerator(42, 0.05, 0.01).generate(file, rows);
+
+        Map<String, Object> body;
+        long elapsed;
+        long peakLive;
+        long peakUsed;
+        try (HeapWatcher heap = new HeapWatcher()) {
+            long start = System.nanoTime();
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                    "/etl/run?file={file}&force=true", HttpMethod.POST, null, JSON_MAP, file.toAbsolutePath().toString());
+            elapsed = millisSince(start);
+            peakLive = heap.peakLiveBytes();
+            peakUsed = heap.peakUsedBytes();
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            body = response.getBody();
+        }
+
+        assertNotNull(body);
+        assertEquals("COMPLETED", body.get("status"));
+        assertEquals((int) stats.validRows(), body.get("writeCount"), "the batch job keeps duplicates, drops blank names");
+        assertEquals(stats.validRows(), count());
+
+        long rowsPerSecond = record("importPersonJob", rows, stats.sizeBytes(), elapsed, peakUsed, peakLive);
+        assertThresholds("importPersonJob", rowsPerSecond, minRowsPerSecond, peakLive);
+    }
+
+    @Test
+    void uploadThroughput() throws IOException {
+        long rows = Long.getLong("perf.upload.rows", 5_000);
+        long minRowsPerSecond = Long.getLong("perf.upload.min-rows-per-second", 100);
+        Path file = dataDirectory.resolve("upload.csv");
+        PersonCsvGenerator.Stats stats = new PersonCsvGenerator(7, 0.10, 0.01).generate(file, rows);
+
+        MultiValueMap<String, Object> form = new LinkedMultiValueMap<>();
+        form.add("file", new FileSystemResource(file));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+
+        Map<String, Object> body;
+        long elapsed;
+        long peakLive;
+        long peakUsed;
+        try (HeapWatcher heap = new HeapWatcher()) {
+            long start = System.nanoTime();
+            ResponseEntity<Map<String, Object>> response = restTemplate.exchange(
+                    "/etl/upload?force=true", HttpMethod.POST, new HttpEntity<>(form, headers), JSON_MAP);
+            elapsed = millisSince(start);
+            peakLive = heap.peakLiveBytes();
+            peakUsed = heap.peakUsedBytes();
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            body = response.getBody();
+        }
+
+        assertNotNull(body);
+        assertEquals((int) stats.uniqueRows(), body.get("writeCount"));
+        assertEquals((int) stats.duplicateRows(), body.get("duplicateCount"), "duplicates differ only in case");
+        assertEquals(stats.uniqueRows(), count());
+
+        long rowsPerSecond = record("upload", rows, stats.sizeBytes(), elapsed, peakUsed, peakLive);
+        assertThresholds("upload", rowsPerSecond, minRowsPerSecond, peakLive);
+    }
+
+    @Test
+    void crudThroughput() throws IOException {
+        int requests = Integer.getInteger("perf.crud.requests", 1_000);
+        long minRequestsPerSecond = Long.getLong("perf.crud.min-requests-per-second", 100);
+
+        long elapsed;
+        long peakLive;
+        long peakUsed;
+        try (HeapWatcher heap = new HeapWatcher()) {
+            long start = System.nanoTime();
+            List<Long> ids = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                ResponseEntity<Person> created = restTemplate.postForEntity(
+                        "/person/create?name={name}", null, Person.class, "Person " + i);
+                assertEquals(HttpStatus.OK, created.getStatusCode());
+                ids.add(created.getBody().getId());
+            }
+            for (Long id : ids) {
+                assertEquals(HttpStatus.OK, restTemplate.getForEntity("/person/id/{id}", Person.class, id).getStatusCode());
+                restTemplate.put("/person/{id}?name={name}", null, id, "Renamed " + id);
+                restTemplate.delete("/person/{id}", id);
+            }
+            elapsed = millisSince(start);
+            peakLive = heap.peakLiveBytes();
+            peakUsed = heap.peakUsedBytes();
+        }
+        assertEquals(0, count());
+
+        long requestsPerSecond = record("crud", requests * 4L, 0, elapsed, peakUsed, peakLive);
+        assertThresholds("crud", requestsPerSecond, minRequestsPerSecond, peakLive);
+    }
+
+    private long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PERSON", Long.class);
+        return count != null ? count : 0;
+    }
+
+    private void assertThresholds(String run, long perSecond, long minPerSecond, long peakLiveBytes) {
+        assertTrue(perSecond >= minPerSecond,
+                run + ": " + perSecond + "/s is below the threshold of " + minPerSecond + "/s");
+        assertTrue(peakLiveBytes / MB <= maxLiveHeapMb,
+                run + ": peak live heap " + peakLiveBytes / MB + " MB is above the threshold of " + maxLiveHeapMb + " MB");
+    }
+
+    /**
+     * Appends one line to target/perf/results.csv
+     * @return items per second
+     */
+    private static long record(String run, long items, long bytes, long elapsedMs, long peakUsed, long peakLive)
+            throws IOException {
+        long perSecond = elapsedMs > 0 ? items * 1000 / elapsedMs : items;
+        Files.createDirectories(RESULTS.getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, "run,items,bytes,elapsedMs,itemsPerSecond,peakUsedMb,peakLiveMb\n",
+                    StandardCharsets.UTF_8);
+        }
+        Files.writeString(RESULTS, String.join(",", run, Long.toString(items), Long.toString(bytes),
+                        Long.toString(elapsedMs), Long.toString(perSecond), Long.toString(peakUsed / MB),
+                        Long.toString(peakLive / MB)) + "\n",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        return perSecond;
+    }
+
+    private static long millisSince(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
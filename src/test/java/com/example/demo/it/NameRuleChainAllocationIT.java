@@ -0,0 +1,54 @@
+package com.example.demo.it;
+
+import com.example.demo.batch.processor.NameRuleChain;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bytes allocated per item by the fused NameRuleChain, part of the perf suite (mvn -Pperf verify)
+ *
+ * Measured with the thread allocation counter after a warm-up, so the numbers depend on the JIT;
+ * an already-normalized name must not allocate and a changed name allocates only its result.
+ * Thresholds: perf.rules.max-unchanged-bytes, perf.rules.max-changed-bytes
+ */
+class NameRuleChainAllocationIT {
+
+    private static final int ITERATIONS = 200_000;
+
+    @Test
+    void allocationPerItem() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        NameRuleChain chain = NameRuleChain.compile("trim,collapse,fold,capitalize,length:2-100,blacklist",
+                List.of("test", "null"));
+        String unchanged = "Maria Santos Oliveira";
+        String changed = "  mARIA   sÃntos oliveira ";
+
+        // Warm up so the measurement covers compiled code
+        for (int i = 0; i < ITERATIONS; i++) {
+            chain.apply(unchanged);
+            chain.apply(changed);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            chain.apply(unchanged);
+        }
+        double unchangedBytes = (threads.getCurrentThreadAllocatedBytes() - before) / (double) ITERATIONS;
+
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            chain.apply(changed);
+        }
+        double changedBytes = (threads.getCurrentThreadAllocatedBytes() - before) / (double) ITERATIONS;
+
+        long maxUnchanged = Long.getLong("perf.rules.max-unchanged-bytes", 8);
+        // One String of 21 Latin-1 chars: ~24 B header + ~40 B byte[]
+        long maxChanged = Long.getLong("perf.rules.max-changed-bytes", 96);
+        assertTrue(unchangedBytes < maxUnchanged, "unchanged name allocated " + unchangedBytes + " B/item");
+        assertTrue(changedBytes < maxChanged, "changed name allocated " + changedBytes + " B/item");
+    }
+}
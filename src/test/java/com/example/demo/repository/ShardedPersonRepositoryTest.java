@@ -0,0 +1,118 @@
+package com.example.demo.repository;
+
+import com.example.demo.model.Person;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shard writes against embedded shards, including a main transaction that fails after the shards committed
+ */
+class ShardedPersonRepositoryTest {
+
+    private PersonShards shards;
+    private ShardedPersonRepository repository;
+    private EmbeddedDatabase mainDatabase;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        shards = new PersonShards(new MockEnvironment()
+                .withProperty("etl.shards.enabled", "true")
+                .withProperty("etl.shards.count", "2"));
+        repository = new ShardedPersonRepository(shards, 5000, 168, 1000);
+        mainDatabase = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(mainDatabase));
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.destroy();
+        shards.destroy();
+        mainDatabase.shutdown();
+    }
+
+    @Test
+    void keyedWriteRepeatedAfterAFailedCommitIsNotDuplicated() {
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            repository.insert(persons("Ana", "Bo", "Carl", "Dana"), "job:1");
+            // Registered after the shards' synchronization, so it fails the commit once they committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    throw new IllegalStateException("main commit failed");
+                }
+            });
+        }));
+        assertEquals(4, total());
+        assertEquals(shardsOf("Ana", "Bo", "Carl", "Dana"), repository.writtenShards("job:1"));
+
+        transactionTemplate.executeWithoutResult(status ->
+                repository.insert(persons("Ana", "Bo", "Carl", "Dana"), "job:1"));
+        assertEquals(4, total());
+
+        transactionTemplate.executeWithoutResult(status ->
+                repository.insert(persons("Ana", "Bo", "Carl", "Dana"), "job:2"));
+        assertEquals(8, total());
+    }
+
+    @Test
+    void shardWritesRollBackWithTheTransaction() {
+        Person ana = persons("Ana").get(0);
+        repository.insert(List.of(ana));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.insert(persons("Bo"), "job:3");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.update(ana.getId(), "Anna");
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.deleteById(ana.getId());
+            status.setRollbackOnly();
+        });
+
+        assertEquals(1, total());
+        assertEquals("Ana", repository.findById(ana.getId()).orElseThrow().getName());
+        assertTrue(repository.writtenShards("job:3").isEmpty());
+
+        transactionTemplate.executeWithoutResult(status -> repository.update(ana.getId(), "Anna"));
+        assertEquals("Anna", repository.findById(ana.getId()).orElseThrow().getName());
+    }
+
+    private long total() {
+        return repository.countByShard().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private Set<Integer> shardsOf(String... names) {
+        return Arrays.stream(names)
+                .map(name -> shards.forName(name).index())
+                .collect(Collectors.toSet());
+    }
+
+    private static List<Person> persons(String... names) {
+        return Arrays.stream(names).map(Person::new).toList();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.batch.admission.JobAdmissionController;
+import com.example.demo.batch.mapping.SchemaRegistry;
+import com.example.demo.batch.processor.PersonDataProcessor;
+import com.example.demo.repository.PersonIdAllocator;
+import com.example.demo.repository.PersonShards;
+import com.example.demo.service.MergeLoadService.MergeLoadException;
+import com.example.demo.service.MergeLoadService.MergeLoadResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Merge load against an embedded database: dedupe within the file and against PERSON, multi-pass merges
+ */
+class MergeLoadServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private PersonChangeLog changeLog;
+    private MergeLoadService service;
+
+    @BeforeEach
+    void createService() throws Exception {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("db/shard-schema-h2.sql") // PERSON and PERSON_SEQ
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        changeLog = mock(PersonChangeLog.class);
+        JobAdmissionController admission = new JobAdmissionController(database, 1, 2, 0, 1, 1000);
+        // Runs of 1000 names merged two at a time, so larger files need extra merge passes
+        service = new MergeLoadService(database, new PersonIdAllocator(jdbcTemplate),
+                new PersonDataProcessor("trim,collapse,capitalize", ""), new SchemaRegistry(new MockEnvironment()),
+                changeLog, mock(PersonShards.class), admission, directory.resolve("runs").toString(),
+                1000, 2, 50, 100, 250);
+    }
+
+    @AfterEach
+    void shutdown() {
+        database.shutdown();
+    }
+
+    @Test
+    void loadsOnlyNamesNotInPersonOrEarlierInTheFile() throws Exception {
+        jdbcTemplate.update("INSERT INTO PERSON (ID, NAME) VALUES (NEXT VALUE FOR PERSON_SEQ, 'Ana Lima')");
+        jdbcTemplate.update("INSERT INTO PERSON (ID, NAME) VALUES (NEXT VALUE FOR PERSON_SEQ, 'Zoe Adams')");
+        Path file = csv(List.of("ana lima", "Bruno Costa", "  bruno   COSTA ", "", "Carla Dias", "Zoe Adams"));
+
+        MergeLoadResult result = service.mergeLoad(file, null, null);
+
+        assertEquals(5, result.readCount());
+        assertEquals(2, result.writeCount());
+        assertEquals(2, result.alreadyInPerson());
+        assertEquals(1, result.repeatedInFile());
+        assertEquals(List.of("Ana Lima", "Bruno Costa", "Carla Dias", "Zoe Adams"), names());
+        verify(changeLog).recordReset("mergeLoad");
+    }
+
+    @Test
+    void mergesRunsInSeveralPassesAndSkipsLoadedNamesOnASecondRun() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 4500; i++) {
+            lines.add("Name " + i);
+        }
+        for (int i = 4499; i >= 0; i--) {
+            lines.add("name " + i); // Same key in a later run
+        }
+        Path file = csv(lines);
+
+        MergeLoadResult first = service.mergeLoad(file, null, null);
+        assertEquals(9, first.runs());
+        assertEquals(4500, first.writeCount());
+        assertEquals(4500, first.repeatedInFile());
+        assertEquals(4500, jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT LOWER(NAME)) FROM PERSON", Long.class));
+
+        MergeLoadResult second = service.mergeLoad(file, null, null);
+        assertEquals(0, second.writeCount());
+        assertEquals(4500, second.alreadyInPerson());
+        assertEquals(4500, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PERSON", Long.class));
+    }
+
+    @Test
+    void missingFileFailsBeforeAnyWork() {
+        assertThrows(MergeLoadException.class, () -> service.mergeLoad(directory.resolve("absent.csv"), null, null));
+    }
+
+    private Path csv(List<String> names) throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("name");
+        lines.addAll(names);
+        return Files.write(directory.resolve("persons.csv"), lines, StandardCharsets.UTF_8);
+    }
+
+    private List<String> names() {
+        return jdbcTemplate.queryForList("SELECT NAME FROM PERSON ORDER BY NAME", String.class);
+    }
+}
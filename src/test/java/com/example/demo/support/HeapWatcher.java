@@ -0,0 +1,84 @@
+package com.example.demo.support;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the peak heap of a measured section
+ * - peakUsed: highest heap occupancy the JVM saw, garbage included (depends on -Xmx and the collector)
+ * - peakLive: highest heap occupancy right after a collection, i.e. the retained data set;
+ *   this is the stable number to put a threshold on
+ */
+public class HeapWatcher implements NotificationListener, AutoCloseable {
+
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+    private final AtomicLong peakLive = new AtomicLong();
+
+    public HeapWatcher() {
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        peakLive.set(currentUsed());
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener(this, null, null);
+        }
+    }
+
+    @Override
+    public void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        long live = 0;
+        for (Map.Entry<String, MemoryUsage> pool : info.getGcInfo().getMemoryUsageAfterGc().entrySet()) {
+            if (heapPools.stream().anyMatch(heapPool -> heapPool.getName().equals(pool.getKey()))) {
+                live += pool.getValue().getUsed();
+            }
+        }
+        peakLive.accumulateAndGet(live, Math::max);
+    }
+
+    public long peakUsedBytes() {
+        return heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    public long peakLiveBytes() {
+        return Math.max(peakLive.get(), currentUsedAfterGc());
+    }
+
+    private long currentUsedAfterGc() {
+        System.gc();
+        return currentUsed();
+    }
+
+    private long currentUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public void close() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            try {
+                ((NotificationEmitter) collector).removeNotificationListener(this);
+            } catch (ListenerNotFoundException e) {
+                // Not registered on this collector
+            }
+        }
+    }
+}
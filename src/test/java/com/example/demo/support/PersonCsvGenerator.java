@@ -0,0 +1,161 @@
+package com.example.demo.support;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of large person CSV files with Portuguese names
+ *
+ * HOW IT WORKS:
+ * - A name is a first name, a second given name and three surnames, 64 choices each,
+ *   so there are 2^30 distinct names; row i gets the name of a fixed permutation of i,
+ *   which keeps every unique row distinct up to 1 073 741 824 rows without remembering any
+ * - A duplicate row repeats the name of an earlier row in different letter case,
+ *   so it only matches case-insensitively
+ * - An invalid row has a blank or whitespace-only name, which the pipeline rejects
+ * - The same seed, row count and rates always give the same file
+ *
+ * Usage (after mvn test-compile):
+ *   java -cp target/test-classes com.example.demo.support.PersonCsvGenerator persons.csv 10000000 0.05 0.01
+ */
+public class PersonCsvGenerator {
+
+    private static final String[] GIVEN_NAMES = {
+            "João", "Maria", "José", "Ana", "António", "Francisca", "Francisco", "Antónia",
+            "Carlos", "Adriana", "Paulo", "Juliana", "Pedro", "Márcia", "Lucas", "Fernanda",
+            "Luís", "Patrícia", "Marcos", "Aline", "Luíza", "Sebastião", "Gonçalo", "Inês",
+            "Tomás", "Beatriz", "Rodrigo", "Leonor", "Martim", "Matilde", "Diogo", "Carolina",
+            "Rafael", "Mariana", "Tiago", "Constança", "André", "Margarida", "Miguel", "Sofia",
+            "Rui", "Raquel", "Nuno", "Cláudia", "Vítor", "Mónica", "Hélder", "Sónia",
+            "Bruno", "Vânia", "Fábio", "Débora", "Joaquim", "Conceição", "Manuel", "Fátima",
+            "Jorge", "Graça", "Álvaro", "Irene", "Simão", "Lúcia", "Caetano", "Estêvão"
+    };
+
+    private static final String[] SURNAMES = {
+            "Silva", "Santos", "Ferreira", "Pereira", "Oliveira", "Costa", "Rodrigues", "Martins",
+            "Jesus", "Sousa", "Fernandes", "Gonçalves", "Gomes", "Lopes", "Marques", "Alves",
+            "Almeida", "Ribeiro", "Pinto", "Carvalho", "Teixeira", "Moreira", "Correia", "Mendes",
+            "Nunes", "Soares", "Vieira", "Monteiro", "Cardoso", "Rocha", "Raposo", "Neves",
+            "Coelho", "Cruz", "Cunha", "Pires", "Ramos", "Reis", "Simões", "Antunes",
+            "Matos", "Fonseca", "Machado", "Araújo", "Barbosa", "Tavares", "Lourenço", "Castro",
+            "Figueiredo", "Azevedo", "Freitas", "Magalhães", "Brandão", "Assunção", "Conceição", "Guimarães",
+            "Lima", "Barros", "Falcão", "Brás", "Leitão", "Patrício", "Valente", "Damião"
+    };
+
+    private static final long NAME_SPACE = 1L << 30;
+    private static final long PERMUTATION_MULTIPLIER = 0x2545F491L; // Odd: a bijection modulo 2^30
+
+    private final long seed;
+    private final double duplicateRate;
+    private final double invalidRate;
+
+    /**
+     * @param seed Same seed, same file
+     * @param duplicateRate Fraction of rows repeating an earlier name (0-1)
+     * @param invalidRate Fraction of rows with a blank name (0-1)
+     */
+    public PersonCsvGenerator(long seed, double duplicateRate, double invalidRate) {
+        if (duplicateRate < 0 || invalidRate < 0 || duplicateRate + invalidRate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1 and add up to at most 1");
+        }
+        this.seed = seed;
+        this.duplicateRate = duplicateRate;
+        this.invalidRate = invalidRate;
+    }
+
+    /**
+     * Writes a CSV file with a "name" header and the given number of data rows
+     */
+    public Stats generate(Path file, long rows) throws IOException {
+        if (rows > NAME_SPACE) {
+            throw new IllegalArgumentException("At most " + NAME_SPACE + " rows");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        long uniqueRows = 0;
+        long duplicateRows = 0;
+        long invalidRows = 0;
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = new BufferedWriter(
+                Files.newBufferedWriter(file, StandardCharsets.UTF_8), 1 << 16)) {
+            writer.write("name\n");
+            StringBuilder name = new StringBuilder(64);
+
+            for (long row = 0; row < rows; row++) {
+                double roll = random.nextDouble();
+                name.setLength(0);
+
+                if (roll < invalidRate) {
+                    name.append(random.nextBoolean() ? "" : "   ");
+                    invalidRows++;
+                } else if (roll < invalidRate + duplicateRate && uniqueRows > 0) {
+                    appendName(name, random.nextLong(uniqueRows));
+                    String upper = name.toString().toUpperCase(Locale.ROOT);
+                    name.setLength(0);
+                    name.append(upper);
+                    duplicateRows++;
+                } else {
+                    appendName(name, uniqueRows);
+                    if (random.nextInt(4) == 0) {
+                        String lower = name.toString().toLowerCase(Locale.ROOT);
+                        name.setLength(0);
+                        name.append(lower);
+                    }
+                    uniqueRows++;
+                }
+                writer.append(name).append('\n');
+            }
+        }
+        return new Stats(rows, uniqueRows, duplicateRows, invalidRows, Files.size(file));
+    }
+
+    /**
+     * Appends the name with the given unique index (0 <= index < 2^30)
+     */
+    private void appendName(StringBuilder out, long index) {
+        long code = (index * PERMUTATION_MULTIPLIER + seed) & (NAME_SPACE - 1);
+        out.append(GIVEN_NAMES[(int) (code & 63)]).append(' ')
+           .append(GIVEN_NAMES[(int) ((code >>> 6) & 63)]).append(' ')
+           .append(SURNAMES[(int) ((code >>> 12) & 63)]).append(' ')
+           .append(SURNAMES[(int) ((code >>> 18) & 63)]).append(' ')
+           .append(SURNAMES[(int) ((code >>> 24) & 63)]);
+    }
+
+    /**
+     * What a generated file contains
+     */
+    public record Stats(long rows, long uniqueRows, long duplicateRows, long invalidRows, long sizeBytes) {
+
+        /**
+         * Rows that pass validation (unique and duplicate)
+         */
+        public long validRows() {
+            return uniqueRows + duplicateRows;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: PersonCsvGenerator <file> <rows> [duplicateRate] [invalidRate] [seed]");
+            System.exit(2);
+        }
+        long rows = Long.parseLong(args[1].replace("_", ""));
+        double duplicateRate = args.length > 2 ? Double.parseDouble(args[2]) : 0.05;
+        double invalidRate = args.length > 3 ? Double.parseDouble(args[3]) : 0.01;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : 42L;
+
+        long start = System.currentTimeMillis();
+        Stats stats = new PersonCsvGenerator(seed, duplicateRate, invalidRate).generate(Path.of(args[0]), rows);
+        System.out.printf("%s: %d rows (%d unique, %d duplicate, %d invalid), %d bytes in %d ms%n",
+                args[0], stats.rows(), stats.uniqueRows(), stats.duplicateRows(), stats.invalidRows(),
+                stats.sizeBytes(), System.currentTimeMillis() - start);
+    }
+}